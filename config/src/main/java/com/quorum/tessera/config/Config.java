@@ -24,6 +24,7 @@ public class Config extends ConfigItem {
     @NotNull
     @Valid
     @XmlElement(name = "jdbc", required = true)
+    @ValidJdbcConfig
     private JdbcConfig jdbcConfig;
 
     @Valid
@@ -63,6 +64,8 @@ public class Config extends ConfigItem {
 
     @XmlElement private EncryptorConfig encryptor;
 
+    @Valid @XmlElement private RecoveryConfig recovery;
+
     @XmlTransient private boolean recoveryMode;
 
     @Deprecated
@@ -214,6 +217,14 @@ public class Config extends ConfigItem {
         this.encryptor = encryptor;
     }
 
+    public RecoveryConfig getRecovery() {
+        return recovery;
+    }
+
+    public void setRecovery(RecoveryConfig recovery) {
+        this.recovery = recovery;
+    }
+
     public boolean isRecoveryMode() {
         return recoveryMode;
     }
@@ -14,6 +14,9 @@ public class FeatureToggles {
     @XmlElement(defaultValue = "false")
     private boolean enablePrivacyEnhancements;
 
+    @XmlElement(defaultValue = "false")
+    private boolean enableOutbox;
+
     public FeatureToggles() {}
 
     public boolean isEnableRemoteKeyValidation() {
@@ -32,6 +35,18 @@ public class FeatureToggles {
         this.enablePrivacyEnhancements = enablePrivacyEnhancements;
     }
 
+    /**
+     * Whether new transactions are committed along with a record of each delivery still to make, and pushed to their
+     * recipients in the background, rather than pushed before the send request returns
+     */
+    public boolean isEnableOutbox() {
+        return enableOutbox;
+    }
+
+    public void setEnableOutbox(boolean enableOutbox) {
+        this.enableOutbox = enableOutbox;
+    }
+
     @Override
     public boolean equals(final Object o) {
         if (!(o instanceof FeatureToggles)) {
@@ -40,11 +55,12 @@ public class FeatureToggles {
 
         final FeatureToggles that = (FeatureToggles) o;
         return isEnableRemoteKeyValidation() == that.isEnableRemoteKeyValidation()
-                && isEnablePrivacyEnhancements() == that.isEnablePrivacyEnhancements();
+                && isEnablePrivacyEnhancements() == that.isEnablePrivacyEnhancements()
+                && isEnableOutbox() == that.isEnableOutbox();
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(isEnableRemoteKeyValidation(), isEnablePrivacyEnhancements());
+        return Objects.hash(isEnableRemoteKeyValidation(), isEnablePrivacyEnhancements(), isEnableOutbox());
     }
 }
@@ -1,5 +1,6 @@
 package com.quorum.tessera.config;
 
+import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
 import javax.xml.bind.annotation.XmlAccessType;
 import javax.xml.bind.annotation.XmlAccessorType;
@@ -22,6 +23,28 @@ public class JdbcConfig extends ConfigItem {
 
     @XmlElement private int fetchSize;
 
+    /**
+     * The total size in bytes of the encoded payloads to keep in memory, along with their decoded form, for
+     * transactions looked up by hash. Zero, the default, turns the cache off.
+     */
+    @XmlElement private long payloadCacheSize;
+
+    /**
+     * Store the cipher text of each transaction in its own table, apart from its recipients, so that adding a recipient
+     * does not rewrite the cipher text. The ENCRYPTED_TRANSACTION_BLOB table must exist before turning this on.
+     */
+    @XmlElement(defaultValue = "false")
+    private boolean blobStorage;
+
+    /** Tuning of the connection pool and persistence layer, which keep their defaults if not given */
+    @Valid @XmlElement private JdbcPerformanceConfig performance;
+
+    /**
+     * Keeps transactions and raw transactions in an embedded log-structured store rather than the database, which still
+     * holds everything else
+     */
+    @Valid @XmlElement private LogStoreConfig logStore;
+
     public JdbcConfig(String username, String password, String url) {
         this.username = username;
         this.password = password;
@@ -71,4 +94,36 @@ public class JdbcConfig extends ConfigItem {
     public void setFetchSize(int fetchSize) {
         this.fetchSize = fetchSize;
     }
+
+    public long getPayloadCacheSize() {
+        return payloadCacheSize;
+    }
+
+    public void setPayloadCacheSize(long payloadCacheSize) {
+        this.payloadCacheSize = payloadCacheSize;
+    }
+
+    public boolean isBlobStorage() {
+        return blobStorage;
+    }
+
+    public void setBlobStorage(boolean blobStorage) {
+        this.blobStorage = blobStorage;
+    }
+
+    public JdbcPerformanceConfig getPerformance() {
+        return performance;
+    }
+
+    public void setPerformance(JdbcPerformanceConfig performance) {
+        this.performance = performance;
+    }
+
+    public LogStoreConfig getLogStore() {
+        return logStore;
+    }
+
+    public void setLogStore(LogStoreConfig logStore) {
+        this.logStore = logStore;
+    }
 }
@@ -0,0 +1,123 @@
+package com.quorum.tessera.config;
+
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+
+/**
+ * Tuning of the connection pool and persistence layer used to reach the database. Pool settings that are not given
+ * keep the defaults of the connection pool.
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class JdbcPerformanceConfig extends ConfigItem {
+
+    /** The largest number of connections the pool may open */
+    @Positive
+    @XmlElement
+    private Integer maximumPoolSize;
+
+    /** The number of idle connections the pool tries to keep open */
+    @PositiveOrZero(message = "{ValidPositiveInteger.message}")
+    @XmlElement
+    private Integer minimumIdle;
+
+    /** How long, in milliseconds, to wait for a connection from the pool before failing */
+    @Positive
+    @XmlElement
+    private Long connectionTimeout;
+
+    /** How long, in milliseconds, a connection may sit idle before it is closed */
+    @PositiveOrZero(message = "{ValidPositiveInteger.message}")
+    @XmlElement
+    private Long idleTimeout;
+
+    /** The longest time, in milliseconds, a connection is kept open */
+    @PositiveOrZero(message = "{ValidPositiveInteger.message}")
+    @XmlElement
+    private Long maxLifetime;
+
+    /**
+     * The number of prepared statements the JDBC driver keeps for each connection. Applied for the H2, PostgreSQL,
+     * MySQL and MariaDB drivers, and ignored for others.
+     */
+    @PositiveOrZero(message = "{ValidPositiveInteger.message}")
+    @XmlElement
+    private Integer statementCacheSize;
+
+    /** The number of inserts and updates sent to the database together when a transaction commits, or 0 for none */
+    @PositiveOrZero(message = "{ValidPositiveInteger.message}")
+    @XmlElement(defaultValue = "0")
+    private int batchWritingSize;
+
+    /** The level at which the persistence layer logs, such as OFF, WARNING, INFO or FINE */
+    @XmlElement(defaultValue = "OFF")
+    private String loggingLevel;
+
+    public JdbcPerformanceConfig() {}
+
+    public Integer getMaximumPoolSize() {
+        return maximumPoolSize;
+    }
+
+    public void setMaximumPoolSize(Integer maximumPoolSize) {
+        this.maximumPoolSize = maximumPoolSize;
+    }
+
+    public Integer getMinimumIdle() {
+        return minimumIdle;
+    }
+
+    public void setMinimumIdle(Integer minimumIdle) {
+        this.minimumIdle = minimumIdle;
+    }
+
+    public Long getConnectionTimeout() {
+        return connectionTimeout;
+    }
+
+    public void setConnectionTimeout(Long connectionTimeout) {
+        this.connectionTimeout = connectionTimeout;
+    }
+
+    public Long getIdleTimeout() {
+        return idleTimeout;
+    }
+
+    public void setIdleTimeout(Long idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+
+    public Long getMaxLifetime() {
+        return maxLifetime;
+    }
+
+    public void setMaxLifetime(Long maxLifetime) {
+        this.maxLifetime = maxLifetime;
+    }
+
+    public Integer getStatementCacheSize() {
+        return statementCacheSize;
+    }
+
+    public void setStatementCacheSize(Integer statementCacheSize) {
+        this.statementCacheSize = statementCacheSize;
+    }
+
+    public int getBatchWritingSize() {
+        return batchWritingSize;
+    }
+
+    public void setBatchWritingSize(int batchWritingSize) {
+        this.batchWritingSize = batchWritingSize;
+    }
+
+    public String getLoggingLevel() {
+        return loggingLevel;
+    }
+
+    public void setLoggingLevel(String loggingLevel) {
+        this.loggingLevel = loggingLevel;
+    }
+}
@@ -0,0 +1,80 @@
+package com.quorum.tessera.config;
+
+import com.quorum.tessera.config.adapters.PathAdapter;
+
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Positive;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+import javax.xml.bind.annotation.adapters.XmlJavaTypeAdapter;
+import java.nio.file.Path;
+
+/**
+ * Settings of the embedded log-structured store, which holds transactions and raw transactions in place of the
+ * database. Settings that are not given keep the defaults of the store.
+ */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class LogStoreConfig extends ConfigItem {
+
+    /** The directory holding the log segments, which is created if it does not exist */
+    @NotNull
+    @XmlElement(type = String.class, required = true)
+    @XmlJavaTypeAdapter(PathAdapter.class)
+    private Path directory;
+
+    /** The size in bytes at which a segment is sealed and a new one started */
+    @Positive
+    @XmlElement
+    private Long segmentSize;
+
+    /** Whether each write waits until it is on disk. Concurrent writes share a single sync. */
+    @XmlElement(defaultValue = "true")
+    private boolean syncWrites = true;
+
+    /** The share of replaced and deleted records in sealed segments, above 0 and at most 1, that starts a compaction */
+    @DecimalMin(value = "0", inclusive = false)
+    @DecimalMax("1")
+    @XmlElement
+    private Double compactionThreshold;
+
+    public LogStoreConfig() {}
+
+    public LogStoreConfig(Path directory) {
+        this.directory = directory;
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(Path directory) {
+        this.directory = directory;
+    }
+
+    public Long getSegmentSize() {
+        return segmentSize;
+    }
+
+    public void setSegmentSize(Long segmentSize) {
+        this.segmentSize = segmentSize;
+    }
+
+    public boolean isSyncWrites() {
+        return syncWrites;
+    }
+
+    public void setSyncWrites(boolean syncWrites) {
+        this.syncWrites = syncWrites;
+    }
+
+    public Double getCompactionThreshold() {
+        return compactionThreshold;
+    }
+
+    public void setCompactionThreshold(Double compactionThreshold) {
+        this.compactionThreshold = compactionThreshold;
+    }
+}
@@ -0,0 +1,26 @@
+package com.quorum.tessera.config;
+
+import javax.validation.constraints.PositiveOrZero;
+import javax.xml.bind.annotation.XmlAccessType;
+import javax.xml.bind.annotation.XmlAccessorType;
+import javax.xml.bind.annotation.XmlElement;
+
+/** Settings used when a node is started in recovery mode */
+@XmlAccessorType(XmlAccessType.FIELD)
+public class RecoveryConfig extends ConfigItem {
+
+    /** The number of threads used to store recovered transactions, or 0 to use one per available processor */
+    @PositiveOrZero(message = "{ValidPositiveInteger.message}")
+    @XmlElement(defaultValue = "0")
+    private int syncThreads;
+
+    public RecoveryConfig() {}
+
+    public int getSyncThreads() {
+        return syncThreads;
+    }
+
+    public void setSyncThreads(int syncThreads) {
+        this.syncThreads = syncThreads;
+    }
+}
@@ -0,0 +1,15 @@
+package com.quorum.tessera.config.constraints;
+
+import com.quorum.tessera.config.JdbcConfig;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+/** Transactions are kept either in the database, optionally with their payloads split out, or in a log store */
+public class JdbcConfigValidator implements ConstraintValidator<ValidJdbcConfig, JdbcConfig> {
+
+    @Override
+    public boolean isValid(JdbcConfig jdbcConfig, ConstraintValidatorContext cvc) {
+        return jdbcConfig == null || !(jdbcConfig.isBlobStorage() && jdbcConfig.getLogStore() != null);
+    }
+}
@@ -0,0 +1,37 @@
+package com.quorum.tessera.config.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/** Reads the settings of the client used to call other nodes from the properties of the P2P server config */
+public class ClientPropertyHelper {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClientPropertyHelper.class);
+
+    private final Map<String, String> properties;
+
+    public ClientPropertyHelper(final Map<String, String> properties) {
+        this.properties = properties;
+    }
+
+    /** Whether to call other nodes with the non-blocking HTTP client rather than the JAX-RS client */
+    public boolean asyncClient() {
+        return Boolean.parseBoolean(properties.getOrDefault("asyncClient", "false"));
+    }
+
+    /** The most requests the non-blocking client has in flight to a single node, and so connections it opens to it */
+    public int maxConnectionsPerPeer() {
+        try {
+            final int maxConnections = Integer.parseInt(properties.getOrDefault("maxConnectionsPerPeer", "8"));
+            if (maxConnections > 0) {
+                return maxConnections;
+            }
+        } catch (NumberFormatException ex) {
+            // fall through to the default
+        }
+        LOGGER.warn("Not able to parse configured property. Will use default value instead");
+        return 8;
+    }
+}
@@ -42,6 +42,15 @@ public class IntervalPropertyHelper {
         }
     }
 
+    public long outboxDispatchInterval() {
+        try {
+            return Long.parseLong(properties.getOrDefault("outboxDispatchInterval", "1000"));
+        } catch (NumberFormatException ex) {
+            LOGGER.warn("Not able to parse configured property. Will use default value instead");
+            return 1000L;
+        }
+    }
+
     public String resendWaitTime() {
         try {
             return Long.toString(Long.parseLong(properties.getOrDefault("resendWaitTime", "7200000"))); // 2 hours
@@ -0,0 +1,57 @@
+package com.quorum.tessera.config.constraints;
+
+import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.config.LogStoreConfig;
+import org.junit.Test;
+
+import javax.validation.ConstraintValidatorContext;
+import java.nio.file.Paths;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class JdbcConfigValidatorTest {
+
+    private JdbcConfigValidator validator = new JdbcConfigValidator();
+
+    @Test
+    public void neitherSetIsValid() {
+
+        final JdbcConfig jdbcConfig = new JdbcConfig("sa", "", "jdbc:h2:mem:");
+
+        assertThat(validator.isValid(jdbcConfig, mock(ConstraintValidatorContext.class))).isTrue();
+    }
+
+    @Test
+    public void blobStorageSetIsValid() {
+
+        final JdbcConfig jdbcConfig = new JdbcConfig("sa", "", "jdbc:h2:mem:");
+        jdbcConfig.setBlobStorage(true);
+
+        assertThat(validator.isValid(jdbcConfig, mock(ConstraintValidatorContext.class))).isTrue();
+    }
+
+    @Test
+    public void logStoreSetIsValid() {
+
+        final JdbcConfig jdbcConfig = new JdbcConfig("sa", "", "jdbc:h2:mem:");
+        jdbcConfig.setLogStore(new LogStoreConfig(Paths.get("anything")));
+
+        assertThat(validator.isValid(jdbcConfig, mock(ConstraintValidatorContext.class))).isTrue();
+    }
+
+    @Test
+    public void bothSetIsInvalid() {
+
+        final JdbcConfig jdbcConfig = new JdbcConfig("sa", "", "jdbc:h2:mem:");
+        jdbcConfig.setBlobStorage(true);
+        jdbcConfig.setLogStore(new LogStoreConfig(Paths.get("anything")));
+
+        assertThat(validator.isValid(jdbcConfig, mock(ConstraintValidatorContext.class))).isFalse();
+    }
+
+    @Test
+    public void nullConfigIsValid() {
+        assertThat(validator.isValid(null, mock(ConstraintValidatorContext.class))).isTrue();
+    }
+}
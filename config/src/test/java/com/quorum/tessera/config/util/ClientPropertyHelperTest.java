@@ -0,0 +1,47 @@
+package com.quorum.tessera.config.util;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ClientPropertyHelperTest {
+
+    @Test
+    public void testDefaultValues() {
+        final ClientPropertyHelper util = new ClientPropertyHelper(Collections.emptyMap());
+
+        assertThat(util.asyncClient()).isFalse();
+        assertThat(util.maxConnectionsPerPeer()).isEqualTo(8);
+    }
+
+    @Test
+    public void getValues() {
+        final Map<String, String> props = new HashMap<>();
+        props.put("asyncClient", "true");
+        props.put("maxConnectionsPerPeer", "2");
+
+        final ClientPropertyHelper util = new ClientPropertyHelper(props);
+
+        assertThat(util.asyncClient()).isTrue();
+        assertThat(util.maxConnectionsPerPeer()).isEqualTo(2);
+    }
+
+    @Test
+    public void testExceptions() {
+        final Map<String, String> props = new HashMap<>();
+        props.put("asyncClient", "yes");
+        props.put("maxConnectionsPerPeer", "abc");
+
+        final ClientPropertyHelper util = new ClientPropertyHelper(props);
+
+        assertThat(util.asyncClient()).isFalse();
+        assertThat(util.maxConnectionsPerPeer()).isEqualTo(8);
+
+        props.put("maxConnectionsPerPeer", "0");
+        assertThat(util.maxConnectionsPerPeer()).isEqualTo(8);
+    }
+}
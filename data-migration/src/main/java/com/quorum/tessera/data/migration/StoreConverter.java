@@ -0,0 +1,212 @@
+package com.quorum.tessera.data.migration;
+
+import com.quorum.tessera.cli.CliResult;
+import picocli.CommandLine;
+import picocli.CommandLine.Command;
+import picocli.CommandLine.Option;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Copies the tables of an existing Tessera store into another database, such as one created with the partitioned
+ * DDLs. Rows are read and written in batches, so stores larger than the available memory can be converted.
+ */
+@Command(
+        name = "convert-store",
+        headerHeading = "Usage:%n%n",
+        synopsisHeading = "%n",
+        optionListHeading = "%nOptions:%n",
+        header = "Copies a Tessera database into a new database with a different layout")
+public class StoreConverter implements Callable<CliResult> {
+
+    static final List<String> TABLES =
+            List.of(
+                    "ENCRYPTED_TRANSACTION",
+                    "ENCRYPTED_TRANSACTION_BLOB",
+                    "ENCRYPTED_RAW_TRANSACTION",
+                    "PENDING_DELIVERY");
+
+    @Option(names = "help", usageHelp = true, description = "display this help message")
+    private boolean isHelpRequested;
+
+    @Option(names = "-sourceurl", required = true, description = "JDBC url of the database to copy from")
+    private String sourceUrl;
+
+    @Option(names = "-sourceuser", description = "Username of the database to copy from")
+    private String sourceUsername;
+
+    @Option(names = "-sourcepass", description = "Password of the database to copy from")
+    private String sourcePassword;
+
+    @Option(names = "-targeturl", required = true, description = "JDBC url of the database to copy to")
+    private String targetUrl;
+
+    @Option(names = "-targetuser", description = "Username of the database to copy to")
+    private String targetUsername;
+
+    @Option(names = "-targetpass", description = "Password of the database to copy to")
+    private String targetPassword;
+
+    @Option(names = "-targetddl", description = "DDL file to run against the target database before copying")
+    private Path targetDdl;
+
+    @Option(names = "-batchsize", description = "Number of rows to insert in each batch, 1000 by default")
+    private int batchSize = 1000;
+
+    public static void main(final String... args) {
+        final CommandLine commandLine = new CommandLine(new StoreConverter()).setSeparator(" ");
+        final int exitCode = commandLine.execute(args);
+        final CliResult cliResult = commandLine.getExecutionResult();
+
+        System.exit(Objects.isNull(cliResult) ? exitCode : cliResult.getStatus());
+    }
+
+    @Override
+    public CliResult call() throws Exception {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("batchsize must be at least 1");
+        }
+
+        try (Connection source = DriverManager.getConnection(sourceUrl, sourceUsername, sourcePassword);
+                Connection target = DriverManager.getConnection(targetUrl, targetUsername, targetPassword)) {
+
+            if (targetDdl != null) {
+                createTables(target, targetDdl);
+            }
+
+            for (final String table : TABLES) {
+                if (!tableExists(source, table)) {
+                    System.out.printf("Skipping %s, which does not exist in the source database", table);
+                    System.out.println();
+                    continue;
+                }
+
+                final long count = copyTable(source, target, table);
+                System.out.printf("Copied %d rows of %s", count, table);
+                System.out.println();
+            }
+        }
+
+        return new CliResult(0, true, null);
+    }
+
+    private static void createTables(final Connection target, final Path ddl) throws IOException, SQLException {
+        final String script =
+                Files.readAllLines(ddl).stream()
+                        .filter(line -> !line.trim().startsWith("--"))
+                        .collect(Collectors.joining("\n"));
+
+        try (Statement statement = target.createStatement()) {
+            for (final String sql : script.split(";")) {
+                if (!sql.isBlank()) {
+                    statement.execute(sql.trim());
+                }
+            }
+        }
+    }
+
+    private static boolean tableExists(final Connection connection, final String table) throws SQLException {
+        final DatabaseMetaData metaData = connection.getMetaData();
+        for (final String name : List.of(table, table.toLowerCase())) {
+            try (ResultSet tables = metaData.getTables(null, null, name, null)) {
+                if (tables.next()) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private long copyTable(final Connection source, final Connection target, final String table) throws SQLException {
+        final boolean autoCommit = target.getAutoCommit();
+        target.setAutoCommit(false);
+
+        // PostgreSQL only reads the rows a fetch at a time inside a transaction, and reads them all at once otherwise
+        final boolean sourceAutoCommit = source.getAutoCommit();
+        source.setAutoCommit(false);
+
+        try (Statement select = source.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+            select.setFetchSize(fetchSize(source.getMetaData().getDriverName(), sourceUrl, batchSize));
+
+            try (ResultSet rows = select.executeQuery("SELECT * FROM " + table)) {
+                final ResultSetMetaData metaData = rows.getMetaData();
+                final int columnCount = metaData.getColumnCount();
+
+                final String columns =
+                        IntStream.rangeClosed(1, columnCount)
+                                .mapToObj(i -> JdbcCallback.execute(() -> metaData.getColumnName(i)))
+                                .collect(Collectors.joining(", "));
+                final String placeholders =
+                        IntStream.rangeClosed(1, columnCount)
+                                .mapToObj(i -> "?")
+                                .collect(Collectors.joining(", "));
+
+                final String insert = "INSERT INTO " + table + " (" + columns + ") VALUES (" + placeholders + ")";
+
+                long count = 0;
+                try (PreparedStatement statement = target.prepareStatement(insert)) {
+                    while (rows.next()) {
+                        for (int i = 1; i <= columnCount; i++) {
+                            if (isBinary(metaData.getColumnType(i))) {
+                                statement.setBytes(i, rows.getBytes(i));
+                            } else {
+                                statement.setObject(i, rows.getObject(i));
+                            }
+                        }
+                        statement.addBatch();
+
+                        if (++count % batchSize == 0) {
+                            statement.executeBatch();
+                            target.commit();
+                        }
+                    }
+                    statement.executeBatch();
+                    target.commit();
+                }
+                return count;
+            }
+        } catch (final SQLException ex) {
+            target.rollback();
+            throw ex;
+        } finally {
+            target.setAutoCommit(autoCommit);
+            source.rollback();
+            source.setAutoCommit(sourceAutoCommit);
+        }
+    }
+
+    /**
+     * Gives the fetch size to read the source with. MySQL Connector/J reads the whole result into memory for any other
+     * fetch size, and only streams the rows for {@link Integer#MIN_VALUE}, unless cursor fetches are turned on in the
+     * url.
+     */
+    static int fetchSize(final String driverName, final String url, final int batchSize) {
+        if (driverName.startsWith("MySQL") && !url.contains("useCursorFetch=true")) {
+            return Integer.MIN_VALUE;
+        }
+        return batchSize;
+    }
+
+    private static boolean isBinary(final int type) {
+        return type == Types.BINARY
+                || type == Types.VARBINARY
+                || type == Types.LONGVARBINARY
+                || type == Types.BLOB;
+    }
+}
@@ -0,0 +1,128 @@
+package com.quorum.tessera.data.migration;
+
+import com.quorum.tessera.cli.CliResult;
+import org.junit.Before;
+import org.junit.Test;
+import picocli.CommandLine;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StoreConverterTest {
+
+    private String sourceUrl;
+
+    private String targetUrl;
+
+    private Path targetDdl;
+
+    @Before
+    public void onSetUp() throws Exception {
+        sourceUrl = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        targetUrl = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+
+        try (Connection conn = DriverManager.getConnection(sourceUrl);
+                Statement statement = conn.createStatement()) {
+            statement.execute(
+                    "CREATE TABLE ENCRYPTED_TRANSACTION (ENCODED_PAYLOAD BLOB NOT NULL, "
+                            + "HASH VARBINARY(100) NOT NULL, TIMESTAMP BIGINT, PRIMARY KEY (HASH))");
+        }
+
+        targetDdl = Files.createTempFile("StoreConverterTest", ".sql");
+        Files.write(
+                targetDdl,
+                ("-- target layout\n"
+                                + "CREATE TABLE ENCRYPTED_TRANSACTION (ENCODED_PAYLOAD BLOB NOT NULL, "
+                                + "HASH VARBINARY(100) NOT NULL, TIMESTAMP BIGINT, PRIMARY KEY (HASH));\n"
+                                + "CREATE INDEX ENCRYPTED_TX_TIMESTAMP_HASH "
+                                + "ON ENCRYPTED_TRANSACTION (TIMESTAMP, HASH);\n")
+                        .getBytes());
+    }
+
+    @Test
+    public void copiesRowsInBatches() throws SQLException {
+        final String insertRow =
+                "INSERT INTO ENCRYPTED_TRANSACTION (HASH, ENCODED_PAYLOAD, TIMESTAMP) VALUES (?, ?, ?)";
+        try (Connection conn = DriverManager.getConnection(sourceUrl);
+                PreparedStatement insert = conn.prepareStatement(insertRow)) {
+            for (int i = 0; i < 5; i++) {
+                insert.setBytes(1, ("HASH" + i).getBytes());
+                insert.setBytes(2, ("PAYLOAD" + i).getBytes());
+                insert.setLong(3, i);
+                insert.execute();
+            }
+        }
+
+        final CommandLine commandLine = new CommandLine(new StoreConverter()).setSeparator(" ");
+        final int exitCode =
+                commandLine.execute(
+                        "-sourceurl", sourceUrl,
+                        "-targeturl", targetUrl,
+                        "-targetddl", targetDdl.toString(),
+                        "-batchsize", "2");
+
+        assertThat(exitCode).isZero();
+        assertThat(commandLine.<CliResult>getExecutionResult().getStatus()).isZero();
+
+        try (Connection conn = DriverManager.getConnection(targetUrl);
+                ResultSet rs =
+                        conn.createStatement()
+                                .executeQuery("SELECT * FROM ENCRYPTED_TRANSACTION ORDER BY TIMESTAMP")) {
+            for (int i = 0; i < 5; i++) {
+                assertThat(rs.next()).isTrue();
+                assertThat(rs.getBytes("HASH")).isEqualTo(("HASH" + i).getBytes());
+                assertThat(rs.getBytes("ENCODED_PAYLOAD")).isEqualTo(("PAYLOAD" + i).getBytes());
+                assertThat(rs.getLong("TIMESTAMP")).isEqualTo(i);
+            }
+            assertThat(rs.next()).isFalse();
+        }
+    }
+
+    @Test
+    public void missingSourceTablesAreSkipped() {
+        final String emptySource = "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+
+        final int exitCode =
+                new CommandLine(new StoreConverter())
+                        .setSeparator(" ")
+                        .execute("-sourceurl", emptySource, "-targeturl", targetUrl);
+
+        assertThat(exitCode).isZero();
+    }
+
+    @Test
+    public void batchSizeMustBePositive() {
+        final int exitCode =
+                new CommandLine(new StoreConverter())
+                        .setSeparator(" ")
+                        .execute("-sourceurl", sourceUrl, "-targeturl", targetUrl, "-batchsize", "0");
+
+        assertThat(exitCode).isNotZero();
+    }
+
+    @Test
+    public void mysqlSourceIsStreamed() {
+        assertThat(StoreConverter.fetchSize("MySQL Connector/J", "jdbc:mysql://localhost/tessera", 100))
+                .isEqualTo(Integer.MIN_VALUE);
+        assertThat(
+                        StoreConverter.fetchSize(
+                                "MySQL Connector/J", "jdbc:mysql://localhost/tessera?useCursorFetch=true", 100))
+                .isEqualTo(100);
+    }
+
+    @Test
+    public void otherSourcesFetchInBatches() {
+        assertThat(StoreConverter.fetchSize("PostgreSQL JDBC Driver", "jdbc:postgresql://localhost/tessera", 100))
+                .isEqualTo(100);
+        assertThat(StoreConverter.fetchSize("H2 JDBC Driver", sourceUrl, 100)).isEqualTo(100);
+    }
+}
@@ -0,0 +1 @@
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB (CIPHER_TEXT LONGVARBINARY NOT NULL, HASH LONGVARBINARY NOT NULL, PRIMARY KEY (HASH));
@@ -0,0 +1 @@
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB (CIPHER_TEXT BLOB NOT NULL, HASH VARBINARY(100) NOT NULL, PRIMARY KEY (HASH));
@@ -0,0 +1 @@
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB (CIPHER_TEXT BYTEA NOT NULL, HASH BYTEA NOT NULL, PRIMARY KEY (HASH));
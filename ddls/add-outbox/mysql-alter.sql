@@ -0,0 +1,2 @@
+CREATE TABLE PENDING_DELIVERY (HASH VARBINARY(100) NOT NULL, RECIPIENT_KEY VARBINARY(100) NOT NULL, CREATED BIGINT NOT NULL, ATTEMPTS INTEGER NOT NULL, NEXT_ATTEMPT BIGINT NOT NULL, PRIMARY KEY (HASH, RECIPIENT_KEY));
+CREATE INDEX PENDING_DELIVERY_NEXT_ATTEMPT ON PENDING_DELIVERY (NEXT_ATTEMPT);
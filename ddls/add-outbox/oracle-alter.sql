@@ -0,0 +1,2 @@
+CREATE TABLE PENDING_DELIVERY (HASH RAW(100) NOT NULL, RECIPIENT_KEY RAW(100) NOT NULL, CREATED NUMBER(19) NOT NULL, ATTEMPTS NUMBER(10) NOT NULL, NEXT_ATTEMPT NUMBER(19) NOT NULL, PRIMARY KEY (HASH, RECIPIENT_KEY));
+CREATE INDEX PENDING_DELIVERY_NEXT_ATTEMPT ON PENDING_DELIVERY (NEXT_ATTEMPT);
@@ -0,0 +1,2 @@
+CREATE TABLE PENDING_DELIVERY (HASH BYTEA NOT NULL, RECIPIENT_KEY BYTEA NOT NULL, CREATED DECIMAL(19) NOT NULL, ATTEMPTS INTEGER NOT NULL, NEXT_ATTEMPT DECIMAL(19) NOT NULL, PRIMARY KEY (HASH, RECIPIENT_KEY));
+CREATE INDEX PENDING_DELIVERY_NEXT_ATTEMPT ON PENDING_DELIVERY (NEXT_ATTEMPT);
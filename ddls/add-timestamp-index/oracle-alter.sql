@@ -0,0 +1 @@
+CREATE INDEX ENCRYPTED_TX_TIMESTAMP_HASH ON ENCRYPTED_TRANSACTION (TIMESTAMP, HASH);
@@ -0,0 +1,38 @@
+CREATE TABLE ENCRYPTED_TRANSACTION (ENCODED_PAYLOAD BYTEA NOT NULL, HASH BYTEA NOT NULL, TIMESTAMP DECIMAL(19), RECIPIENT_KEY BYTEA, PRIMARY KEY (HASH)) PARTITION BY HASH (HASH);
+CREATE TABLE ENCRYPTED_TRANSACTION_P0 PARTITION OF ENCRYPTED_TRANSACTION FOR VALUES WITH (MODULUS 16, REMAINDER 0);
+CREATE TABLE ENCRYPTED_TRANSACTION_P1 PARTITION OF ENCRYPTED_TRANSACTION FOR VALUES WITH (MODULUS 16, REMAINDER 1);
+CREATE TABLE ENCRYPTED_TRANSACTION_P2 PARTITION OF ENCRYPTED_TRANSACTION FOR VALUES WITH (MODULUS 16, REMAINDER 2);
+CREATE TABLE ENCRYPTED_TRANSACTION_P3 PARTITION OF ENCRYPTED_TRANSACTION FOR VALUES WITH (MODULUS 16, REMAINDER 3);
+CREATE TABLE ENCRYPTED_TRANSACTION_P4 PARTITION OF ENCRYPTED_TRANSACTION FOR VALUES WITH (MODULUS 16, REMAINDER 4);
+CREATE TABLE ENCRYPTED_TRANSACTION_P5 PARTITION OF ENCRYPTED_TRANSACTION FOR VALUES WITH (MODULUS 16, REMAINDER 5);
+CREATE TABLE ENCRYPTED_TRANSACTION_P6 PARTITION OF ENCRYPTED_TRANSACTION FOR VALUES WITH (MODULUS 16, REMAINDER 6);
+CREATE TABLE ENCRYPTED_TRANSACTION_P7 PARTITION OF ENCRYPTED_TRANSACTION FOR VALUES WITH (MODULUS 16, REMAINDER 7);
+CREATE TABLE ENCRYPTED_TRANSACTION_P8 PARTITION OF ENCRYPTED_TRANSACTION FOR VALUES WITH (MODULUS 16, REMAINDER 8);
+CREATE TABLE ENCRYPTED_TRANSACTION_P9 PARTITION OF ENCRYPTED_TRANSACTION FOR VALUES WITH (MODULUS 16, REMAINDER 9);
+CREATE TABLE ENCRYPTED_TRANSACTION_P10 PARTITION OF ENCRYPTED_TRANSACTION FOR VALUES WITH (MODULUS 16, REMAINDER 10);
+CREATE TABLE ENCRYPTED_TRANSACTION_P11 PARTITION OF ENCRYPTED_TRANSACTION FOR VALUES WITH (MODULUS 16, REMAINDER 11);
+CREATE TABLE ENCRYPTED_TRANSACTION_P12 PARTITION OF ENCRYPTED_TRANSACTION FOR VALUES WITH (MODULUS 16, REMAINDER 12);
+CREATE TABLE ENCRYPTED_TRANSACTION_P13 PARTITION OF ENCRYPTED_TRANSACTION FOR VALUES WITH (MODULUS 16, REMAINDER 13);
+CREATE TABLE ENCRYPTED_TRANSACTION_P14 PARTITION OF ENCRYPTED_TRANSACTION FOR VALUES WITH (MODULUS 16, REMAINDER 14);
+CREATE TABLE ENCRYPTED_TRANSACTION_P15 PARTITION OF ENCRYPTED_TRANSACTION FOR VALUES WITH (MODULUS 16, REMAINDER 15);
+CREATE INDEX ENCRYPTED_TX_TIMESTAMP_HASH ON ENCRYPTED_TRANSACTION (TIMESTAMP, HASH);
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB (CIPHER_TEXT BYTEA NOT NULL, HASH BYTEA NOT NULL, PRIMARY KEY (HASH)) PARTITION BY HASH (HASH);
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB_P0 PARTITION OF ENCRYPTED_TRANSACTION_BLOB FOR VALUES WITH (MODULUS 16, REMAINDER 0);
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB_P1 PARTITION OF ENCRYPTED_TRANSACTION_BLOB FOR VALUES WITH (MODULUS 16, REMAINDER 1);
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB_P2 PARTITION OF ENCRYPTED_TRANSACTION_BLOB FOR VALUES WITH (MODULUS 16, REMAINDER 2);
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB_P3 PARTITION OF ENCRYPTED_TRANSACTION_BLOB FOR VALUES WITH (MODULUS 16, REMAINDER 3);
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB_P4 PARTITION OF ENCRYPTED_TRANSACTION_BLOB FOR VALUES WITH (MODULUS 16, REMAINDER 4);
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB_P5 PARTITION OF ENCRYPTED_TRANSACTION_BLOB FOR VALUES WITH (MODULUS 16, REMAINDER 5);
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB_P6 PARTITION OF ENCRYPTED_TRANSACTION_BLOB FOR VALUES WITH (MODULUS 16, REMAINDER 6);
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB_P7 PARTITION OF ENCRYPTED_TRANSACTION_BLOB FOR VALUES WITH (MODULUS 16, REMAINDER 7);
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB_P8 PARTITION OF ENCRYPTED_TRANSACTION_BLOB FOR VALUES WITH (MODULUS 16, REMAINDER 8);
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB_P9 PARTITION OF ENCRYPTED_TRANSACTION_BLOB FOR VALUES WITH (MODULUS 16, REMAINDER 9);
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB_P10 PARTITION OF ENCRYPTED_TRANSACTION_BLOB FOR VALUES WITH (MODULUS 16, REMAINDER 10);
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB_P11 PARTITION OF ENCRYPTED_TRANSACTION_BLOB FOR VALUES WITH (MODULUS 16, REMAINDER 11);
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB_P12 PARTITION OF ENCRYPTED_TRANSACTION_BLOB FOR VALUES WITH (MODULUS 16, REMAINDER 12);
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB_P13 PARTITION OF ENCRYPTED_TRANSACTION_BLOB FOR VALUES WITH (MODULUS 16, REMAINDER 13);
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB_P14 PARTITION OF ENCRYPTED_TRANSACTION_BLOB FOR VALUES WITH (MODULUS 16, REMAINDER 14);
+CREATE TABLE ENCRYPTED_TRANSACTION_BLOB_P15 PARTITION OF ENCRYPTED_TRANSACTION_BLOB FOR VALUES WITH (MODULUS 16, REMAINDER 15);
+CREATE TABLE ENCRYPTED_RAW_TRANSACTION (ENCRYPTED_KEY BYTEA NOT NULL, ENCRYPTED_PAYLOAD BYTEA NOT NULL, NONCE BYTEA NOT NULL, SENDER BYTEA NOT NULL, TIMESTAMP DECIMAL(19), HASH BYTEA NOT NULL, PRIMARY KEY (HASH));
+CREATE TABLE PENDING_DELIVERY (HASH BYTEA NOT NULL, RECIPIENT_KEY BYTEA NOT NULL, CREATED DECIMAL(19) NOT NULL, ATTEMPTS INTEGER NOT NULL, NEXT_ATTEMPT DECIMAL(19) NOT NULL, PRIMARY KEY (HASH, RECIPIENT_KEY));
+CREATE INDEX PENDING_DELIVERY_NEXT_ATTEMPT ON PENDING_DELIVERY (NEXT_ATTEMPT);
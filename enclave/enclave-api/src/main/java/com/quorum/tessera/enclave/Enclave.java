@@ -1,8 +1,11 @@
 package com.quorum.tessera.enclave;
 
+import com.quorum.tessera.encryption.EncryptorException;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.service.Service;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
@@ -55,6 +58,35 @@ public interface Enclave extends Service {
             List<AffectedTransaction> affectedContractTransactions,
             byte[] execHash);
 
+    /**
+     * Encrypts several messages from the same sender to the same recipients, in a single call to the enclave. The
+     * messages must not affect any other contract transactions.
+     *
+     * @param messages the messages to be encrypted
+     * @param senderPublicKey the public key which this enclave manages
+     * @param recipientPublicKeys the recipients to encrypt each message for
+     * @param privacyMode the privacy flag of the transactions
+     * @return the encrypted messages, in the same order as given
+     */
+    default List<EncodedPayload> encryptPayloads(
+            List<byte[]> messages,
+            PublicKey senderPublicKey,
+            List<PublicKey> recipientPublicKeys,
+            PrivacyMode privacyMode) {
+        final List<EncodedPayload> payloads = new ArrayList<>(messages.size());
+        for (final byte[] message : messages) {
+            payloads.add(
+                    encryptPayload(
+                            message,
+                            senderPublicKey,
+                            recipientPublicKeys,
+                            privacyMode,
+                            Collections.emptyList(),
+                            new byte[0]));
+        }
+        return payloads;
+    }
+
     /**
      * Decrypts a {@link RawTransaction} so that it can be re-encrypted into a {@link EncodedPayload} with the given
      * recipient list
@@ -101,6 +133,33 @@ public interface Enclave extends Service {
      */
     byte[] unencryptTransaction(EncodedPayload payload, PublicKey providedKey);
 
+    /**
+     * Decrypts several transactions in a single call to the enclave, each with its own provided key. Unlike {@link
+     * #unencryptTransaction(EncodedPayload, PublicKey)}, a payload that cannot be decrypted with its key does not fail
+     * the whole call, so the same payload may be given several times to find which of a set of keys can decrypt it.
+     *
+     * @param payloads the encrypted payloads
+     * @param providedKeys the key to use for each payload, or {@code null} entries for payloads sent by this Enclave
+     * @return the decrypted messages in the same order as the payloads, with a {@code null} entry for each payload that
+     *     could not be decrypted
+     */
+    default List<byte[]> unencryptTransactions(List<EncodedPayload> payloads, List<PublicKey> providedKeys) {
+        if (payloads.size() != providedKeys.size()) {
+            throw new IllegalArgumentException("A provided key entry is required for each payload");
+        }
+        final List<byte[]> results = new ArrayList<>(payloads.size());
+        for (int i = 0; i < payloads.size(); i++) {
+            byte[] result;
+            try {
+                result = unencryptTransaction(payloads.get(i), providedKeys.get(i));
+            } catch (EnclaveException | EncryptorException | IndexOutOfBoundsException ex) {
+                result = null;
+            }
+            results.add(result);
+        }
+        return results;
+    }
+
     /**
      * Decrypt a raw payload and fetch the original message. Throws an {@link com.quorum.tessera.nacl.NaclException} if
      * the provided public key OR one of the Enclave's managed keys cannot be used to decrypt the payload
@@ -119,6 +178,22 @@ public interface Enclave extends Service {
      */
     byte[] createNewRecipientBox(EncodedPayload payload, PublicKey recipientKey);
 
+    /**
+     * Creates new recipient boxes for several recipients of the payload, in a single call to the enclave.
+     *
+     * @param payload the payload to add the recipients to
+     * @param recipientKeys the new recipient keys to add
+     * @return the new recipient boxes, in the same order as the keys
+     * @see #createNewRecipientBox(EncodedPayload, PublicKey)
+     */
+    default List<byte[]> createNewRecipientBoxes(EncodedPayload payload, List<PublicKey> recipientKeys) {
+        final List<byte[]> boxes = new ArrayList<>(recipientKeys.size());
+        for (final PublicKey recipientKey : recipientKeys) {
+            boxes.add(createNewRecipientBox(payload, recipientKey));
+        }
+        return boxes;
+    }
+
     @Override
     default void start() {}
 
@@ -12,13 +12,28 @@ import com.quorum.tessera.config.util.KeyDataUtil;
 import com.quorum.tessera.encryption.*;
 import org.slf4j.LoggerFactory;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
 import java.util.Collection;
 import java.util.Optional;
+import java.util.concurrent.ForkJoinPool;
 import java.util.stream.Collectors;
 
 /** Creates {@link Enclave} instances, which may point to remote services or local, in-app instances. */
 public interface EnclaveFactory {
 
+    String SHARED_KEY_CACHE_MBEAN_NAME = "com.quorum.tessera:type=SharedKeyCache";
+
+    /** The fewest recipients of a transaction for which their boxes are sealed in parallel, or 0 to never do so */
+    String PARALLEL_SEALING_THRESHOLD_PROPERTY = "tessera.enclave.parallelSealingThreshold";
+
+    /** The most threads used to seal the recipient boxes of a single transaction */
+    String SEALING_PARALLELISM_PROPERTY = "tessera.enclave.sealingParallelism";
+
+    int DEFAULT_PARALLEL_SEALING_THRESHOLD = 16;
+
     default Enclave createLocal(Config config) {
         return createServer(config);
     }
@@ -43,13 +58,46 @@ public interface EnclaveFactory {
 
         LoggerFactory.getLogger(EnclaveFactory.class).debug("Creating enclave");
 
-        Enclave enclave = new EnclaveImpl(encryptor, new KeyManagerImpl(keys, forwardKeys));
+        final SharedKeyCache sharedKeyCache = new SharedKeyCache();
+        registerSharedKeyCache(sharedKeyCache);
+
+        final int parallelSealingThreshold =
+                Integer.getInteger(PARALLEL_SEALING_THRESHOLD_PROPERTY, DEFAULT_PARALLEL_SEALING_THRESHOLD);
+        final int sealingParallelism =
+                Integer.getInteger(SEALING_PARALLELISM_PROPERTY, Runtime.getRuntime().availableProcessors());
+        final ForkJoinPool sealingPool =
+                parallelSealingThreshold > 0 && sealingParallelism > 1 ? new ForkJoinPool(sealingParallelism) : null;
+
+        Enclave enclave =
+                new EnclaveImpl(
+                        encryptor,
+                        new KeyManagerImpl(keys, forwardKeys),
+                        sharedKeyCache,
+                        sealingPool,
+                        parallelSealingThreshold);
 
         LoggerFactory.getLogger(EnclaveFactory.class).debug("Created enclave {}", enclave);
 
         return enclave;
     }
 
+    /**
+     * Publishes the cache statistics over JMX, replacing any cache registered by a previously created enclave. Failure
+     * to register is not fatal, as the statistics are informational only.
+     */
+    private static void registerSharedKeyCache(SharedKeyCache sharedKeyCache) {
+        try {
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = new ObjectName(SHARED_KEY_CACHE_MBEAN_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(sharedKeyCache, objectName);
+        } catch (JMException ex) {
+            LoggerFactory.getLogger(EnclaveFactory.class).warn("Unable to register shared key cache metrics", ex);
+        }
+    }
+
     /**
      * Determines from the provided configuration whether to construct a client to a remote service, or to create a
      * local instance.
@@ -62,7 +110,7 @@ public interface EnclaveFactory {
     default Enclave create(Config config) {
         EnclaveHolder enclaveHolder = EnclaveHolder.getInstance();
         Optional<Enclave> enclave = enclaveHolder.getEnclave();
-        if(enclave.isPresent()) {
+        if (enclave.isPresent()) {
             return enclave.get();
         }
 
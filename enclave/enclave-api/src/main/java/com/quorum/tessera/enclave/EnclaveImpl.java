@@ -18,6 +18,8 @@ import com.quorum.tessera.encryption.SharedKey;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.stream.Collectors;
 
 public class EnclaveImpl implements Enclave {
@@ -28,9 +30,35 @@ public class EnclaveImpl implements Enclave {
 
     private final KeyManager keyManager;
 
+    private final SharedKeyCache sharedKeyCache;
+
+    private final ForkJoinPool sealingPool;
+
+    private final int parallelSealingThreshold;
+
     public EnclaveImpl(Encryptor encryptor, KeyManager keyManager) {
+        this(encryptor, keyManager, new SharedKeyCache());
+    }
+
+    public EnclaveImpl(Encryptor encryptor, KeyManager keyManager, SharedKeyCache sharedKeyCache) {
+        this(encryptor, keyManager, sharedKeyCache, null, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @param sealingPool the pool to seal recipient boxes on in parallel, or null to always seal them in sequence
+     * @param parallelSealingThreshold the fewest recipients for which the boxes are sealed in parallel
+     */
+    public EnclaveImpl(
+            Encryptor encryptor,
+            KeyManager keyManager,
+            SharedKeyCache sharedKeyCache,
+            ForkJoinPool sealingPool,
+            int parallelSealingThreshold) {
         this.encryptor = Objects.requireNonNull(encryptor);
         this.keyManager = Objects.requireNonNull(keyManager);
+        this.sharedKeyCache = Objects.requireNonNull(sharedKeyCache);
+        this.sealingPool = sealingPool;
+        this.parallelSealingThreshold = parallelSealingThreshold;
     }
 
     @Override
@@ -101,6 +129,12 @@ public class EnclaveImpl implements Enclave {
 
     @Override
     public byte[] createNewRecipientBox(final EncodedPayload payload, final PublicKey publicKey) {
+        return this.createNewRecipientBoxes(payload, List.of(publicKey)).get(0);
+    }
+
+    /** Opens the master key of the payload once, and seals it for all the new recipients */
+    @Override
+    public List<byte[]> createNewRecipientBoxes(final EncodedPayload payload, final List<PublicKey> publicKeys) {
 
         if (payload.getRecipientKeys().isEmpty() || payload.getRecipientBoxes().isEmpty()) {
             throw new RuntimeException("No key or recipient-box to use");
@@ -111,11 +145,7 @@ public class EnclaveImpl implements Enclave {
                         payload.getRecipientKeys().get(0), payload.getSenderKey(),
                         payload.getRecipientNonce(), payload.getRecipientBoxes().get(0).getData());
 
-        final List<byte[]> sealedMasterKeyList =
-                this.buildRecipientMasterKeys(
-                        payload.getSenderKey(), List.of(publicKey), payload.getRecipientNonce(), master);
-
-        return sealedMasterKeyList.get(0);
+        return this.buildRecipientMasterKeys(payload.getSenderKey(), publicKeys, payload.getRecipientNonce(), master);
     }
 
     @Override
@@ -189,14 +219,43 @@ public class EnclaveImpl implements Enclave {
             final List<PublicKey> recipientPublicKeys,
             final Nonce recipientNonce,
             final MasterKey masterKey) {
-        final PrivateKey privateKey = keyManager.getPrivateKeyForPublicKey(senderPublicKey);
+        if (sealingPool == null || recipientPublicKeys.size() < parallelSealingThreshold) {
+            return sealMasterKeys(senderPublicKey, recipientPublicKeys, recipientNonce, masterKey);
+        }
 
+        // split the recipients into one contiguous run per thread, and join the runs back in order
+        final int size = recipientPublicKeys.size();
+        final int runs = Math.min(sealingPool.getParallelism(), size);
+        final List<ForkJoinTask<List<byte[]>>> tasks = new ArrayList<>(runs);
+        for (int run = 0; run < runs; run++) {
+            final List<PublicKey> recipients = recipientPublicKeys.subList(size * run / runs, size * (run + 1) / runs);
+            tasks.add(sealingPool.submit(() -> sealMasterKeys(senderPublicKey, recipients, recipientNonce, masterKey)));
+        }
+
+        final List<byte[]> recipientBoxes = new ArrayList<>(size);
+        tasks.forEach(task -> recipientBoxes.addAll(task.join()));
+        return recipientBoxes;
+    }
+
+    private List<byte[]> sealMasterKeys(
+            final PublicKey senderPublicKey,
+            final List<PublicKey> recipientPublicKeys,
+            final Nonce recipientNonce,
+            final MasterKey masterKey) {
         return recipientPublicKeys.stream()
-                .map(publicKey -> encryptor.computeSharedKey(publicKey, privateKey))
-                .map(sharedKey -> encryptor.sealAfterPrecomputation(masterKey.getKeyBytes(), recipientNonce, sharedKey))
+                .map(publicKey -> sealMasterKey(senderPublicKey, publicKey, recipientNonce, masterKey))
                 .collect(Collectors.toList());
     }
 
+    private byte[] sealMasterKey(
+            final PublicKey senderPublicKey,
+            final PublicKey recipientPublicKey,
+            final Nonce recipientNonce,
+            final MasterKey masterKey) {
+        final SharedKey sharedKey = computeSharedKey(senderPublicKey, recipientPublicKey);
+        return encryptor.sealAfterPrecomputation(masterKey.getKeyBytes(), recipientNonce, sharedKey);
+    }
+
     @Override
     public RawTransaction encryptRawPayload(byte[] message, PublicKey sender) {
         final MasterKey masterKey = encryptor.createMasterKey();
@@ -204,10 +263,8 @@ public class EnclaveImpl implements Enclave {
 
         final byte[] cipherText = encryptor.sealAfterPrecomputation(message, nonce, masterKey);
 
-        final PrivateKey privateKey = keyManager.getPrivateKeyForPublicKey(sender);
-
         // TODO NL - check if it makes sense to compute a shared key from the public and private parts of the same key
-        SharedKey sharedKey = encryptor.computeSharedKey(sender, privateKey);
+        SharedKey sharedKey = computeSharedKey(sender, sender);
         final byte[] encryptedMasterKey = encryptor.sealAfterPrecomputation(masterKey.getKeyBytes(), nonce, sharedKey);
 
         return new RawTransaction(cipherText, encryptedMasterKey, nonce, sender);
@@ -220,21 +277,21 @@ public class EnclaveImpl implements Enclave {
 
         final PublicKey recipientPubKey;
 
+        final RecipientBox recipientBox;
+
         if (!this.getPublicKeys().contains(payload.getSenderKey())) {
             // This is a payload originally sent to us by another node
             senderPubKey = providedSenderKey;
             recipientPubKey = payload.getSenderKey();
+            recipientBox = recipientBoxFor(payload, providedSenderKey);
         } else {
             // This is a payload that originated from us
             senderPubKey = payload.getSenderKey();
             recipientPubKey = payload.getRecipientKeys().get(0);
+            recipientBox = payload.getRecipientBoxes().iterator().next();
         }
 
-        final PrivateKey senderPrivKey = keyManager.getPrivateKeyForPublicKey(senderPubKey);
-
-        final SharedKey sharedKey = encryptor.computeSharedKey(recipientPubKey, senderPrivKey);
-
-        final RecipientBox recipientBox = payload.getRecipientBoxes().iterator().next();
+        final SharedKey sharedKey = computeSharedKey(senderPubKey, recipientPubKey);
 
         final Nonce recipientNonce = payload.getRecipientNonce();
 
@@ -252,9 +309,7 @@ public class EnclaveImpl implements Enclave {
     @Override
     public byte[] unencryptRawPayload(RawTransaction payload) {
 
-        final PrivateKey senderPrivKey = keyManager.getPrivateKeyForPublicKey(payload.getFrom());
-
-        final SharedKey sharedKey = encryptor.computeSharedKey(payload.getFrom(), senderPrivKey);
+        final SharedKey sharedKey = computeSharedKey(payload.getFrom(), payload.getFrom());
 
         final byte[] recipientBox = payload.getEncryptedKey();
 
@@ -272,7 +327,7 @@ public class EnclaveImpl implements Enclave {
 
     private MasterKey getMasterKey(PublicKey recipient, PublicKey sender, Nonce nonce, byte[] encryptedKey) {
 
-        final SharedKey sharedKey = encryptor.computeSharedKey(recipient, keyManager.getPrivateKeyForPublicKey(sender));
+        final SharedKey sharedKey = computeSharedKey(sender, recipient);
 
         final byte[] masterKeyBytes = encryptor.openAfterPrecomputation(encryptedKey, nonce, sharedKey);
 
@@ -295,13 +350,24 @@ public class EnclaveImpl implements Enclave {
 
         final RecipientBox recipientBox = encodedPayload.getRecipientBoxes().get(0);
 
-        if (!this.getPublicKeys().contains(encodedPayload.getSenderKey())) {
+        final Set<PublicKey> localKeys = this.getPublicKeys();
+
+        if (!localKeys.contains(encodedPayload.getSenderKey())) {
             // This is a payload originally sent to us by another node
             recipientPubKey = encodedPayload.getSenderKey();
-            for (final PublicKey potentialMatchingKey : getPublicKeys()) {
+
+            // a payload prepared for us names our key first, so try any keys it lists before the rest
+            final Set<PublicKey> candidates = new LinkedHashSet<>();
+            encodedPayload.getRecipientKeys().stream().filter(localKeys::contains).forEach(candidates::add);
+            candidates.addAll(localKeys);
+
+            for (final PublicKey potentialMatchingKey : candidates) {
                 try {
                     return getMasterKey(
-                            recipientPubKey, potentialMatchingKey, encodedPayload.getRecipientNonce(), recipientBox);
+                            recipientPubKey,
+                            potentialMatchingKey,
+                            encodedPayload.getRecipientNonce(),
+                            recipientBoxFor(encodedPayload, potentialMatchingKey));
                 } catch (EncryptorException ex) {
                     LOGGER.debug("Attempted payload decryption using wrong key, discarding.", ex);
                 }
@@ -315,6 +381,35 @@ public class EnclaveImpl implements Enclave {
         return getMasterKey(recipientPubKey, senderPubKey, encodedPayload.getRecipientNonce(), recipientBox);
     }
 
+    /**
+     * Finds the box sealed for one of our keys in a payload sent by another node. A payload prepared for a single
+     * recipient holds only its box, whereas one pushed for several recipients hosted here holds a box for each, in the
+     * order their keys are listed.
+     */
+    private static RecipientBox recipientBoxFor(final EncodedPayload payload, final PublicKey localKey) {
+        final List<RecipientBox> recipientBoxes = payload.getRecipientBoxes();
+        final int index = payload.getRecipientKeys().indexOf(localKey);
+        if (index > 0 && index < recipientBoxes.size()) {
+            return recipientBoxes.get(index);
+        }
+        return recipientBoxes.get(0);
+    }
+
+    /**
+     * Fetches the shared key between one of our keys and another public key, using a previously computed value if this
+     * pair has been seen before.
+     *
+     * @param localKey the public key whose private key is held by this enclave
+     * @param remoteKey the public key of the other party
+     * @return the shared key for the pair
+     */
+    private SharedKey computeSharedKey(final PublicKey localKey, final PublicKey remoteKey) {
+        return sharedKeyCache.get(
+                localKey,
+                remoteKey,
+                () -> encryptor.computeSharedKey(remoteKey, keyManager.getPrivateKeyForPublicKey(localKey)));
+    }
+
     @Override
     public PublicKey defaultPublicKey() {
         return keyManager.defaultPublicKey();
@@ -7,82 +7,28 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 /** This class contains the data that is sent to other nodes */
-public class EncodedPayload {
+public abstract class EncodedPayload {
 
-    private final PublicKey senderKey;
+    /** Used by {@link EncodedPayloadImpl} and by views that decode their fields on demand */
+    EncodedPayload() {}
 
-    private final byte[] cipherText;
+    public abstract PublicKey getSenderKey();
 
-    private final Nonce cipherTextNonce;
+    public abstract byte[] getCipherText();
 
-    private final List<RecipientBox> recipientBoxes;
+    public abstract Nonce getCipherTextNonce();
 
-    private final Nonce recipientNonce;
+    public abstract List<RecipientBox> getRecipientBoxes();
 
-    private final List<PublicKey> recipientKeys;
+    public abstract Nonce getRecipientNonce();
 
-    private final PrivacyMode privacyMode;
+    public abstract List<PublicKey> getRecipientKeys();
 
-    private final Map<TxHash, SecurityHash> affectedContractTransactions;
+    public abstract PrivacyMode getPrivacyMode();
 
-    private final byte[] execHash;
+    public abstract Map<TxHash, SecurityHash> getAffectedContractTransactions();
 
-    private EncodedPayload(
-            final PublicKey senderKey,
-            final byte[] cipherText,
-            final Nonce cipherTextNonce,
-            final List<RecipientBox> recipientBoxes,
-            final Nonce recipientNonce,
-            final List<PublicKey> recipientKeys,
-            final PrivacyMode privacyMode,
-            final Map<TxHash, SecurityHash> affectedContractTransactions,
-            final byte[] execHash) {
-        this.senderKey = senderKey;
-        this.cipherText = cipherText;
-        this.cipherTextNonce = cipherTextNonce;
-        this.recipientNonce = recipientNonce;
-        this.recipientBoxes = recipientBoxes;
-        this.recipientKeys = recipientKeys;
-        this.privacyMode = privacyMode;
-        this.affectedContractTransactions = affectedContractTransactions;
-        this.execHash = execHash;
-    }
-
-    public PublicKey getSenderKey() {
-        return senderKey;
-    }
-
-    public byte[] getCipherText() {
-        return cipherText;
-    }
-
-    public Nonce getCipherTextNonce() {
-        return cipherTextNonce;
-    }
-
-    public List<RecipientBox> getRecipientBoxes() {
-        return Collections.unmodifiableList(recipientBoxes);
-    }
-
-    public Nonce getRecipientNonce() {
-        return recipientNonce;
-    }
-
-    public List<PublicKey> getRecipientKeys() {
-        return recipientKeys;
-    }
-
-    public PrivacyMode getPrivacyMode() {
-        return privacyMode;
-    }
-
-    public Map<TxHash, SecurityHash> getAffectedContractTransactions() {
-        return Collections.unmodifiableMap(affectedContractTransactions);
-    }
-
-    public byte[] getExecHash() {
-        return execHash;
-    }
+    public abstract byte[] getExecHash();
 
     public static class Builder {
 
@@ -209,9 +155,11 @@ public class EncodedPayload {
                                             e -> e.getKey(), e -> SecurityHash.from(e.getValue())));
 
             List<RecipientBox> recipientBoxes =
-                    this.recipientBoxes.stream().map(RecipientBox::from).collect(Collectors.toList());
+                    this.recipientBoxes.stream()
+                            .map(RecipientBox::from)
+                            .collect(Collectors.collectingAndThen(Collectors.toList(), Collections::unmodifiableList));
 
-            return new EncodedPayload(
+            return new EncodedPayloadImpl(
                     senderKey,
                     cipherText,
                     cipherTextNonce,
@@ -222,30 +170,35 @@ public class EncodedPayload {
                     affectedTxns,
                     execHash);
         }
-
     }
 
     @Override
-    public boolean equals(Object o) {
+    public final boolean equals(Object o) {
         if (this == o) return true;
-        if (o == null || getClass() != o.getClass()) return false;
+        if (!(o instanceof EncodedPayload)) return false;
         EncodedPayload that = (EncodedPayload) o;
-        return Objects.equals(senderKey, that.senderKey)
-                && Arrays.equals(cipherText, that.cipherText)
-                && Objects.equals(cipherTextNonce, that.cipherTextNonce)
-                && Objects.equals(recipientBoxes, that.recipientBoxes)
-                && Objects.equals(recipientNonce, that.recipientNonce)
-                && Objects.equals(recipientKeys, that.recipientKeys)
-                && privacyMode == that.privacyMode
-                && Arrays.equals(execHash, that.execHash);
+        return Objects.equals(getSenderKey(), that.getSenderKey())
+                && Arrays.equals(getCipherText(), that.getCipherText())
+                && Objects.equals(getCipherTextNonce(), that.getCipherTextNonce())
+                && Objects.equals(getRecipientBoxes(), that.getRecipientBoxes())
+                && Objects.equals(getRecipientNonce(), that.getRecipientNonce())
+                && Objects.equals(getRecipientKeys(), that.getRecipientKeys())
+                && getPrivacyMode() == that.getPrivacyMode()
+                && Arrays.equals(getExecHash(), that.getExecHash());
     }
 
     @Override
-    public int hashCode() {
+    public final int hashCode() {
         int result =
-                Objects.hash(senderKey, cipherTextNonce, recipientBoxes, recipientNonce, recipientKeys, privacyMode);
-        result = 31 * result + Arrays.hashCode(cipherText);
-        result = 31 * result + Arrays.hashCode(execHash);
+                Objects.hash(
+                        getSenderKey(),
+                        getCipherTextNonce(),
+                        getRecipientBoxes(),
+                        getRecipientNonce(),
+                        getRecipientKeys(),
+                        getPrivacyMode());
+        result = 31 * result + Arrays.hashCode(getCipherText());
+        result = 31 * result + Arrays.hashCode(getExecHash());
         return result;
     }
 }
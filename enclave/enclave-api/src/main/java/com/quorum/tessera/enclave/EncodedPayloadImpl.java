@@ -0,0 +1,95 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.Nonce;
+import com.quorum.tessera.encryption.PublicKey;
+
+import java.util.List;
+import java.util.Map;
+
+/** An {@link EncodedPayload} holding its fields, as created by {@link EncodedPayload.Builder} */
+final class EncodedPayloadImpl extends EncodedPayload {
+
+    private final PublicKey senderKey;
+
+    private final byte[] cipherText;
+
+    private final Nonce cipherTextNonce;
+
+    private final List<RecipientBox> recipientBoxes;
+
+    private final Nonce recipientNonce;
+
+    private final List<PublicKey> recipientKeys;
+
+    private final PrivacyMode privacyMode;
+
+    private final Map<TxHash, SecurityHash> affectedContractTransactions;
+
+    private final byte[] execHash;
+
+    EncodedPayloadImpl(
+            final PublicKey senderKey,
+            final byte[] cipherText,
+            final Nonce cipherTextNonce,
+            final List<RecipientBox> recipientBoxes,
+            final Nonce recipientNonce,
+            final List<PublicKey> recipientKeys,
+            final PrivacyMode privacyMode,
+            final Map<TxHash, SecurityHash> affectedContractTransactions,
+            final byte[] execHash) {
+        this.senderKey = senderKey;
+        this.cipherText = cipherText;
+        this.cipherTextNonce = cipherTextNonce;
+        this.recipientNonce = recipientNonce;
+        this.recipientBoxes = recipientBoxes;
+        this.recipientKeys = recipientKeys;
+        this.privacyMode = privacyMode;
+        this.affectedContractTransactions = affectedContractTransactions;
+        this.execHash = execHash;
+    }
+
+    @Override
+    public PublicKey getSenderKey() {
+        return senderKey;
+    }
+
+    @Override
+    public byte[] getCipherText() {
+        return cipherText;
+    }
+
+    @Override
+    public Nonce getCipherTextNonce() {
+        return cipherTextNonce;
+    }
+
+    @Override
+    public List<RecipientBox> getRecipientBoxes() {
+        return recipientBoxes;
+    }
+
+    @Override
+    public Nonce getRecipientNonce() {
+        return recipientNonce;
+    }
+
+    @Override
+    public List<PublicKey> getRecipientKeys() {
+        return recipientKeys;
+    }
+
+    @Override
+    public PrivacyMode getPrivacyMode() {
+        return privacyMode;
+    }
+
+    @Override
+    public Map<TxHash, SecurityHash> getAffectedContractTransactions() {
+        return affectedContractTransactions;
+    }
+
+    @Override
+    public byte[] getExecHash() {
+        return execHash;
+    }
+}
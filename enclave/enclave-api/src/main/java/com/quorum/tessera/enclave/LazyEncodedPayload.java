@@ -0,0 +1,244 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.Nonce;
+import com.quorum.tessera.encryption.PublicKey;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * An {@link EncodedPayload} backed by its binary representation, as produced by {@link PayloadEncoderImpl}.
+ *
+ * <p>The offset of every field is found when the view is created, which also checks the input is well formed, but no
+ * field is copied out of the input until it is first read. Decoded values are kept, so each field is decoded at most
+ * once; concurrent first reads may both decode a field, which is harmless as the results are equal.
+ */
+final class LazyEncodedPayload extends EncodedPayload {
+
+    private static final int ABSENT = -1;
+
+    private final byte[] data;
+
+    private final int senderKeyOffset;
+
+    private final int cipherTextOffset;
+
+    private final int cipherTextNonceOffset;
+
+    private final int recipientBoxesOffset;
+
+    private final int recipientNonceOffset;
+
+    private final int recipientKeysOffset;
+
+    private final int privacyModeOffset;
+
+    private final int affectedContractTransactionsOffset;
+
+    private final int execHashOffset;
+
+    private volatile PublicKey senderKey;
+
+    private volatile byte[] cipherText;
+
+    private volatile Nonce cipherTextNonce;
+
+    private volatile List<RecipientBox> recipientBoxes;
+
+    private volatile Nonce recipientNonce;
+
+    private volatile List<PublicKey> recipientKeys;
+
+    private volatile PrivacyMode privacyMode;
+
+    private volatile Map<TxHash, SecurityHash> affectedContractTransactions;
+
+    private volatile byte[] execHash;
+
+    LazyEncodedPayload(final byte[] data) {
+        this.data = Objects.requireNonNull(data);
+
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+
+        this.senderKeyOffset = skipField(buffer);
+        this.cipherTextOffset = skipField(buffer);
+        this.cipherTextNonceOffset = skipField(buffer);
+        this.recipientBoxesOffset = skipArray(buffer);
+        this.recipientNonceOffset = skipField(buffer);
+
+        // older payloads stop after the recipient nonce, or after the recipient keys
+        this.recipientKeysOffset = buffer.hasRemaining() ? skipArray(buffer) : ABSENT;
+        if (recipientKeysOffset == ABSENT || !buffer.hasRemaining()) {
+            this.privacyModeOffset = ABSENT;
+            this.affectedContractTransactionsOffset = ABSENT;
+            this.execHashOffset = ABSENT;
+            return;
+        }
+
+        this.privacyModeOffset = skipField(buffer);
+
+        this.affectedContractTransactionsOffset = buffer.position();
+        final long numberOfAffectedContractTransactions = buffer.getLong();
+        for (long i = 0; i < numberOfAffectedContractTransactions; i++) {
+            skipField(buffer);
+            skipField(buffer);
+        }
+
+        this.execHashOffset = buffer.hasRemaining() ? skipField(buffer) : ABSENT;
+    }
+
+    @Override
+    public PublicKey getSenderKey() {
+        PublicKey result = senderKey;
+        if (result == null) {
+            result = PublicKey.from(readField(senderKeyOffset));
+            senderKey = result;
+        }
+        return result;
+    }
+
+    @Override
+    public byte[] getCipherText() {
+        byte[] result = cipherText;
+        if (result == null) {
+            result = readField(cipherTextOffset);
+            cipherText = result;
+        }
+        return result;
+    }
+
+    @Override
+    public Nonce getCipherTextNonce() {
+        Nonce result = cipherTextNonce;
+        if (result == null) {
+            result = new Nonce(readField(cipherTextNonceOffset));
+            cipherTextNonce = result;
+        }
+        return result;
+    }
+
+    @Override
+    public List<RecipientBox> getRecipientBoxes() {
+        List<RecipientBox> result = recipientBoxes;
+        if (result == null) {
+            final List<RecipientBox> boxes = new ArrayList<>();
+            readArray(recipientBoxesOffset).forEach(box -> boxes.add(RecipientBox.from(box)));
+            result = Collections.unmodifiableList(boxes);
+            recipientBoxes = result;
+        }
+        return result;
+    }
+
+    @Override
+    public Nonce getRecipientNonce() {
+        Nonce result = recipientNonce;
+        if (result == null) {
+            result = new Nonce(readField(recipientNonceOffset));
+            recipientNonce = result;
+        }
+        return result;
+    }
+
+    @Override
+    public List<PublicKey> getRecipientKeys() {
+        List<PublicKey> result = recipientKeys;
+        if (result == null) {
+            final List<PublicKey> keys = new ArrayList<>();
+            if (recipientKeysOffset != ABSENT) {
+                readArray(recipientKeysOffset).forEach(key -> keys.add(PublicKey.from(key)));
+            }
+            result = Collections.unmodifiableList(keys);
+            recipientKeys = result;
+        }
+        return result;
+    }
+
+    @Override
+    public PrivacyMode getPrivacyMode() {
+        PrivacyMode result = privacyMode;
+        if (result == null) {
+            result =
+                    privacyModeOffset == ABSENT
+                            ? PrivacyMode.STANDARD_PRIVATE
+                            : PrivacyMode.fromFlag(readField(privacyModeOffset)[0]);
+            privacyMode = result;
+        }
+        return result;
+    }
+
+    @Override
+    public Map<TxHash, SecurityHash> getAffectedContractTransactions() {
+        Map<TxHash, SecurityHash> result = affectedContractTransactions;
+        if (result == null) {
+            final Map<TxHash, SecurityHash> transactions = new HashMap<>();
+            if (affectedContractTransactionsOffset != ABSENT) {
+                final ByteBuffer buffer = bufferAt(affectedContractTransactionsOffset);
+                final long numberOfEntries = buffer.getLong();
+                for (long i = 0; i < numberOfEntries; i++) {
+                    final TxHash txHash = new TxHash(readField(buffer));
+                    transactions.put(txHash, SecurityHash.from(readField(buffer)));
+                }
+            }
+            result = Collections.unmodifiableMap(transactions);
+            affectedContractTransactions = result;
+        }
+        return result;
+    }
+
+    @Override
+    public byte[] getExecHash() {
+        byte[] result = execHash;
+        if (result == null) {
+            result = execHashOffset == ABSENT ? new byte[0] : readField(execHashOffset);
+            execHash = result;
+        }
+        return result;
+    }
+
+    private ByteBuffer bufferAt(final int offset) {
+        return ByteBuffer.wrap(data).position(offset);
+    }
+
+    private byte[] readField(final int offset) {
+        return readField(bufferAt(offset));
+    }
+
+    private List<byte[]> readArray(final int offset) {
+        final ByteBuffer buffer = bufferAt(offset);
+        final long numberOfElements = buffer.getLong();
+
+        final List<byte[]> elements = new ArrayList<>();
+        for (long i = 0; i < numberOfElements; i++) {
+            elements.add(readField(buffer));
+        }
+        return elements;
+    }
+
+    private static byte[] readField(final ByteBuffer buffer) {
+        final byte[] field = new byte[Math.toIntExact(buffer.getLong())];
+        buffer.get(field);
+        return field;
+    }
+
+    /** Moves the buffer past a length-prefixed field, returning the offset the field started at */
+    private static int skipField(final ByteBuffer buffer) {
+        final int offset = buffer.position();
+        final int size = Math.toIntExact(buffer.getLong());
+        if (size < 0 || size > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        buffer.position(buffer.position() + size);
+        return offset;
+    }
+
+    /** Moves the buffer past a counted list of length-prefixed fields, returning the offset the list started at */
+    private static int skipArray(final ByteBuffer buffer) {
+        final int offset = buffer.position();
+        final long numberOfElements = buffer.getLong();
+        for (long i = 0; i < numberOfElements; i++) {
+            skipField(buffer);
+        }
+        return offset;
+    }
+}
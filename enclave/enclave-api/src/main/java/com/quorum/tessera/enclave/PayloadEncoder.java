@@ -3,6 +3,8 @@ package com.quorum.tessera.enclave;
 import com.quorum.tessera.ServiceLoaderUtil;
 import com.quorum.tessera.encryption.PublicKey;
 
+import java.util.List;
+
 /** Encodes and decodes a {@link EncodedPayload} to and from its binary representation */
 public interface PayloadEncoder {
 
@@ -32,6 +34,17 @@ public interface PayloadEncoder {
      */
     EncodedPayload forRecipient(EncodedPayload input, PublicKey recipient);
 
+    /**
+     * Strips a payload of any data that isn't relevant to the given recipients, so that it can be sent in one request
+     * to a node that hosts all of them. The recipients are listed first, in the given order, and the payload holds a
+     * recipient box for each of them in that same order.
+     *
+     * @param input the full payload from which data needs to be stripped
+     * @param recipients the recipients to retain information about
+     * @return a payload which contains a subset of data from the input, which is relevant to the recipients
+     */
+    EncodedPayload forRecipients(EncodedPayload input, List<PublicKey> recipients);
+
     /**
      * Checks whether recipientKeys is empty. If it is, it tries to add the specified recipient. If the recipientKeys
      * list is immutable then it creates a new EncodedPayload with the recipientKeys containing the specified recipient
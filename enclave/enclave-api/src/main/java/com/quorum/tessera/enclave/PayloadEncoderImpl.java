@@ -7,207 +7,130 @@ import java.util.*;
 import java.util.stream.Collectors;
 
 import static java.util.Collections.*;
-import static java.util.Collections.emptyMap;
-import static java.util.stream.Collectors.toList;
 
 public class PayloadEncoderImpl implements PayloadEncoder, BinaryEncoder {
 
     @Override
     public byte[] encode(final EncodedPayload payload) {
 
-        final byte[] senderKey = encodeField(payload.getSenderKey().getKeyBytes());
-        final byte[] cipherText = encodeField(payload.getCipherText());
-        final byte[] nonce = encodeField(payload.getCipherTextNonce().getNonceBytes());
-        final byte[] recipientNonce = encodeField(payload.getRecipientNonce().getNonceBytes());
-        final byte[] recipients = encodeArray(payload.getRecipientBoxes().stream().map(RecipientBox::getData).collect(Collectors.toUnmodifiableList()));
-        final byte[] recipientBytes =
-                encodeArray(payload.getRecipientKeys().stream().map(PublicKey::getKeyBytes).collect(toList()));
-        final PrivacyMode privacyMode = Optional.ofNullable(payload.getPrivacyMode()).orElse(PrivacyMode.STANDARD_PRIVATE);
-        final byte[] privacyModeByte = encodeField(new byte[] {(byte) privacyMode.getPrivacyFlag()});
-
-        final int affectedContractsPayloadLength =
-                payload.getAffectedContractTransactions().entrySet().stream()
-                                .mapToInt(entry -> entry.getKey().getBytes().length + entry.getValue().getData().length)
-                                .sum() // total size of all keys and values
+        final byte[] senderKey = payload.getSenderKey().getKeyBytes();
+        final byte[] cipherText = payload.getCipherText();
+        final byte[] nonce = payload.getCipherTextNonce().getNonceBytes();
+        final List<RecipientBox> recipientBoxes = payload.getRecipientBoxes();
+        final byte[] recipientNonce = payload.getRecipientNonce().getNonceBytes();
+        final List<PublicKey> recipientKeys = payload.getRecipientKeys();
+        final PrivacyMode privacyMode =
+                Optional.ofNullable(payload.getPrivacyMode()).orElse(PrivacyMode.STANDARD_PRIVATE);
+        final Map<TxHash, SecurityHash> affectedContractTransactions = payload.getAffectedContractTransactions();
+        final byte[] executionHash = payload.getExecHash();
+        final boolean hasExecutionHash = Objects.nonNull(executionHash) && executionHash.length > 0;
+
+        final int length =
+                fieldLength(senderKey)
+                        + fieldLength(cipherText)
+                        + fieldLength(nonce)
                         + Long.BYTES
-                        + // the number of entries in the map
-                        payload.getAffectedContractTransactions().size()
-                                * 2
-                                * Long.BYTES; // sizes of key and value lengths (for each entry)
-        final ByteBuffer affectedContractTxs = ByteBuffer.allocate(affectedContractsPayloadLength);
-        affectedContractTxs.putLong(payload.getAffectedContractTransactions().size());
-        for (Map.Entry<TxHash, SecurityHash> entry : payload.getAffectedContractTransactions().entrySet()) {
-            affectedContractTxs.putLong(entry.getKey().getBytes().length);
-            affectedContractTxs.put(entry.getKey().getBytes());
-            affectedContractTxs.putLong(entry.getValue().getData().length);
-            affectedContractTxs.put(entry.getValue().getData());
-        }
-        byte[] executionHash = new byte[0];
-        if (Objects.nonNull(payload.getExecHash()) && payload.getExecHash().length > 0) {
-            executionHash = encodeField(payload.getExecHash());
-        }
-
-        return ByteBuffer.allocate(
-                        senderKey.length
-                                + cipherText.length
-                                + nonce.length
-                                + recipients.length
-                                + recipientNonce.length
-                                + recipientBytes.length
-                                + privacyModeByte.length
-                                + affectedContractsPayloadLength
-                                + executionHash.length)
-                .put(senderKey)
-                .put(cipherText)
-                .put(nonce)
-                .put(recipients)
-                .put(recipientNonce)
-                .put(recipientBytes)
-                .put(privacyModeByte)
-                .put(affectedContractTxs.array())
-                .put(executionHash)
-                .array();
-    }
-
-    @Override
-    public EncodedPayload decode(final byte[] input) {
-        final ByteBuffer buffer = ByteBuffer.wrap(input);
-
-        final long senderSize = buffer.getLong();
-        final byte[] senderKey = new byte[Math.toIntExact(senderSize)];
-        buffer.get(senderKey);
-
-        final long cipherTextSize = buffer.getLong();
-        final byte[] cipherText = new byte[Math.toIntExact(cipherTextSize)];
-        buffer.get(cipherText);
-
-        final long nonceSize = buffer.getLong();
-        final byte[] nonce = new byte[Math.toIntExact(nonceSize)];
-        buffer.get(nonce);
-
-        final long numberOfRecipients = buffer.getLong();
-        final List<byte[]> recipientBoxes = new ArrayList<>();
-        for (long i = 0; i < numberOfRecipients; i++) {
-            final long boxSize = buffer.getLong();
-            final byte[] box = new byte[Math.toIntExact(boxSize)];
-            buffer.get(box);
-            recipientBoxes.add(box);
-        }
+                        + recipientBoxes.stream().mapToInt(box -> fieldLength(box.getData())).sum()
+                        + fieldLength(recipientNonce)
+                        + Long.BYTES
+                        + recipientKeys.stream().mapToInt(key -> fieldLength(key.getKeyBytes())).sum()
+                        + Long.BYTES
+                        + 1
+                        + Long.BYTES
+                        + affectedContractTransactions.entrySet().stream()
+                                .mapToInt(
+                                        entry ->
+                                                fieldLength(entry.getKey().getBytes())
+                                                        + fieldLength(entry.getValue().getData()))
+                                .sum()
+                        + (hasExecutionHash ? fieldLength(executionHash) : 0);
 
-        final long recipientNonceSize = buffer.getLong();
-        final byte[] recipientNonce = new byte[Math.toIntExact(recipientNonceSize)];
-        buffer.get(recipientNonce);
-
-        // this means there are no recipients in the payload (which we receive when we are a participant)
-        // TODO - not sure this is right
-        if (!buffer.hasRemaining()) {
-
-            return EncodedPayload.Builder.create()
-                    .withSenderKey(PublicKey.from(senderKey))
-                    .withCipherText(cipherText)
-                    .withCipherTextNonce(nonce)
-                    .withRecipientBoxes(recipientBoxes)
-                    .withRecipientNonce(recipientNonce)
-                    .withRecipientKeys(emptyList())
-                    .withPrivacyMode(PrivacyMode.STANDARD_PRIVATE)
-                    .withAffectedContractTransactions(emptyMap())
-                    .withExecHash(new byte[0])
-                    .build();
-        }
+        // every field is written straight into a single buffer sized up front
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
 
-        final long recipientLength = buffer.getLong();
+        putField(buffer, senderKey);
+        putField(buffer, cipherText);
+        putField(buffer, nonce);
 
-        final List<byte[]> recipientKeys = new ArrayList<>();
-        for (long i = 0; i < recipientLength; i++) {
-            final long boxSize = buffer.getLong();
-            final byte[] box = new byte[Math.toIntExact(boxSize)];
-            buffer.get(box);
-            recipientKeys.add(box);
-        }
+        buffer.putLong(recipientBoxes.size());
+        recipientBoxes.forEach(box -> putField(buffer, box.getData()));
 
-        if (!buffer.hasRemaining()) {
-
-            return EncodedPayload.Builder.create()
-                    .withSenderKey(PublicKey.from(senderKey))
-                    .withCipherText(cipherText)
-                    .withCipherTextNonce(nonce)
-                    .withRecipientBoxes(recipientBoxes)
-                    .withRecipientNonce(recipientNonce)
-                    .withRecipientKeys(recipientKeys.stream().map(PublicKey::from).collect(toList()))
-                    .withPrivacyMode(PrivacyMode.STANDARD_PRIVATE)
-                    .withAffectedContractTransactions(emptyMap())
-                    .withExecHash(new byte[0])
-                    .build();
-        }
+        putField(buffer, recipientNonce);
 
-        final long privacyModeLength = buffer.getLong();
-        final byte[] privacyMode = new byte[Math.toIntExact(privacyModeLength)];
-        buffer.get(privacyMode);
+        buffer.putLong(recipientKeys.size());
+        recipientKeys.forEach(key -> putField(buffer, key.getKeyBytes()));
 
-        final long affectedContractTransactionsLength = buffer.getLong();
-        final Map<TxHash, byte[]> affectedContractTransactions = new HashMap<>();
-        for (long i = 0; i < affectedContractTransactionsLength; i++) {
-            final long txHashSize = buffer.getLong();
-            final byte[] txHash = new byte[Math.toIntExact(txHashSize)];
-            buffer.get(txHash);
+        putField(buffer, new byte[] {(byte) privacyMode.getPrivacyFlag()});
 
-            final long txSecHashSize = buffer.getLong();
-            final byte[] txSecHash = new byte[Math.toIntExact(txSecHashSize)];
-            buffer.get(txSecHash);
+        buffer.putLong(affectedContractTransactions.size());
+        for (Map.Entry<TxHash, SecurityHash> entry : affectedContractTransactions.entrySet()) {
+            putField(buffer, entry.getKey().getBytes());
+            putField(buffer, entry.getValue().getData());
+        }
 
-            affectedContractTransactions.put(new TxHash(txHash), txSecHash);
+        if (hasExecutionHash) {
+            putField(buffer, executionHash);
         }
 
-        byte[] executionHash = new byte[0];
+        return buffer.array();
+    }
 
-        if (buffer.hasRemaining()) {
-            final long executionHashSize = buffer.getLong();
-            executionHash = new byte[Math.toIntExact(executionHashSize)];
-            buffer.get(executionHash);
-        }
+    /**
+     * Decodes the payload into a view over the given bytes. The structure of the input is validated immediately, but
+     * each field is only copied out of the input the first time it is read, so callers that only need a few fields
+     * (such as the sender or the recipients) do not pay for the rest.
+     *
+     * <p>The returned payload keeps a reference to the input, which must not be modified afterwards.
+     */
+    @Override
+    public EncodedPayload decode(final byte[] input) {
+        return new LazyEncodedPayload(input);
+    }
 
-        return EncodedPayload.Builder.create()
-                .withSenderKey(PublicKey.from(senderKey))
-                .withCipherText(cipherText)
-                .withCipherTextNonce(nonce)
-                .withRecipientBoxes(recipientBoxes)
-                .withRecipientNonce(recipientNonce)
-                .withRecipientKeys(recipientKeys.stream().map(PublicKey::from).collect(toList()))
-                .withPrivacyMode(PrivacyMode.fromFlag(privacyMode[0]))
-                .withAffectedContractTransactions(affectedContractTransactions)
-                .withExecHash(executionHash)
-                .build();
+    private static int fieldLength(final byte[] data) {
+        return Long.BYTES + data.length;
+    }
+
+    private static void putField(final ByteBuffer buffer, final byte[] data) {
+        buffer.putLong(data.length).put(data);
     }
 
     @Override
     public EncodedPayload forRecipient(final EncodedPayload payload, final PublicKey recipient) {
+        return forRecipients(payload, singletonList(recipient));
+    }
 
-        if (!payload.getRecipientKeys().contains(recipient)) {
-            throw new InvalidRecipientException(
-                    "Recipient " + recipient.encodeToBase64() + " is not a recipient of transaction ");
+    @Override
+    public EncodedPayload forRecipients(final EncodedPayload payload, final List<PublicKey> recipients) {
+
+        final List<byte[]> recipientBoxes = new ArrayList<>(recipients.size());
+        for (final PublicKey recipient : recipients) {
+            if (!payload.getRecipientKeys().contains(recipient)) {
+                throw new InvalidRecipientException(
+                        "Recipient " + recipient.encodeToBase64() + " is not a recipient of transaction ");
+            }
+            final int recipientIndex = payload.getRecipientKeys().indexOf(recipient);
+            recipientBoxes.add(payload.getRecipientBoxes().get(recipientIndex).getData());
         }
 
-        final int recipientIndex = payload.getRecipientKeys().indexOf(recipient);
-        final byte[] recipientBox = payload.getRecipientBoxes().get(recipientIndex).getData();
-
-        List<PublicKey> recipientList;
+        final List<PublicKey> recipientList;
 
         if (PrivacyMode.PRIVATE_STATE_VALIDATION == payload.getPrivacyMode()) {
-            recipientList = new ArrayList<>(payload.getRecipientKeys());
-            recipientList.remove(recipientIndex);
-            recipientList.add(0, recipient);
+            recipientList = new ArrayList<>(recipients);
+            payload.getRecipientKeys().stream().filter(key -> !recipients.contains(key)).forEach(recipientList::add);
         } else {
-            recipientList = singletonList(recipient);
+            recipientList = List.copyOf(recipients);
         }
 
-        Map<TxHash,byte[]> affectedTxnMap = payload.getAffectedContractTransactions().entrySet()
-            .stream().collect(Collectors.toMap(e -> e.getKey(),e -> e.getValue().getData()));
+        Map<TxHash, byte[]> affectedTxnMap =
+                payload.getAffectedContractTransactions().entrySet().stream()
+                        .collect(Collectors.toMap(e -> e.getKey(), e -> e.getValue().getData()));
 
         return EncodedPayload.Builder.create()
                 .withSenderKey(payload.getSenderKey())
                 .withCipherText(payload.getCipherText())
                 .withCipherTextNonce(payload.getCipherTextNonce())
-                .withRecipientBoxes(singletonList(recipientBox))
+                .withRecipientBoxes(recipientBoxes)
                 .withRecipientNonce(payload.getRecipientNonce())
                 .withRecipientKeys(recipientList)
                 .withPrivacyMode(payload.getPrivacyMode())
@@ -0,0 +1,175 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.encryption.SharedKey;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * A bounded, least-recently-used cache of shared keys, keyed by the pair of local and remote public keys that were
+ * used to compute them.
+ *
+ * <p>The cache keeps its own copy of each key's bytes and hands out a fresh {@link SharedKey} on every lookup, so that
+ * zeroing an entry on eviction can never affect a key that is still in use by a caller.
+ */
+public class SharedKeyCache implements SharedKeyCacheMBean {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    private final int capacity;
+
+    private final Map<KeyPairing, byte[]> entries;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public SharedKeyCache() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public SharedKeyCache(final int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Shared key cache capacity cannot be negative");
+        }
+        this.capacity = capacity;
+        this.entries =
+                new LinkedHashMap<>(16, 0.75f, true) {
+                    @Override
+                    protected boolean removeEldestEntry(final Map.Entry<KeyPairing, byte[]> eldest) {
+                        if (size() > SharedKeyCache.this.capacity) {
+                            Arrays.fill(eldest.getValue(), (byte) 0);
+                            evictions.increment();
+                            return true;
+                        }
+                        return false;
+                    }
+                };
+    }
+
+    /**
+     * Fetches the shared key for the given local/remote key pair, computing and storing it if it is not present.
+     *
+     * <p>The computation is run outside the cache lock, so two threads missing on the same pair at once may both
+     * compute the key; the result is identical and only one copy is kept.
+     *
+     * @param localKey the public key of the local key pair whose private key is used
+     * @param remoteKey the public key of the other party
+     * @param sharedKeySupplier computes the shared key if it is not cached
+     * @return the shared key for the pair
+     */
+    public SharedKey get(
+            final PublicKey localKey, final PublicKey remoteKey, final Supplier<SharedKey> sharedKeySupplier) {
+        final KeyPairing pairing = new KeyPairing(localKey, remoteKey);
+
+        synchronized (entries) {
+            final byte[] cached = entries.get(pairing);
+            if (cached != null) {
+                hits.increment();
+                return SharedKey.from(Arrays.copyOf(cached, cached.length));
+            }
+        }
+        misses.increment();
+
+        final SharedKey sharedKey = sharedKeySupplier.get();
+        if (capacity == 0) {
+            return sharedKey;
+        }
+
+        final byte[] keyBytes = sharedKey.getKeyBytes();
+        synchronized (entries) {
+            final byte[] previous = entries.put(pairing, Arrays.copyOf(keyBytes, keyBytes.length));
+            if (previous != null) {
+                Arrays.fill(previous, (byte) 0);
+            }
+        }
+        return sharedKey;
+    }
+
+    /**
+     * Removes and zeroes every entry computed using the given local key
+     *
+     * @param localKey the local public key that is no longer in use
+     */
+    public void invalidate(final PublicKey localKey) {
+        synchronized (entries) {
+            final Iterator<Map.Entry<KeyPairing, byte[]>> iterator = entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<KeyPairing, byte[]> entry = iterator.next();
+                if (Objects.equals(entry.getKey().localKey, localKey)) {
+                    Arrays.fill(entry.getValue(), (byte) 0);
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /** Removes and zeroes every entry in the cache */
+    public void clear() {
+        synchronized (entries) {
+            entries.values().forEach(v -> Arrays.fill(v, (byte) 0));
+            entries.clear();
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public int getCapacity() {
+        return capacity;
+    }
+
+    private static final class KeyPairing {
+
+        private final PublicKey localKey;
+
+        private final PublicKey remoteKey;
+
+        private KeyPairing(final PublicKey localKey, final PublicKey remoteKey) {
+            this.localKey = Objects.requireNonNull(localKey);
+            this.remoteKey = Objects.requireNonNull(remoteKey);
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (!(o instanceof KeyPairing)) {
+                return false;
+            }
+            final KeyPairing other = (KeyPairing) o;
+            return localKey.equals(other.localKey) && remoteKey.equals(other.remoteKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * localKey.hashCode() + remoteKey.hashCode();
+        }
+    }
+}
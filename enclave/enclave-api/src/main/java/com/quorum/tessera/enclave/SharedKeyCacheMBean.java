@@ -0,0 +1,15 @@
+package com.quorum.tessera.enclave;
+
+/** JMX view of the {@link SharedKeyCache} statistics */
+public interface SharedKeyCacheMBean {
+
+    long getHitCount();
+
+    long getMissCount();
+
+    long getEvictionCount();
+
+    int getSize();
+
+    int getCapacity();
+}
@@ -20,20 +20,19 @@ public class AffectedTransactionTest {
 
         EncodedPayload encodedPayload = mock(EncodedPayload.class);
 
-        AffectedTransaction result = AffectedTransaction.Builder.create()
-            .withPayload(encodedPayload)
-            .withHash(hashBytes)
-            .build();
+        AffectedTransaction result =
+                AffectedTransaction.Builder.create().withPayload(encodedPayload).withHash(hashBytes).build();
 
         assertThat(result.getPayload()).isSameAs(encodedPayload);
         assertThat(result.getHash().getBytes()).isEqualTo(hashBytes);
 
         EqualsVerifier.forClass(AffectedTransaction.class)
-            .withOnlyTheseFields("hash")
-            .usingGetClass().verify();
-
-
-
+                .withOnlyTheseFields("hash")
+                .withPrefabValues(
+                        EncodedPayload.class,
+                        EncodedPayload.Builder.create().withCipherText("one".getBytes()).build(),
+                        EncodedPayload.Builder.create().withCipherText("two".getBytes()).build())
+                .usingGetClass()
+                .verify();
     }
-
 }
@@ -9,6 +9,7 @@ import org.junit.Test;
 
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 import static java.util.Collections.*;
 import static org.assertj.core.api.Assertions.*;
@@ -27,7 +28,7 @@ public class EnclaveTest {
         this.nacl = mock(Encryptor.class);
         this.keyManager = mock(KeyManager.class);
 
-        this.enclave = new EnclaveImpl(nacl, keyManager);
+        this.enclave = new EnclaveImpl(nacl, keyManager, new SharedKeyCache(0));
         enclave.start();
         assertThat(enclave.status()).isEqualTo(Service.Status.STARTED);
     }
@@ -110,6 +111,106 @@ public class EnclaveTest {
         verify(nacl).computeSharedKey(recipientKey, senderPrivateKey);
     }
 
+    @Test
+    public void unencryptTransactionsGivesNullForPayloadsThatCannotBeDecrypted() {
+
+        PublicKey senderKey = mock(PublicKey.class);
+        PublicKey recipientKey = mock(PublicKey.class);
+
+        EncodedPayload payload = mock(EncodedPayload.class);
+        when(payload.getSenderKey()).thenReturn(senderKey);
+        when(payload.getCipherText()).thenReturn("cipherText".getBytes());
+        when(payload.getCipherTextNonce()).thenReturn(mock(Nonce.class));
+        when(payload.getRecipientBoxes()).thenReturn(singletonList(RecipientBox.from("RecipientBox".getBytes())));
+        when(payload.getRecipientNonce()).thenReturn(mock(Nonce.class));
+        when(payload.getRecipientKeys()).thenReturn(singletonList(recipientKey));
+
+        EncodedPayload payloadWithoutRecipients = mock(EncodedPayload.class);
+        when(payloadWithoutRecipients.getSenderKey()).thenReturn(senderKey);
+        when(payloadWithoutRecipients.getRecipientKeys()).thenReturn(emptyList());
+
+        when(keyManager.getPublicKeys()).thenReturn(Collections.singleton(senderKey));
+
+        PrivateKey senderPrivateKey = mock(PrivateKey.class);
+        when(keyManager.getPrivateKeyForPublicKey(senderKey)).thenReturn(senderPrivateKey);
+        when(nacl.computeSharedKey(recipientKey, senderPrivateKey)).thenReturn(mock(SharedKey.class));
+
+        byte[] expectedOutcome = "SUCCESS".getBytes();
+        when(nacl.openAfterPrecomputation(any(byte[].class), any(Nonce.class), any(SharedKey.class)))
+                .thenReturn("sharedOrMasterKeyBytes".getBytes());
+        when(nacl.openAfterPrecomputation(any(byte[].class), any(Nonce.class), any(MasterKey.class)))
+                .thenReturn(expectedOutcome);
+
+        List<byte[]> results =
+                enclave.unencryptTransactions(List.of(payloadWithoutRecipients, payload), Arrays.asList(null, null));
+
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0)).isNull();
+        assertThat(results.get(1)).isSameAs(expectedOutcome);
+
+        verify(nacl).openAfterPrecomputation(any(byte[].class), any(Nonce.class), any(SharedKey.class));
+        verify(nacl).openAfterPrecomputation(any(byte[].class), any(Nonce.class), any(MasterKey.class));
+        verify(keyManager).getPrivateKeyForPublicKey(senderKey);
+        verify(keyManager, times(2)).getPublicKeys();
+        verify(nacl).computeSharedKey(recipientKey, senderPrivateKey);
+    }
+
+    @Test
+    public void unencryptTransactionsRequiresKeyEntryForEachPayload() {
+        final EncodedPayload payload = mock(EncodedPayload.class);
+
+        final Throwable throwable = catchThrowable(() -> enclave.unencryptTransactions(List.of(payload), emptyList()));
+
+        assertThat(throwable).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void unencryptTransactionReusesCachedSharedKey() {
+
+        final SharedKeyCache sharedKeyCache = new SharedKeyCache();
+        final Enclave cachingEnclave = new EnclaveImpl(nacl, keyManager, sharedKeyCache);
+
+        PublicKey senderKey = PublicKey.from("SENDER".getBytes());
+
+        PublicKey recipientKey = PublicKey.from("RECIPIENT".getBytes());
+
+        EncodedPayload payload = mock(EncodedPayload.class);
+        when(payload.getSenderKey()).thenReturn(senderKey);
+        when(payload.getCipherText()).thenReturn("cipherText".getBytes());
+        when(payload.getCipherTextNonce()).thenReturn(mock(Nonce.class));
+        when(payload.getRecipientBoxes()).thenReturn(singletonList(RecipientBox.from("RecipientBox".getBytes())));
+        when(payload.getRecipientNonce()).thenReturn(mock(Nonce.class));
+        when(payload.getRecipientKeys()).thenReturn(singletonList(recipientKey));
+
+        when(keyManager.getPublicKeys()).thenReturn(Collections.singleton(senderKey));
+
+        PrivateKey senderPrivateKey = mock(PrivateKey.class);
+        when(keyManager.getPrivateKeyForPublicKey(senderKey)).thenReturn(senderPrivateKey);
+
+        SharedKey sharedKey = SharedKey.from("SHARED".getBytes());
+        when(nacl.computeSharedKey(recipientKey, senderPrivateKey)).thenReturn(sharedKey);
+
+        byte[] expectedOutcome = "SUCCESS".getBytes();
+
+        when(nacl.openAfterPrecomputation(any(byte[].class), any(Nonce.class), any(SharedKey.class)))
+                .thenReturn("sharedOrMasterKeyBytes".getBytes());
+
+        when(nacl.openAfterPrecomputation(any(byte[].class), any(Nonce.class), any(MasterKey.class)))
+                .thenReturn(expectedOutcome);
+
+        assertThat(cachingEnclave.unencryptTransaction(payload, null)).isSameAs(expectedOutcome);
+        assertThat(cachingEnclave.unencryptTransaction(payload, null)).isSameAs(expectedOutcome);
+
+        assertThat(sharedKeyCache.getMissCount()).isEqualTo(1);
+        assertThat(sharedKeyCache.getHitCount()).isEqualTo(1);
+
+        verify(nacl, times(2)).openAfterPrecomputation(any(byte[].class), any(Nonce.class), eq(sharedKey));
+        verify(nacl, times(2)).openAfterPrecomputation(any(byte[].class), any(Nonce.class), any(MasterKey.class));
+        verify(keyManager).getPrivateKeyForPublicKey(senderKey);
+        verify(keyManager, times(2)).getPublicKeys();
+        verify(nacl).computeSharedKey(recipientKey, senderPrivateKey);
+    }
+
     @Test
     public void unencryptRawPayload() {
 
@@ -204,6 +305,57 @@ public class EnclaveTest {
         verify(nacl).computeSharedKey(senderKey, senderPrivateKey);
     }
 
+    @Test
+    public void unencryptTransactionPushedForSeveralLocalRecipients() {
+
+        PublicKey senderKey = mock(PublicKey.class);
+
+        PublicKey firstRecipientKey = mock(PublicKey.class);
+
+        PublicKey secondRecipientKey = mock(PublicKey.class);
+
+        byte[] cipherText = "cipherText".getBytes();
+
+        Nonce cipherTextNonce = mock(Nonce.class);
+
+        Nonce recipientNonce = mock(Nonce.class);
+
+        EncodedPayload payload = mock(EncodedPayload.class);
+        when(payload.getSenderKey()).thenReturn(senderKey);
+        when(payload.getCipherText()).thenReturn(cipherText);
+        when(payload.getCipherTextNonce()).thenReturn(cipherTextNonce);
+        when(payload.getRecipientBoxes())
+                .thenReturn(
+                        List.of(RecipientBox.from("FirstBox".getBytes()), RecipientBox.from("SecondBox".getBytes())));
+        when(payload.getRecipientNonce()).thenReturn(recipientNonce);
+        when(payload.getRecipientKeys()).thenReturn(List.of(firstRecipientKey, secondRecipientKey));
+
+        when(keyManager.getPublicKeys()).thenReturn(Set.of(firstRecipientKey, secondRecipientKey));
+
+        PrivateKey recipientPrivateKey = mock(PrivateKey.class);
+        when(keyManager.getPrivateKeyForPublicKey(secondRecipientKey)).thenReturn(recipientPrivateKey);
+
+        SharedKey sharedKey = mock(SharedKey.class);
+        when(nacl.computeSharedKey(senderKey, recipientPrivateKey)).thenReturn(sharedKey);
+
+        when(nacl.openAfterPrecomputation("SecondBox".getBytes(), recipientNonce, sharedKey))
+                .thenReturn("masterKeyBytes".getBytes());
+
+        byte[] expectedOutcome = "SUCCESS".getBytes();
+        when(nacl.openAfterPrecomputation(any(byte[].class), any(Nonce.class), any(MasterKey.class)))
+                .thenReturn(expectedOutcome);
+
+        byte[] result = enclave.unencryptTransaction(payload, secondRecipientKey);
+
+        assertThat(result).isSameAs(expectedOutcome);
+
+        verify(nacl).openAfterPrecomputation("SecondBox".getBytes(), recipientNonce, sharedKey);
+        verify(nacl).openAfterPrecomputation(any(byte[].class), any(Nonce.class), any(MasterKey.class));
+        verify(keyManager).getPrivateKeyForPublicKey(secondRecipientKey);
+        verify(keyManager).getPublicKeys();
+        verify(nacl).computeSharedKey(senderKey, recipientPrivateKey);
+    }
+
     @Test
     public void encryptPayload() {
 
@@ -257,6 +409,114 @@ public class EnclaveTest {
         verify(keyManager).getPrivateKeyForPublicKey(senderPublicKey);
     }
 
+    @Test
+    public void encryptPayloadSealsLargeRecipientListInParallelInRecipientOrder() {
+        final ForkJoinPool sealingPool = new ForkJoinPool(4);
+        final Enclave parallelEnclave = new EnclaveImpl(nacl, keyManager, new SharedKeyCache(0), sealingPool, 10);
+
+        byte[] message = "MESSAGE".getBytes();
+        PublicKey senderPublicKey = PublicKey.from("SENDER".getBytes());
+        PrivateKey senderPrivateKey = mock(PrivateKey.class);
+        when(keyManager.getPrivateKeyForPublicKey(senderPublicKey)).thenReturn(senderPrivateKey);
+
+        byte[] masterKeyBytes = "masterKeyBytes".getBytes();
+        MasterKey masterKey = MasterKey.from(masterKeyBytes);
+        Nonce cipherNonce = mock(Nonce.class);
+        Nonce recipientNonce = mock(Nonce.class);
+        when(nacl.createMasterKey()).thenReturn(masterKey);
+        when(nacl.randomNonce()).thenReturn(cipherNonce, recipientNonce);
+        when(nacl.sealAfterPrecomputation(message, cipherNonce, masterKey)).thenReturn("cipherText".getBytes());
+
+        final Set<String> sealingThreads = Collections.synchronizedSet(new HashSet<>());
+        final List<PublicKey> recipients = new ArrayList<>();
+        final List<RecipientBox> expectedBoxes = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            PublicKey recipient = PublicKey.from(("RECIPIENT" + i).getBytes());
+            SharedKey sharedKey = SharedKey.from(("SHARED" + i).getBytes());
+            byte[] box = ("BOX" + i).getBytes();
+            when(nacl.computeSharedKey(recipient, senderPrivateKey)).thenReturn(sharedKey);
+            when(nacl.sealAfterPrecomputation(masterKeyBytes, recipientNonce, sharedKey))
+                    .thenAnswer(
+                            invocation -> {
+                                sealingThreads.add(Thread.currentThread().getName());
+                                return box;
+                            });
+            recipients.add(recipient);
+            expectedBoxes.add(RecipientBox.from(box));
+        }
+
+        try {
+            EncodedPayload result =
+                    parallelEnclave.encryptPayload(
+                            message, senderPublicKey, recipients, PrivacyMode.STANDARD_PRIVATE, emptyList(), null);
+
+            assertThat(result.getRecipientKeys()).containsExactlyElementsOf(recipients);
+            assertThat(result.getRecipientBoxes()).containsExactlyElementsOf(expectedBoxes);
+            assertThat(sealingThreads).anyMatch(name -> name.startsWith("ForkJoinPool"));
+        } finally {
+            sealingPool.shutdown();
+        }
+
+        verify(nacl).createMasterKey();
+        verify(nacl, times(2)).randomNonce();
+        verify(nacl).sealAfterPrecomputation(message, cipherNonce, masterKey);
+        verify(nacl, times(100)).sealAfterPrecomputation(eq(masterKeyBytes), eq(recipientNonce), any(SharedKey.class));
+        verify(nacl, times(100)).computeSharedKey(any(PublicKey.class), eq(senderPrivateKey));
+        verify(keyManager, times(100)).getPrivateKeyForPublicKey(senderPublicKey);
+    }
+
+    @Test
+    public void encryptPayloadSealsSmallRecipientListOnCallingThread() {
+        final ForkJoinPool sealingPool = new ForkJoinPool(4);
+        final Enclave parallelEnclave = new EnclaveImpl(nacl, keyManager, new SharedKeyCache(0), sealingPool, 10);
+
+        byte[] message = "MESSAGE".getBytes();
+        PublicKey senderPublicKey = PublicKey.from("SENDER".getBytes());
+        PublicKey recipientPublicKey = PublicKey.from("RECIPIENT".getBytes());
+        PrivateKey senderPrivateKey = mock(PrivateKey.class);
+        when(keyManager.getPrivateKeyForPublicKey(senderPublicKey)).thenReturn(senderPrivateKey);
+
+        byte[] masterKeyBytes = "masterKeyBytes".getBytes();
+        MasterKey masterKey = MasterKey.from(masterKeyBytes);
+        Nonce cipherNonce = mock(Nonce.class);
+        Nonce recipientNonce = mock(Nonce.class);
+        when(nacl.createMasterKey()).thenReturn(masterKey);
+        when(nacl.randomNonce()).thenReturn(cipherNonce, recipientNonce);
+        when(nacl.sealAfterPrecomputation(message, cipherNonce, masterKey)).thenReturn("cipherText".getBytes());
+
+        SharedKey sharedKey = mock(SharedKey.class);
+        when(nacl.computeSharedKey(recipientPublicKey, senderPrivateKey)).thenReturn(sharedKey);
+        final String callingThread = Thread.currentThread().getName();
+        when(nacl.sealAfterPrecomputation(masterKeyBytes, recipientNonce, sharedKey))
+                .thenAnswer(
+                        invocation -> {
+                            assertThat(Thread.currentThread().getName()).isEqualTo(callingThread);
+                            return "BOX".getBytes();
+                        });
+
+        try {
+            EncodedPayload result =
+                    parallelEnclave.encryptPayload(
+                            message,
+                            senderPublicKey,
+                            List.of(recipientPublicKey),
+                            PrivacyMode.STANDARD_PRIVATE,
+                            emptyList(),
+                            null);
+
+            assertThat(result.getRecipientBoxes()).containsExactly(RecipientBox.from("BOX".getBytes()));
+        } finally {
+            sealingPool.shutdown();
+        }
+
+        verify(nacl).createMasterKey();
+        verify(nacl, times(2)).randomNonce();
+        verify(nacl).sealAfterPrecomputation(message, cipherNonce, masterKey);
+        verify(nacl).sealAfterPrecomputation(masterKeyBytes, recipientNonce, sharedKey);
+        verify(nacl).computeSharedKey(recipientPublicKey, senderPrivateKey);
+        verify(keyManager).getPrivateKeyForPublicKey(senderPublicKey);
+    }
+
     @Test
     public void encryptPayloadWithAffectedTransactions() {
 
@@ -299,8 +559,8 @@ public class EnclaveTest {
         when(affectedTxPayload.getAffectedContractTransactions()).thenReturn(emptyMap());
         when(affectedTxPayload.getExecHash()).thenReturn(new byte[0]);
 
-
-        TxHash txnHash = new TxHash("bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ==");
+        TxHash txnHash =
+                new TxHash("bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ==");
 
         AffectedTransaction affectedTransaction = mock(AffectedTransaction.class);
         when(affectedTransaction.getHash()).thenReturn(txnHash);
@@ -314,7 +574,7 @@ public class EnclaveTest {
                         senderPublicKey,
                         Arrays.asList(recipientPublicKey),
                         PrivacyMode.STANDARD_PRIVATE,
-                    affectedContractTransactions,
+                        affectedContractTransactions,
                         new byte[0]);
 
         assertThat(result).isNotNull();
@@ -505,6 +765,47 @@ public class EnclaveTest {
         verify(keyManager, times(2)).getPrivateKeyForPublicKey(senderKey);
     }
 
+    @Test
+    public void createNewRecipientBoxesOpensMasterKeyOnce() {
+
+        final PublicKey publicKey = PublicKey.from("recipient".getBytes());
+        final PublicKey senderKey = PublicKey.from("sender".getBytes());
+        final PublicKey otherKey = PublicKey.from("other".getBytes());
+        final PrivateKey privateKey = PrivateKey.from("sender-priv".getBytes());
+        final SharedKey recipientSenderShared = SharedKey.from("shared-one".getBytes());
+        final SharedKey senderShared = SharedKey.from("shared-two".getBytes());
+        final SharedKey otherShared = SharedKey.from("shared-three".getBytes());
+        final RecipientBox closedbox = RecipientBox.from("closed".getBytes());
+        final byte[] openbox = "open".getBytes();
+        final Nonce nonce = new Nonce("nonce".getBytes());
+
+        EncodedPayload payload = mock(EncodedPayload.class);
+        when(payload.getSenderKey()).thenReturn(senderKey);
+        when(payload.getRecipientBoxes()).thenReturn(singletonList(closedbox));
+        when(payload.getRecipientNonce()).thenReturn(nonce);
+        when(payload.getRecipientKeys()).thenReturn(singletonList(publicKey));
+
+        when(nacl.computeSharedKey(publicKey, privateKey)).thenReturn(recipientSenderShared);
+        when(nacl.computeSharedKey(senderKey, privateKey)).thenReturn(senderShared);
+        when(nacl.computeSharedKey(otherKey, privateKey)).thenReturn(otherShared);
+        when(nacl.openAfterPrecomputation(closedbox.getData(), nonce, recipientSenderShared)).thenReturn(openbox);
+        when(nacl.sealAfterPrecomputation(openbox, nonce, senderShared)).thenReturn("senderbox".getBytes());
+        when(nacl.sealAfterPrecomputation(openbox, nonce, otherShared)).thenReturn("otherbox".getBytes());
+        when(keyManager.getPrivateKeyForPublicKey(senderKey)).thenReturn(privateKey);
+
+        final List<byte[]> newRecipientBoxes = enclave.createNewRecipientBoxes(payload, List.of(senderKey, otherKey));
+
+        assertThat(newRecipientBoxes).containsExactly("senderbox".getBytes(), "otherbox".getBytes());
+
+        verify(nacl).computeSharedKey(publicKey, privateKey);
+        verify(nacl).computeSharedKey(senderKey, privateKey);
+        verify(nacl).computeSharedKey(otherKey, privateKey);
+        verify(nacl).openAfterPrecomputation(closedbox.getData(), nonce, recipientSenderShared);
+        verify(nacl).sealAfterPrecomputation(openbox, nonce, senderShared);
+        verify(nacl).sealAfterPrecomputation(openbox, nonce, otherShared);
+        verify(keyManager, times(3)).getPrivateKeyForPublicKey(senderKey);
+    }
+
     @Test
     public void findInvalidSecurityHashesTransactionSentToCurrentNode() {
 
@@ -527,8 +828,13 @@ public class EnclaveTest {
 
         when(keyManager.getPublicKeys()).thenReturn(Collections.singleton(recipientKey));
 
-        TxHash txHash = TxHash.from(Base64.getDecoder().decode("bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ=="));
-        Map<TxHash, SecurityHash> affectedContractTransactionHashes = Map.of(txHash,SecurityHash.from("securityHash".getBytes()));
+        TxHash txHash =
+                TxHash.from(
+                        Base64.getDecoder()
+                                .decode(
+                                        "bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ=="));
+        Map<TxHash, SecurityHash> affectedContractTransactionHashes =
+                Map.of(txHash, SecurityHash.from("securityHash".getBytes()));
 
         final EncodedPayload payload = mock(EncodedPayload.class);
         when(payload.getSenderKey()).thenReturn(senderKey);
@@ -552,20 +858,19 @@ public class EnclaveTest {
         when(affectedTxPayload.getAffectedContractTransactions()).thenReturn(emptyMap());
         when(affectedTxPayload.getExecHash()).thenReturn(new byte[0]);
 
-
-        var txnHash = new TxHash("bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ==");
+        var txnHash =
+                new TxHash("bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ==");
         AffectedTransaction affectedTransaction = mock(AffectedTransaction.class);
         when(affectedTransaction.getHash()).thenReturn(txnHash);
         when(affectedTransaction.getPayload()).thenReturn(affectedTxPayload);
 
-
         Set<TxHash> invalidHashes = enclave.findInvalidSecurityHashes(payload, List.of(affectedTransaction));
 
         assertThat(invalidHashes).hasSize(1);
 
         verify(nacl).computeSharedKey(senderKey, privateKey);
         verify(nacl).openAfterPrecomputation(closedbox.getData(), nonce, sharedKey);
-        verify(keyManager, times(2)).getPublicKeys();
+        verify(keyManager).getPublicKeys();
         verify(keyManager).getPrivateKeyForPublicKey(recipientKey);
     }
 
@@ -596,7 +901,8 @@ public class EnclaveTest {
         TxHash txHash =
                 new TxHash("bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ==");
 
-        final Map<TxHash, SecurityHash> affectedContractTransactionHashes = Map.of(txHash,SecurityHash.from(digestSHA3.digest("cipherTextcipherTextopen".getBytes())));
+        final Map<TxHash, SecurityHash> affectedContractTransactionHashes =
+                Map.of(txHash, SecurityHash.from(digestSHA3.digest("cipherTextcipherTextopen".getBytes())));
         final EncodedPayload payload = mock(EncodedPayload.class);
         when(payload.getSenderKey()).thenReturn(senderKey);
         when(payload.getCipherText()).thenReturn(cipherText);
@@ -626,14 +932,13 @@ public class EnclaveTest {
         when(affectedTransaction.getHash()).thenReturn(txHash);
         when(affectedTransaction.getPayload()).thenReturn(affectedTxPayload);
 
-
         Set<TxHash> invalidHashes = enclave.findInvalidSecurityHashes(payload, List.of(affectedTransaction));
 
         assertThat(invalidHashes).hasSize(0);
 
         verify(nacl).computeSharedKey(senderKey, privateKey);
         verify(nacl).openAfterPrecomputation(closedbox.getData(), nonce, sharedKey);
-        verify(keyManager, times(2)).getPublicKeys();
+        verify(keyManager).getPublicKeys();
         verify(keyManager).getPrivateKeyForPublicKey(recipientKey);
     }
 
@@ -652,8 +957,11 @@ public class EnclaveTest {
 
         when(keyManager.getPublicKeys()).thenReturn(Collections.singleton(recipientKey));
 
-        final Map<TxHash, SecurityHash> affectedContractTransactionHashes = Map.of(new TxHash("bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ=="),
-            SecurityHash.from("securityHash".getBytes()));
+        final Map<TxHash, SecurityHash> affectedContractTransactionHashes =
+                Map.of(
+                        new TxHash(
+                                "bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ=="),
+                        SecurityHash.from("securityHash".getBytes()));
 
         final EncodedPayload payload = mock(EncodedPayload.class);
         when(payload.getSenderKey()).thenReturn(senderKey);
@@ -677,7 +985,8 @@ public class EnclaveTest {
         when(affectedTxPayload.getAffectedContractTransactions()).thenReturn(emptyMap());
         when(affectedTxPayload.getExecHash()).thenReturn(new byte[0]);
 
-        TxHash txHash = new TxHash("bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ==");
+        TxHash txHash =
+                new TxHash("bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ==");
         AffectedTransaction affectedTransaction = mock(AffectedTransaction.class);
         when(affectedTransaction.getPayload()).thenReturn(affectedTxPayload);
         when(affectedTransaction.getHash()).thenReturn(txHash);
@@ -726,7 +1035,7 @@ public class EnclaveTest {
                 SecurityHash.from(securityHash));
         affectedContractTransactionHashes.put(
                 new TxHash("afMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ=="),
-            SecurityHash.from("securityHash2".getBytes()));
+                SecurityHash.from("securityHash2".getBytes()));
         final EncodedPayload payload = mock(EncodedPayload.class);
         when(payload.getSenderKey()).thenReturn(senderKey);
         when(payload.getCipherText()).thenReturn(cipherText);
@@ -754,7 +1063,8 @@ public class EnclaveTest {
                 new TxHash("bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ=="),
                 affectedTxPayload);
 
-        TxHash txHash = new TxHash("bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ==");
+        TxHash txHash =
+                new TxHash("bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ==");
         AffectedTransaction affectedTransaction = mock(AffectedTransaction.class);
         when(affectedTransaction.getHash()).thenReturn(txHash);
         when(affectedTransaction.getPayload()).thenReturn(affectedTxPayload);
@@ -785,9 +1095,11 @@ public class EnclaveTest {
         when(nacl.computeSharedKey(senderKey, privateKey))
                 .thenThrow(new EncryptorException("JNacl could not compute the shared key"));
 
-        Map<TxHash, SecurityHash> affectedContractTransactionHashes = Map.of(
-            new TxHash("bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ=="),
-            SecurityHash.from("securityHash".getBytes()));
+        Map<TxHash, SecurityHash> affectedContractTransactionHashes =
+                Map.of(
+                        new TxHash(
+                                "bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ=="),
+                        SecurityHash.from("securityHash".getBytes()));
 
         final EncodedPayload payload = mock(EncodedPayload.class);
         when(payload.getSenderKey()).thenReturn(senderKey);
@@ -811,13 +1123,12 @@ public class EnclaveTest {
         when(affectedTxPayload.getAffectedContractTransactions()).thenReturn(emptyMap());
         when(affectedTxPayload.getExecHash()).thenReturn(new byte[0]);
 
-
-        TxHash txHash = new TxHash("bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ==");
+        TxHash txHash =
+                new TxHash("bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ==");
         AffectedTransaction affectedTransaction = mock(AffectedTransaction.class);
         when(affectedTransaction.getHash()).thenReturn(txHash);
         when(affectedTransaction.getPayload()).thenReturn(affectedTxPayload);
 
-
         try {
             enclave.findInvalidSecurityHashes(payload, List.of(affectedTransaction));
             failBecauseExceptionWasNotThrown(any());
@@ -826,7 +1137,7 @@ public class EnclaveTest {
             assertThat(ex).hasMessageContaining("Unable to decrypt master key");
         }
 
-        verify(keyManager, times(2)).getPublicKeys();
+        verify(keyManager).getPublicKeys();
         verify(keyManager).getPrivateKeyForPublicKey(recipientKey);
         verify(nacl).computeSharedKey(senderKey, privateKey);
     }
@@ -25,16 +25,17 @@ public class EncodedPayloadBuilderTest {
     final byte[] recipientBox = "recipientBox".getBytes();
 
     final Map<TxHash, byte[]> affectedContractTransactionsRaw =
-        new HashMap<>() {
-            {
-                put(
-                    new TxHash(
-                        "bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ=="),
-                    "transaction".getBytes());
-            }
-        };
+            new HashMap<>() {
+                {
+                    put(
+                            new TxHash(
+                                    "bfMIqWJ/QGQhkK4USxMBxduzfgo/SIGoCros5bWYfPKUBinlAUCqLVOUAP9q+BgLlsWni1M6rnzfmaqSw2J5hQ=="),
+                            "transaction".getBytes());
+                }
+            };
 
     final byte[] execHash = "execHash".getBytes();
+
     @Test
     public void build() {
 
@@ -68,37 +69,29 @@ public class EncodedPayloadBuilderTest {
         byte[] otherRecipientBox = "OTHETRBIX".getBytes();
         EncodedPayload fromSample = EncodedPayload.Builder.from(sample).withRecipientBox(otherRecipientBox).build();
 
-        assertThat(fromSample.getRecipientBoxes()).hasSize(2)
-            .containsExactly(RecipientBox.from(recipientBox),RecipientBox.from(otherRecipientBox));
-
+        assertThat(fromSample.getRecipientBoxes())
+                .hasSize(2)
+                .containsExactly(RecipientBox.from(recipientBox), RecipientBox.from(otherRecipientBox));
     }
 
     @Test
     public void from() {
         final EncodedPayload sample =
-            EncodedPayload.Builder.create()
-                .withSenderKey(senderKey)
-                .withCipherText(cipherText)
-                .withCipherTextNonce(cipherTextNonce)
-                .withRecipientBoxes(Arrays.asList(recipientBox))
-                .withRecipientNonce(recipientNonce)
-                .withRecipientKeys(Arrays.asList(recipientKey))
-                .withPrivacyMode(PrivacyMode.PRIVATE_STATE_VALIDATION)
-                .withExecHash(execHash)
-                .build();
+                EncodedPayload.Builder.create()
+                        .withSenderKey(senderKey)
+                        .withCipherText(cipherText)
+                        .withCipherTextNonce(cipherTextNonce)
+                        .withRecipientBoxes(Arrays.asList(recipientBox))
+                        .withRecipientNonce(recipientNonce)
+                        .withRecipientKeys(Arrays.asList(recipientKey))
+                        .withPrivacyMode(PrivacyMode.PRIVATE_STATE_VALIDATION)
+                        .withExecHash(execHash)
+                        .build();
 
         EncodedPayload result = EncodedPayload.Builder.from(sample).build();
 
-        assertThat(result)
-            .isNotSameAs(sample)
-            .isEqualTo(sample);
-
-        EqualsVerifier.forClass(EncodedPayload.class)
-            .withIgnoredFields("affectedContractTransactions")
-            .usingGetClass()
-            .verify();
+        assertThat(result).isNotSameAs(sample).isEqualTo(sample);
 
+        EqualsVerifier.forClass(EncodedPayloadImpl.class).withIgnoredFields("affectedContractTransactions").verify();
     }
-
-
 }
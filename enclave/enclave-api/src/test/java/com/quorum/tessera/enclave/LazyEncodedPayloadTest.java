@@ -0,0 +1,85 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.Nonce;
+import com.quorum.tessera.encryption.PublicKey;
+import org.junit.Test;
+
+import java.nio.BufferUnderflowException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class LazyEncodedPayloadTest {
+
+    private final PayloadEncoderImpl payloadEncoder = new PayloadEncoderImpl();
+
+    private final EncodedPayload payload =
+            EncodedPayload.Builder.create()
+                    .withSenderKey(PublicKey.from("SENDER".getBytes()))
+                    .withCipherText("CIPHERTEXT".getBytes())
+                    .withCipherTextNonce("NONCE".getBytes())
+                    .withRecipientBoxes(List.of("BOX1".getBytes(), "BOX2".getBytes()))
+                    .withRecipientNonce("RECIPIENTNONCE".getBytes())
+                    .withRecipientKeys(List.of(PublicKey.from("R1".getBytes()), PublicKey.from("R2".getBytes())))
+                    .withPrivacyMode(PrivacyMode.PRIVATE_STATE_VALIDATION)
+                    .withAffectedContractTransactions(Map.of(new TxHash("TX".getBytes()), "SECURITY".getBytes()))
+                    .withExecHash("EXEC".getBytes())
+                    .build();
+
+    @Test
+    public void viewMatchesEncodedPayload() {
+
+        final EncodedPayload view = new LazyEncodedPayload(payloadEncoder.encode(payload));
+
+        assertThat(view).isEqualTo(payload);
+        assertThat(payload).isEqualTo(view);
+        assertThat(view.hashCode()).isEqualTo(payload.hashCode());
+        assertThat(view.getAffectedContractTransactions()).isEqualTo(payload.getAffectedContractTransactions());
+        assertThat(payloadEncoder.encode(view)).isEqualTo(payloadEncoder.encode(payload));
+    }
+
+    @Test
+    public void fieldsAreDecodedOnceAndReused() {
+
+        final EncodedPayload view = new LazyEncodedPayload(payloadEncoder.encode(payload));
+
+        assertThat(view.getSenderKey()).isSameAs(view.getSenderKey());
+        assertThat(view.getCipherText()).isSameAs(view.getCipherText());
+        assertThat(view.getRecipientKeys()).isSameAs(view.getRecipientKeys());
+        assertThat(view.getRecipientBoxes()).isSameAs(view.getRecipientBoxes());
+    }
+
+    @Test
+    public void viewOfPayloadWithoutOptionalFieldsUsesDefaults() {
+
+        final byte[] encoded = payloadEncoder.encode(payload);
+
+        // sender, cipher text, nonce, two boxes and recipient nonce, as written by the oldest encoders
+        final int legacyLength =
+                (Long.BYTES + 6) + (Long.BYTES + 10) + (Long.BYTES + 5) + Long.BYTES + 2 * (Long.BYTES + 4)
+                        + (Long.BYTES + 14);
+
+        final EncodedPayload view = new LazyEncodedPayload(Arrays.copyOf(encoded, legacyLength));
+
+        assertThat(view.getSenderKey()).isEqualTo(payload.getSenderKey());
+        assertThat(view.getRecipientNonce()).isEqualTo(new Nonce("RECIPIENTNONCE".getBytes()));
+        assertThat(view.getRecipientBoxes()).hasSize(2);
+        assertThat(view.getRecipientKeys()).isEmpty();
+        assertThat(view.getPrivacyMode()).isEqualTo(PrivacyMode.STANDARD_PRIVATE);
+        assertThat(view.getAffectedContractTransactions()).isEmpty();
+        assertThat(view.getExecHash()).isEmpty();
+    }
+
+    @Test
+    public void truncatedInputIsRejectedWhenViewIsCreated() {
+
+        final byte[] encoded = payloadEncoder.encode(payload);
+
+        final Throwable throwable = catchThrowable(() -> new LazyEncodedPayload(Arrays.copyOf(encoded, 20)));
+
+        assertThat(throwable).isInstanceOf(BufferUnderflowException.class);
+    }
+}
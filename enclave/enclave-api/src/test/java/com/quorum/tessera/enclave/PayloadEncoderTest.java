@@ -1621,6 +1621,67 @@ public class PayloadEncoderTest {
         assertThat(payload2.getRecipientBoxes()).hasSize(1).containsExactly(RecipientBox.from("anotherBox".getBytes()));
     }
 
+    @Test
+    public void encodeForSeveralRecipients() {
+        final PublicKey sender = PublicKey.from("sender".getBytes());
+        final PublicKey recipient1 = PublicKey.from("recipient1".getBytes());
+        final PublicKey recipient2 = PublicKey.from("recipient2".getBytes());
+        final PublicKey recipient3 = PublicKey.from("recipient3".getBytes());
+
+        final EncodedPayload originalPayload =
+                EncodedPayload.Builder.create()
+                        .withSenderKey(sender)
+                        .withCipherText("cipherText".getBytes())
+                        .withCipherTextNonce(new Nonce("nonce".getBytes()))
+                        .withRecipientBoxes(List.of("box1".getBytes(), "box2".getBytes(), "box3".getBytes()))
+                        .withRecipientNonce(new Nonce("recipientNonce".getBytes()))
+                        .withRecipientKeys(List.of(recipient1, recipient2, recipient3))
+                        .withPrivacyMode(PrivacyMode.STANDARD_PRIVATE)
+                        .build();
+
+        final EncodedPayload result = payloadEncoder.forRecipients(originalPayload, List.of(recipient3, recipient1));
+
+        assertThat(result.getCipherText()).isEqualTo(originalPayload.getCipherText());
+        assertThat(result.getSenderKey()).isEqualTo(sender);
+        assertThat(result.getRecipientKeys()).containsExactly(recipient3, recipient1);
+        assertThat(result.getRecipientBoxes())
+                .containsExactly(RecipientBox.from("box3".getBytes()), RecipientBox.from("box1".getBytes()));
+
+        final EncodedPayload decoded = payloadEncoder.decode(payloadEncoder.encode(result));
+        assertThat(decoded.getRecipientKeys()).containsExactly(recipient3, recipient1);
+        assertThat(payloadEncoder.forRecipient(decoded, recipient1).getRecipientBoxes())
+                .containsExactly(RecipientBox.from("box1".getBytes()));
+    }
+
+    @Test
+    public void encodeForSeveralRecipientsWithPrivateStateValidation() {
+        final PublicKey recipient1 = PublicKey.from("recipient1".getBytes());
+        final PublicKey recipient2 = PublicKey.from("recipient2".getBytes());
+        final PublicKey recipient3 = PublicKey.from("recipient3".getBytes());
+
+        final EncodedPayload originalPayload =
+                EncodedPayload.Builder.create()
+                        .withSenderKey(PublicKey.from("sender".getBytes()))
+                        .withCipherText("cipherText".getBytes())
+                        .withCipherTextNonce(new Nonce("nonce".getBytes()))
+                        .withRecipientBoxes(List.of("box1".getBytes(), "box2".getBytes(), "box3".getBytes()))
+                        .withRecipientNonce(new Nonce("recipientNonce".getBytes()))
+                        .withRecipientKeys(List.of(recipient1, recipient2, recipient3))
+                        .withPrivacyMode(PrivacyMode.PRIVATE_STATE_VALIDATION)
+                        .withAffectedContractTransactions(
+                                singletonMap(new TxHash("test".getBytes()), "test".getBytes()))
+                        .withExecHash("execHash".getBytes())
+                        .build();
+
+        final EncodedPayload result = payloadEncoder.forRecipients(originalPayload, List.of(recipient2, recipient3));
+
+        assertThat(result.getRecipientKeys()).containsExactly(recipient2, recipient3, recipient1);
+        assertThat(result.getRecipientBoxes())
+                .containsExactly(RecipientBox.from("box2".getBytes()), RecipientBox.from("box3".getBytes()));
+        assertThat(result.getAffectedContractTransactions()).isEqualTo(originalPayload.getAffectedContractTransactions());
+        assertThat(result.getExecHash()).isEqualTo(originalPayload.getExecHash());
+    }
+
     @Test(expected = InvalidRecipientException.class)
     public void encodeForSpecificRecipientNotContainedInPayload() {
         final String data =
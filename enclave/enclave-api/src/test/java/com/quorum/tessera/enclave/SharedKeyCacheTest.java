@@ -0,0 +1,126 @@
+package com.quorum.tessera.enclave;
+
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.encryption.SharedKey;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class SharedKeyCacheTest {
+
+    private final PublicKey localKey = PublicKey.from("LOCAL".getBytes());
+
+    private final PublicKey remoteKey = PublicKey.from("REMOTE".getBytes());
+
+    private final PublicKey otherRemoteKey = PublicKey.from("OTHER".getBytes());
+
+    private AtomicInteger computations;
+
+    @Before
+    public void onSetUp() {
+        computations = new AtomicInteger();
+    }
+
+    private Supplier<SharedKey> supplierOf(String value) {
+        return () -> {
+            computations.incrementAndGet();
+            return SharedKey.from(value.getBytes());
+        };
+    }
+
+    @Test
+    public void secondLookupIsServedFromCache() {
+        final SharedKeyCache cache = new SharedKeyCache();
+
+        final SharedKey first = cache.get(localKey, remoteKey, supplierOf("SHARED"));
+        final SharedKey second = cache.get(localKey, remoteKey, supplierOf("SHARED"));
+
+        assertThat(first).isEqualTo(second).isNotSameAs(second);
+        assertThat(computations).hasValue(1);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getSize()).isEqualTo(1);
+        assertThat(cache.getCapacity()).isEqualTo(SharedKeyCache.DEFAULT_CAPACITY);
+    }
+
+    @Test
+    public void keyPairsAreDirectional() {
+        final SharedKeyCache cache = new SharedKeyCache();
+
+        cache.get(localKey, remoteKey, supplierOf("ONE"));
+        cache.get(remoteKey, localKey, supplierOf("TWO"));
+
+        assertThat(computations).hasValue(2);
+        assertThat(cache.getSize()).isEqualTo(2);
+    }
+
+    @Test
+    public void leastRecentlyUsedEntryIsEvictedAndZeroed() {
+        final SharedKeyCache cache = new SharedKeyCache(1);
+
+        final SharedKey first = cache.get(localKey, remoteKey, supplierOf("ONE"));
+        cache.get(localKey, otherRemoteKey, supplierOf("TWO"));
+
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        assertThat(cache.getSize()).isEqualTo(1);
+
+        // the key handed out previously is unaffected by the eviction
+        assertThat(first.getKeyBytes()).isEqualTo("ONE".getBytes());
+
+        final SharedKey recomputed = cache.get(localKey, remoteKey, supplierOf("ONE"));
+        assertThat(recomputed).isEqualTo(first);
+        assertThat(computations).hasValue(3);
+    }
+
+    @Test
+    public void zeroCapacityNeverCaches() {
+        final SharedKeyCache cache = new SharedKeyCache(0);
+
+        cache.get(localKey, remoteKey, supplierOf("ONE"));
+        cache.get(localKey, remoteKey, supplierOf("ONE"));
+
+        assertThat(computations).hasValue(2);
+        assertThat(cache.getSize()).isZero();
+        assertThat(cache.getHitCount()).isZero();
+    }
+
+    @Test
+    public void negativeCapacityIsRejected() {
+        final Throwable throwable = catchThrowable(() -> new SharedKeyCache(-1));
+
+        assertThat(throwable).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void invalidateRemovesOnlyEntriesForLocalKey() {
+        final SharedKeyCache cache = new SharedKeyCache();
+
+        cache.get(localKey, remoteKey, supplierOf("ONE"));
+        cache.get(localKey, otherRemoteKey, supplierOf("TWO"));
+        cache.get(remoteKey, otherRemoteKey, supplierOf("THREE"));
+
+        cache.invalidate(localKey);
+
+        assertThat(cache.getSize()).isEqualTo(1);
+
+        cache.get(remoteKey, otherRemoteKey, supplierOf("THREE"));
+        assertThat(computations).hasValue(3);
+    }
+
+    @Test
+    public void clearRemovesEverything() {
+        final SharedKeyCache cache = new SharedKeyCache();
+
+        cache.get(localKey, remoteKey, supplierOf("ONE"));
+        cache.get(localKey, otherRemoteKey, supplierOf("TWO"));
+
+        cache.clear();
+
+        assertThat(cache.getSize()).isZero();
+    }
+}
@@ -0,0 +1,467 @@
+package com.quorum.tessera.enclave.rest;
+
+import com.quorum.tessera.enclave.BinaryEncoder;
+import com.quorum.tessera.enclave.PrivacyMode;
+
+import javax.ws.rs.BadRequestException;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * Reads and writes the remote enclave messages in a compact binary form, as an alternative to JSON that avoids encoding
+ * every byte array as base64.
+ *
+ * <p>Each message is its fields in a fixed order. Byte arrays use the same framing as {@link BinaryEncoder}: an 8 byte
+ * length followed by the bytes, with a length of -1 for a missing value. Lists are an 8 byte count followed by each
+ * element, and the privacy mode is its 8 byte flag.
+ */
+@Provider
+@Consumes(BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY)
+@Produces(BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY)
+public class BinaryEnclaveMessageProvider implements MessageBodyReader<Object>, MessageBodyWriter<Object> {
+
+    public static final String APPLICATION_ENCLAVE_BINARY = "application/vnd.tessera.enclave+binary";
+
+    public static final MediaType APPLICATION_ENCLAVE_BINARY_TYPE = MediaType.valueOf(APPLICATION_ENCLAVE_BINARY);
+
+    private static final long ABSENT = -1L;
+
+    private static final BinaryEncoder ENCODER = new BinaryEncoder() {};
+
+    private static final Map<Class<?>, Codec<?>> CODECS =
+            Map.of(
+                    EnclavePayload.class,
+                    new Codec<>(BinaryEnclaveMessageProvider::writeEnclavePayload, Reader::readEnclavePayload),
+                    EnclaveRawPayload.class,
+                    new Codec<>(BinaryEnclaveMessageProvider::writeEnclaveRawPayload, Reader::readEnclaveRawPayload),
+                    EnclaveUnencryptPayload.class,
+                    new Codec<>(BinaryEnclaveMessageProvider::writeUnencryptPayload, Reader::readUnencryptPayload),
+                    EnclaveFindInvalidSecurityHashesRequestPayload.class,
+                    new Codec<>(
+                            BinaryEnclaveMessageProvider::writeFindInvalidSecurityHashesRequest,
+                            Reader::readFindInvalidSecurityHashesRequest),
+                    EnclaveFindInvalidSecurityHashesResponsePayload.class,
+                    new Codec<>(
+                            BinaryEnclaveMessageProvider::writeFindInvalidSecurityHashesResponse,
+                            Reader::readFindInvalidSecurityHashesResponse),
+                    EnclaveBatchEncryptPayload.class,
+                    new Codec<>(
+                            BinaryEnclaveMessageProvider::writeBatchEncryptPayload, Reader::readBatchEncryptPayload),
+                    EnclaveUnencryptBatchPayload.class,
+                    new Codec<>(
+                            BinaryEnclaveMessageProvider::writeUnencryptBatchPayload,
+                            Reader::readUnencryptBatchPayload),
+                    EnclaveRecipientBoxesPayload.class,
+                    new Codec<>(
+                            BinaryEnclaveMessageProvider::writeRecipientBoxesPayload,
+                            Reader::readRecipientBoxesPayload),
+                    EnclaveBatchResponsePayload.class,
+                    new Codec<>(
+                            BinaryEnclaveMessageProvider::writeBatchResponsePayload, Reader::readBatchResponsePayload));
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return CODECS.containsKey(type);
+    }
+
+    @Override
+    public Object readFrom(
+            Class<Object> type,
+            Type genericType,
+            Annotation[] annotations,
+            MediaType mediaType,
+            MultivaluedMap<String, String> httpHeaders,
+            InputStream entityStream)
+            throws IOException {
+        return decode(type, entityStream.readAllBytes());
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return CODECS.containsKey(type);
+    }
+
+    @Override
+    public void writeTo(
+            Object message,
+            Class<?> type,
+            Type genericType,
+            Annotation[] annotations,
+            MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders,
+            OutputStream entityStream)
+            throws IOException {
+        entityStream.write(encode(message));
+    }
+
+    /**
+     * Encodes one of the enclave messages.
+     *
+     * @param message the message to encode
+     * @return the binary form of the message
+     * @throws IllegalArgumentException if the message is not an enclave message
+     */
+    public static byte[] encode(Object message) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        codecFor(message.getClass()).write(message, output);
+        return output.toByteArray();
+    }
+
+    /**
+     * Decodes one of the enclave messages.
+     *
+     * @param type the type of message to decode
+     * @param data the binary form of the message
+     * @return the decoded message
+     * @throws IllegalArgumentException if the type is not an enclave message
+     * @throws BadRequestException if the data is not exactly one message of the type
+     */
+    public static <T> T decode(Class<T> type, byte[] data) {
+        final Codec<Object> codec = codecFor(type);
+        final Reader reader = new Reader(ByteBuffer.wrap(data));
+        try {
+            final T message = type.cast(codec.read(reader));
+            reader.checkFinished();
+            return message;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+            throw new BadRequestException("Invalid binary " + type.getSimpleName(), ex);
+        }
+    }
+
+    /**
+     * Encodes a list of byte arrays, as sent for the public and forwarding keys.
+     *
+     * @param data the arrays to encode
+     * @return the binary form of the list
+     */
+    public static byte[] encodeList(List<byte[]> data) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        writeList(data, output);
+        return output.toByteArray();
+    }
+
+    /**
+     * Decodes a list of byte arrays written by {@link #encodeList(List)}.
+     *
+     * @param data the binary form of the list
+     * @return the arrays in the list
+     * @throws BadRequestException if the data is not exactly one list
+     */
+    public static List<byte[]> decodeList(byte[] data) {
+        final Reader reader = new Reader(ByteBuffer.wrap(data));
+        try {
+            final List<byte[]> list = reader.readList();
+            reader.checkFinished();
+            return list;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+            throw new BadRequestException("Invalid binary list", ex);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Codec<Object> codecFor(Class<?> type) {
+        final Codec<?> codec = CODECS.get(type);
+        if (codec == null) {
+            throw new IllegalArgumentException("No binary form for " + type.getName());
+        }
+        return (Codec<Object>) codec;
+    }
+
+    private static void writeEnclavePayload(EnclavePayload payload, ByteArrayOutputStream output) {
+        writeField(payload.getData(), output);
+        writeField(payload.getSenderKey(), output);
+        writeList(payload.getRecipientPublicKeys(), output);
+        writePrivacyMode(payload.getPrivacyMode(), output);
+        writeKeyValuePairs(payload.getAffectedContractTransactions(), output);
+        writeField(payload.getExecHash(), output);
+    }
+
+    private static void writeEnclaveRawPayload(EnclaveRawPayload payload, ByteArrayOutputStream output) {
+        writeField(payload.getEncryptedPayload(), output);
+        writeField(payload.getEncryptedKey(), output);
+        writeField(payload.getNonce(), output);
+        writeField(payload.getFrom(), output);
+        writeList(payload.getRecipientPublicKeys(), output);
+        writePrivacyMode(payload.getPrivacyMode(), output);
+        writeKeyValuePairs(payload.getAffectedContractTransactions(), output);
+        writeField(payload.getExecHash(), output);
+    }
+
+    private static void writeUnencryptPayload(EnclaveUnencryptPayload payload, ByteArrayOutputStream output) {
+        writeField(payload.getData(), output);
+        writeField(payload.getProvidedKey(), output);
+    }
+
+    private static void writeFindInvalidSecurityHashesRequest(
+            EnclaveFindInvalidSecurityHashesRequestPayload payload, ByteArrayOutputStream output) {
+        writeField(payload.getEncodedPayload(), output);
+        writeKeyValuePairs(payload.getAffectedContractTransactions(), output);
+    }
+
+    private static void writeFindInvalidSecurityHashesResponse(
+            EnclaveFindInvalidSecurityHashesResponsePayload payload, ByteArrayOutputStream output) {
+        writeList(payload.getInvalidSecurityHashes(), output);
+    }
+
+    private static void writeBatchEncryptPayload(EnclaveBatchEncryptPayload payload, ByteArrayOutputStream output) {
+        writeList(payload.getData(), output);
+        writeField(payload.getSenderKey(), output);
+        writeList(payload.getRecipientPublicKeys(), output);
+        writePrivacyMode(payload.getPrivacyMode(), output);
+    }
+
+    private static void writeUnencryptBatchPayload(EnclaveUnencryptBatchPayload payload, ByteArrayOutputStream output) {
+        writeList(payload.getData(), output);
+        final List<Integer> payloadIndexes = payload.getPayloadIndexes();
+        if (payloadIndexes == null) {
+            writeLong(ABSENT, output);
+        } else {
+            writeLong(payloadIndexes.size(), output);
+            payloadIndexes.forEach(index -> writeLong(index, output));
+        }
+        writeList(payload.getProvidedKeys(), output);
+    }
+
+    private static void writeRecipientBoxesPayload(EnclaveRecipientBoxesPayload payload, ByteArrayOutputStream output) {
+        writeField(payload.getData(), output);
+        writeList(payload.getRecipientKeys(), output);
+    }
+
+    private static void writeBatchResponsePayload(EnclaveBatchResponsePayload payload, ByteArrayOutputStream output) {
+        writeList(payload.getResults(), output);
+    }
+
+    private static void writeField(byte[] data, ByteArrayOutputStream output) {
+        if (data == null) {
+            writeLong(ABSENT, output);
+        } else {
+            output.writeBytes(ENCODER.encodeField(data));
+        }
+    }
+
+    private static void writeList(List<byte[]> data, ByteArrayOutputStream output) {
+        if (data == null) {
+            writeLong(ABSENT, output);
+            return;
+        }
+        writeLong(data.size(), output);
+        data.forEach(element -> writeField(element, output));
+    }
+
+    private static void writeKeyValuePairs(List<KeyValuePair> pairs, ByteArrayOutputStream output) {
+        if (pairs == null) {
+            writeLong(ABSENT, output);
+            return;
+        }
+        writeLong(pairs.size(), output);
+        for (KeyValuePair pair : pairs) {
+            writeField(pair.getKey(), output);
+            writeField(pair.getValue(), output);
+        }
+    }
+
+    private static void writePrivacyMode(PrivacyMode privacyMode, ByteArrayOutputStream output) {
+        writeLong(privacyMode == null ? ABSENT : privacyMode.getPrivacyFlag(), output);
+    }
+
+    private static void writeLong(long value, ByteArrayOutputStream output) {
+        output.writeBytes(ByteBuffer.allocate(Long.BYTES).putLong(value).array());
+    }
+
+    private static final class Codec<T> {
+
+        private final BiConsumer<T, ByteArrayOutputStream> writer;
+
+        private final Function<Reader, T> reader;
+
+        private Codec(BiConsumer<T, ByteArrayOutputStream> writer, Function<Reader, T> reader) {
+            this.writer = writer;
+            this.reader = reader;
+        }
+
+        void write(T message, ByteArrayOutputStream output) {
+            writer.accept(message, output);
+        }
+
+        T read(Reader input) {
+            return reader.apply(input);
+        }
+    }
+
+    private static final class Reader {
+
+        private final ByteBuffer buffer;
+
+        private Reader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        byte[] readField() {
+            final long length = buffer.getLong();
+            if (length == ABSENT) {
+                return null;
+            }
+            // checked before allocating, so that a corrupt length cannot allocate more than the message holds
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IndexOutOfBoundsException("Invalid field length " + length);
+            }
+            final byte[] data = new byte[(int) length];
+            buffer.get(data);
+            return data;
+        }
+
+        List<byte[]> readList() {
+            final long size = buffer.getLong();
+            if (size == ABSENT) {
+                return null;
+            }
+            final List<byte[]> data = new ArrayList<>(initialCapacity(size));
+            for (long i = 0; i < size; i++) {
+                data.add(readField());
+            }
+            return data;
+        }
+
+        List<KeyValuePair> readKeyValuePairs() {
+            final long size = buffer.getLong();
+            if (size == ABSENT) {
+                return null;
+            }
+            final List<KeyValuePair> pairs = new ArrayList<>(initialCapacity(size));
+            for (long i = 0; i < size; i++) {
+                pairs.add(new KeyValuePair(readField(), readField()));
+            }
+            return pairs;
+        }
+
+        PrivacyMode readPrivacyMode() {
+            final long flag = buffer.getLong();
+            if (flag == ABSENT) {
+                return null;
+            }
+            if (flag < Integer.MIN_VALUE || flag > Integer.MAX_VALUE) {
+                throw new IndexOutOfBoundsException("Invalid privacy flag " + flag);
+            }
+            return PrivacyMode.fromFlag((int) flag);
+        }
+
+        void checkFinished() {
+            if (buffer.hasRemaining()) {
+                throw new IndexOutOfBoundsException(buffer.remaining() + " bytes after the end of the message");
+            }
+        }
+
+        /** Guards against a corrupt count allocating more than the message could hold */
+        private int initialCapacity(long size) {
+            if (size < 0 || size > buffer.remaining() / Long.BYTES) {
+                throw new IndexOutOfBoundsException("Invalid element count " + size);
+            }
+            return (int) size;
+        }
+
+        EnclavePayload readEnclavePayload() {
+            final EnclavePayload payload = new EnclavePayload();
+            payload.setData(readField());
+            payload.setSenderKey(readField());
+            payload.setRecipientPublicKeys(readList());
+            payload.setPrivacyMode(readPrivacyMode());
+            payload.setAffectedContractTransactions(readKeyValuePairs());
+            payload.setExecHash(readField());
+            return payload;
+        }
+
+        EnclaveRawPayload readEnclaveRawPayload() {
+            final EnclaveRawPayload payload = new EnclaveRawPayload();
+            payload.setEncryptedPayload(readField());
+            payload.setEncryptedKey(readField());
+            payload.setNonce(readField());
+            payload.setFrom(readField());
+            payload.setRecipientPublicKeys(readList());
+            payload.setPrivacyMode(readPrivacyMode());
+            payload.setAffectedContractTransactions(readKeyValuePairs());
+            payload.setExecHash(readField());
+            return payload;
+        }
+
+        EnclaveUnencryptPayload readUnencryptPayload() {
+            final EnclaveUnencryptPayload payload = new EnclaveUnencryptPayload();
+            payload.setData(readField());
+            payload.setProvidedKey(readField());
+            return payload;
+        }
+
+        EnclaveFindInvalidSecurityHashesRequestPayload readFindInvalidSecurityHashesRequest() {
+            final EnclaveFindInvalidSecurityHashesRequestPayload payload =
+                    new EnclaveFindInvalidSecurityHashesRequestPayload();
+            payload.setEncodedPayload(readField());
+            payload.setAffectedContractTransactions(readKeyValuePairs());
+            return payload;
+        }
+
+        EnclaveFindInvalidSecurityHashesResponsePayload readFindInvalidSecurityHashesResponse() {
+            final EnclaveFindInvalidSecurityHashesResponsePayload payload =
+                    new EnclaveFindInvalidSecurityHashesResponsePayload();
+            payload.setInvalidSecurityHashes(readList());
+            return payload;
+        }
+
+        EnclaveBatchEncryptPayload readBatchEncryptPayload() {
+            final EnclaveBatchEncryptPayload payload = new EnclaveBatchEncryptPayload();
+            payload.setData(readList());
+            payload.setSenderKey(readField());
+            payload.setRecipientPublicKeys(readList());
+            payload.setPrivacyMode(readPrivacyMode());
+            return payload;
+        }
+
+        EnclaveUnencryptBatchPayload readUnencryptBatchPayload() {
+            final EnclaveUnencryptBatchPayload payload = new EnclaveUnencryptBatchPayload();
+            payload.setData(readList());
+            final long size = buffer.getLong();
+            if (size != ABSENT) {
+                final List<Integer> payloadIndexes = new ArrayList<>(initialCapacity(size));
+                for (long i = 0; i < size; i++) {
+                    final long index = buffer.getLong();
+                    if (index < 0 || index > Integer.MAX_VALUE) {
+                        throw new IndexOutOfBoundsException("Invalid payload index " + index);
+                    }
+                    payloadIndexes.add((int) index);
+                }
+                payload.setPayloadIndexes(payloadIndexes);
+            }
+            payload.setProvidedKeys(readList());
+            return payload;
+        }
+
+        EnclaveRecipientBoxesPayload readRecipientBoxesPayload() {
+            final EnclaveRecipientBoxesPayload payload = new EnclaveRecipientBoxesPayload();
+            payload.setData(readField());
+            payload.setRecipientKeys(readList());
+            return payload;
+        }
+
+        EnclaveBatchResponsePayload readBatchResponsePayload() {
+            final EnclaveBatchResponsePayload payload = new EnclaveBatchResponsePayload();
+            payload.setResults(readList());
+            return payload;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.quorum.tessera.enclave.rest;
+
+import java.util.Objects;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * A value fetched from the remote enclave, kept for a fixed time before it is fetched again. Failures are not cached,
+ * so the next call tries again.
+ *
+ * <p>Only one caller fetches an expired value at a time; callers arriving meanwhile wait for it and use its result
+ * rather than each making their own request. A fetch that was started before the value was last invalidated is
+ * returned to its caller but not kept.
+ */
+class CachedValue<T> {
+
+    private final Supplier<T> loader;
+
+    private final long ttlMillis;
+
+    private final LongSupplier clock;
+
+    private final Object loadLock = new Object();
+
+    private volatile Entry<T> entry;
+
+    /** Incremented by each invalidation, guarded by {@code this} */
+    private long generation;
+
+    /**
+     * @param loader fetches the current value
+     * @param ttlMillis how long a fetched value is used for, where zero or less fetches it on every call
+     * @param clock the current time in milliseconds
+     */
+    CachedValue(Supplier<T> loader, long ttlMillis, LongSupplier clock) {
+        this.loader = Objects.requireNonNull(loader);
+        this.ttlMillis = ttlMillis;
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    T get() {
+        final Entry<T> current = entry;
+        if (isFresh(current)) {
+            return current.value;
+        }
+
+        if (ttlMillis <= 0) {
+            return loader.get();
+        }
+
+        synchronized (loadLock) {
+            final Entry<T> loaded = entry;
+            if (isFresh(loaded)) {
+                return loaded.value;
+            }
+
+            final long loadGeneration;
+            synchronized (this) {
+                loadGeneration = generation;
+            }
+
+            final long loadedAt = clock.getAsLong();
+            final T value = loader.get();
+
+            synchronized (this) {
+                if (generation == loadGeneration) {
+                    entry = new Entry<>(value, loadedAt);
+                }
+            }
+            return value;
+        }
+    }
+
+    /** Discards the cached value, so the next call fetches it again */
+    synchronized void invalidate() {
+        generation++;
+        entry = null;
+    }
+
+    private boolean isFresh(Entry<T> current) {
+        return current != null && clock.getAsLong() - current.loadedAt < ttlMillis;
+    }
+
+    private static final class Entry<T> {
+
+        private final T value;
+
+        private final long loadedAt;
+
+        private Entry(T value, long loadedAt) {
+            this.value = value;
+            this.loadedAt = loadedAt;
+        }
+    }
+}
@@ -4,6 +4,7 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.ext.ExceptionMapper;
@@ -23,9 +24,12 @@ public class DefaultExceptionMapper implements ExceptionMapper<Throwable> {
         LOGGER.debug(null, ex);
         LOGGER.debug(null, cause);
 
-        return Response.status(Response.Status.INTERNAL_SERVER_ERROR)
-                .entity(cause.getMessage())
-                .type(MediaType.TEXT_PLAIN)
-                .build();
+        // such as a request body that cannot be read, which keeps its own status
+        final int status =
+                (ex instanceof WebApplicationException)
+                        ? ((WebApplicationException) ex).getResponse().getStatus()
+                        : Response.Status.INTERNAL_SERVER_ERROR.getStatusCode();
+
+        return Response.status(status).entity(cause.getMessage()).type(MediaType.TEXT_PLAIN).build();
     }
 }
@@ -18,7 +18,8 @@ public class EnclaveApplication extends Application implements com.quorum.tesser
 
     @Override
     public Set<Object> getSingletons() {
-        return Stream.of(resource, new DefaultExceptionMapper()).collect(Collectors.toSet());
+        return Stream.of(resource, new DefaultExceptionMapper(), new BinaryEnclaveMessageProvider())
+                .collect(Collectors.toSet());
     }
 
     @Override
@@ -0,0 +1,21 @@
+package com.quorum.tessera.enclave.rest;
+
+import javax.xml.bind.annotation.XmlMimeType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.List;
+
+@XmlRootElement
+public class EnclaveBatchResponsePayload implements Serializable {
+
+    @XmlMimeType("base64Binary")
+    private List<byte[]> results;
+
+    public List<byte[]> getResults() {
+        return results;
+    }
+
+    public void setResults(List<byte[]> results) {
+        this.results = results;
+    }
+}
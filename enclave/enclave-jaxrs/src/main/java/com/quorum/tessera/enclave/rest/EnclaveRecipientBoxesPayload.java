@@ -0,0 +1,32 @@
+package com.quorum.tessera.enclave.rest;
+
+import javax.xml.bind.annotation.XmlMimeType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.List;
+
+@XmlRootElement
+public class EnclaveRecipientBoxesPayload implements Serializable {
+
+    @XmlMimeType("base64Binary")
+    private byte[] data;
+
+    @XmlMimeType("base64Binary")
+    private List<byte[]> recipientKeys;
+
+    public byte[] getData() {
+        return data;
+    }
+
+    public void setData(byte[] data) {
+        this.data = data;
+    }
+
+    public List<byte[]> getRecipientKeys() {
+        return recipientKeys;
+    }
+
+    public void setRecipientKeys(List<byte[]> recipientKeys) {
+        this.recipientKeys = recipientKeys;
+    }
+}
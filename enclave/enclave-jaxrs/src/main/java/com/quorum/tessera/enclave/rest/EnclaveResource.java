@@ -68,9 +68,30 @@ public class EnclaveResource {
         return Response.ok(Json.createArrayBuilder(body).build().toString(), MediaType.APPLICATION_JSON_TYPE).build();
     }
 
+    @GET
+    @Produces(BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY)
+    @Path("forwarding")
+    public Response getForwardingKeysBinary() {
+
+        List<byte[]> body =
+            enclave.getForwardingKeys().stream().map(PublicKey::getKeyBytes).collect(Collectors.toList());
+
+        return Response.ok(BinaryEnclaveMessageProvider.encodeList(body)).build();
+    }
+
+    @GET
+    @Produces(BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY)
+    @Path("public")
+    public Response getPublicKeysBinary() {
+
+        List<byte[]> body = enclave.getPublicKeys().stream().map(PublicKey::getKeyBytes).collect(Collectors.toList());
+
+        return Response.ok(BinaryEnclaveMessageProvider.encodeList(body)).build();
+    }
+
     @POST
     @Path("encrypt")
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY})
     @Produces(MediaType.APPLICATION_OCTET_STREAM)
     public Response encryptPayload(EnclavePayload payload) {
 
@@ -96,9 +117,29 @@ public class EnclaveResource {
         return Response.ok(streamingOutput).build();
     }
 
+    @POST
+    @Path("encrypt/batch")
+    @Consumes({MediaType.APPLICATION_JSON, BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY})
+    @Produces({MediaType.APPLICATION_JSON, BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY})
+    public Response encryptPayloads(EnclaveBatchEncryptPayload payload) {
+
+        final PublicKey senderKey = PublicKey.from(payload.getSenderKey());
+
+        final List<PublicKey> recipientPublicKeys =
+            payload.getRecipientPublicKeys().stream().map(PublicKey::from).collect(Collectors.toList());
+
+        List<EncodedPayload> outcome =
+            enclave.encryptPayloads(payload.getData(), senderKey, recipientPublicKeys, payload.getPrivacyMode());
+
+        EnclaveBatchResponsePayload responsePayload = new EnclaveBatchResponsePayload();
+        responsePayload.setResults(outcome.stream().map(payloadEncoder::encode).collect(Collectors.toList()));
+
+        return Response.ok(responsePayload).build();
+    }
+
     @POST
     @Path("encrypt/raw")
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY})
     @Produces(MediaType.APPLICATION_OCTET_STREAM)
     public Response encryptPayload(EnclaveRawPayload enclaveRawPayload) {
 
@@ -130,8 +171,8 @@ public class EnclaveResource {
 
     @POST
     @Path("encrypt/toraw")
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY})
+    @Produces({MediaType.APPLICATION_JSON, BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY})
     public Response encryptRawPayload(EnclavePayload payload) {
 
         RawTransaction rawTransaction =
@@ -148,8 +189,8 @@ public class EnclaveResource {
 
     @POST
     @Path("findinvalidsecurityhashes")
-    @Consumes(MediaType.APPLICATION_JSON)
-    @Produces(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY})
+    @Produces({MediaType.APPLICATION_JSON, BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY})
     public Response findInvalidSecurityHashes(EnclaveFindInvalidSecurityHashesRequestPayload payload) {
 
         EncodedPayload encodedPayload = payloadEncoder.decode(payload.getEncodedPayload());
@@ -176,7 +217,7 @@ public class EnclaveResource {
 
     @POST
     @Path("unencrypt/raw")
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY})
     @Produces(MediaType.APPLICATION_OCTET_STREAM)
     public Response unencryptRawPayload(EnclaveRawPayload enclaveRawPayload) {
 
@@ -195,7 +236,7 @@ public class EnclaveResource {
 
     @POST
     @Path("unencrypt")
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY})
     @Produces(MediaType.APPLICATION_OCTET_STREAM)
     public Response unencryptTransaction(EnclaveUnencryptPayload enclaveUnencryptPayload) {
 
@@ -209,9 +250,38 @@ public class EnclaveResource {
         return Response.ok(streamingOutput).build();
     }
 
+    @POST
+    @Path("unencrypt/batch")
+    @Consumes({MediaType.APPLICATION_JSON, BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY})
+    @Produces({MediaType.APPLICATION_JSON, BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY})
+    public Response unencryptTransactions(EnclaveUnencryptBatchPayload enclaveUnencryptBatchPayload) {
+
+        // each payload is sent once however many keys it is tried with, so it is only decoded once
+        List<EncodedPayload> decoded =
+            enclaveUnencryptBatchPayload.getData().stream().map(payloadEncoder::decode).collect(Collectors.toList());
+
+        List<EncodedPayload> payloads = new ArrayList<>();
+        for (Integer index : enclaveUnencryptBatchPayload.getPayloadIndexes()) {
+            if (index < 0 || index >= decoded.size()) {
+                throw new BadRequestException("Invalid payload index " + index);
+            }
+            payloads.add(decoded.get(index));
+        }
+
+        List<PublicKey> providedKeys =
+            enclaveUnencryptBatchPayload.getProvidedKeys().stream()
+                .map(key -> Optional.ofNullable(key).map(PublicKey::from).orElse(null))
+                .collect(Collectors.toList());
+
+        EnclaveBatchResponsePayload responsePayload = new EnclaveBatchResponsePayload();
+        responsePayload.setResults(enclave.unencryptTransactions(payloads, providedKeys));
+
+        return Response.ok(responsePayload).build();
+    }
+
     @POST
     @Path("addRecipient")
-    @Consumes(MediaType.APPLICATION_JSON)
+    @Consumes({MediaType.APPLICATION_JSON, BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY})
     @Produces(MediaType.APPLICATION_OCTET_STREAM)
     public Response createNewRecipientBox(EnclaveUnencryptPayload enclaveUnencryptPayload) {
 
@@ -224,6 +294,22 @@ public class EnclaveResource {
         return Response.ok(streamingOutput).build();
     }
 
+    @POST
+    @Path("addRecipient/batch")
+    @Consumes({MediaType.APPLICATION_JSON, BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY})
+    @Produces({MediaType.APPLICATION_JSON, BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY})
+    public Response createNewRecipientBoxes(EnclaveRecipientBoxesPayload enclaveRecipientBoxesPayload) {
+
+        EncodedPayload payload = payloadEncoder.decode(enclaveRecipientBoxesPayload.getData());
+        List<PublicKey> recipientKeys =
+            enclaveRecipientBoxesPayload.getRecipientKeys().stream().map(PublicKey::from).collect(Collectors.toList());
+
+        EnclaveBatchResponsePayload responsePayload = new EnclaveBatchResponsePayload();
+        responsePayload.setResults(enclave.createNewRecipientBoxes(payload, recipientKeys));
+
+        return Response.ok(responsePayload).build();
+    }
+
     private List<AffectedTransaction> convertToAffectedTransactions(final List<KeyValuePair> keyValuePairs) {
         return keyValuePairs.stream().map(
             kvp -> AffectedTransaction.Builder.create()
@@ -0,0 +1,47 @@
+package com.quorum.tessera.enclave.rest;
+
+import javax.xml.bind.annotation.XmlMimeType;
+import javax.xml.bind.annotation.XmlRootElement;
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * A batch of decryption attempts. Each distinct payload is sent once in {@code data}, and each attempt is the index of
+ * its payload in {@code payloadIndexes} together with the key at the same position in {@code providedKeys}, so a
+ * payload tried against several keys is not repeated.
+ */
+@XmlRootElement
+public class EnclaveUnencryptBatchPayload implements Serializable {
+
+    @XmlMimeType("base64Binary")
+    private List<byte[]> data;
+
+    private List<Integer> payloadIndexes;
+
+    @XmlMimeType("base64Binary")
+    private List<byte[]> providedKeys;
+
+    public List<byte[]> getData() {
+        return data;
+    }
+
+    public void setData(List<byte[]> data) {
+        this.data = data;
+    }
+
+    public List<Integer> getPayloadIndexes() {
+        return payloadIndexes;
+    }
+
+    public void setPayloadIndexes(List<Integer> payloadIndexes) {
+        this.payloadIndexes = payloadIndexes;
+    }
+
+    public List<byte[]> getProvidedKeys() {
+        return providedKeys;
+    }
+
+    public void setProvidedKeys(List<byte[]> providedKeys) {
+        this.providedKeys = providedKeys;
+    }
+}
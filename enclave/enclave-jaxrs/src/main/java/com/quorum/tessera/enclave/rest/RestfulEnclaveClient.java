@@ -8,6 +8,7 @@ import com.quorum.tessera.service.Service;
 import javax.json.JsonArray;
 import javax.ws.rs.client.Client;
 import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.net.URI;
 import java.util.*;
@@ -17,6 +18,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 import org.slf4j.Logger;
@@ -26,6 +28,8 @@ public class RestfulEnclaveClient implements EnclaveClient {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RestfulEnclaveClient.class);
 
+    static final long DEFAULT_KEY_CACHE_TTL_MILLIS = 60_000L;
+
     private final Client client;
 
     private final URI uri;
@@ -34,65 +38,100 @@ public class RestfulEnclaveClient implements EnclaveClient {
 
     private final PayloadEncoder payloadEncoder;
 
+    private final MediaType mediaType;
+
+    private final CachedValue<PublicKey> defaultPublicKey;
+
+    private final CachedValue<Set<PublicKey>> forwardingKeys;
+
+    private final CachedValue<Set<PublicKey>> publicKeys;
+
     public RestfulEnclaveClient(Client client, URI uri) {
         this(client, uri, Executors.newSingleThreadExecutor());
     }
 
     public RestfulEnclaveClient(Client client, URI uri, ExecutorService executorService) {
+        this(client, uri, executorService, false);
+    }
+
+    public RestfulEnclaveClient(Client client, URI uri, ExecutorService executorService, boolean binaryProtocol) {
+        this(client, uri, executorService, binaryProtocol, DEFAULT_KEY_CACHE_TTL_MILLIS);
+    }
+
+    /**
+     * @param binaryProtocol whether to exchange messages with the enclave in the binary form of {@link
+     *     BinaryEnclaveMessageProvider} rather than JSON
+     * @param keyCacheTtlMillis how long the keys fetched from the enclave are used before fetching them again, where
+     *     zero fetches them on every call
+     */
+    public RestfulEnclaveClient(
+            Client client, URI uri, ExecutorService executorService, boolean binaryProtocol, long keyCacheTtlMillis) {
+        this(client, uri, executorService, binaryProtocol, keyCacheTtlMillis, System::currentTimeMillis);
+    }
+
+    RestfulEnclaveClient(
+            Client client,
+            URI uri,
+            ExecutorService executorService,
+            boolean binaryProtocol,
+            long keyCacheTtlMillis,
+            LongSupplier clock) {
         this.client = Objects.requireNonNull(client);
         this.uri = Objects.requireNonNull(uri);
         this.payloadEncoder = PayloadEncoder.create();
         this.executorService = executorService;
+        if (binaryProtocol) {
+            client.register(BinaryEnclaveMessageProvider.class);
+            this.mediaType = BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY_TYPE;
+        } else {
+            this.mediaType = MediaType.APPLICATION_JSON_TYPE;
+        }
+        this.defaultPublicKey = new CachedValue<>(this::fetchDefaultPublicKey, keyCacheTtlMillis, clock);
+        this.forwardingKeys = new CachedValue<>(() -> fetchKeys("forwarding"), keyCacheTtlMillis, clock);
+        this.publicKeys = new CachedValue<>(() -> fetchKeys("public"), keyCacheTtlMillis, clock);
     }
 
+    /**
+     * The keys change only when the enclave is reconfigured and restarted, so they are cached rather than fetched for
+     * every transaction.
+     */
     @Override
     public PublicKey defaultPublicKey() {
-
-        return ClientCallback.execute(
-                () -> {
-                    Response response = client.target(uri).path("default").request().get();
-
-                    validateResponseIsOk(response);
-
-                    byte[] data = response.readEntity(byte[].class);
-
-                    return PublicKey.from(data);
-                });
+        return defaultPublicKey.get();
     }
 
     @Override
     public Set<PublicKey> getForwardingKeys() {
+        return forwardingKeys.get();
+    }
+
+    @Override
+    public Set<PublicKey> getPublicKeys() {
+        return publicKeys.get();
+    }
+
+    private PublicKey fetchDefaultPublicKey() {
+
         return ClientCallback.execute(
                 () -> {
-                    Response response = client.target(uri).path("forwarding").request().get();
+                    Response response = client.target(uri).path("default").request().get();
 
                     validateResponseIsOk(response);
 
-                    JsonArray results = response.readEntity(JsonArray.class);
+                    byte[] data = response.readEntity(byte[].class);
 
-                    return IntStream.range(0, results.size())
-                            .mapToObj(i -> results.getString(i))
-                            .map(s -> Base64.getDecoder().decode(s))
-                            .map(PublicKey::from)
-                            .collect(Collectors.toSet());
+                    return PublicKey.from(data);
                 });
     }
 
-    @Override
-    public Set<PublicKey> getPublicKeys() {
+    private Set<PublicKey> fetchKeys(String path) {
         return ClientCallback.execute(
                 () -> {
-                    Response response = client.target(uri).path("public").request().get();
+                    Response response = client.target(uri).path(path).request(mediaType).get();
 
                     validateResponseIsOk(response);
 
-                    JsonArray results = response.readEntity(JsonArray.class);
-
-                    return IntStream.range(0, results.size())
-                            .mapToObj(i -> results.getString(i))
-                            .map(s -> Base64.getDecoder().decode(s))
-                            .map(PublicKey::from)
-                            .collect(Collectors.toSet());
+                    return readKeys(response);
                 });
     }
 
@@ -111,15 +150,13 @@ public class RestfulEnclaveClient implements EnclaveClient {
                     enclavePayload.setData(message);
                     enclavePayload.setSenderKey(senderPublicKey.getKeyBytes());
                     enclavePayload.setRecipientPublicKeys(
-                            recipientPublicKeys.stream()
-                                .map(PublicKey::getKeyBytes)
-                                .collect(Collectors.toList()));
+                            recipientPublicKeys.stream().map(PublicKey::getKeyBytes).collect(Collectors.toList()));
                     enclavePayload.setPrivacyMode(privacyMode);
                     enclavePayload.setAffectedContractTransactions(
                             convertAffectedContractTransactions(affectedContractTransactions));
                     enclavePayload.setExecHash(execHash);
 
-                    Response response = client.target(uri).path("encrypt").request().post(Entity.json(enclavePayload));
+                    Response response = client.target(uri).path("encrypt").request().post(entity(enclavePayload));
 
                     validateResponseIsOk(response);
 
@@ -129,6 +166,37 @@ public class RestfulEnclaveClient implements EnclaveClient {
                 });
     }
 
+    @Override
+    public List<EncodedPayload> encryptPayloads(
+            List<byte[]> messages,
+            PublicKey senderPublicKey,
+            List<PublicKey> recipientPublicKeys,
+            PrivacyMode privacyMode) {
+
+        return ClientCallback.execute(
+                () -> {
+                    EnclaveBatchEncryptPayload batchPayload = new EnclaveBatchEncryptPayload();
+                    batchPayload.setData(messages);
+                    batchPayload.setSenderKey(senderPublicKey.getKeyBytes());
+                    batchPayload.setRecipientPublicKeys(
+                            recipientPublicKeys.stream().map(PublicKey::getKeyBytes).collect(Collectors.toList()));
+                    batchPayload.setPrivacyMode(privacyMode);
+
+                    Response response =
+                            client.target(uri)
+                                    .path("encrypt")
+                                    .path("batch")
+                                    .request(mediaType)
+                                    .post(entity(batchPayload));
+
+                    validateResponseIsOk(response);
+
+                    return response.readEntity(EnclaveBatchResponsePayload.class).getResults().stream()
+                            .map(payloadEncoder::decode)
+                            .collect(Collectors.toList());
+                });
+    }
+
     @Override
     public EncodedPayload encryptPayload(
             RawTransaction rawTransaction,
@@ -154,11 +222,7 @@ public class RestfulEnclaveClient implements EnclaveClient {
                             convertAffectedContractTransactions(affectedContractTransactions));
 
                     Response response =
-                            client.target(uri)
-                                    .path("encrypt")
-                                    .path("raw")
-                                    .request()
-                                    .post(Entity.json(enclaveRawPayload));
+                            client.target(uri).path("encrypt").path("raw").request().post(entity(enclaveRawPayload));
 
                     validateResponseIsOk(response);
 
@@ -181,8 +245,8 @@ public class RestfulEnclaveClient implements EnclaveClient {
                             client.target(uri)
                                     .path("encrypt")
                                     .path("toraw")
-                                    .request()
-                                    .post(Entity.json(enclavePayload));
+                                    .request(mediaType)
+                                    .post(entity(enclavePayload));
 
                     validateResponseIsOk(response);
 
@@ -210,7 +274,7 @@ public class RestfulEnclaveClient implements EnclaveClient {
                     if (providedKey != null) {
                         dto.setProvidedKey(providedKey.getKeyBytes());
                     }
-                    Response response = client.target(uri).path("unencrypt").request().post(Entity.json(dto));
+                    Response response = client.target(uri).path("unencrypt").request().post(entity(dto));
 
                     validateResponseIsOk(response);
 
@@ -218,6 +282,49 @@ public class RestfulEnclaveClient implements EnclaveClient {
                 });
     }
 
+    @Override
+    public List<byte[]> unencryptTransactions(List<EncodedPayload> payloads, List<PublicKey> providedKeys) {
+        if (payloads.size() != providedKeys.size()) {
+            throw new IllegalArgumentException("A provided key entry is required for each payload");
+        }
+
+        return ClientCallback.execute(
+                () -> {
+                    // the same payload is often given once per candidate key, so each is only sent once
+                    final Map<EncodedPayload, Integer> indexes = new IdentityHashMap<>();
+                    final List<byte[]> data = new ArrayList<>();
+                    final List<Integer> payloadIndexes = new ArrayList<>(payloads.size());
+                    final List<byte[]> keys = new ArrayList<>(providedKeys.size());
+                    for (int i = 0; i < payloads.size(); i++) {
+                        final Integer index =
+                                indexes.computeIfAbsent(
+                                        payloads.get(i),
+                                        payload -> {
+                                            data.add(payloadEncoder.encode(payload));
+                                            return data.size() - 1;
+                                        });
+                        payloadIndexes.add(index);
+                        keys.add(Optional.ofNullable(providedKeys.get(i)).map(PublicKey::getKeyBytes).orElse(null));
+                    }
+
+                    final EnclaveUnencryptBatchPayload batchPayload = new EnclaveUnencryptBatchPayload();
+                    batchPayload.setData(data);
+                    batchPayload.setPayloadIndexes(payloadIndexes);
+                    batchPayload.setProvidedKeys(keys);
+
+                    Response response =
+                            client.target(uri)
+                                    .path("unencrypt")
+                                    .path("batch")
+                                    .request(mediaType)
+                                    .post(entity(batchPayload));
+
+                    validateResponseIsOk(response);
+
+                    return response.readEntity(EnclaveBatchResponsePayload.class).getResults();
+                });
+    }
+
     @Override
     public byte[] unencryptRawPayload(RawTransaction payload) {
 
@@ -230,11 +337,7 @@ public class RestfulEnclaveClient implements EnclaveClient {
                     enclaveRawPayload.setFrom(payload.getFrom().getKeyBytes());
 
                     Response response =
-                            client.target(uri)
-                                    .path("unencrypt")
-                                    .path("raw")
-                                    .request()
-                                    .post(Entity.json(enclaveRawPayload));
+                            client.target(uri).path("unencrypt").path("raw").request().post(entity(enclaveRawPayload));
 
                     return response.readEntity(byte[].class);
                 });
@@ -251,7 +354,7 @@ public class RestfulEnclaveClient implements EnclaveClient {
                     dto.setData(body);
                     dto.setProvidedKey(recipientKey.getKeyBytes());
 
-                    final Response response = client.target(uri).path("addRecipient").request().post(Entity.json(dto));
+                    final Response response = client.target(uri).path("addRecipient").request().post(entity(dto));
 
                     validateResponseIsOk(response);
 
@@ -259,6 +362,25 @@ public class RestfulEnclaveClient implements EnclaveClient {
                 });
     }
 
+    @Override
+    public List<byte[]> createNewRecipientBoxes(final EncodedPayload payload, final List<PublicKey> recipientKeys) {
+
+        return ClientCallback.execute(
+                () -> {
+                    final EnclaveRecipientBoxesPayload dto = new EnclaveRecipientBoxesPayload();
+                    dto.setData(payloadEncoder.encode(payload));
+                    dto.setRecipientKeys(
+                            recipientKeys.stream().map(PublicKey::getKeyBytes).collect(Collectors.toList()));
+
+                    final Response response =
+                            client.target(uri).path("addRecipient").path("batch").request(mediaType).post(entity(dto));
+
+                    validateResponseIsOk(response);
+
+                    return response.readEntity(EnclaveBatchResponsePayload.class).getResults();
+                });
+    }
+
     @Override
     public Set<TxHash> findInvalidSecurityHashes(
             EncodedPayload encodedPayload, List<AffectedTransaction> affectedContractTransactions) {
@@ -269,7 +391,7 @@ public class RestfulEnclaveClient implements EnclaveClient {
                 convertAffectedContractTransactions(affectedContractTransactions));
 
         Response response =
-                client.target(uri).path("findinvalidsecurityhashes").request().post(Entity.json(requestPayload));
+                client.target(uri).path("findinvalidsecurityhashes").request(mediaType).post(entity(requestPayload));
 
         EnclaveFindInvalidSecurityHashesResponsePayload responsePayload =
                 response.readEntity(EnclaveFindInvalidSecurityHashesResponsePayload.class);
@@ -297,13 +419,47 @@ public class RestfulEnclaveClient implements EnclaveClient {
                             return Service.Status.STOPPED;
                         });
 
+        Service.Status status;
         try {
             // TODO: 2 seconds is arguably a long time
-            return outcome.get(2, TimeUnit.SECONDS);
+            status = outcome.get(2, TimeUnit.SECONDS);
         } catch (InterruptedException | ExecutionException | TimeoutException ex) {
             LOGGER.trace(null, ex);
-            return Service.Status.STOPPED;
+            status = Service.Status.STOPPED;
+        }
+
+        if (status == Service.Status.STOPPED) {
+            // the enclave may be restarted with different keys
+            invalidateKeys();
+        }
+        return status;
+    }
+
+    /** Discards the cached keys, so they are fetched from the enclave on next use */
+    public void invalidateKeys() {
+        defaultPublicKey.invalidate();
+        forwardingKeys.invalidate();
+        publicKeys.invalidate();
+    }
+
+    private <T> Entity<T> entity(T message) {
+        return Entity.entity(message, mediaType);
+    }
+
+    private Set<PublicKey> readKeys(Response response) {
+        if (mediaType.equals(BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY_TYPE)) {
+            return BinaryEnclaveMessageProvider.decodeList(response.readEntity(byte[].class)).stream()
+                    .map(PublicKey::from)
+                    .collect(Collectors.toUnmodifiableSet());
         }
+
+        JsonArray results = response.readEntity(JsonArray.class);
+
+        return IntStream.range(0, results.size())
+                .mapToObj(i -> results.getString(i))
+                .map(s -> Base64.getDecoder().decode(s))
+                .map(PublicKey::from)
+                .collect(Collectors.toUnmodifiableSet());
     }
 
     private static void validateResponseIsOk(Response response) {
@@ -318,11 +474,14 @@ public class RestfulEnclaveClient implements EnclaveClient {
         }
     }
 
-    private List<KeyValuePair> convertAffectedContractTransactions(List<AffectedTransaction> affectedContractTransactions) {
-        return affectedContractTransactions.stream().map(
-            affectedTransaction ->
-                new KeyValuePair(affectedTransaction.getHash().getBytes(),
-                    this.payloadEncoder.encode(affectedTransaction.getPayload())))
-            .collect(Collectors.toList());
+    private List<KeyValuePair> convertAffectedContractTransactions(
+            List<AffectedTransaction> affectedContractTransactions) {
+        return affectedContractTransactions.stream()
+                .map(
+                        affectedTransaction ->
+                                new KeyValuePair(
+                                        affectedTransaction.getHash().getBytes(),
+                                        this.payloadEncoder.encode(affectedTransaction.getPayload())))
+                .collect(Collectors.toList());
     }
 }
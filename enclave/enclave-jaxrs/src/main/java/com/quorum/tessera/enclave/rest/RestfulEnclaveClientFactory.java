@@ -7,21 +7,29 @@ import com.quorum.tessera.config.ServerConfig;
 import com.quorum.tessera.enclave.EnclaveClientFactory;
 import com.quorum.tessera.jaxrs.client.ClientFactory;
 import java.util.Optional;
+import java.util.concurrent.Executors;
 import javax.ws.rs.client.Client;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 public class RestfulEnclaveClientFactory implements EnclaveClientFactory<RestfulEnclaveClient> {
-    
+
     private static final Logger LOGGER = LoggerFactory.getLogger(RestfulEnclaveClientFactory.class);
-    
+
+    /** Exchanges messages with the remote enclave in binary rather than JSON, which the enclave must support */
+    public static final String BINARY_PROTOCOL_PROPERTY = "tessera.enclave.binaryProtocol";
+
+    /** How long the client uses the keys fetched from the remote enclave before fetching them again */
+    public static final String KEY_CACHE_TTL_PROPERTY = "tessera.enclave.keyCacheTtlMillis";
+
     @Override
     public RestfulEnclaveClient create(Config config) {
-        LOGGER.debug("Creating RestfulEnclaveClient with {}",config);
-        Optional<ServerConfig> enclaveServerConfig = config.getServerConfigs().stream()
-                .filter(sc -> sc.getApp() == AppType.ENCLAVE)
-                .filter(sc -> sc.getCommunicationType() == CommunicationType.REST)
-                .findAny();
+        LOGGER.debug("Creating RestfulEnclaveClient with {}", config);
+        Optional<ServerConfig> enclaveServerConfig =
+                config.getServerConfigs().stream()
+                        .filter(sc -> sc.getApp() == AppType.ENCLAVE)
+                        .filter(sc -> sc.getCommunicationType() == CommunicationType.REST)
+                        .findAny();
 
         final ClientFactory clientFactory = new ClientFactory();
 
@@ -31,9 +39,14 @@ public class RestfulEnclaveClientFactory implements EnclaveClientFactory<Restful
 
         Client client = clientFactory.buildFrom(serverConfig);
         LOGGER.info("Creating remoted enclave for {}", serverConfig.getServerUri());
-        return new RestfulEnclaveClient(client, serverConfig.getServerUri());
+        final boolean binaryProtocol = Boolean.getBoolean(BINARY_PROTOCOL_PROPERTY);
+        final long keyCacheTtlMillis =
+                Long.getLong(KEY_CACHE_TTL_PROPERTY, RestfulEnclaveClient.DEFAULT_KEY_CACHE_TTL_MILLIS);
+        return new RestfulEnclaveClient(
+                client,
+                serverConfig.getServerUri(),
+                Executors.newSingleThreadExecutor(),
+                binaryProtocol,
+                keyCacheTtlMillis);
     }
-    
-    
-    
 }
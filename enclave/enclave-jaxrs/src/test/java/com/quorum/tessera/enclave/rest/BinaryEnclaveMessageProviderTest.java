@@ -0,0 +1,219 @@
+package com.quorum.tessera.enclave.rest;
+
+import com.quorum.tessera.enclave.PrivacyMode;
+import org.junit.Test;
+
+import javax.ws.rs.BadRequestException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class BinaryEnclaveMessageProviderTest {
+
+    private final BinaryEnclaveMessageProvider provider = new BinaryEnclaveMessageProvider();
+
+    @Test
+    public void enclavePayloadRoundTrip() {
+        EnclavePayload payload = new EnclavePayload();
+        payload.setData("DATA".getBytes());
+        payload.setSenderKey("SENDER".getBytes());
+        payload.setRecipientPublicKeys(List.of("R1".getBytes(), "R2".getBytes()));
+        payload.setPrivacyMode(PrivacyMode.PRIVATE_STATE_VALIDATION);
+        payload.setAffectedContractTransactions(List.of(new KeyValuePair("HASH".getBytes(), "TX".getBytes())));
+        payload.setExecHash("EXEC".getBytes());
+
+        EnclavePayload result =
+                BinaryEnclaveMessageProvider.decode(EnclavePayload.class, BinaryEnclaveMessageProvider.encode(payload));
+
+        assertThat(result.getData()).isEqualTo("DATA".getBytes());
+        assertThat(result.getSenderKey()).isEqualTo("SENDER".getBytes());
+        assertThat(result.getRecipientPublicKeys()).containsExactly("R1".getBytes(), "R2".getBytes());
+        assertThat(result.getPrivacyMode()).isEqualTo(PrivacyMode.PRIVATE_STATE_VALIDATION);
+        assertThat(result.getAffectedContractTransactions()).hasSize(1);
+        assertThat(result.getAffectedContractTransactions().get(0).getKey()).isEqualTo("HASH".getBytes());
+        assertThat(result.getAffectedContractTransactions().get(0).getValue()).isEqualTo("TX".getBytes());
+        assertThat(result.getExecHash()).isEqualTo("EXEC".getBytes());
+    }
+
+    @Test
+    public void missingFieldsRoundTrip() {
+        EnclaveRawPayload payload = new EnclaveRawPayload();
+        payload.setEncryptedPayload(new byte[0]);
+
+        EnclaveRawPayload result =
+                BinaryEnclaveMessageProvider.decode(
+                        EnclaveRawPayload.class, BinaryEnclaveMessageProvider.encode(payload));
+
+        assertThat(result.getEncryptedPayload()).isEmpty();
+        assertThat(result.getEncryptedKey()).isNull();
+        assertThat(result.getNonce()).isNull();
+        assertThat(result.getFrom()).isNull();
+        assertThat(result.getRecipientPublicKeys()).isNull();
+        assertThat(result.getPrivacyMode()).isNull();
+        assertThat(result.getAffectedContractTransactions()).isNull();
+        assertThat(result.getExecHash()).isNull();
+    }
+
+    @Test
+    public void unencryptBatchRoundTrip() {
+        EnclaveUnencryptBatchPayload payload = new EnclaveUnencryptBatchPayload();
+        payload.setData(List.of("FIRST".getBytes(), "SECOND".getBytes()));
+        payload.setPayloadIndexes(List.of(0, 0, 1));
+        payload.setProvidedKeys(Arrays.asList("KEY".getBytes(), "OTHER".getBytes(), null));
+
+        EnclaveUnencryptBatchPayload result =
+                BinaryEnclaveMessageProvider.decode(
+                        EnclaveUnencryptBatchPayload.class, BinaryEnclaveMessageProvider.encode(payload));
+
+        assertThat(result.getData()).containsExactly("FIRST".getBytes(), "SECOND".getBytes());
+        assertThat(result.getPayloadIndexes()).containsExactly(0, 0, 1);
+        assertThat(result.getProvidedKeys()).containsExactly("KEY".getBytes(), "OTHER".getBytes(), null);
+    }
+
+    @Test
+    public void negativePayloadIndexIsRejected() {
+        EnclaveUnencryptBatchPayload payload = new EnclaveUnencryptBatchPayload();
+        payload.setPayloadIndexes(List.of(-1));
+        byte[] encoded = BinaryEnclaveMessageProvider.encode(payload);
+
+        Throwable throwable =
+                catchThrowable(() -> BinaryEnclaveMessageProvider.decode(EnclaveUnencryptBatchPayload.class, encoded));
+
+        assertThat(throwable).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    public void batchEncryptRoundTrip() {
+        EnclaveBatchEncryptPayload payload = new EnclaveBatchEncryptPayload();
+        payload.setData(List.of("FIRST".getBytes(), "SECOND".getBytes()));
+        payload.setSenderKey("SENDER".getBytes());
+        payload.setRecipientPublicKeys(List.of("RECIPIENT".getBytes()));
+        payload.setPrivacyMode(PrivacyMode.STANDARD_PRIVATE);
+
+        EnclaveBatchEncryptPayload result =
+                BinaryEnclaveMessageProvider.decode(
+                        EnclaveBatchEncryptPayload.class, BinaryEnclaveMessageProvider.encode(payload));
+
+        assertThat(result.getData()).containsExactly("FIRST".getBytes(), "SECOND".getBytes());
+        assertThat(result.getSenderKey()).isEqualTo("SENDER".getBytes());
+        assertThat(result.getRecipientPublicKeys()).containsExactly("RECIPIENT".getBytes());
+        assertThat(result.getPrivacyMode()).isEqualTo(PrivacyMode.STANDARD_PRIVATE);
+    }
+
+    @Test
+    public void batchResponseKeepsMissingResults() throws Exception {
+        EnclaveBatchResponsePayload payload = new EnclaveBatchResponsePayload();
+        payload.setResults(Arrays.asList(null, "RESULT".getBytes()));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        provider.writeTo(
+                payload,
+                EnclaveBatchResponsePayload.class,
+                null,
+                null,
+                BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY_TYPE,
+                null,
+                output);
+
+        Object result =
+                provider.readFrom(
+                        (Class) EnclaveBatchResponsePayload.class,
+                        null,
+                        null,
+                        BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY_TYPE,
+                        null,
+                        new ByteArrayInputStream(output.toByteArray()));
+
+        assertThat(result).isInstanceOf(EnclaveBatchResponsePayload.class);
+        List<byte[]> results = ((EnclaveBatchResponsePayload) result).getResults();
+        assertThat(results).hasSize(2);
+        assertThat(results.get(0)).isNull();
+        assertThat(results.get(1)).isEqualTo("RESULT".getBytes());
+    }
+
+    @Test
+    public void listRoundTrip() {
+        byte[] encoded = BinaryEnclaveMessageProvider.encodeList(List.of("A".getBytes(), "BB".getBytes()));
+
+        assertThat(BinaryEnclaveMessageProvider.decodeList(encoded)).containsExactly("A".getBytes(), "BB".getBytes());
+    }
+
+    @Test
+    public void onlyEnclaveMessagesAreSupported() {
+        assertThat(provider.isReadable(EnclavePayload.class, null, null, null)).isTrue();
+        assertThat(provider.isWriteable(EnclaveBatchResponsePayload.class, null, null, null)).isTrue();
+        assertThat(provider.isReadable(String.class, null, null, null)).isFalse();
+        assertThat(provider.isWriteable(byte[].class, null, null, null)).isFalse();
+
+        Throwable throwable = catchThrowable(() -> BinaryEnclaveMessageProvider.encode("NOT A MESSAGE"));
+
+        assertThat(throwable).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void truncatedDataIsRejected() {
+        EnclaveUnencryptPayload payload = new EnclaveUnencryptPayload();
+        payload.setData("DATA".getBytes());
+        byte[] encoded = BinaryEnclaveMessageProvider.encode(payload);
+
+        Throwable throwable =
+                catchThrowable(
+                        () ->
+                                BinaryEnclaveMessageProvider.decode(
+                                        EnclaveUnencryptPayload.class, Arrays.copyOf(encoded, encoded.length - 4)));
+
+        assertThat(throwable).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    public void trailingDataIsRejected() {
+        EnclaveUnencryptPayload payload = new EnclaveUnencryptPayload();
+        payload.setData("DATA".getBytes());
+        byte[] encoded = BinaryEnclaveMessageProvider.encode(payload);
+
+        Throwable throwable =
+                catchThrowable(
+                        () ->
+                                BinaryEnclaveMessageProvider.decode(
+                                        EnclaveUnencryptPayload.class, Arrays.copyOf(encoded, encoded.length + 1)));
+
+        assertThat(throwable).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    public void fieldLongerThanMessageIsRejected() {
+        byte[] encoded = BinaryEnclaveMessageProvider.encodeList(List.of("A".getBytes()));
+        encoded[8] = 0x7f;
+
+        Throwable throwable = catchThrowable(() -> BinaryEnclaveMessageProvider.decodeList(encoded));
+
+        assertThat(throwable).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    public void invalidPrivacyFlagIsRejected() {
+        EnclavePayload payload = new EnclavePayload();
+        payload.setPrivacyMode(PrivacyMode.STANDARD_PRIVATE);
+        byte[] encoded = BinaryEnclaveMessageProvider.encode(payload);
+        // the flag follows the absent data, sender key and recipient list
+        encoded[3 * 8] = 0x7f;
+
+        Throwable throwable = catchThrowable(() -> BinaryEnclaveMessageProvider.decode(EnclavePayload.class, encoded));
+
+        assertThat(throwable).isInstanceOf(BadRequestException.class);
+    }
+
+    @Test
+    public void invalidCountIsRejected() {
+        byte[] encoded = BinaryEnclaveMessageProvider.encodeList(List.of("A".getBytes()));
+        encoded[0] = 0x7f;
+
+        Throwable throwable = catchThrowable(() -> BinaryEnclaveMessageProvider.decodeList(encoded));
+
+        assertThat(throwable).isInstanceOf(BadRequestException.class);
+    }
+}
@@ -0,0 +1,138 @@
+package com.quorum.tessera.enclave.rest;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class CachedValueTest {
+
+    private final AtomicLong clock = new AtomicLong(1000L);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void valueIsReusedUntilExpired() {
+        final CachedValue<Integer> cachedValue = new CachedValue<>(loads::incrementAndGet, 100L, clock::get);
+
+        assertThat(cachedValue.get()).isEqualTo(1);
+
+        clock.addAndGet(99L);
+        assertThat(cachedValue.get()).isEqualTo(1);
+
+        clock.addAndGet(1L);
+        assertThat(cachedValue.get()).isEqualTo(2);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    public void zeroTtlLoadsOnEveryCall() {
+        final CachedValue<Integer> cachedValue = new CachedValue<>(loads::incrementAndGet, 0L, clock::get);
+
+        assertThat(cachedValue.get()).isEqualTo(1);
+        assertThat(cachedValue.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void invalidateLoadsOnNextCall() {
+        final CachedValue<Integer> cachedValue = new CachedValue<>(loads::incrementAndGet, 100L, clock::get);
+
+        assertThat(cachedValue.get()).isEqualTo(1);
+
+        cachedValue.invalidate();
+
+        assertThat(cachedValue.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void failureIsNotCached() {
+        final CachedValue<Integer> cachedValue =
+                new CachedValue<>(
+                        () -> {
+                            if (loads.incrementAndGet() == 1) {
+                                throw new IllegalStateException("unavailable");
+                            }
+                            return loads.get();
+                        },
+                        100L,
+                        clock::get);
+
+        final Throwable throwable = catchThrowable(cachedValue::get);
+
+        assertThat(throwable).isInstanceOf(IllegalStateException.class);
+        assertThat(cachedValue.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void invalidationDuringLoadDiscardsLoadedValue() {
+        final AtomicReference<CachedValue<Integer>> reference = new AtomicReference<>();
+        final CachedValue<Integer> cachedValue =
+                new CachedValue<>(
+                        () -> {
+                            if (loads.incrementAndGet() == 1) {
+                                reference.get().invalidate();
+                            }
+                            return loads.get();
+                        },
+                        100L,
+                        clock::get);
+        reference.set(cachedValue);
+
+        assertThat(cachedValue.get()).isEqualTo(1);
+        assertThat(cachedValue.get()).isEqualTo(2);
+        assertThat(cachedValue.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void concurrentCallersShareOneLoad() throws Exception {
+        final CountDownLatch loading = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final CachedValue<Integer> cachedValue =
+                new CachedValue<>(
+                        () -> {
+                            loading.countDown();
+                            try {
+                                release.await();
+                            } catch (InterruptedException ex) {
+                                throw new IllegalStateException(ex);
+                            }
+                            return loads.incrementAndGet();
+                        },
+                        100L,
+                        clock::get);
+
+        final List<Integer> results = Collections.synchronizedList(new ArrayList<>());
+        final List<Thread> callers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            callers.add(new Thread(() -> results.add(cachedValue.get())));
+        }
+
+        callers.get(0).start();
+        assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // the other callers arrive while the first is still loading, and wait for it
+        for (Thread caller : callers.subList(1, callers.size())) {
+            caller.start();
+            while (caller.getState() != Thread.State.BLOCKED) {
+                Thread.yield();
+            }
+        }
+
+        release.countDown();
+        for (Thread caller : callers) {
+            caller.join(5000L);
+        }
+
+        assertThat(results).containsExactly(1, 1, 1, 1);
+        assertThat(loads).hasValue(1);
+    }
+}
@@ -2,6 +2,7 @@ package com.quorum.tessera.enclave.rest;
 
 import org.junit.Test;
 
+import javax.ws.rs.BadRequestException;
 import javax.ws.rs.core.Response;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -31,4 +32,13 @@ public class DefaultExceptionMapperTest {
         assertThat(result.getEntity()).isEqualTo("Ouch");
     }
 
+    @Test
+    public void toResponseKeepsStatusOfWebApplicationException() {
+        final Throwable exception = new BadRequestException("Ouch");
+
+        final Response result = exceptionMapper.toResponse(exception);
+
+        assertThat(result.getStatus()).isEqualTo(400);
+        assertThat(result.getEntity()).isEqualTo("Ouch");
+    }
 }
@@ -10,6 +10,7 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.Response;
 
 import static com.quorum.tessera.enclave.rest.Fixtures.createSample;
@@ -96,7 +97,6 @@ public class EnclaveApplicationTest {
         when(acoth.getAffectedContractTransactions()).thenReturn(Collections.emptyMap());
         when(acoth.getExecHash()).thenReturn("0".getBytes());
 
-
         TxHash txHash = new TxHash("key".getBytes());
         AffectedTransaction affectedTransaction = mock(AffectedTransaction.class);
         when(affectedTransaction.getPayload()).thenReturn(acoth);
@@ -170,6 +170,58 @@ public class EnclaveApplicationTest {
         verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
     }
 
+    @Test
+    public void invalidBinaryRequestIsRejected() {
+        Response response =
+                jersey.target("unencrypt")
+                        .request()
+                        .post(
+                                Entity.entity(
+                                        new byte[] {0x7f, 0, 0, 0, 0, 0, 0, 0},
+                                        BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY_TYPE));
+
+        assertThat(response.getStatus()).isEqualTo(400);
+    }
+
+    @Test
+    public void publicKeysDefaultToJson() {
+        when(enclave.getPublicKeys()).thenReturn(Set.of(PublicKey.from("KEY".getBytes())));
+
+        Response response = jersey.target("public").request().get();
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getMediaType().toString()).isEqualTo("application/json");
+        verify(enclave).getPublicKeys();
+    }
+
+    @Test
+    public void publicKeysInBinary() {
+        when(enclave.getPublicKeys()).thenReturn(Set.of(PublicKey.from("KEY".getBytes())));
+
+        Response response =
+                jersey.target("public").request(BinaryEnclaveMessageProvider.APPLICATION_ENCLAVE_BINARY_TYPE).get();
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(BinaryEnclaveMessageProvider.decodeList(response.readEntity(byte[].class)))
+                .containsExactly("KEY".getBytes());
+        verify(enclave).getPublicKeys();
+    }
+
+    @Test
+    public void batchResultsDefaultToJson() {
+        when(enclave.createNewRecipientBoxes(any(), anyList())).thenReturn(List.of("BOX".getBytes()));
+
+        EnclaveRecipientBoxesPayload payload = new EnclaveRecipientBoxesPayload();
+        payload.setData(PayloadEncoder.create().encode(createSample()));
+        payload.setRecipientKeys(List.of("KEY".getBytes()));
+
+        Response response = jersey.target("addRecipient/batch").request().post(Entity.json(payload));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getMediaType().toString()).isEqualTo("application/json");
+        verify(enclave).createNewRecipientBoxes(any(), anyList());
+    }
+
     @Test
     public void appType() {
         assertThat(new EnclaveApplication(mock(EnclaveResource.class)).getAppType()).isEqualTo(AppType.ENCLAVE);
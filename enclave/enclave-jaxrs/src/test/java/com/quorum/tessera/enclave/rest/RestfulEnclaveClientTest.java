@@ -9,27 +9,39 @@ import org.glassfish.jersey.test.JerseyTest;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.mockito.ArgumentCaptor;
 
 import java.util.*;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
+@RunWith(Parameterized.class)
 public class RestfulEnclaveClientTest {
 
+    private final boolean binaryProtocol;
+
     private Enclave enclave;
 
     private JerseyTest jersey;
 
     private RestfulEnclaveClient enclaveClient;
 
+    public RestfulEnclaveClientTest(boolean binaryProtocol) {
+        this.binaryProtocol = binaryProtocol;
+    }
+
     @Before
     public void setUp() throws Exception {
         enclave = mock(Enclave.class);
@@ -38,7 +50,9 @@ public class RestfulEnclaveClientTest {
 
         jersey.setUp();
 
-        enclaveClient = new RestfulEnclaveClient(jersey.client(), jersey.target().getUri());
+        enclaveClient =
+                new RestfulEnclaveClient(
+                        jersey.client(), jersey.target().getUri(), Executors.newSingleThreadExecutor(), binaryProtocol);
     }
 
     @After
@@ -89,6 +103,71 @@ public class RestfulEnclaveClientTest {
         verify(enclave).getForwardingKeys();
     }
 
+    @Test
+    public void keysAreCached() {
+
+        PublicKey key = PublicKey.from("HELLOW".getBytes());
+
+        when(enclave.defaultPublicKey()).thenReturn(key);
+        when(enclave.getPublicKeys()).thenReturn(Collections.singleton(key));
+        when(enclave.getForwardingKeys()).thenReturn(Collections.singleton(key));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(enclaveClient.defaultPublicKey()).isEqualTo(key);
+            assertThat(enclaveClient.getPublicKeys()).containsExactly(key);
+            assertThat(enclaveClient.getForwardingKeys()).containsExactly(key);
+        }
+
+        verify(enclave).defaultPublicKey();
+        verify(enclave).getPublicKeys();
+        verify(enclave).getForwardingKeys();
+    }
+
+    @Test
+    public void keysAreFetchedAgainOnceExpired() {
+
+        AtomicLong clock = new AtomicLong();
+        RestfulEnclaveClient cachingClient =
+                new RestfulEnclaveClient(
+                        jersey.client(),
+                        jersey.target().getUri(),
+                        Executors.newSingleThreadExecutor(),
+                        binaryProtocol,
+                        1000L,
+                        clock::get);
+
+        PublicKey key = PublicKey.from("HELLOW".getBytes());
+        PublicKey newKey = PublicKey.from("NEWKEY".getBytes());
+
+        when(enclave.getPublicKeys()).thenReturn(Collections.singleton(key), Collections.singleton(newKey));
+
+        assertThat(cachingClient.getPublicKeys()).containsExactly(key);
+
+        clock.set(999L);
+        assertThat(cachingClient.getPublicKeys()).containsExactly(key);
+
+        clock.set(1000L);
+        assertThat(cachingClient.getPublicKeys()).containsExactly(newKey);
+
+        verify(enclave, times(2)).getPublicKeys();
+    }
+
+    @Test
+    public void keysAreFetchedAgainAfterEnclaveStops() {
+
+        PublicKey key = PublicKey.from("HELLOW".getBytes());
+
+        when(enclave.getPublicKeys()).thenReturn(Collections.singleton(key));
+        when(enclave.status()).thenThrow(RuntimeException.class);
+
+        enclaveClient.getPublicKeys();
+        assertThat(enclaveClient.status()).isEqualTo(Service.Status.STOPPED);
+        enclaveClient.getPublicKeys();
+
+        verify(enclave, times(2)).getPublicKeys();
+        verify(enclave).status();
+    }
+
     @Test
     public void encryptPayload() {
 
@@ -226,6 +305,69 @@ public class RestfulEnclaveClientTest {
         verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
     }
 
+    @Test
+    public void unencryptTransactions() {
+
+        EncodedPayload payload = Fixtures.createSample();
+
+        PublicKey wrongKey = PublicKey.from("WrongKey".getBytes());
+        PublicKey providedKey = PublicKey.from("ProvidedKey".getBytes());
+
+        byte[] outcome = "SUCCESS".getBytes();
+
+        when(enclave.unencryptTransactions(anyList(), anyList())).thenReturn(Arrays.asList(null, outcome, outcome));
+
+        List<byte[]> result =
+                enclaveClient.unencryptTransactions(
+                        List.of(payload, payload, payload), Arrays.asList(wrongKey, providedKey, null));
+
+        assertThat(result).hasSize(3);
+        assertThat(result.get(0)).isNull();
+        assertThat(result.get(1)).isEqualTo(outcome);
+        assertThat(result.get(2)).isEqualTo(outcome);
+
+        ArgumentCaptor<List<EncodedPayload>> payloadsCaptor = ArgumentCaptor.forClass(List.class);
+        ArgumentCaptor<List<PublicKey>> keysCaptor = ArgumentCaptor.forClass(List.class);
+        verify(enclave).unencryptTransactions(payloadsCaptor.capture(), keysCaptor.capture());
+
+        // the payload is sent and decoded once for all three keys
+        List<EncodedPayload> payloads = payloadsCaptor.getValue();
+        assertThat(payloads).hasSize(3);
+        assertThat(payloads.get(1)).isSameAs(payloads.get(0));
+        assertThat(payloads.get(2)).isSameAs(payloads.get(0));
+
+        assertThat(keysCaptor.getValue()).containsExactly(wrongKey, providedKey, null);
+    }
+
+    @Test
+    public void encryptPayloads() {
+
+        List<byte[]> messages = List.of("HELLOW".getBytes(), "WORLD".getBytes());
+
+        PublicKey senderPublicKey = PublicKey.from("PublicKey".getBytes());
+        List<PublicKey> recipientPublicKeys = List.of(PublicKey.from("RecipientPublicKey".getBytes()));
+
+        EncodedPayload encodedPayload = Fixtures.createSample();
+
+        when(enclave.encryptPayloads(anyList(), eq(senderPublicKey), eq(recipientPublicKeys), any()))
+                .thenReturn(List.of(encodedPayload, encodedPayload));
+
+        List<EncodedPayload> result =
+                enclaveClient.encryptPayloads(
+                        messages, senderPublicKey, recipientPublicKeys, PrivacyMode.STANDARD_PRIVATE);
+
+        assertThat(result).hasSize(2);
+
+        byte[] encodedResult = PayloadEncoder.create().encode(result.get(1));
+        byte[] encodedEncodedPayload = PayloadEncoder.create().encode(encodedPayload);
+
+        assertThat(encodedResult).isEqualTo(encodedEncodedPayload);
+
+        verify(enclave)
+                .encryptPayloads(
+                        anyList(), eq(senderPublicKey), eq(recipientPublicKeys), eq(PrivacyMode.STANDARD_PRIVATE));
+    }
+
     @Test
     public void unencryptRawPayload() throws Exception {
 
@@ -287,6 +429,25 @@ public class RestfulEnclaveClientTest {
         verify(enclave).createNewRecipientBox(any(EncodedPayload.class), any(PublicKey.class));
     }
 
+    @Test
+    public void createNewRecipientBoxes() {
+
+        EncodedPayload payload = Fixtures.createSample();
+
+        List<PublicKey> recipientKeys =
+                List.of(PublicKey.from("FirstKey".getBytes()), PublicKey.from("SecondKey".getBytes()));
+
+        List<byte[]> outcome = List.of("FIRST".getBytes(), "SECOND".getBytes());
+
+        when(enclave.createNewRecipientBoxes(any(EncodedPayload.class), eq(recipientKeys))).thenReturn(outcome);
+
+        List<byte[]> result = enclaveClient.createNewRecipientBoxes(payload, recipientKeys);
+
+        assertThat(result).containsExactly("FIRST".getBytes(), "SECOND".getBytes());
+
+        verify(enclave).createNewRecipientBoxes(any(EncodedPayload.class), eq(recipientKeys));
+    }
+
     @Test
     public void statusStarted() {
         when(enclave.status()).thenReturn(Service.Status.STARTED);
@@ -334,4 +495,9 @@ public class RestfulEnclaveClientTest {
             verify(enclave).defaultPublicKey();
         }
     }
+
+    @Parameterized.Parameters(name = "binaryProtocol {0}")
+    public static Collection<Boolean> protocols() {
+        return List.of(false, true);
+    }
 }
@@ -4,64 +4,53 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Objects;
+import java.util.Map;
+import java.util.Optional;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 public class KeyManagerImpl implements KeyManager {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(KeyManagerImpl.class);
 
-    /**
-     * A list of all pub/priv keys that are attached to this node
-     */
-    private final Set<KeyPair> localKeys;
-
-    private final KeyPair defaultKeys;
-
-    private final Set<PublicKey> forwardingPublicKeys;
+    /** The keys attached to this node */
+    private final LocalKeys localKeys;
 
     public KeyManagerImpl(final Collection<KeyPair> keys, Collection<PublicKey> forwardKeys) {
-
-        this.localKeys = new HashSet<>(keys);
-
-        this.defaultKeys = localKeys.iterator().next();
-
-        this.forwardingPublicKeys = new HashSet<>(forwardKeys);
+        this.localKeys = new LocalKeys(keys, forwardKeys);
     }
 
     @Override
     public PublicKey getPublicKeyForPrivateKey(final PrivateKey privateKey) {
         LOGGER.debug("Attempting to find public key for the private key {}", privateKey);
 
-        final PublicKey publicKey = localKeys
-            .stream()
-            .filter(keypair -> Objects.equals(keypair.getPrivateKey(), privateKey))
-            .findFirst()
-            .map(KeyPair::getPublicKey)
-            .orElseThrow(() -> new KeyNotFoundException(
-                "Private key " + privateKey.encodeToBase64() + " not found when searching for public key"
-            ));
+        final PublicKey publicKey =
+                Optional.ofNullable(localKeys.publicKeysByPrivateKey.get(privateKey))
+                        .orElseThrow(
+                                () ->
+                                        new KeyNotFoundException(
+                                                "Private key "
+                                                        + privateKey.encodeToBase64()
+                                                        + " not found when searching for public key"));
 
         LOGGER.debug("Found public key {} for private key {}", publicKey, privateKey);
 
         return publicKey;
     }
 
-
     @Override
     public PrivateKey getPrivateKeyForPublicKey(final PublicKey publicKey) {
         LOGGER.debug("Attempting to find private key for the public key {}", publicKey);
 
-        final PrivateKey privateKey = localKeys
-            .stream()
-            .filter(keypair -> Objects.equals(keypair.getPublicKey(), publicKey))
-            .findFirst()
-            .map(KeyPair::getPrivateKey)
-            .orElseThrow(() -> new KeyNotFoundException(
-                "Public key " + publicKey.encodeToBase64() + " not found when searching for private key"
-            ));
+        final PrivateKey privateKey =
+                Optional.ofNullable(localKeys.privateKeysByPublicKey.get(publicKey))
+                        .orElseThrow(
+                                () ->
+                                        new KeyNotFoundException(
+                                                "Public key "
+                                                        + publicKey.encodeToBase64()
+                                                        + " not found when searching for private key"));
 
         LOGGER.debug("Found private key {} for public key {}", privateKey, publicKey);
 
@@ -70,20 +59,47 @@ public class KeyManagerImpl implements KeyManager {
 
     @Override
     public Set<PublicKey> getPublicKeys() {
-        return localKeys
-            .stream()
-            .map(KeyPair::getPublicKey)
-            .collect(Collectors.toSet());
+        return localKeys.publicKeys;
     }
 
     @Override
     public PublicKey defaultPublicKey() {
-        return defaultKeys.getPublicKey();
+        return localKeys.defaultKeys.getPublicKey();
     }
 
     @Override
     public Set<PublicKey> getForwardingKeys() {
-        return this.forwardingPublicKeys;
+        return localKeys.forwardingPublicKeys;
     }
 
+    /** An immutable index of the keys of this node, built once so lookups are hashed rather than a scan of all keys */
+    private static final class LocalKeys {
+
+        private final Map<PublicKey, PrivateKey> privateKeysByPublicKey;
+
+        private final Map<PrivateKey, PublicKey> publicKeysByPrivateKey;
+
+        private final Set<PublicKey> publicKeys;
+
+        private final Set<PublicKey> forwardingPublicKeys;
+
+        private final KeyPair defaultKeys;
+
+        LocalKeys(final Collection<KeyPair> keys, final Collection<PublicKey> forwardKeys) {
+            final Set<KeyPair> pairs = new HashSet<>(keys);
+
+            final Map<PublicKey, PrivateKey> privateKeys = new HashMap<>();
+            final Map<PrivateKey, PublicKey> publicKeys = new HashMap<>();
+            for (final KeyPair pair : pairs) {
+                privateKeys.putIfAbsent(pair.getPublicKey(), pair.getPrivateKey());
+                publicKeys.putIfAbsent(pair.getPrivateKey(), pair.getPublicKey());
+            }
+
+            this.privateKeysByPublicKey = Map.copyOf(privateKeys);
+            this.publicKeysByPrivateKey = Map.copyOf(publicKeys);
+            this.publicKeys = Set.copyOf(privateKeys.keySet());
+            this.forwardingPublicKeys = Set.copyOf(forwardKeys);
+            this.defaultKeys = pairs.iterator().next();
+        }
+    }
 }
@@ -3,6 +3,7 @@ package com.quorum.tessera.encryption;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Set;
 
@@ -15,9 +16,9 @@ public class KeyManagerTest {
 
     private static final PublicKey PUBLIC_KEY = PublicKey.from("publicKey".getBytes());
 
-     private static final PrivateKey PRIVATE_KEY = PrivateKey.from("privateKey".getBytes());
+    private static final PrivateKey PRIVATE_KEY = PrivateKey.from("privateKey".getBytes());
 
-     private static final PublicKey FORWARDING_KEY = PublicKey.from("forwardingKey".getBytes());
+    private static final PublicKey FORWARDING_KEY = PublicKey.from("forwardingKey".getBytes());
 
     private KeyManager keyManager;
 
@@ -31,7 +32,7 @@ public class KeyManagerTest {
 
     @Test
     public void initialisedWithNoKeysThrowsError() {
-        //throws error because there is no default key
+        // throws error because there is no default key
         final Throwable throwable = catchThrowable(() -> new KeyManagerImpl(emptyList(), emptyList()));
 
         assertThat(throwable).isInstanceOf(NoSuchElementException.class);
@@ -50,9 +51,8 @@ public class KeyManagerTest {
         final Throwable throwable = catchThrowable(() -> this.keyManager.getPublicKeyForPrivateKey(unknownKey));
 
         assertThat(throwable)
-            .isInstanceOf(KeyNotFoundException.class)
-            .hasMessage("Private key dW5rbm93bktleQ== not found when searching for public key");
-
+                .isInstanceOf(KeyNotFoundException.class)
+                .hasMessage("Private key dW5rbm93bktleQ== not found when searching for public key");
     }
 
     @Test
@@ -68,8 +68,8 @@ public class KeyManagerTest {
         final Throwable throwable = catchThrowable(() -> this.keyManager.getPrivateKeyForPublicKey(unknownKey));
 
         assertThat(throwable)
-            .isInstanceOf(KeyNotFoundException.class)
-            .hasMessage("Public key dW5rbm93bktleQ== not found when searching for private key");
+                .isInstanceOf(KeyNotFoundException.class)
+                .hasMessage("Public key dW5rbm93bktleQ== not found when searching for private key");
     }
 
     @Test
@@ -80,16 +80,39 @@ public class KeyManagerTest {
         assertThat(publicKeys.iterator().next()).isEqualTo(PUBLIC_KEY);
     }
 
+    @Test
+    public void keySetsAreComputedOnceAndUnmodifiable() {
+        final Set<PublicKey> publicKeys = this.keyManager.getPublicKeys();
+
+        assertThat(this.keyManager.getPublicKeys()).isSameAs(publicKeys);
+        assertThat(this.keyManager.getForwardingKeys()).isSameAs(this.keyManager.getForwardingKeys());
+
+        final Throwable throwable = catchThrowable(() -> publicKeys.add(FORWARDING_KEY));
+        assertThat(throwable).isInstanceOf(UnsupportedOperationException.class);
+    }
+
     @Test
     public void defaultKeyIsPopulated() {
-        //the key manager is already set up with a keypair, so just check that
+        // the key manager is already set up with a keypair, so just check that
         assertThat(this.keyManager.defaultPublicKey()).isEqualTo(PUBLIC_KEY);
     }
 
     @Test
     public void forwardingKeysContainsOnlyOneKey() {
-        assertThat(this.keyManager.getForwardingKeys()).hasSize(1)
-                .containsExactlyInAnyOrder(FORWARDING_KEY);
+        assertThat(this.keyManager.getForwardingKeys()).hasSize(1).containsExactlyInAnyOrder(FORWARDING_KEY);
     }
 
+    @Test
+    public void keysAreFoundAmongManyKeys() {
+        final PublicKey otherPublicKey = PublicKey.from("otherPublicKey".getBytes());
+        final PrivateKey otherPrivateKey = PrivateKey.from("otherPrivateKey".getBytes());
+        final List<KeyPair> keys =
+                List.of(new KeyPair(PUBLIC_KEY, PRIVATE_KEY), new KeyPair(otherPublicKey, otherPrivateKey));
+
+        final KeyManager manager = new KeyManagerImpl(keys, emptyList());
+
+        assertThat(manager.getPrivateKeyForPublicKey(otherPublicKey)).isEqualTo(otherPrivateKey);
+        assertThat(manager.getPublicKeyForPrivateKey(PRIVATE_KEY)).isEqualTo(PUBLIC_KEY);
+        assertThat(manager.getPublicKeys()).containsExactlyInAnyOrder(PUBLIC_KEY, otherPublicKey);
+    }
 }
@@ -0,0 +1,28 @@
+package com.quorum.tessera.server.monitoring;
+
+public class MBeanComponentMetric implements MBeanMetric {
+
+    private String component;
+
+    private String name;
+
+    private String value;
+
+    public MBeanComponentMetric(String component, String name, String value) {
+        this.component = component;
+        this.name = name;
+        this.value = value;
+    }
+
+    public String getComponent() {
+        return component;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getValue() {
+        return value;
+    }
+}
@@ -1,15 +1,20 @@
 package com.quorum.tessera.server.monitoring;
 
 import com.quorum.tessera.config.AppType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import javax.management.*;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 
 public class MetricsEnquirer {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(MetricsEnquirer.class);
+
     private MBeanServer mBeanServer;
 
     public MetricsEnquirer(MBeanServer mBeanServer) {
@@ -23,11 +28,15 @@ public class MetricsEnquirer {
         try {
             mBeanNames = getTesseraResourceMBeanNames(appType);
 
-            for(ObjectName mBeanName : mBeanNames) {
+            for (ObjectName mBeanName : mBeanNames) {
                 List<MBeanMetric> temp;
                 try {
                     temp = getMetricsForMBean(mBeanName);
-                } catch (AttributeNotFoundException | MBeanException | InstanceNotFoundException | ReflectionException | IntrospectionException e) {
+                } catch (AttributeNotFoundException
+                        | MBeanException
+                        | InstanceNotFoundException
+                        | ReflectionException
+                        | IntrospectionException e) {
                     throw new RuntimeException(e);
                 }
                 mBeanMetrics.addAll(temp);
@@ -40,9 +49,64 @@ public class MetricsEnquirer {
         return Collections.unmodifiableList(mBeanMetrics);
     }
 
+    /**
+     * Reads the numeric attributes of the MBeans registered by Tessera components, such as executors and caches, under
+     * the {@code com.quorum.tessera} domain. An MBean whose attributes cannot be read is logged and left out.
+     *
+     * @return a metric for each numeric attribute, named after the type and name of the MBean
+     */
+    public List<MBeanMetric> getComponentMetrics() {
+        List<MBeanMetric> mBeanMetrics = new ArrayList<>();
+
+        try {
+            Set<ObjectName> mBeanNames = this.mBeanServer.queryNames(new ObjectName("com.quorum.tessera:*"), null);
+
+            for (ObjectName mBeanName : mBeanNames) {
+                try {
+                    mBeanMetrics.addAll(getComponentMetricsForMBean(mBeanName));
+                } catch (InstanceNotFoundException e) {
+                    // unregistered since the query, so has no metrics to report
+                } catch (AttributeNotFoundException
+                        | MBeanException
+                        | ReflectionException
+                        | IntrospectionException
+                        | JMRuntimeException e) {
+                    // a component whose attributes cannot be read is left out, rather than failing every other metric
+                    LOGGER.warn("Unable to read metrics of {}: {}", mBeanName, e.getMessage());
+                    LOGGER.debug(null, e);
+                }
+            }
+        } catch (MalformedObjectNameException e) {
+            throw new RuntimeException(e);
+        }
+
+        return Collections.unmodifiableList(mBeanMetrics);
+    }
+
+    private List<MBeanMetric> getComponentMetricsForMBean(ObjectName mBeanName)
+            throws AttributeNotFoundException, MBeanException, ReflectionException, InstanceNotFoundException,
+                    IntrospectionException {
+        List<MBeanMetric> mBeanMetrics = new ArrayList<>();
+
+        String component =
+                Optional.ofNullable(mBeanName.getKeyProperty("name"))
+                        .map(name -> mBeanName.getKeyProperty("type") + "_" + name)
+                        .orElse(mBeanName.getKeyProperty("type"));
+
+        for (MBeanAttributeInfo mBeanAttribute : this.mBeanServer.getMBeanInfo(mBeanName).getAttributes()) {
+            Object value = mBeanServer.getAttribute(mBeanName, mBeanAttribute.getName());
+
+            if (value instanceof Number) {
+                mBeanMetrics.add(new MBeanComponentMetric(component, mBeanAttribute.getName(), value.toString()));
+            }
+        }
+
+        return Collections.unmodifiableList(mBeanMetrics);
+    }
+
     private Set<ObjectName> getTesseraResourceMBeanNames(AppType appType) throws MalformedObjectNameException {
         final String type;
-        switch(appType) {
+        switch (appType) {
             case P2P:
                 type = "P2PRestApp";
                 break;
@@ -62,19 +126,24 @@ public class MetricsEnquirer {
                 throw new MonitoringNotSupportedException(appType);
         }
 
-        String pattern = String.format("org.glassfish.jersey:type=%s,subType=Resources,resource=com.quorum.tessera.*,executionTimes=RequestTimes,detail=methods,method=*", type);
+        String pattern =
+                String.format(
+                        "org.glassfish.jersey:type=%s,subType=Resources,resource=com.quorum.tessera.*,executionTimes=RequestTimes,detail=methods,method=*",
+                        type);
         return Collections.unmodifiableSet(this.mBeanServer.queryNames(new ObjectName(pattern), null));
     }
 
-    private List<MBeanMetric> getMetricsForMBean(ObjectName mBeanName) throws AttributeNotFoundException, MBeanException, ReflectionException, InstanceNotFoundException, IntrospectionException {
+    private List<MBeanMetric> getMetricsForMBean(ObjectName mBeanName)
+            throws AttributeNotFoundException, MBeanException, ReflectionException, InstanceNotFoundException,
+                    IntrospectionException {
         List<MBeanMetric> mBeanMetrics = new ArrayList<>();
 
         MBeanAttributeInfo[] mBeanAttributes = this.mBeanServer.getMBeanInfo(mBeanName).getAttributes();
 
-        for(MBeanAttributeInfo mBeanAttribute : mBeanAttributes) {
+        for (MBeanAttributeInfo mBeanAttribute : mBeanAttributes) {
             String attributeName = mBeanAttribute.getName();
 
-            if(attributeName.endsWith("total")) {
+            if (attributeName.endsWith("total")) {
                 String resourceMethod = mBeanName.getKeyProperty("method");
                 String value = mBeanServer.getAttribute(mBeanName, attributeName).toString();
                 MBeanResourceMetric metric = new MBeanResourceMetric(resourceMethod, attributeName, value);
@@ -12,24 +12,45 @@ public class PrometheusProtocolFormatter {
         for (final MBeanMetric metric : metrics) {
             final MBeanResourceMetric resourceMetric = (MBeanResourceMetric) metric;
 
-            formattedMetrics.append("tessera_")
-                .append(appType)
-                .append("_")
-                .append(sanitize(resourceMetric.getResourceMethod()))
-                .append("_")
-                .append(sanitize(resourceMetric.getName()))
-                .append(" ")
-                .append(resourceMetric.getValue())
-                .append("\n");
+            formattedMetrics
+                    .append("tessera_")
+                    .append(appType)
+                    .append("_")
+                    .append(sanitize(resourceMetric.getResourceMethod()))
+                    .append("_")
+                    .append(sanitize(resourceMetric.getName()))
+                    .append(" ")
+                    .append(resourceMetric.getValue())
+                    .append("\n");
         }
 
         return formattedMetrics.toString().trim();
     }
 
-    private String sanitize(final String input) {
-        return input
-            .replaceAll("(#.*)|(_total)|\\(\\)|\\)|\\[\\]|\\]|;", "")
-            .replaceAll("->|\\(|\\[", "_");
+    public String formatComponents(final List<MBeanMetric> metrics) {
+        StringBuilder formattedMetrics = new StringBuilder();
+
+        for (final MBeanMetric metric : metrics) {
+            final MBeanComponentMetric componentMetric = (MBeanComponentMetric) metric;
+
+            formattedMetrics
+                    .append("tessera_")
+                    .append(sanitizeComponent(componentMetric.getComponent()))
+                    .append("_")
+                    .append(sanitizeComponent(componentMetric.getName()))
+                    .append(" ")
+                    .append(componentMetric.getValue())
+                    .append("\n");
+        }
+
+        return formattedMetrics.toString().trim();
+    }
+
+    private String sanitizeComponent(final String input) {
+        return input.replaceAll("[^A-Za-z0-9_]", "_");
     }
 
+    private String sanitize(final String input) {
+        return input.replaceAll("(#.*)|(_total)|\\(\\)|\\)|\\[\\]|\\]|;", "").replaceAll("->|\\(|\\[", "_");
+    }
 }
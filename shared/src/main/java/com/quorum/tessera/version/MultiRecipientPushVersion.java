@@ -0,0 +1,12 @@
+package com.quorum.tessera.version;
+
+/** Nodes supporting this version accept one push carrying the payload for several of their recipients */
+public class MultiRecipientPushVersion implements ApiVersion {
+
+    public static final String API_VERSION_3 = "v3";
+
+    @Override
+    public String getVersion() {
+        return API_VERSION_3;
+    }
+}
@@ -11,8 +11,6 @@ public class ApiVersionTest {
     @Test
     public void create() {
         List<String> result = ApiVersion.versions();
-        assertThat(result).containsExactly("0.1","1.0","v1","v2");
-
+        assertThat(result).containsExactly("0.1", "1.0", "v1", "v2", "v3");
     }
-
 }
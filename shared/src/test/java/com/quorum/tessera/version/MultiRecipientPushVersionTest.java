@@ -0,0 +1,15 @@
+package com.quorum.tessera.version;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class MultiRecipientPushVersionTest {
+
+    private MultiRecipientPushVersion version = new MultiRecipientPushVersion();
+
+    @Test
+    public void getVersion() {
+        assertThat(version.getVersion()).isEqualTo("v3");
+    }
+}
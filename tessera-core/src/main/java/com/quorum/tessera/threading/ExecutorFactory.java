@@ -1,12 +1,198 @@
 package com.quorum.tessera.threading;
 
-import java.util.concurrent.Executor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Method;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
+/**
+ * Creates the named executors used for background and fan-out work.
+ *
+ * <p>Executors are bounded in both threads and queued tasks, so a burst of work cannot exhaust the available threads or
+ * memory. Each one publishes its statistics over JMX as {@code com.quorum.tessera:type=Executor,name=<name>} until it
+ * is shut down.
+ */
 public class ExecutorFactory {
 
-    public Executor createCachedThreadPool() {
-        return Executors.newCachedThreadPool();
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExecutorFactory.class);
+
+    static final String MBEAN_NAME_PATTERN = "com.quorum.tessera:type=Executor,name=%s";
+
+    private static final long KEEP_ALIVE_SECONDS = 60L;
+
+    /**
+     * Creates an executor with the default settings, as overridden by any system properties for the given name.
+     *
+     * @param name the name of the executor, used for its threads and metrics
+     * @return a new executor
+     * @see ExecutorSettings
+     */
+    public ExecutorService create(String name) {
+        return create(name, ExecutorSettings.defaults());
     }
 
+    /**
+     * Creates an executor with the given settings, as overridden by any system properties for the given name.
+     *
+     * @param name the name of the executor, used for its threads and metrics
+     * @param defaults the settings to use where not overridden
+     * @return a new executor
+     */
+    public ExecutorService create(String name, ExecutorSettings defaults) {
+        final ExecutorSettings settings = defaults.overriddenBy(name, System.getProperties());
+        LOGGER.debug("Creating executor {} with {}", name, settings);
+
+        final ObjectName objectName = objectName(name);
+
+        final InstrumentedExecutorService executor =
+                new InstrumentedExecutorService(
+                        name, onRejected -> createDelegate(name, settings, onRejected), () -> unregister(objectName));
+
+        register(executor, objectName);
+
+        return executor;
+    }
+
+    /**
+     * Creates an executor for blocking outbound P2P calls, which runs each task on its own virtual thread when enabled
+     * and supported.
+     *
+     * @param name the name of the executor, used for its threads and metrics
+     * @return a new executor
+     * @see ExecutorSettings#outboundP2p()
+     */
+    public ExecutorService createOutboundP2p(String name) {
+        return create(name, ExecutorSettings.outboundP2p());
+    }
+
+    /**
+     * Creates a single threaded executor for running a task periodically, such as with a {@link
+     * TesseraScheduledExecutor}. Its thread is a daemon, so it does not keep the JVM running once the application
+     * stops.
+     *
+     * @param name the name of the executor, used for its thread
+     * @return a new scheduled executor
+     */
+    public ScheduledExecutorService createScheduled(String name) {
+        final ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1, daemonThreads(name));
+        executor.setRemoveOnCancelPolicy(true);
+        return executor;
+    }
+
+    private static ExecutorService createDelegate(String name, ExecutorSettings settings, Runnable onRejected) {
+        if (settings.isVirtualThreads()) {
+            final ExecutorService virtualThreadExecutor = createVirtualThreadExecutor(name);
+            if (virtualThreadExecutor != null) {
+                return virtualThreadExecutor;
+            }
+            LOGGER.warn("Virtual threads are not available, executor {} will use platform threads", name);
+        }
+
+        final BlockingQueue<Runnable> queue =
+                settings.getQueueCapacity() == 0
+                        ? new SynchronousQueue<>()
+                        : new ArrayBlockingQueue<>(settings.getQueueCapacity());
+
+        final RejectedExecutionHandler policy =
+                settings.getRejectionPolicy() == ExecutorSettings.RejectionPolicy.CALLER_RUNS
+                        ? new ThreadPoolExecutor.CallerRunsPolicy()
+                        : new ThreadPoolExecutor.AbortPolicy();
+
+        final ThreadPoolExecutor executor =
+                new ThreadPoolExecutor(
+                        settings.getMaxThreads(),
+                        settings.getMaxThreads(),
+                        KEEP_ALIVE_SECONDS,
+                        TimeUnit.SECONDS,
+                        queue,
+                        daemonThreads(name),
+                        (task, pool) -> {
+                            onRejected.run();
+                            policy.rejectedExecution(task, pool);
+                        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task, if the running JVM supports them. Looked up
+     * reflectively as virtual threads are not part of the Java version the project is built against.
+     *
+     * @return the executor, or {@code null} if virtual threads are not available
+     */
+    static ExecutorService createVirtualThreadExecutor(String name) {
+        try {
+            final Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            final Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builderType.getMethod("name", String.class, long.class).invoke(builder, name + "-", 1L);
+            final ThreadFactory threadFactory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+
+            final Method newThreadPerTaskExecutor =
+                    Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+            return (ExecutorService) newThreadPerTaskExecutor.invoke(null, threadFactory);
+        } catch (ReflectiveOperationException | RuntimeException ex) {
+            LOGGER.debug("Unable to create virtual thread executor", ex);
+            return null;
+        }
+    }
+
+    private static ThreadFactory daemonThreads(String name) {
+        final AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            final Thread thread = new Thread(runnable, name + "-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static ObjectName objectName(String name) {
+        try {
+            return new ObjectName(String.format(MBEAN_NAME_PATTERN, name));
+        } catch (JMException ex) {
+            throw new IllegalArgumentException("Invalid executor name " + name, ex);
+        }
+    }
+
+    /**
+     * Publishes the executor statistics over JMX, replacing any executor of the same name. Failure to register is not
+     * fatal, as the statistics are informational only.
+     */
+    private static void register(InstrumentedExecutorService executor, ObjectName objectName) {
+        try {
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(executor, objectName);
+        } catch (JMException ex) {
+            LOGGER.warn("Unable to register metrics for executor {}", executor.getName(), ex);
+        }
+    }
+
+    private static void unregister(ObjectName objectName) {
+        try {
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (JMException ex) {
+            LOGGER.debug("Unable to unregister metrics {}", objectName, ex);
+        }
+    }
 }
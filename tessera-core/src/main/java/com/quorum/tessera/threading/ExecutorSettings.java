@@ -0,0 +1,155 @@
+package com.quorum.tessera.threading;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Objects;
+import java.util.Properties;
+import java.util.function.Function;
+
+/**
+ * The sizing of an executor created by the {@link ExecutorFactory}.
+ *
+ * <p>Each setting may be overridden for a named executor with a system property of the form {@code
+ * tessera.executor.<name>.<setting>}, or for all executors with {@code tessera.executor.<setting>}, where the setting
+ * is one of {@code maxThreads}, {@code queueCapacity}, {@code rejectionPolicy} or {@code virtualThreads}.
+ */
+public final class ExecutorSettings {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExecutorSettings.class);
+
+    static final String PROPERTY_PREFIX = "tessera.executor.";
+
+    /** Switches the executors that make blocking outbound P2P calls to a virtual thread per task */
+    public static final String P2P_VIRTUAL_THREADS_PROPERTY = "tessera.p2p.virtualThreads";
+
+    /** What to do with a task when all threads are busy and the queue is full */
+    public enum RejectionPolicy {
+        /** Run the task on the thread that submitted it, slowing down the submitter */
+        CALLER_RUNS,
+        /** Refuse the task with a {@link java.util.concurrent.RejectedExecutionException} */
+        ABORT
+    }
+
+    private final int maxThreads;
+
+    private final int queueCapacity;
+
+    private final RejectionPolicy rejectionPolicy;
+
+    private final boolean virtualThreads;
+
+    private ExecutorSettings(
+            int maxThreads, int queueCapacity, RejectionPolicy rejectionPolicy, boolean virtualThreads) {
+        if (maxThreads < 1) {
+            throw new IllegalArgumentException("maxThreads must be at least 1");
+        }
+        if (queueCapacity < 0) {
+            throw new IllegalArgumentException("queueCapacity must not be negative");
+        }
+        this.maxThreads = maxThreads;
+        this.queueCapacity = queueCapacity;
+        this.rejectionPolicy = Objects.requireNonNull(rejectionPolicy);
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Settings suitable for blocking network calls: up to four threads per processor, a queue of 1000 tasks, and
+     * running tasks on the caller once both are full.
+     */
+    public static ExecutorSettings defaults() {
+        return new ExecutorSettings(
+                Math.max(8, Runtime.getRuntime().availableProcessors() * 4), 1000, RejectionPolicy.CALLER_RUNS, false);
+    }
+
+    /**
+     * Settings for executors that make a blocking outbound P2P call per recipient or peer. These are the {@link
+     * #defaults()}, unless the {@value #P2P_VIRTUAL_THREADS_PROPERTY} system property is {@code true}, in which case
+     * each call gets its own virtual thread and the fan-out is no longer limited by the number of platform threads.
+     */
+    public static ExecutorSettings outboundP2p() {
+        return outboundP2p(System.getProperties());
+    }
+
+    static ExecutorSettings outboundP2p(Properties properties) {
+        return defaults()
+                .withVirtualThreads(Boolean.parseBoolean(properties.getProperty(P2P_VIRTUAL_THREADS_PROPERTY)));
+    }
+
+    public ExecutorSettings withMaxThreads(int maxThreads) {
+        return new ExecutorSettings(maxThreads, queueCapacity, rejectionPolicy, virtualThreads);
+    }
+
+    public ExecutorSettings withQueueCapacity(int queueCapacity) {
+        return new ExecutorSettings(maxThreads, queueCapacity, rejectionPolicy, virtualThreads);
+    }
+
+    public ExecutorSettings withRejectionPolicy(RejectionPolicy rejectionPolicy) {
+        return new ExecutorSettings(maxThreads, queueCapacity, rejectionPolicy, virtualThreads);
+    }
+
+    public ExecutorSettings withVirtualThreads(boolean virtualThreads) {
+        return new ExecutorSettings(maxThreads, queueCapacity, rejectionPolicy, virtualThreads);
+    }
+
+    /**
+     * Applies any overrides found in the given properties for the named executor. Values that cannot be parsed are
+     * logged and ignored.
+     *
+     * @param name the name of the executor
+     * @param properties the properties to read, usually the system properties
+     * @return the settings with the overrides applied
+     */
+    public ExecutorSettings overriddenBy(String name, Properties properties) {
+        return new ExecutorSettings(
+                read(name, "maxThreads", properties, Integer::valueOf, maxThreads),
+                read(name, "queueCapacity", properties, Integer::valueOf, queueCapacity),
+                read(name, "rejectionPolicy", properties, RejectionPolicy::valueOf, rejectionPolicy),
+                read(name, "virtualThreads", properties, Boolean::valueOf, virtualThreads));
+    }
+
+    private static <T> T read(
+            String name, String setting, Properties properties, Function<String, T> parser, T defaultValue) {
+        final String value =
+                properties.getProperty(
+                        PROPERTY_PREFIX + name + "." + setting, properties.getProperty(PROPERTY_PREFIX + setting));
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return parser.apply(value.trim());
+        } catch (IllegalArgumentException ex) {
+            LOGGER.warn("Invalid value {} for {} of executor {}, using {}", value, setting, name, defaultValue);
+            return defaultValue;
+        }
+    }
+
+    public int getMaxThreads() {
+        return maxThreads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public RejectionPolicy getRejectionPolicy() {
+        return rejectionPolicy;
+    }
+
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    @Override
+    public String toString() {
+        return "ExecutorSettings{maxThreads="
+                + maxThreads
+                + ", queueCapacity="
+                + queueCapacity
+                + ", rejectionPolicy="
+                + rejectionPolicy
+                + ", virtualThreads="
+                + virtualThreads
+                + "}";
+    }
+}
@@ -0,0 +1,150 @@
+package com.quorum.tessera.threading;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * An executor that records how many tasks are queued and running, and how long they take, for the executor it wraps.
+ * Created by the {@link ExecutorFactory}, which publishes the statistics over JMX.
+ */
+public class InstrumentedExecutorService extends AbstractExecutorService implements InstrumentedExecutorServiceMBean {
+
+    private final String name;
+
+    private final ExecutorService delegate;
+
+    private final Runnable onShutdown;
+
+    private final AtomicInteger queued = new AtomicInteger();
+
+    private final AtomicInteger active = new AtomicInteger();
+
+    private final LongAdder completed = new LongAdder();
+
+    private final LongAdder rejected = new LongAdder();
+
+    private final LongAdder totalLatencyNanos = new LongAdder();
+
+    private final LongAdder totalQueueTimeNanos = new LongAdder();
+
+    /**
+     * @param name the name of the executor
+     * @param delegateFactory creates the executor that runs the tasks, given a callback its rejection policy must call
+     *     for each rejected task
+     * @param onShutdown called when the executor is shut down
+     */
+    InstrumentedExecutorService(
+            String name, Function<Runnable, ExecutorService> delegateFactory, Runnable onShutdown) {
+        this.name = Objects.requireNonNull(name);
+        this.delegate = Objects.requireNonNull(delegateFactory.apply(rejected::increment));
+        this.onShutdown = Objects.requireNonNull(onShutdown);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        Objects.requireNonNull(command);
+
+        final long submitted = System.nanoTime();
+        queued.incrementAndGet();
+
+        final Runnable task =
+                () -> {
+                    final long started = System.nanoTime();
+                    queued.decrementAndGet();
+                    active.incrementAndGet();
+                    try {
+                        command.run();
+                    } finally {
+                        active.decrementAndGet();
+                        final long finished = System.nanoTime();
+                        totalQueueTimeNanos.add(started - submitted);
+                        totalLatencyNanos.add(finished - submitted);
+                        completed.increment();
+                    }
+                };
+
+        try {
+            delegate.execute(task);
+        } catch (RejectedExecutionException ex) {
+            queued.decrementAndGet();
+            throw ex;
+        }
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queued.get();
+    }
+
+    @Override
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    @Override
+    public long getCompletedTaskCount() {
+        return completed.sum();
+    }
+
+    @Override
+    public long getRejectedTaskCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public double getAverageTaskLatencyMillis() {
+        return averageMillis(totalLatencyNanos);
+    }
+
+    @Override
+    public double getAverageQueueTimeMillis() {
+        return averageMillis(totalQueueTimeNanos);
+    }
+
+    private double averageMillis(LongAdder totalNanos) {
+        final long count = completed.sum();
+        if (count == 0) {
+            return 0;
+        }
+        return (double) totalNanos.sum() / count / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+        onShutdown.run();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        final List<Runnable> pending = delegate.shutdownNow();
+        onShutdown.run();
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return delegate.isShutdown();
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return delegate.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return delegate.awaitTermination(timeout, unit);
+    }
+}
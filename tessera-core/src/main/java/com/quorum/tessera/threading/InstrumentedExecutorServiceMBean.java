@@ -0,0 +1,22 @@
+package com.quorum.tessera.threading;
+
+/** JMX view of the {@link InstrumentedExecutorService} statistics */
+public interface InstrumentedExecutorServiceMBean {
+
+    /** The number of tasks waiting for a thread */
+    int getQueueDepth();
+
+    /** The number of tasks currently running */
+    int getActiveCount();
+
+    long getCompletedTaskCount();
+
+    /** The number of tasks that could not be queued, and were handled by the rejection policy */
+    long getRejectedTaskCount();
+
+    /** The mean time from submitting a task until it finished, over all completed tasks */
+    double getAverageTaskLatencyMillis();
+
+    /** The mean time completed tasks spent waiting for a thread */
+    double getAverageQueueTimeMillis();
+}
@@ -1,11 +1,19 @@
 package com.quorum.tessera.transaction;
 
 import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.util.ClientPropertyHelper;
+import com.quorum.tessera.config.util.IntervalPropertyHelper;
 import com.quorum.tessera.data.EncryptedRawTransactionDAO;
 import com.quorum.tessera.data.EncryptedTransactionDAO;
 import com.quorum.tessera.data.EntityManagerDAOFactory;
+import com.quorum.tessera.data.OutboxDAO;
+import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.enclave.EnclaveFactory;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.threading.ExecutorFactory;
+import com.quorum.tessera.threading.TesseraScheduledExecutor;
+import com.quorum.tessera.transaction.outbox.OutboxDispatcher;
 import com.quorum.tessera.transaction.publish.BatchPayloadPublisher;
 import com.quorum.tessera.transaction.publish.BatchPayloadPublisherFactory;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
@@ -13,8 +21,10 @@ import com.quorum.tessera.transaction.publish.PayloadPublisherFactory;
 import com.quorum.tessera.transaction.resend.ResendManager;
 import com.quorum.tessera.transaction.resend.ResendManagerImpl;
 
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.atomic.AtomicReference;
 
 enum DefaultTransactionManagerFactory implements TransactionManagerFactory {
@@ -42,6 +52,12 @@ enum DefaultTransactionManagerFactory implements TransactionManagerFactory {
         boolean privacyEnabled = config.getFeatures().isEnablePrivacyEnhancements();
         PrivacyHelper privacyHelper = new PrivacyHelperImpl(encryptedTransactionDAO, privacyEnabled);
 
+        OutboxDAO outboxDAO = null;
+        if (config.getFeatures().isEnableOutbox()) {
+            outboxDAO = entityManagerDAOFactory.createOutboxDAO();
+            startOutboxDispatcher(config, outboxDAO, encryptedTransactionDAO, payloadPublisher);
+        }
+
         TransactionManager transactionManager =
                 new TransactionManagerImpl(
                         encryptedTransactionDAO,
@@ -51,12 +67,50 @@ enum DefaultTransactionManagerFactory implements TransactionManagerFactory {
                         payloadPublisher,
                         batchPayloadPublisher,
                         privacyHelper,
-                        100);
+                        100,
+                        outboxDAO);
 
         REF.set(transactionManager);
         return transactionManager;
     }
 
+    private static void startOutboxDispatcher(
+            Config config,
+            OutboxDAO outboxDAO,
+            EncryptedTransactionDAO encryptedTransactionDAO,
+            PayloadPublisher payloadPublisher) {
+        final Map<String, String> properties = config.getP2PServerConfig().getProperties();
+
+        final ExecutorFactory executorFactory = new ExecutorFactory();
+        final ExecutorService pushExecutor = executorFactory.createOutboundP2p("outbox-dispatch");
+
+        final OutboxDispatcher dispatcher =
+                new OutboxDispatcher(
+                        outboxDAO,
+                        encryptedTransactionDAO,
+                        PayloadEncoder.create(),
+                        payloadPublisher,
+                        Discovery.getInstance(),
+                        pushExecutor,
+                        new ClientPropertyHelper(properties).maxConnectionsPerPeer());
+        dispatcher.registerMetrics();
+
+        final long interval = new IntervalPropertyHelper(properties).outboxDispatchInterval();
+        final TesseraScheduledExecutor scheduler =
+                new TesseraScheduledExecutor(
+                        executorFactory.createScheduled("outbox-dispatch-scheduler"), dispatcher, interval, interval);
+        scheduler.start();
+
+        // stopped along with the servers, as the launcher does when the JVM shuts down
+        Runtime.getRuntime()
+                .addShutdownHook(
+                        new Thread(
+                                () -> {
+                                    scheduler.stop();
+                                    pushExecutor.shutdown();
+                                }));
+    }
+
     @Override
     public Optional<TransactionManager> transactionManager() {
         return Optional.ofNullable(REF.get());
@@ -91,7 +91,13 @@ public class EncodedPayloadManagerImpl implements EncodedPayloadManager {
     private Optional<PublicKey> searchForRecipientKey(final EncodedPayload payload) {
         final MessageHash customPayloadHash = messageHashFactory.createFromCipherText(payload.getCipherText());
 
-        for (final PublicKey potentialMatchingKey : enclave.getPublicKeys()) {
+        // keys the payload names as recipients are the most likely to succeed, so try them first
+        final Set<PublicKey> localKeys = enclave.getPublicKeys();
+        final Set<PublicKey> candidates = new LinkedHashSet<>();
+        payload.getRecipientKeys().stream().filter(localKeys::contains).forEach(candidates::add);
+        candidates.addAll(localKeys);
+
+        for (final PublicKey potentialMatchingKey : candidates) {
             try {
                 LOGGER.debug("Attempting to decrypt {} using key {}", customPayloadHash, potentialMatchingKey.encodeToBase64());
                 enclave.unencryptTransaction(payload, potentialMatchingKey);
@@ -53,7 +53,7 @@ public class PrivacyHelperImpl implements PrivacyHelper {
                         et ->
                                 AffectedTransaction.Builder.create()
                                         .withHash(et.getHash().getHashBytes())
-                                        .withPayload(PayloadEncoder.create().decode(et.getEncodedPayload()))
+                                        .withPayload(decode(et))
                                         .build())
                 .collect(Collectors.toList());
     }
@@ -83,7 +83,7 @@ public class PrivacyHelperImpl implements PrivacyHelper {
                         et ->
                                 AffectedTransaction.Builder.create()
                                         .withHash(et.getHash().getHashBytes())
-                                        .withPayload(PayloadEncoder.create().decode(et.getEncodedPayload()))
+                                        .withPayload(decode(et))
                                         .build())
                 .collect(Collectors.toList());
     }
@@ -242,4 +242,10 @@ public class PrivacyHelperImpl implements PrivacyHelper {
 
         return true;
     }
+
+    /** Uses the payload already decoded by the payload cache, if the transaction was served from it */
+    private static EncodedPayload decode(EncryptedTransaction encryptedTransaction) {
+        return Optional.ofNullable(encryptedTransaction.getDecodedPayload())
+                .orElseGet(() -> PayloadEncoder.create().decode(encryptedTransaction.getEncodedPayload()));
+    }
 }
@@ -7,8 +7,9 @@ import com.quorum.tessera.data.EncryptedRawTransaction;
 import com.quorum.tessera.data.EncryptedTransaction;
 import com.quorum.tessera.data.MessageHash;
 import com.quorum.tessera.data.MessageHashFactory;
+import com.quorum.tessera.data.OutboxDAO;
+import com.quorum.tessera.data.PendingDelivery;
 import com.quorum.tessera.enclave.*;
-import com.quorum.tessera.encryption.EncryptorException;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.transaction.exception.RecipientKeyNotFoundException;
 import com.quorum.tessera.transaction.exception.TransactionNotFoundException;
@@ -50,6 +51,8 @@ public class TransactionManagerImpl implements TransactionManager {
 
     private final PrivacyHelper privacyHelper;
 
+    private final OutboxDAO outboxDAO;
+
     private final MessageHashFactory messageHashFactory = MessageHashFactory.create();
 
     private int resendFetchSize;
@@ -63,6 +66,32 @@ public class TransactionManagerImpl implements TransactionManager {
             BatchPayloadPublisher batchPayloadPublisher,
             PrivacyHelper privacyHelper,
             int resendFetchSize) {
+        this(
+                encryptedTransactionDAO,
+                enclave,
+                encryptedRawTransactionDAO,
+                resendManager,
+                payloadPublisher,
+                batchPayloadPublisher,
+                privacyHelper,
+                resendFetchSize,
+                null);
+    }
+
+    /**
+     * @param outboxDAO if not null, new transactions are stored along with their deliveries to make, which are left to
+     *     an {@link com.quorum.tessera.transaction.outbox.OutboxDispatcher} rather than pushed before returning
+     */
+    public TransactionManagerImpl(
+            EncryptedTransactionDAO encryptedTransactionDAO,
+            Enclave enclave,
+            EncryptedRawTransactionDAO encryptedRawTransactionDAO,
+            ResendManager resendManager,
+            PayloadPublisher payloadPublisher,
+            BatchPayloadPublisher batchPayloadPublisher,
+            PrivacyHelper privacyHelper,
+            int resendFetchSize,
+            OutboxDAO outboxDAO) {
         this(
                 Base64Codec.create(),
                 PayloadEncoder.create(),
@@ -73,7 +102,8 @@ public class TransactionManagerImpl implements TransactionManager {
                 encryptedRawTransactionDAO,
                 resendManager,
                 privacyHelper,
-                resendFetchSize);
+                resendFetchSize,
+                outboxDAO);
     }
 
     /*
@@ -90,6 +120,35 @@ public class TransactionManagerImpl implements TransactionManager {
             ResendManager resendManager,
             PrivacyHelper privacyHelper,
             int resendFetchSize) {
+        this(
+                base64Decoder,
+                payloadEncoder,
+                encryptedTransactionDAO,
+                payloadPublisher,
+                batchPayloadPublisher,
+                enclave,
+                encryptedRawTransactionDAO,
+                resendManager,
+                privacyHelper,
+                resendFetchSize,
+                null);
+    }
+
+    /*
+    Only use for tests
+    */
+    public TransactionManagerImpl(
+            Base64Codec base64Decoder,
+            PayloadEncoder payloadEncoder,
+            EncryptedTransactionDAO encryptedTransactionDAO,
+            PayloadPublisher payloadPublisher,
+            BatchPayloadPublisher batchPayloadPublisher,
+            Enclave enclave,
+            EncryptedRawTransactionDAO encryptedRawTransactionDAO,
+            ResendManager resendManager,
+            PrivacyHelper privacyHelper,
+            int resendFetchSize,
+            OutboxDAO outboxDAO) {
 
         this.base64Codec = Objects.requireNonNull(base64Decoder, "base64Codec is required");
         this.payloadEncoder = Objects.requireNonNull(payloadEncoder, "payloadEncoder is required");
@@ -103,6 +162,7 @@ public class TransactionManagerImpl implements TransactionManager {
         this.resendManager = Objects.requireNonNull(resendManager, "resendManager is required");
         this.resendFetchSize = resendFetchSize;
         this.privacyHelper = Objects.requireNonNull(privacyHelper, "privacyHelper is required");
+        this.outboxDAO = outboxDAO;
     }
 
     @Override
@@ -151,12 +211,7 @@ public class TransactionManagerImpl implements TransactionManager {
                         .filter(k -> !enclave.getPublicKeys().contains(k))
                         .collect(Collectors.toList());
 
-        this.encryptedTransactionDAO.save(
-                newTransaction,
-                () -> {
-                    batchPayloadPublisher.publishPayload(payload, recipientListRemotesOnly);
-                    return null;
-                });
+        this.storeAndPublish(newTransaction, payload, recipientListRemotesOnly);
 
         return SendResponse.from(transactionHash);
     }
@@ -208,73 +263,93 @@ public class TransactionManagerImpl implements TransactionManager {
                         .filter(k -> !enclave.getPublicKeys().contains(k))
                         .collect(Collectors.toList());
 
+        this.storeAndPublish(newTransaction, payload, recipientListRemotesOnly);
+
+        return SendResponse.from(messageHash);
+    }
+
+    /**
+     * Stores a new transaction, and either pushes it to its remote recipients before committing, or, if there is an
+     * outbox, commits it with a record of each delivery to make later.
+     */
+    private void storeAndPublish(
+            EncryptedTransaction transaction, EncodedPayload payload, List<PublicKey> remoteRecipients) {
+        if (Objects.nonNull(outboxDAO)) {
+            final long now = System.currentTimeMillis();
+            final List<PendingDelivery> deliveries =
+                    remoteRecipients.stream()
+                            .map(recipient -> new PendingDelivery(transaction.getHash(), recipient.getKeyBytes(), now))
+                            .collect(Collectors.toList());
+            outboxDAO.save(transaction, deliveries);
+            return;
+        }
+
         this.encryptedTransactionDAO.save(
-                newTransaction,
+                transaction,
                 () -> {
-                    batchPayloadPublisher.publishPayload(payload, recipientListRemotesOnly);
+                    batchPayloadPublisher.publishPayload(payload, remoteRecipients);
                     return null;
                 });
-
-        return SendResponse.from(messageHash);
     }
 
     protected ResendResponse resendAll(PublicKey recipientPublicKey) {
-        int offset = 0;
-
-        while (offset < encryptedTransactionDAO.transactionCount()) {
-
-            encryptedTransactionDAO.retrieveTransactions(offset, resendFetchSize).stream()
-                    .map(EncryptedTransaction::getEncodedPayload)
-                    .map(payloadEncoder::decode)
-                    .filter(
-                            payload -> {
-                                final boolean isRecipient = payload.getRecipientKeys().contains(recipientPublicKey);
-                                final boolean isSender = Objects.equals(payload.getSenderKey(), recipientPublicKey);
-                                return isRecipient || isSender;
-                            })
-                    .forEach(
-                            payload -> {
-                                final EncodedPayload prunedPayload;
-
-                                if (Objects.equals(payload.getSenderKey(), recipientPublicKey)) {
-                                    if (payload.getRecipientKeys().isEmpty()) {
-                                        // TODO Should we stop the whole resend just because we could not find a key
-                                        // for a tx? Log instead?
-                                        // a malicious party may be able to craft TXs that prevent others from
-                                        // performing resends
-                                        final PublicKey decryptedKey =
-                                                searchForRecipientKey(payload)
-                                                        .orElseThrow(
-                                                                () -> {
-                                                                    final MessageHash hash =
-                                                                            MessageHashFactory.create()
-                                                                                    .createFromCipherText(
-                                                                                            payload.getCipherText());
-                                                                    return new RecipientKeyNotFoundException(
-                                                                            "No key found as recipient of message "
-                                                                                    + hash);
-                                                                });
-
-                                        prunedPayload = payloadEncoder.withRecipient(payload, decryptedKey);
-                                    } else {
-                                        prunedPayload = payload;
-                                    }
-                                } else {
-                                    prunedPayload = payloadEncoder.forRecipient(payload, recipientPublicKey);
-                                }
-
-                                try {
-                                    if (!enclave.getPublicKeys().contains(recipientPublicKey)) {
-                                        payloadPublisher.publishPayload(prunedPayload, recipientPublicKey);
-                                    }
-                                } catch (PublishPayloadException ex) {
-                                    LOGGER.warn(
-                                            "Unable to publish payload to recipient {} during resend",
-                                            recipientPublicKey.encodeToBase64());
-                                }
-                            });
-
-            offset += resendFetchSize;
+        List<EncryptedTransaction> batch = encryptedTransactionDAO.retrieveTransactionsAfter(null, resendFetchSize);
+
+        while (!batch.isEmpty()) {
+
+            batch.forEach(
+                    encryptedTransaction -> {
+                        final EncodedPayload payload = payloadEncoder.decode(encryptedTransaction.getEncodedPayload());
+
+                        final boolean isRecipient = payload.getRecipientKeys().contains(recipientPublicKey);
+                        final boolean isSender = Objects.equals(payload.getSenderKey(), recipientPublicKey);
+                        if (!isRecipient && !isSender) {
+                            return;
+                        }
+
+                        final EncodedPayload prunedPayload;
+
+                        if (isSender) {
+                            if (payload.getRecipientKeys().isEmpty()) {
+                                // TODO Should we stop the whole resend just because we could not find a key
+                                // for a tx? Log instead?
+                                // a malicious party may be able to craft TXs that prevent others from
+                                // performing resends
+                                final PublicKey decryptedKey =
+                                        searchForRecipientKey(encryptedTransaction, payload)
+                                                .orElseThrow(
+                                                        () -> {
+                                                            final MessageHash hash =
+                                                                    MessageHashFactory.create()
+                                                                            .createFromCipherText(
+                                                                                    payload.getCipherText());
+                                                            return new RecipientKeyNotFoundException(
+                                                                    "No key found as recipient of message " + hash);
+                                                        });
+
+                                prunedPayload = payloadEncoder.withRecipient(payload, decryptedKey);
+                            } else {
+                                prunedPayload = payload;
+                            }
+                        } else {
+                            prunedPayload = payloadEncoder.forRecipient(payload, recipientPublicKey);
+                        }
+
+                        try {
+                            if (!enclave.getPublicKeys().contains(recipientPublicKey)) {
+                                payloadPublisher.publishPayload(prunedPayload, recipientPublicKey);
+                            }
+                        } catch (PublishPayloadException ex) {
+                            LOGGER.warn(
+                                    "Unable to publish payload to recipient {} during resend",
+                                    recipientPublicKey.encodeToBase64());
+                        }
+                    });
+
+            if (batch.size() < resendFetchSize) {
+                break;
+            }
+            batch = encryptedTransactionDAO.retrieveTransactionsAfter(batch.get(batch.size() - 1), resendFetchSize);
         }
 
         return ResendResponse.Builder.create().build();
@@ -290,11 +365,14 @@ public class TransactionManagerImpl implements TransactionManager {
                                         new TransactionNotFoundException(
                                                 "Message with hash " + messageHash + " was not found"));
 
-        final EncodedPayload payload = payloadEncoder.decode(encryptedTransaction.getEncodedPayload());
+        final EncodedPayload payload =
+                decode(encryptedTransaction)
+                        .orElseThrow(() -> new IllegalStateException("Unable to decode previously encoded payload"));
 
         final EncodedPayload returnValue;
         if (Objects.equals(payload.getSenderKey(), recipientPublicKey)) {
-            final PublicKey decryptedKey = searchForRecipientKey(payload).orElseThrow(RuntimeException::new);
+            final PublicKey decryptedKey =
+                    searchForRecipientKey(encryptedTransaction, payload).orElseThrow(RuntimeException::new);
             returnValue = EncodedPayload.Builder.from(payload).withRecipientKey(decryptedKey).build();
         } else {
             returnValue = payloadEncoder.forRecipient(payload, recipientPublicKey);
@@ -348,14 +426,18 @@ public class TransactionManagerImpl implements TransactionManager {
                 affectedContractTransactions.size(),
                 invalidSecurityHashes.size());
 
-        if (enclave.getPublicKeys().contains(payload.getSenderKey())) {
+        final Set<PublicKey> localKeys = enclave.getPublicKeys();
+
+        if (localKeys.contains(payload.getSenderKey())) {
             this.resendManager.acceptOwnMessage(encodedPayload);
 
         } else {
 
             // this is a tx from someone else
             byte[] payloadData = payloadEncoder.encode(encodedPayload);
-            this.encryptedTransactionDAO.save(new EncryptedTransaction(transactionHash, payloadData));
+            final EncryptedTransaction encryptedTransaction = new EncryptedTransaction(transactionHash, payloadData);
+
+            this.encryptedTransactionDAO.save(encryptedTransaction);
             LOGGER.info("Stored payload with hash {}", transactionHash);
         }
 
@@ -406,21 +488,20 @@ public class TransactionManagerImpl implements TransactionManager {
                                                     "Message with hash " + hash + " was not found"));
 
             final EncodedPayload payload =
-                    Optional.of(encryptedTransaction)
-                            .map(EncryptedTransaction::getEncodedPayload)
-                            .map(payloadEncoder::decode)
+                    decode(encryptedTransaction)
                             .orElseThrow(
                                     () -> new IllegalStateException("Unable to decode previously encoded payload"));
 
             PublicKey recipientKey =
                     request.getRecipient()
-                            .orElse(
-                                    searchForRecipientKey(payload)
-                                            .orElseThrow(
-                                                    () ->
-                                                            new RecipientKeyNotFoundException(
-                                                                    "No suitable recipient keys found to decrypt payload for : "
-                                                                            + hash)));
+                            .orElseGet(
+                                    () ->
+                                            searchForRecipientKey(encryptedTransaction, payload)
+                                                    .orElseThrow(
+                                                            () ->
+                                                                    new RecipientKeyNotFoundException(
+                                                                            "No suitable recipient keys found to decrypt payload for : "
+                                                                                    + hash)));
 
             byte[] unencryptedTransactionData = enclave.unencryptTransaction(payload, recipientKey);
 
@@ -439,14 +520,51 @@ public class TransactionManagerImpl implements TransactionManager {
         }
     }
 
-    private Optional<PublicKey> searchForRecipientKey(final EncodedPayload payload) {
-        for (final PublicKey potentialMatchingKey : enclave.getPublicKeys()) {
-            try {
-                enclave.unencryptTransaction(payload, potentialMatchingKey);
-                return Optional.of(potentialMatchingKey);
-            } catch (EnclaveException | IndexOutOfBoundsException | EncryptorException ex) {
-                LOGGER.debug("Attempted payload decryption using wrong key, discarding.");
+    /**
+     * Finds which of the local keys is able to decrypt the payload, recording the key against the stored transaction so
+     * that later searches succeed on the first attempt.
+     *
+     * <p>The key previously recorded for the transaction is tried on its own first. Failing that, any local keys that
+     * the payload names as recipients and then the remaining local keys are tried together, in a single call to the
+     * enclave.
+     */
+    private Optional<PublicKey> searchForRecipientKey(
+            final EncryptedTransaction encryptedTransaction, final EncodedPayload payload) {
+
+        final Set<PublicKey> localKeys = enclave.getPublicKeys();
+
+        final Optional<PublicKey> recordedKey =
+                Optional.ofNullable(encryptedTransaction.getRecipientKey())
+                        .map(PublicKey::from)
+                        .filter(localKeys::contains);
+
+        Optional<PublicKey> recipientKey = recordedKey.flatMap(key -> firstKeyToDecrypt(payload, List.of(key)));
+        if (recipientKey.isPresent()) {
+            return recipientKey;
+        }
+
+        final Set<PublicKey> candidates = new LinkedHashSet<>();
+        payload.getRecipientKeys().stream().filter(localKeys::contains).forEach(candidates::add);
+        candidates.addAll(localKeys);
+        recordedKey.ifPresent(candidates::remove);
+
+        recipientKey = firstKeyToDecrypt(payload, new ArrayList<>(candidates));
+        // only the key is written, so that a payload updated meanwhile is not overwritten with this copy
+        recipientKey.ifPresent(
+                key -> encryptedTransactionDAO.updateRecipientKey(encryptedTransaction.getHash(), key.getKeyBytes()));
+        return recipientKey;
+    }
+
+    private Optional<PublicKey> firstKeyToDecrypt(final EncodedPayload payload, final List<PublicKey> keys) {
+        if (keys.isEmpty()) {
+            return Optional.empty();
+        }
+        final List<byte[]> results = enclave.unencryptTransactions(Collections.nCopies(keys.size(), payload), keys);
+        for (int i = 0; i < keys.size(); i++) {
+            if (results.get(i) != null) {
+                return Optional.of(keys.get(i));
             }
+            LOGGER.debug("Attempted payload decryption using wrong key, discarding.");
         }
         return Optional.empty();
     }
@@ -503,8 +621,7 @@ public class TransactionManagerImpl implements TransactionManager {
     private EncodedPayload fetchPayload(final MessageHash hash) {
         return encryptedTransactionDAO
                 .retrieveByHash(hash)
-                .map(EncryptedTransaction::getEncodedPayload)
-                .map(payloadEncoder::decode)
+                .flatMap(this::decode)
                 .orElseThrow(
                         () ->
                                 new TransactionNotFoundException(
@@ -512,4 +629,10 @@ public class TransactionManagerImpl implements TransactionManager {
                                                 + base64Codec.encodeToString(hash.getHashBytes())
                                                 + " was not found"));
     }
+
+    /** Uses the payload already decoded by the payload cache, if the transaction was served from it */
+    private Optional<EncodedPayload> decode(final EncryptedTransaction encryptedTransaction) {
+        return Optional.ofNullable(encryptedTransaction.getDecodedPayload())
+                .or(() -> Optional.ofNullable(encryptedTransaction.getEncodedPayload()).map(payloadEncoder::decode));
+    }
 }
@@ -0,0 +1,443 @@
+package com.quorum.tessera.transaction.outbox;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.OutboxDAO;
+import com.quorum.tessera.data.PendingDelivery;
+import com.quorum.tessera.discovery.Discovery;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.InvalidRecipientException;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.partyinfo.node.NodeInfo;
+import com.quorum.tessera.transaction.publish.MultiRecipientPayloadPublisher;
+import com.quorum.tessera.transaction.publish.PayloadPublisher;
+import com.quorum.tessera.version.MultiRecipientPushVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes stored transactions to the recipients they are still to be delivered to.
+ *
+ * <p>Each run takes the deliveries that are due, and pushes them to their nodes concurrently, with no more than a set
+ * number of pushes in flight to any one node. A run does not wait for the pushes to finish, and nodes still being
+ * pushed to by an earlier run are left out of later runs until they are done, their deliveries being read past so they
+ * do not hold up those of other nodes. Deliveries of a transaction to several
+ * recipients on the same node are combined into one push where the node supports it. A delivery is removed once its
+ * push succeeds; otherwise it is retried after a delay that doubles with each failed attempt, up to a limit, for as
+ * long as it takes the node to come back. The first failed push to a node ends the pushes to it for that run.
+ *
+ * <p>The size of the queue is published over JMX as {@code com.quorum.tessera:type=Outbox}, and the deliveries
+ * outstanding for each node as {@code com.quorum.tessera:type=OutboxPeer,name=<url>}.
+ */
+public class OutboxDispatcher implements Runnable, OutboxDispatcherMBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxDispatcher.class);
+
+    static final String MBEAN_NAME = "com.quorum.tessera:type=Outbox";
+
+    static final String PEER_MBEAN_NAME_PATTERN = "com.quorum.tessera:type=OutboxPeer,name=%s";
+
+    static final int BATCH_SIZE = 1000;
+
+    /**
+     * The most due deliveries read in one run, looking for a batch of deliveries to nodes not already being pushed to.
+     * Only the deliveries themselves are read, their transactions being loaded once a batch has been chosen.
+     */
+    static final int SCAN_SIZE = 10 * BATCH_SIZE;
+
+    static final long BASE_BACKOFF_MILLIS = 1000L;
+
+    static final long MAX_BACKOFF_MILLIS = 300_000L;
+
+    private final OutboxDAO outboxDAO;
+
+    private final EncryptedTransactionDAO encryptedTransactionDAO;
+
+    private final PayloadEncoder payloadEncoder;
+
+    private final PayloadPublisher publisher;
+
+    private final Discovery discovery;
+
+    private final Executor executor;
+
+    private final int maxConnectionsPerPeer;
+
+    private final LongSupplier clock;
+
+    private final Map<String, OutboxPeer> peers = new ConcurrentHashMap<>();
+
+    private final Set<String> busyPeers = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder delivered = new LongAdder();
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final LongAdder failedAttempts = new LongAdder();
+
+    private volatile long queueDepth;
+
+    private volatile long oldestPendingAgeMillis;
+
+    public OutboxDispatcher(
+            OutboxDAO outboxDAO,
+            EncryptedTransactionDAO encryptedTransactionDAO,
+            PayloadEncoder payloadEncoder,
+            PayloadPublisher publisher,
+            Discovery discovery,
+            Executor executor,
+            int maxConnectionsPerPeer) {
+        this(
+                outboxDAO,
+                encryptedTransactionDAO,
+                payloadEncoder,
+                publisher,
+                discovery,
+                executor,
+                maxConnectionsPerPeer,
+                System::currentTimeMillis);
+    }
+
+    OutboxDispatcher(
+            OutboxDAO outboxDAO,
+            EncryptedTransactionDAO encryptedTransactionDAO,
+            PayloadEncoder payloadEncoder,
+            PayloadPublisher publisher,
+            Discovery discovery,
+            Executor executor,
+            int maxConnectionsPerPeer,
+            LongSupplier clock) {
+        if (maxConnectionsPerPeer < 1) {
+            throw new IllegalArgumentException("maxConnectionsPerPeer must be at least 1");
+        }
+        this.outboxDAO = Objects.requireNonNull(outboxDAO);
+        this.encryptedTransactionDAO = Objects.requireNonNull(encryptedTransactionDAO);
+        this.payloadEncoder = Objects.requireNonNull(payloadEncoder);
+        this.publisher = Objects.requireNonNull(publisher);
+        this.discovery = Objects.requireNonNull(discovery);
+        this.executor = Objects.requireNonNull(executor);
+        this.maxConnectionsPerPeer = maxConnectionsPerPeer;
+        this.clock = Objects.requireNonNull(clock);
+    }
+
+    @Override
+    public void run() {
+        try {
+            dispatch();
+        } finally {
+            refreshQueueMetrics();
+        }
+    }
+
+    private void dispatch() {
+        final long now = clock.getAsLong();
+
+        // taken first, so that the deliveries of any node freed meanwhile are read after its outcome is recorded
+        final Set<String> busy = Set.copyOf(busyPeers);
+
+        // the deliveries of busy nodes stay due, so are read past rather than let them fill the batch
+        final Map<PendingDelivery, NodeInfo> selected = new LinkedHashMap<>();
+        final List<PendingDelivery> unroutable = new ArrayList<>();
+        for (PendingDelivery delivery : outboxDAO.retrieveDue(now, SCAN_SIZE)) {
+            if (selected.size() == BATCH_SIZE) {
+                break;
+            }
+            final NodeInfo nodeInfo;
+            try {
+                nodeInfo = discovery.getRemoteNodeInfo(PublicKey.from(delivery.getRecipientKey()));
+            } catch (RuntimeException ex) {
+                LOGGER.debug("No node found for delivery {}: {}", delivery.getId(), ex.getMessage());
+                unroutable.add(delivery);
+                continue;
+            }
+            if (busy.contains(nodeInfo.getUrl())) {
+                // still being pushed by an earlier run, which records the outcome of these deliveries itself
+                continue;
+            }
+            selected.put(delivery, nodeInfo);
+        }
+        unroutable.forEach(delivery -> retryLater(delivery, now));
+        if (selected.isEmpty()) {
+            return;
+        }
+        LOGGER.debug("Dispatching {} pending deliveries", selected.size());
+
+        // only the transactions that are to be pushed in this run are loaded
+        final Set<MessageHash> hashes =
+                selected.keySet().stream().map(PendingDelivery::getHash).collect(Collectors.toSet());
+        final Map<MessageHash, EncodedPayload> payloads = new HashMap<>();
+        for (EncryptedTransaction transaction : encryptedTransactionDAO.findByHashes(hashes)) {
+            payloads.put(
+                    transaction.getHash(),
+                    Optional.ofNullable(transaction.getDecodedPayload())
+                            .orElseGet(() -> payloadEncoder.decode(transaction.getEncodedPayload())));
+        }
+
+        final List<PendingDelivery> missing = new ArrayList<>();
+
+        final Map<String, Map<MessageHash, List<PendingDelivery>>> deliveriesByPeer = new LinkedHashMap<>();
+        final Set<String> multiRecipientPeers = new HashSet<>();
+        for (Map.Entry<PendingDelivery, NodeInfo> entry : selected.entrySet()) {
+            final PendingDelivery delivery = entry.getKey();
+            if (!payloads.containsKey(delivery.getHash())) {
+                LOGGER.info("Transaction {} no longer exists, dropping its delivery", delivery.getHash());
+                missing.add(delivery);
+                continue;
+            }
+
+            final NodeInfo nodeInfo = entry.getValue();
+            if (nodeInfo.supportedApiVersions().contains(MultiRecipientPushVersion.API_VERSION_3)) {
+                multiRecipientPeers.add(nodeInfo.getUrl());
+            }
+            deliveriesByPeer
+                    .computeIfAbsent(nodeInfo.getUrl(), url -> new LinkedHashMap<>())
+                    .computeIfAbsent(delivery.getHash(), hash -> new ArrayList<>())
+                    .add(delivery);
+        }
+
+        if (!missing.isEmpty()) {
+            outboxDAO.delete(missing);
+            dropped.add(missing.size());
+        }
+
+        deliveriesByPeer.forEach(
+                (url, byHash) -> {
+                    final boolean combine =
+                            publisher instanceof MultiRecipientPayloadPublisher && multiRecipientPeers.contains(url);
+                    final List<Push> pushes = new ArrayList<>();
+                    byHash.forEach(
+                            (hash, deliveries) -> {
+                                if (combine) {
+                                    pushes.add(new Push(payloads.get(hash), deliveries));
+                                } else {
+                                    deliveries.forEach(d -> pushes.add(new Push(payloads.get(hash), List.of(d))));
+                                }
+                            });
+                    busyPeers.add(url);
+                    new PeerDispatch(url, pushes).start();
+                });
+    }
+
+    private void retryLater(PendingDelivery delivery, long now) {
+        delivery.setAttempts(delivery.getAttempts() + 1);
+        delivery.setNextAttempt(now + backoff(delivery.getAttempts()));
+        outboxDAO.update(delivery);
+        failedAttempts.increment();
+    }
+
+    /** @return whether the push succeeded, or can never succeed and so should not be retried */
+    private boolean push(String url, Push push) {
+        final List<PublicKey> recipients =
+                push.deliveries.stream()
+                        .map(PendingDelivery::getRecipientKey)
+                        .map(PublicKey::from)
+                        .collect(Collectors.toList());
+        try {
+            if (recipients.size() == 1) {
+                final PublicKey recipient = recipients.get(0);
+                publisher.publishPayload(payloadEncoder.forRecipient(push.payload, recipient), recipient);
+            } else {
+                final EncodedPayload outgoing = payloadEncoder.forRecipients(push.payload, recipients);
+                ((MultiRecipientPayloadPublisher) publisher).publishPayload(outgoing, recipients);
+            }
+            return true;
+        } catch (InvalidRecipientException ex) {
+            LOGGER.warn("Transaction is not for recipient, dropping its delivery to {}: {}", url, ex.getMessage());
+            return true;
+        } catch (RuntimeException ex) {
+            LOGGER.debug("Unable to push to {}, will retry: {}", url, ex.getMessage());
+            return false;
+        }
+    }
+
+    /** The delay before the next attempt, which doubles with each failed attempt up to a limit */
+    static long backoff(int attempts) {
+        final int doublings = Math.min(Math.max(attempts - 1, 0), 30);
+        return Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << doublings);
+    }
+
+    private void refreshQueueMetrics() {
+        final long now = clock.getAsLong();
+        queueDepth = outboxDAO.count();
+        oldestPendingAgeMillis = outboxDAO.oldestCreated().map(created -> Math.max(0, now - created)).orElse(0L);
+    }
+
+    private OutboxPeer peer(String url) {
+        return peers.computeIfAbsent(
+                url,
+                u -> {
+                    final OutboxPeer peer = new OutboxPeer(clock);
+                    register(peer, String.format(PEER_MBEAN_NAME_PATTERN, ObjectName.quote(u)));
+                    return peer;
+                });
+    }
+
+    /** Publishes the queue statistics over JMX */
+    public void registerMetrics() {
+        register(this, MBEAN_NAME);
+    }
+
+    /**
+     * Publishes statistics over JMX, replacing any of the same name. Failure to register is not fatal, as the
+     * statistics are informational only.
+     */
+    private static void register(Object mBean, String name) {
+        try {
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = new ObjectName(name);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(mBean, objectName);
+        } catch (JMException ex) {
+            LOGGER.warn("Unable to register metrics {}", name, ex);
+        }
+    }
+
+    Optional<OutboxPeer> getPeer(String url) {
+        return Optional.ofNullable(peers.get(url));
+    }
+
+    @Override
+    public long getQueueDepth() {
+        return queueDepth;
+    }
+
+    @Override
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    @Override
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public long getFailedAttemptCount() {
+        return failedAttempts.sum();
+    }
+
+    @Override
+    public long getOldestPendingAgeMillis() {
+        return oldestPendingAgeMillis;
+    }
+
+    /**
+     * The pushes of one run to a single node, made by up to {@code maxConnectionsPerPeer} workers. Once a push fails
+     * the rest are not attempted, and are put back until the failed delivery is retried. The last worker to finish
+     * records the outcome and frees the node for later runs.
+     */
+    private class PeerDispatch {
+
+        private final String url;
+
+        private final Queue<Push> remaining;
+
+        private final AtomicInteger workers;
+
+        private final Queue<PendingDelivery> succeeded = new ConcurrentLinkedQueue<>();
+
+        private final Queue<PendingDelivery> failed = new ConcurrentLinkedQueue<>();
+
+        private volatile boolean stopped;
+
+        private PeerDispatch(String url, List<Push> pushes) {
+            this.url = url;
+            this.remaining = new ConcurrentLinkedQueue<>(pushes);
+            this.workers = new AtomicInteger(Math.min(pushes.size(), maxConnectionsPerPeer));
+        }
+
+        private void start() {
+            for (int i = workers.get(); i > 0; i--) {
+                try {
+                    executor.execute(this::work);
+                } catch (RejectedExecutionException ex) {
+                    LOGGER.warn("Unable to push to {}, will retry: {}", url, ex.getMessage());
+                    stopped = true;
+                    workerFinished();
+                }
+            }
+        }
+
+        private void work() {
+            try {
+                Push push;
+                while (!stopped && (push = remaining.poll()) != null) {
+                    if (push(url, push)) {
+                        succeeded.addAll(push.deliveries);
+                    } else {
+                        failed.addAll(push.deliveries);
+                        stopped = true;
+                    }
+                }
+            } finally {
+                workerFinished();
+            }
+        }
+
+        private void workerFinished() {
+            if (workers.decrementAndGet() > 0) {
+                return;
+            }
+            try {
+                complete();
+            } catch (RuntimeException ex) {
+                LOGGER.warn("Unable to record pushes to {}", url, ex);
+            } finally {
+                busyPeers.remove(url);
+            }
+        }
+
+        private void complete() {
+            final long now = clock.getAsLong();
+            if (!succeeded.isEmpty()) {
+                outboxDAO.delete(List.copyOf(succeeded));
+                delivered.add(succeeded.size());
+            }
+            failed.forEach(delivery -> retryLater(delivery, now));
+
+            final List<PendingDelivery> skipped =
+                    remaining.stream().flatMap(push -> push.deliveries.stream()).collect(Collectors.toList());
+            final long resumeAt = failed.stream().mapToLong(PendingDelivery::getNextAttempt).min().orElse(now);
+            for (PendingDelivery delivery : skipped) {
+                delivery.setNextAttempt(Math.max(delivery.getNextAttempt(), resumeAt));
+                outboxDAO.update(delivery);
+            }
+
+            final List<PendingDelivery> pending = new ArrayList<>(failed);
+            pending.addAll(skipped);
+            final long oldestCreated = pending.stream().mapToLong(PendingDelivery::getCreated).min().orElse(now);
+            peer(url).update(pending.size(), oldestCreated);
+        }
+    }
+
+    /** A single push to a node, of a transaction to one or more of its recipients hosted by that node */
+    private static class Push {
+
+        private final EncodedPayload payload;
+
+        private final List<PendingDelivery> deliveries;
+
+        private Push(EncodedPayload payload, List<PendingDelivery> deliveries) {
+            this.payload = payload;
+            this.deliveries = deliveries;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.quorum.tessera.transaction.outbox;
+
+/** JMX view of the {@link OutboxDispatcher} statistics */
+public interface OutboxDispatcherMBean {
+
+    /** The number of deliveries still to be made, as of the last dispatch */
+    long getQueueDepth();
+
+    long getDeliveredCount();
+
+    /** The number of deliveries removed without being made, as their transaction no longer exists */
+    long getDroppedCount();
+
+    /** The number of attempts to make a delivery that failed, and will be retried */
+    long getFailedAttemptCount();
+
+    /** How long the oldest delivery still to be made has been waiting, as of the last dispatch */
+    long getOldestPendingAgeMillis();
+}
@@ -0,0 +1,35 @@
+package com.quorum.tessera.transaction.outbox;
+
+import java.util.function.LongSupplier;
+
+/** The deliveries to a single node that are outstanding after the last attempt to make them */
+public class OutboxPeer implements OutboxPeerMBean {
+
+    private final LongSupplier clock;
+
+    private volatile int pendingCount;
+
+    private volatile long oldestCreated;
+
+    OutboxPeer(final LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    synchronized void update(final int pendingCount, final long oldestCreated) {
+        this.oldestCreated = oldestCreated;
+        this.pendingCount = pendingCount;
+    }
+
+    @Override
+    public int getPendingCount() {
+        return pendingCount;
+    }
+
+    @Override
+    public long getLagMillis() {
+        if (pendingCount == 0) {
+            return 0;
+        }
+        return Math.max(0, clock.getAsLong() - oldestCreated);
+    }
+}
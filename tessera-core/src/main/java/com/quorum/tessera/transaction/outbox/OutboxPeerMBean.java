@@ -0,0 +1,11 @@
+package com.quorum.tessera.transaction.outbox;
+
+/** JMX view of the deliveries to a single node that the {@link OutboxDispatcher} is still to make */
+public interface OutboxPeerMBean {
+
+    /** The number of deliveries to the node that failed at their last attempt */
+    int getPendingCount();
+
+    /** How long the oldest delivery to the node has been waiting, or zero if it is up to date */
+    long getLagMillis();
+}
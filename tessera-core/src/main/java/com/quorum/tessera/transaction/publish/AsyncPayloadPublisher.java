@@ -0,0 +1,53 @@
+package com.quorum.tessera.transaction.publish;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.encryption.PublicKey;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/** Publishes messages from one node to another without blocking the calling thread */
+public interface AsyncPayloadPublisher extends MultiRecipientPayloadPublisher {
+
+    /**
+     * Publishes an EncodedPayload to the recipient identified by the provided key
+     *
+     * @param payload the payload object to be pushed
+     * @param recipientKey the public key identifying the target node
+     * @return a future completed once the recipient has accepted the payload, or exceptionally if it could not be
+     *     published
+     */
+    CompletableFuture<Void> publishPayloadAsync(EncodedPayload payload, PublicKey recipientKey);
+
+    /**
+     * Publishes an EncodedPayload to several recipients hosted on the same node with a single request
+     *
+     * @param payload the payload object to be pushed, holding a recipient box for each of the keys in the same order
+     * @param recipientKeys the public keys identifying the recipients on the target node
+     * @return a future completed once the node has accepted the payload, or exceptionally if it could not be published
+     * @see MultiRecipientPayloadPublisher#publishPayload(EncodedPayload, List)
+     */
+    CompletableFuture<Void> publishPayloadAsync(EncodedPayload payload, List<PublicKey> recipientKeys);
+
+    @Override
+    default void publishPayload(EncodedPayload payload, PublicKey recipientKey) {
+        join(publishPayloadAsync(payload, recipientKey));
+    }
+
+    @Override
+    default void publishPayload(EncodedPayload payload, List<PublicKey> recipientKeys) {
+        join(publishPayloadAsync(payload, recipientKeys));
+    }
+
+    private static void join(CompletableFuture<Void> published) {
+        try {
+            published.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+}
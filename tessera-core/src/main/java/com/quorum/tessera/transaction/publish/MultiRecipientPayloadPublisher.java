@@ -0,0 +1,19 @@
+package com.quorum.tessera.transaction.publish;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.encryption.PublicKey;
+
+import java.util.List;
+
+/** Publishes messages to several recipients hosted on the same node with a single request */
+public interface MultiRecipientPayloadPublisher extends PayloadPublisher {
+
+    /**
+     * Publishes an EncodedPayload to the recipients identified by the provided keys, all of which must be hosted by the
+     * same node and that node must support {@link com.quorum.tessera.version.MultiRecipientPushVersion}
+     *
+     * @param payload the payload object to be pushed, holding a recipient box for each of the keys in the same order
+     * @param recipientKeys the public keys identifying the recipients on the target node
+     */
+    void publishPayload(EncodedPayload payload, List<PublicKey> recipientKeys);
+}
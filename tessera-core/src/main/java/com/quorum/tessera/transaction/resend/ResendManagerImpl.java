@@ -57,8 +57,9 @@ public class ResendManagerImpl implements ResendManager {
         if (tx.isPresent()) {
 
             // we just need to add the recipient
-            final byte[] encodedPayload = tx.get().getEncodedPayload();
-            final EncodedPayload existing = payloadEncoder.decode(encodedPayload);
+            final EncodedPayload existing =
+                    Optional.ofNullable(tx.get().getDecodedPayload())
+                            .orElseGet(() -> payloadEncoder.decode(tx.get().getEncodedPayload()));
 
             final EncodedPayload.Builder payloadBuilder = EncodedPayload.Builder.from(existing);
 
@@ -99,10 +100,10 @@ public class ResendManagerImpl implements ResendManager {
             }
 
             // add recipient boxes for all recipients (applicable for PSV transactions)
-            for (int i = payload.getRecipientBoxes().size(); i < recipientKeys.size(); i++) {
-                PublicKey recipient = recipientKeys.get(i);
-                byte[] newBox = enclave.createNewRecipientBox(payload, recipient);
-                payloadBuilder.withRecipientBox(newBox);
+            final List<PublicKey> missingBoxes =
+                    recipientKeys.subList(payload.getRecipientBoxes().size(), recipientKeys.size());
+            if (!missingBoxes.isEmpty()) {
+                enclave.createNewRecipientBoxes(payload, missingBoxes).forEach(payloadBuilder::withRecipientBox);
             }
 
             final byte[] encoded = payloadEncoder.encode(payloadBuilder.build());
@@ -1,16 +1,210 @@
 package com.quorum.tessera.threading;
 
+import org.junit.After;
 import org.junit.Test;
 
-import java.util.concurrent.Executor;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 public class ExecutorFactoryTest {
 
+    private final ExecutorFactory executorFactory = new ExecutorFactory();
+
+    private final List<ExecutorService> executors = new ArrayList<>();
+
+    @After
+    public void onTearDown() {
+        executors.forEach(ExecutorService::shutdownNow);
+        System.clearProperty("tessera.executor.test-overridden.maxThreads");
+    }
+
+    private ExecutorService create(String name, ExecutorSettings settings) {
+        final ExecutorService executor = executorFactory.create(name, settings);
+        executors.add(executor);
+        return executor;
+    }
+
+    @Test
+    public void createWithDefaults() {
+        final ExecutorService executor = executorFactory.create("test-defaults");
+        executors.add(executor);
+
+        assertThat(executor).isInstanceOf(InstrumentedExecutorService.class);
+        assertThat(((InstrumentedExecutorService) executor).getName()).isEqualTo("test-defaults");
+    }
+
+    @Test
+    public void threadsAreNamedDaemons() throws Exception {
+        final ExecutorService executor = create("test-names", ExecutorSettings.defaults());
+
+        final Thread thread = executor.submit(Thread::currentThread).get(5, TimeUnit.SECONDS);
+
+        assertThat(thread.getName()).isEqualTo("test-names-1");
+        assertThat(thread.isDaemon()).isTrue();
+    }
+
+    @Test
+    public void callerRunsTaskOnceThreadsAndQueueAreFull() throws Exception {
+        final ExecutorService executor =
+                create("test-caller-runs", ExecutorSettings.defaults().withMaxThreads(1).withQueueCapacity(1));
+
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> awaitQuietly(release));
+        executor.execute(() -> awaitQuietly(release));
+
+        final AtomicReference<Thread> ranOn = new AtomicReference<>();
+        executor.execute(() -> ranOn.set(Thread.currentThread()));
+
+        assertThat(ranOn.get()).isSameAs(Thread.currentThread());
+        assertThat(((InstrumentedExecutorService) executor).getRejectedTaskCount()).isEqualTo(1);
+
+        release.countDown();
+    }
+
     @Test
-    public void createCachedThreadPool() {
-        Executor executor = new ExecutorFactory().createCachedThreadPool();
-        assertThat(executor).isNotNull();
+    public void abortRejectsTaskOnceThreadsAndQueueAreFull() {
+        final ExecutorService executor =
+                create(
+                        "test-abort",
+                        ExecutorSettings.defaults()
+                                .withMaxThreads(1)
+                                .withQueueCapacity(0)
+                                .withRejectionPolicy(ExecutorSettings.RejectionPolicy.ABORT));
+
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(
+                () -> {
+                    started.countDown();
+                    awaitQuietly(release);
+                });
+        awaitQuietly(started);
+
+        final Throwable throwable = catchThrowable(() -> executor.execute(() -> {}));
+
+        assertThat(throwable).isInstanceOf(RejectedExecutionException.class);
+        assertThat(((InstrumentedExecutorService) executor).getRejectedTaskCount()).isEqualTo(1);
+        assertThat(((InstrumentedExecutorService) executor).getQueueDepth()).isZero();
+
+        release.countDown();
+    }
+
+    @Test
+    public void settingsAreOverriddenBySystemProperties() throws Exception {
+        System.setProperty("tessera.executor.test-overridden.maxThreads", "1");
+
+        final ExecutorService executor =
+                create(
+                        "test-overridden",
+                        ExecutorSettings.defaults()
+                                .withMaxThreads(4)
+                                .withQueueCapacity(0)
+                                .withRejectionPolicy(ExecutorSettings.RejectionPolicy.ABORT));
+
+        final CountDownLatch release = new CountDownLatch(1);
+        executor.execute(() -> awaitQuietly(release));
+
+        assertThat(catchThrowable(() -> executor.execute(() -> {}))).isInstanceOf(RejectedExecutionException.class);
+
+        release.countDown();
+    }
+
+    @Test
+    public void metricsAreRegisteredUntilShutdown() throws Exception {
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName objectName = new ObjectName("com.quorum.tessera:type=Executor,name=test-mbean");
+
+        final ExecutorService executor = create("test-mbean", ExecutorSettings.defaults());
+        executor.execute(() -> {});
+
+        assertThat(mBeanServer.isRegistered(objectName)).isTrue();
+        awaitCompletedTaskCount(mBeanServer, objectName, 1L);
+
+        executor.shutdown();
+
+        assertThat(mBeanServer.isRegistered(objectName)).isFalse();
+    }
+
+    @Test
+    public void creatingWithSameNameReplacesMetrics() throws Exception {
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName objectName = new ObjectName("com.quorum.tessera:type=Executor,name=test-replaced");
+
+        create("test-replaced", ExecutorSettings.defaults());
+        final ExecutorService second = create("test-replaced", ExecutorSettings.defaults());
+        second.execute(() -> {});
+
+        awaitCompletedTaskCount(mBeanServer, objectName, 1L);
+    }
+
+    @Test
+    public void virtualThreadsFallBackToPlatformThreadsWhenUnavailable() throws Exception {
+        final ExecutorService executor = create("test-virtual", ExecutorSettings.defaults().withVirtualThreads(true));
+
+        final String threadName = executor.submit(() -> Thread.currentThread().getName()).get(5, TimeUnit.SECONDS);
+
+        assertThat(threadName).startsWith("test-virtual-");
+    }
+
+    @Test
+    public void createOutboundP2p() throws Exception {
+        final ExecutorService executor = executorFactory.createOutboundP2p("test-outbound");
+        executors.add(executor);
+
+        assertThat(((InstrumentedExecutorService) executor).getName()).isEqualTo("test-outbound");
+        assertThat(executor.submit(() -> "done").get(5, TimeUnit.SECONDS)).isEqualTo("done");
+    }
+
+    @Test
+    public void createScheduled() throws Exception {
+        final ScheduledExecutorService executor = executorFactory.createScheduled("test-scheduled");
+        executors.add(executor);
+
+        final Thread thread =
+                executor.schedule(Thread::currentThread, 1, TimeUnit.MILLISECONDS).get(5, TimeUnit.SECONDS);
+
+        assertThat(thread.getName()).isEqualTo("test-scheduled-1");
+        assertThat(thread.isDaemon()).isTrue();
+    }
+
+    @Test
+    public void virtualThreadExecutorIsOnlyCreatedWhenSupported() throws Exception {
+        final ExecutorService executor = ExecutorFactory.createVirtualThreadExecutor("test-probe");
+
+        final boolean supported = Runtime.version().feature() >= 21;
+        assertThat(executor != null).isEqualTo(supported);
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    private static void awaitCompletedTaskCount(MBeanServer mBeanServer, ObjectName objectName, long expected)
+            throws Exception {
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!Long.valueOf(expected).equals(mBeanServer.getAttribute(objectName, "CompletedTaskCount"))
+                && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(mBeanServer.getAttribute(objectName, "CompletedTaskCount")).isEqualTo(expected);
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
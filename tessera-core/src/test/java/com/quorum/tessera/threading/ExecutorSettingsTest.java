@@ -0,0 +1,88 @@
+package com.quorum.tessera.threading;
+
+import org.junit.Test;
+
+import java.util.Properties;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class ExecutorSettingsTest {
+
+    @Test
+    public void defaults() {
+        final ExecutorSettings settings = ExecutorSettings.defaults();
+
+        assertThat(settings.getMaxThreads()).isGreaterThanOrEqualTo(8);
+        assertThat(settings.getQueueCapacity()).isEqualTo(1000);
+        assertThat(settings.getRejectionPolicy()).isEqualTo(ExecutorSettings.RejectionPolicy.CALLER_RUNS);
+        assertThat(settings.isVirtualThreads()).isFalse();
+    }
+
+    @Test
+    public void withValues() {
+        final ExecutorSettings settings =
+                ExecutorSettings.defaults()
+                        .withMaxThreads(2)
+                        .withQueueCapacity(0)
+                        .withRejectionPolicy(ExecutorSettings.RejectionPolicy.ABORT)
+                        .withVirtualThreads(true);
+
+        assertThat(settings.getMaxThreads()).isEqualTo(2);
+        assertThat(settings.getQueueCapacity()).isZero();
+        assertThat(settings.getRejectionPolicy()).isEqualTo(ExecutorSettings.RejectionPolicy.ABORT);
+        assertThat(settings.isVirtualThreads()).isTrue();
+        assertThat(settings.toString()).contains("maxThreads=2");
+    }
+
+    @Test
+    public void invalidValuesAreRejected() {
+        assertThat(catchThrowable(() -> ExecutorSettings.defaults().withMaxThreads(0)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> ExecutorSettings.defaults().withQueueCapacity(-1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void namedPropertiesOverrideGlobalProperties() {
+        final Properties properties = new Properties();
+        properties.setProperty("tessera.executor.maxThreads", "3");
+        properties.setProperty("tessera.executor.queueCapacity", "10");
+        properties.setProperty("tessera.executor.sync.maxThreads", "5");
+        properties.setProperty("tessera.executor.sync.rejectionPolicy", "ABORT");
+        properties.setProperty("tessera.executor.sync.virtualThreads", "true");
+
+        final ExecutorSettings settings = ExecutorSettings.defaults().overriddenBy("sync", properties);
+
+        assertThat(settings.getMaxThreads()).isEqualTo(5);
+        assertThat(settings.getQueueCapacity()).isEqualTo(10);
+        assertThat(settings.getRejectionPolicy()).isEqualTo(ExecutorSettings.RejectionPolicy.ABORT);
+        assertThat(settings.isVirtualThreads()).isTrue();
+    }
+
+    @Test
+    public void unparseablePropertiesAreIgnored() {
+        final Properties properties = new Properties();
+        properties.setProperty("tessera.executor.sync.maxThreads", "many");
+        properties.setProperty("tessera.executor.sync.rejectionPolicy", "DISCARD");
+
+        final ExecutorSettings defaults = ExecutorSettings.defaults().withMaxThreads(2);
+        final ExecutorSettings settings = defaults.overriddenBy("sync", properties);
+
+        assertThat(settings.getMaxThreads()).isEqualTo(2);
+        assertThat(settings.getRejectionPolicy()).isEqualTo(defaults.getRejectionPolicy());
+    }
+
+    @Test
+    public void outboundP2pUsesPlatformThreadsUnlessEnabled() {
+        assertThat(ExecutorSettings.outboundP2p(new Properties()).isVirtualThreads()).isFalse();
+
+        final Properties properties = new Properties();
+        properties.setProperty(ExecutorSettings.P2P_VIRTUAL_THREADS_PROPERTY, "true");
+
+        final ExecutorSettings settings = ExecutorSettings.outboundP2p(properties);
+
+        assertThat(settings.isVirtualThreads()).isTrue();
+        assertThat(settings.getMaxThreads()).isEqualTo(ExecutorSettings.defaults().getMaxThreads());
+    }
+}
@@ -0,0 +1,128 @@
+package com.quorum.tessera.threading;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class InstrumentedExecutorServiceTest {
+
+    private ExecutorService delegate;
+
+    private Runnable onShutdown;
+
+    private InstrumentedExecutorService executor;
+
+    @Before
+    public void onSetUp() {
+        delegate = Executors.newSingleThreadExecutor();
+        onShutdown = mock(Runnable.class);
+        executor = new InstrumentedExecutorService("test", rejected -> delegate, onShutdown);
+    }
+
+    @Test
+    public void tracksQueuedActiveAndCompletedTasks() throws Exception {
+        final CountDownLatch started = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+
+        executor.execute(
+                () -> {
+                    started.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+        executor.execute(() -> {});
+
+        started.await(5, TimeUnit.SECONDS);
+        assertThat(executor.getActiveCount()).isEqualTo(1);
+        assertThat(executor.getQueueDepth()).isEqualTo(1);
+
+        release.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(executor.getActiveCount()).isZero();
+        assertThat(executor.getQueueDepth()).isZero();
+        assertThat(executor.getCompletedTaskCount()).isEqualTo(2);
+        assertThat(executor.getAverageTaskLatencyMillis()).isGreaterThanOrEqualTo(executor.getAverageQueueTimeMillis());
+    }
+
+    @Test
+    public void averagesAreZeroBeforeAnyTaskCompletes() {
+        assertThat(executor.getAverageTaskLatencyMillis()).isZero();
+        assertThat(executor.getAverageQueueTimeMillis()).isZero();
+
+        executor.shutdown();
+    }
+
+    @Test
+    public void rejectedTasksAreNotCountedAsQueued() {
+        final ExecutorService rejecting = mock(ExecutorService.class);
+        doThrow(RejectedExecutionException.class).when(rejecting).execute(any(Runnable.class));
+
+        final InstrumentedExecutorService instrumented =
+                new InstrumentedExecutorService("rejecting", rejected -> rejecting, onShutdown);
+
+        final Throwable throwable = catchThrowable(() -> instrumented.execute(() -> {}));
+
+        assertThat(throwable).isInstanceOf(RejectedExecutionException.class);
+        assertThat(instrumented.getQueueDepth()).isZero();
+
+        delegate.shutdown();
+    }
+
+    @Test
+    public void rejectionCallbackIsCounted() {
+        final InstrumentedExecutorService instrumented =
+                new InstrumentedExecutorService(
+                        "counting",
+                        rejected -> {
+                            rejected.run();
+                            rejected.run();
+                            return delegate;
+                        },
+                        onShutdown);
+
+        assertThat(instrumented.getRejectedTaskCount()).isEqualTo(2);
+
+        instrumented.shutdown();
+    }
+
+    @Test
+    public void shutdownDelegatesAndNotifies() throws Exception {
+        executor.shutdown();
+
+        assertThat(executor.isShutdown()).isTrue();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(executor.isTerminated()).isTrue();
+        verify(onShutdown).run();
+    }
+
+    @Test
+    public void shutdownNowReturnsPendingTasksAndNotifies() {
+        final ExecutorService mockDelegate = mock(ExecutorService.class);
+        final Runnable pending = mock(Runnable.class);
+        when(mockDelegate.shutdownNow()).thenReturn(List.of(pending));
+
+        final InstrumentedExecutorService instrumented =
+                new InstrumentedExecutorService("now", rejected -> mockDelegate, onShutdown);
+
+        assertThat(instrumented.shutdownNow()).containsExactly(pending);
+        verify(onShutdown).run();
+
+        delegate.shutdown();
+    }
+}
@@ -4,6 +4,8 @@ import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.PayloadEncoder;
 import com.quorum.tessera.encryption.PublicKey;
 
+import java.util.List;
+
 import static org.mockito.Mockito.mock;
 
 public class MockPayloadEncoder implements PayloadEncoder {
@@ -23,6 +25,11 @@ public class MockPayloadEncoder implements PayloadEncoder {
         return mock(EncodedPayload.class);
     }
 
+    @Override
+    public EncodedPayload forRecipients(EncodedPayload input, List<PublicKey> recipients) {
+        return mock(EncodedPayload.class);
+    }
+
     @Override
     public EncodedPayload withRecipient(EncodedPayload input, PublicKey recipient) {
         return mock(EncodedPayload.class);
@@ -4,7 +4,6 @@ import com.jpmorgan.quorum.mock.servicelocator.MockServiceLocator;
 import com.quorum.tessera.config.*;
 import com.quorum.tessera.data.*;
 import com.quorum.tessera.enclave.*;
-import com.quorum.tessera.encryption.EncryptorException;
 import com.quorum.tessera.encryption.Nonce;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.service.locator.ServiceLocator;
@@ -202,6 +201,118 @@ public class TransactionManagerTest {
 
            when(payloadEncoder.forRecipient(any(EncodedPayload.class),any(PublicKey.class))).thenReturn(encodedPayload);
     */
+    @Test
+    public void sendWithOutboxStoresDeliveriesWithoutPublishing() {
+        OutboxDAO outboxDAO = mock(OutboxDAO.class);
+        TransactionManager outboxTransactionManager =
+                new TransactionManagerImpl(
+                        Base64Codec.create(),
+                        payloadEncoder,
+                        encryptedTransactionDAO,
+                        payloadPublisher,
+                        batchPayloadPublisher,
+                        enclave,
+                        encryptedRawTransactionDAO,
+                        resendManager,
+                        privacyHelper,
+                        1000,
+                        outboxDAO);
+
+        EncodedPayload encodedPayload = mock(EncodedPayload.class);
+        when(encodedPayload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
+        when(enclave.encryptPayload(any(), any(), any(), any(), any(), any())).thenReturn(encodedPayload);
+
+        PublicKey sender = PublicKey.from("SENDER".getBytes());
+        PublicKey receiver = PublicKey.from("RECEIVER".getBytes());
+        PublicKey otherReceiver = PublicKey.from("OTHER_RECEIVER".getBytes());
+
+        when(enclave.getPublicKeys()).thenReturn(Set.of(sender));
+
+        SendRequest sendRequest = mock(SendRequest.class);
+        when(sendRequest.getPayload()).thenReturn("PAYLOAD".getBytes());
+        when(sendRequest.getSender()).thenReturn(sender);
+        when(sendRequest.getRecipients()).thenReturn(List.of(receiver, otherReceiver));
+
+        SendResponse result = outboxTransactionManager.send(sendRequest);
+
+        assertThat(result).isNotNull();
+
+        ArgumentCaptor<EncryptedTransaction> transactionCaptor = ArgumentCaptor.forClass(EncryptedTransaction.class);
+        ArgumentCaptor<Collection<PendingDelivery>> deliveriesCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxDAO).save(transactionCaptor.capture(), deliveriesCaptor.capture());
+
+        assertThat(deliveriesCaptor.getValue())
+                .extracting(PendingDelivery::getRecipientKey)
+                .containsExactly(receiver.getKeyBytes(), otherReceiver.getKeyBytes());
+        assertThat(deliveriesCaptor.getValue())
+                .extracting(PendingDelivery::getHash)
+                .containsOnly(transactionCaptor.getValue().getHash());
+        assertThat(deliveriesCaptor.getValue()).extracting(PendingDelivery::getAttempts).containsOnly(0);
+
+        verify(enclave).encryptPayload(any(), any(), any(), any(), any(), any());
+        verify(payloadEncoder).encode(encodedPayload);
+        verify(enclave).getForwardingKeys();
+        verify(enclave, times(3)).getPublicKeys();
+        verifyNoMoreInteractions(outboxDAO);
+    }
+
+    @Test
+    public void sendSignedTransactionWithOutboxStoresDeliveriesWithoutPublishing() {
+        OutboxDAO outboxDAO = mock(OutboxDAO.class);
+        TransactionManager outboxTransactionManager =
+                new TransactionManagerImpl(
+                        Base64Codec.create(),
+                        payloadEncoder,
+                        encryptedTransactionDAO,
+                        payloadPublisher,
+                        batchPayloadPublisher,
+                        enclave,
+                        encryptedRawTransactionDAO,
+                        resendManager,
+                        privacyHelper,
+                        1000,
+                        outboxDAO);
+
+        EncodedPayload payload = mock(EncodedPayload.class);
+
+        EncryptedRawTransaction encryptedRawTransaction =
+                new EncryptedRawTransaction(
+                        new MessageHash("HASH".getBytes()),
+                        "ENCRYPTED_PAYLOAD".getBytes(),
+                        "ENCRYPTED_KEY".getBytes(),
+                        "NONCE".getBytes(),
+                        "SENDER".getBytes());
+
+        when(encryptedRawTransactionDAO.retrieveByHash(any(MessageHash.class)))
+                .thenReturn(Optional.of(encryptedRawTransaction));
+        when(enclave.encryptPayload(any(RawTransaction.class), any(), any(), any(), any())).thenReturn(payload);
+
+        PublicKey receiver = PublicKey.from("RECEIVER".getBytes());
+
+        when(enclave.getPublicKeys()).thenReturn(Set.of(PublicKey.from("SENDER".getBytes())));
+
+        SendSignedRequest sendSignedRequest = mock(SendSignedRequest.class);
+        when(sendSignedRequest.getRecipients()).thenReturn(List.of(receiver));
+        when(sendSignedRequest.getSignedData()).thenReturn("HASH".getBytes());
+
+        SendResponse result = outboxTransactionManager.sendSignedTransaction(sendSignedRequest);
+
+        assertThat(result).isNotNull();
+
+        ArgumentCaptor<Collection<PendingDelivery>> deliveriesCaptor = ArgumentCaptor.forClass(Collection.class);
+        verify(outboxDAO).save(any(EncryptedTransaction.class), deliveriesCaptor.capture());
+        assertThat(deliveriesCaptor.getValue())
+                .extracting(PendingDelivery::getRecipientKey)
+                .containsExactly(receiver.getKeyBytes());
+
+        verify(enclave).encryptPayload(any(RawTransaction.class), any(), any(), any(), any());
+        verify(payloadEncoder).encode(payload);
+        verify(encryptedRawTransactionDAO).retrieveByHash(any(MessageHash.class));
+        verify(enclave).getForwardingKeys();
+        verify(enclave, times(2)).getPublicKeys();
+        verifyNoMoreInteractions(outboxDAO);
+    }
+
     @Test
     public void sendSignedTransaction() {
 
@@ -373,6 +484,29 @@ public class TransactionManagerTest {
         verify(enclave).findInvalidSecurityHashes(any(EncodedPayload.class), anyList());
     }
 
+    @Test
+    public void storePayloadAsRecipientDoesNotGuessRecipientKey() {
+        final PublicKey localKey = PublicKey.from("LOCAL".getBytes());
+        final PublicKey otherKey = PublicKey.from("OTHER".getBytes());
+
+        final EncodedPayload payload = mock(EncodedPayload.class);
+        when(payload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
+        when(payload.getRecipientKeys()).thenReturn(List.of(otherKey, localKey));
+
+        when(enclave.getPublicKeys()).thenReturn(singleton(localKey));
+
+        transactionManager.storePayload(payload);
+
+        final ArgumentCaptor<EncryptedTransaction> captor = ArgumentCaptor.forClass(EncryptedTransaction.class);
+        verify(encryptedTransactionDAO).save(captor.capture());
+        // the key is only recorded once it has been shown to decrypt the payload
+        assertThat(captor.getValue().getRecipientKey()).isNull();
+
+        verify(payloadEncoder).encode(payload);
+        verify(enclave).getPublicKeys();
+        verify(enclave).findInvalidSecurityHashes(any(EncodedPayload.class), anyList());
+    }
+
     @Test
     public void storePayloadWhenWeAreSender() {
         final PublicKey senderKey = PublicKey.from("SENDER".getBytes());
@@ -613,6 +747,49 @@ public class TransactionManagerTest {
         verify(enclave).findInvalidSecurityHashes(any(), any());
     }
 
+    @Test
+    public void resendAllSeeksPastEachFullPage() {
+
+        final TransactionManager pagingTransactionManager =
+                new TransactionManagerImpl(
+                        Base64Codec.create(),
+                        payloadEncoder,
+                        encryptedTransactionDAO,
+                        payloadPublisher,
+                        batchPayloadPublisher,
+                        enclave,
+                        encryptedRawTransactionDAO,
+                        resendManager,
+                        privacyHelper,
+                        1);
+
+        final EncryptedTransaction first = new EncryptedTransaction(mock(MessageHash.class), "first".getBytes());
+        final EncryptedTransaction second = new EncryptedTransaction(mock(MessageHash.class), "second".getBytes());
+
+        final EncodedPayload payload = mock(EncodedPayload.class);
+        when(payload.getSenderKey()).thenReturn(PublicKey.from("OTHER".getBytes()));
+        when(payload.getRecipientKeys()).thenReturn(List.of());
+
+        when(encryptedTransactionDAO.retrieveTransactionsAfter(null, 1)).thenReturn(List.of(first));
+        when(encryptedTransactionDAO.retrieveTransactionsAfter(first, 1)).thenReturn(List.of(second));
+        when(encryptedTransactionDAO.retrieveTransactionsAfter(second, 1)).thenReturn(List.of());
+        when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
+
+        final ResendRequest resendRequest =
+                ResendRequest.Builder.create()
+                        .withType(ResendRequest.ResendRequestType.ALL)
+                        .withRecipient(PublicKey.from("PUBLICKEY".getBytes()))
+                        .build();
+
+        assertThat(pagingTransactionManager.resend(resendRequest)).isNotNull();
+
+        verify(encryptedTransactionDAO).retrieveTransactionsAfter(null, 1);
+        verify(encryptedTransactionDAO).retrieveTransactionsAfter(first, 1);
+        verify(encryptedTransactionDAO).retrieveTransactionsAfter(second, 1);
+        verify(payloadEncoder).decode("first".getBytes());
+        verify(payloadEncoder).decode("second".getBytes());
+    }
+
     @Test
     public void resendAllWhereRequestedIsSenderAndRecipientExists() {
 
@@ -626,12 +803,11 @@ public class TransactionManagerTest {
         when(payload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
         when(payload.getSenderKey()).thenReturn(senderKey);
         when(payload.getRecipientKeys()).thenReturn(new ArrayList<>());
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(singletonList(tx));
-        when(encryptedTransactionDAO.transactionCount()).thenReturn(1L);
+        when(encryptedTransactionDAO.retrieveTransactionsAfter(isNull(), anyInt())).thenReturn(singletonList(tx));
         when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
         when(payloadEncoder.withRecipient(any(), any())).thenReturn(payload);
         when(enclave.getPublicKeys()).thenReturn(singleton(recipientKey));
-        when(enclave.unencryptTransaction(payload, recipientKey)).thenReturn(new byte[0]);
+        when(enclave.unencryptTransactions(List.of(payload), List.of(recipientKey))).thenReturn(List.of(new byte[0]));
 
         final com.quorum.tessera.transaction.ResendRequest resendRequest =
                 ResendRequest.Builder.create()
@@ -643,12 +819,13 @@ public class TransactionManagerTest {
 
         assertThat(result).isNotNull();
 
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(2)).transactionCount();
+        verify(encryptedTransactionDAO).retrieveTransactionsAfter(isNull(), anyInt());
         verify(payloadEncoder).decode(encodedData);
         verify(payloadPublisher).publishPayload(any(EncodedPayload.class), eq(senderKey));
         verify(enclave, times(2)).getPublicKeys();
-        verify(enclave).unencryptTransaction(payload, recipientKey);
+        verify(enclave).unencryptTransactions(List.of(payload), List.of(recipientKey));
+        verify(encryptedTransactionDAO).updateRecipientKey(tx.getHash(), recipientKey.getKeyBytes());
+        verify(encryptedTransactionDAO, never()).update(any(EncryptedTransaction.class));
         verify(payloadEncoder, never()).forRecipient(any(EncodedPayload.class), any(PublicKey.class));
         verify(payloadEncoder).withRecipient(any(EncodedPayload.class), any(PublicKey.class));
     }
@@ -666,8 +843,7 @@ public class TransactionManagerTest {
         when(payload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
         when(payload.getSenderKey()).thenReturn(senderKey);
         when(payload.getRecipientKeys()).thenReturn(Collections.singletonList(recipientKey));
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(singletonList(tx));
-        when(encryptedTransactionDAO.transactionCount()).thenReturn(1L);
+        when(encryptedTransactionDAO.retrieveTransactionsAfter(isNull(), anyInt())).thenReturn(singletonList(tx));
         when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
 
         final ResendRequest resendRequest =
@@ -680,8 +856,7 @@ public class TransactionManagerTest {
 
         assertThat(result).isNotNull();
 
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(2)).transactionCount();
+        verify(encryptedTransactionDAO).retrieveTransactionsAfter(isNull(), anyInt());
         verify(payloadEncoder).decode(encodedData);
         verify(payloadPublisher).publishPayload(any(EncodedPayload.class), eq(senderKey));
         verify(enclave).getPublicKeys();
@@ -699,8 +874,7 @@ public class TransactionManagerTest {
         final EncodedPayload payload = mock(EncodedPayload.class);
         when(payload.getRecipientKeys()).thenReturn(emptyList());
 
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(singletonList(tx));
-        when(encryptedTransactionDAO.transactionCount()).thenReturn(1L);
+        when(encryptedTransactionDAO.retrieveTransactionsAfter(isNull(), anyInt())).thenReturn(singletonList(tx));
         when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
 
         final ResendRequest resendRequest =
@@ -713,8 +887,7 @@ public class TransactionManagerTest {
 
         assertThat(result).isNotNull();
 
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(2)).transactionCount();
+        verify(encryptedTransactionDAO).retrieveTransactionsAfter(isNull(), anyInt());
         verify(payloadEncoder).decode(encodedData);
     }
 
@@ -727,8 +900,7 @@ public class TransactionManagerTest {
         final EncodedPayload payload = mock(EncodedPayload.class);
         when(payload.getRecipientKeys()).thenReturn(singletonList(recipientKey));
 
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(singletonList(tx));
-        when(encryptedTransactionDAO.transactionCount()).thenReturn(1L);
+        when(encryptedTransactionDAO.retrieveTransactionsAfter(isNull(), anyInt())).thenReturn(singletonList(tx));
 
         when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
         when(payloadEncoder.forRecipient(payload, recipientKey)).thenReturn(payload);
@@ -743,8 +915,7 @@ public class TransactionManagerTest {
 
         assertThat(result).isNotNull();
 
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(2)).transactionCount();
+        verify(encryptedTransactionDAO).retrieveTransactionsAfter(isNull(), anyInt());
         verify(payloadEncoder).decode(encodedData);
         verify(payloadEncoder).forRecipient(payload, recipientKey);
         verify(payloadPublisher).publishPayload(any(EncodedPayload.class), eq(recipientKey));
@@ -760,8 +931,7 @@ public class TransactionManagerTest {
         final EncodedPayload payload = mock(EncodedPayload.class);
         when(payload.getRecipientKeys()).thenReturn(singletonList(recipientKey));
 
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(singletonList(tx));
-        when(encryptedTransactionDAO.transactionCount()).thenReturn(1L);
+        when(encryptedTransactionDAO.retrieveTransactionsAfter(isNull(), anyInt())).thenReturn(singletonList(tx));
 
         when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
         when(payloadEncoder.forRecipient(payload, recipientKey)).thenReturn(payload);
@@ -778,8 +948,7 @@ public class TransactionManagerTest {
 
         assertThat(result).isNotNull();
 
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(2)).transactionCount();
+        verify(encryptedTransactionDAO).retrieveTransactionsAfter(isNull(), anyInt());
         verify(payloadEncoder).decode(encodedData);
         verify(payloadEncoder).forRecipient(payload, recipientKey);
 
@@ -805,8 +974,7 @@ public class TransactionManagerTest {
         when(payload.getRecipientKeys()).thenReturn(recipients);
         when(payload.getRecipientBoxes()).thenReturn(recipientBoxes);
 
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(singletonList(tx));
-        when(encryptedTransactionDAO.transactionCount()).thenReturn(1L);
+        when(encryptedTransactionDAO.retrieveTransactionsAfter(isNull(), anyInt())).thenReturn(singletonList(tx));
 
         when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
 
@@ -826,8 +994,7 @@ public class TransactionManagerTest {
         assertThat(result).isNotNull();
         verify(payloadPublisher).publishPayload(eq(prunedPayload), eq(recipientKey));
 
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(2)).transactionCount();
+        verify(encryptedTransactionDAO).retrieveTransactionsAfter(isNull(), anyInt());
         verify(payloadEncoder).forRecipient(payload, recipientKey);
         verify(payloadEncoder).decode(encodedData);
         verify(enclave).getPublicKeys();
@@ -854,11 +1021,11 @@ public class TransactionManagerTest {
         when(payload.getRecipientBoxes()).thenReturn(recipientBoxes);
         when(payload.getCipherText()).thenReturn("ciphertext".getBytes());
 
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(singletonList(tx));
-        when(encryptedTransactionDAO.transactionCount()).thenReturn(1L);
+        when(encryptedTransactionDAO.retrieveTransactionsAfter(isNull(), anyInt())).thenReturn(singletonList(tx));
         when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
         when(payloadEncoder.withRecipient(any(EncodedPayload.class), any(PublicKey.class))).thenReturn(payload);
         when(enclave.getPublicKeys()).thenReturn(singleton(localKey));
+        when(enclave.unencryptTransactions(List.of(payload), List.of(localKey))).thenReturn(List.of(new byte[0]));
 
         final com.quorum.tessera.transaction.ResendRequest resendRequest =
                 ResendRequest.Builder.create()
@@ -878,11 +1045,11 @@ public class TransactionManagerTest {
         assertThat(ep.getCipherText()).containsExactly("ciphertext".getBytes());
         verify(payloadEncoder, never()).forRecipient(any(EncodedPayload.class), any(PublicKey.class));
 
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(2)).transactionCount();
+        verify(encryptedTransactionDAO).retrieveTransactionsAfter(isNull(), anyInt());
         verify(payloadEncoder).decode(encodedData);
         verify(enclave, times(2)).getPublicKeys();
-        verify(enclave).unencryptTransaction(payload, localKey);
+        verify(enclave).unencryptTransactions(List.of(payload), List.of(localKey));
+        verify(encryptedTransactionDAO).updateRecipientKey(tx.getHash(), localKey.getKeyBytes());
     }
 
     @Test
@@ -895,8 +1062,7 @@ public class TransactionManagerTest {
 
         when(payload.getSenderKey()).thenReturn(senderKey);
         when(payload.getCipherText()).thenReturn("CIPHERTEXT".getBytes());
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(singletonList(tx));
-        when(encryptedTransactionDAO.transactionCount()).thenReturn(1L);
+        when(encryptedTransactionDAO.retrieveTransactionsAfter(isNull(), anyInt())).thenReturn(singletonList(tx));
         when(payloadEncoder.decode(any(byte[].class))).thenReturn(payload);
         when(payload.getRecipientKeys()).thenReturn(new ArrayList<>());
         when(enclave.getPublicKeys()).thenReturn(emptySet());
@@ -913,8 +1079,7 @@ public class TransactionManagerTest {
                 .isInstanceOf(RecipientKeyNotFoundException.class)
                 .hasMessage("No key found as recipient of message Q0lQSEVSVEVYVA==");
 
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(1)).transactionCount();
+        verify(encryptedTransactionDAO).retrieveTransactionsAfter(isNull(), anyInt());
         verify(payloadEncoder).decode(encodedData);
         verify(enclave).getPublicKeys();
     }
@@ -925,8 +1090,7 @@ public class TransactionManagerTest {
         EncryptedTransaction encryptedTransaction = mock(EncryptedTransaction.class);
         List<EncryptedTransaction> allDbTransactions = Collections.singletonList(encryptedTransaction);
 
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(allDbTransactions);
-        when(encryptedTransactionDAO.transactionCount()).thenReturn((long) allDbTransactions.size());
+        when(encryptedTransactionDAO.retrieveTransactionsAfter(isNull(), anyInt())).thenReturn(allDbTransactions);
 
         byte[] transactionBytes = "TRANSACTION".getBytes();
         when(encryptedTransaction.getEncodedPayload()).thenReturn(transactionBytes);
@@ -953,8 +1117,7 @@ public class TransactionManagerTest {
         verify(payloadPublisher).publishPayload(encodedPayload, publicKey);
         verify(payloadEncoder).decode(any(byte[].class));
         verify(payloadEncoder).forRecipient(any(EncodedPayload.class), any(PublicKey.class));
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(2)).transactionCount();
+        verify(encryptedTransactionDAO).retrieveTransactionsAfter(isNull(), anyInt());
         verify(enclave).getPublicKeys();
     }
 
@@ -964,24 +1127,26 @@ public class TransactionManagerTest {
         EncryptedTransaction otherEncryptedTransaction = mock(EncryptedTransaction.class);
         List<EncryptedTransaction> allDbTransactions = Arrays.asList(encryptedTransaction, otherEncryptedTransaction);
 
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(allDbTransactions);
-        when(encryptedTransactionDAO.transactionCount()).thenReturn((long) allDbTransactions.size());
+        when(encryptedTransactionDAO.retrieveTransactionsAfter(isNull(), anyInt())).thenReturn(allDbTransactions);
 
         byte[] transactionBytes = "TRANSACTION".getBytes();
         byte[] otherTransactionBytes = "OTHER_TRANSACTION".getBytes();
         when(encryptedTransaction.getEncodedPayload()).thenReturn(transactionBytes);
         when(otherEncryptedTransaction.getEncodedPayload()).thenReturn(otherTransactionBytes);
 
-        EncodedPayload encodedPayload = mock(EncodedPayload.class);
-        EncodedPayload otherEncodedPayload = mock(EncodedPayload.class);
-        when(payloadEncoder.decode(transactionBytes)).thenReturn(encodedPayload);
-        when(payloadEncoder.decode(otherTransactionBytes)).thenReturn(otherEncodedPayload);
-
         byte[] publicKeyBytes = "PUBLICKEY".getBytes();
 
         PublicKey publicKey = PublicKey.from(publicKeyBytes);
-        when(encodedPayload.getRecipientKeys()).thenReturn(Collections.singletonList(publicKey));
-        when(otherEncodedPayload.getRecipientKeys()).thenReturn(Collections.singletonList(publicKey));
+
+        EncodedPayload encodedPayload =
+                EncodedPayload.Builder.create().withCipherText(transactionBytes).withRecipientKey(publicKey).build();
+        EncodedPayload otherEncodedPayload =
+                EncodedPayload.Builder.create()
+                        .withCipherText(otherTransactionBytes)
+                        .withRecipientKey(publicKey)
+                        .build();
+        when(payloadEncoder.decode(transactionBytes)).thenReturn(encodedPayload);
+        when(payloadEncoder.decode(otherTransactionBytes)).thenReturn(otherEncodedPayload);
 
         final ResendRequest resendRequest =
                 ResendRequest.Builder.create()
@@ -1001,8 +1166,7 @@ public class TransactionManagerTest {
         verify(payloadPublisher).publishPayload(otherEncodedPayload, publicKey);
         verify(payloadEncoder, times(2)).decode(any(byte[].class));
         verify(payloadEncoder, times(2)).forRecipient(any(EncodedPayload.class), any(PublicKey.class));
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(2)).transactionCount();
+        verify(encryptedTransactionDAO).retrieveTransactionsAfter(isNull(), anyInt());
         verify(enclave, times(2)).getPublicKeys();
     }
 
@@ -1012,23 +1176,25 @@ public class TransactionManagerTest {
         EncryptedTransaction otherEncryptedTransaction = mock(EncryptedTransaction.class);
         List<EncryptedTransaction> allDbTransactions = Arrays.asList(encryptedTransaction, otherEncryptedTransaction);
 
-        when(encryptedTransactionDAO.retrieveTransactions(anyInt(), anyInt())).thenReturn(allDbTransactions);
-        when(encryptedTransactionDAO.transactionCount()).thenReturn((long) allDbTransactions.size());
+        when(encryptedTransactionDAO.retrieveTransactionsAfter(isNull(), anyInt())).thenReturn(allDbTransactions);
 
         byte[] transactionBytes = "TRANSACTION".getBytes();
         byte[] otherTransactionBytes = "OTHER_TRANSACTION".getBytes();
         when(encryptedTransaction.getEncodedPayload()).thenReturn(transactionBytes);
         when(otherEncryptedTransaction.getEncodedPayload()).thenReturn(otherTransactionBytes);
 
-        EncodedPayload encodedPayload = mock(EncodedPayload.class);
-        EncodedPayload otherEncodedPayload = mock(EncodedPayload.class);
-        when(payloadEncoder.decode(transactionBytes)).thenReturn(encodedPayload);
-        when(payloadEncoder.decode(otherTransactionBytes)).thenReturn(otherEncodedPayload);
-
         byte[] publicKeyBytes = "PUBLICKEY".getBytes();
         PublicKey publicKey = PublicKey.from(publicKeyBytes);
-        when(encodedPayload.getRecipientKeys()).thenReturn(Collections.singletonList(publicKey));
-        when(otherEncodedPayload.getRecipientKeys()).thenReturn(Collections.singletonList(publicKey));
+
+        EncodedPayload encodedPayload =
+                EncodedPayload.Builder.create().withCipherText(transactionBytes).withRecipientKey(publicKey).build();
+        EncodedPayload otherEncodedPayload =
+                EncodedPayload.Builder.create()
+                        .withCipherText(otherTransactionBytes)
+                        .withRecipientKey(publicKey)
+                        .build();
+        when(payloadEncoder.decode(transactionBytes)).thenReturn(encodedPayload);
+        when(payloadEncoder.decode(otherTransactionBytes)).thenReturn(otherEncodedPayload);
 
         when(payloadEncoder.forRecipient(encodedPayload, publicKey)).thenReturn(encodedPayload);
         when(payloadEncoder.forRecipient(otherEncodedPayload, publicKey)).thenReturn(otherEncodedPayload);
@@ -1047,8 +1213,7 @@ public class TransactionManagerTest {
 
         transactionManager.resend(resendRequest);
 
-        verify(encryptedTransactionDAO).retrieveTransactions(anyInt(), anyInt());
-        verify(encryptedTransactionDAO, times(2)).transactionCount();
+        verify(encryptedTransactionDAO).retrieveTransactionsAfter(isNull(), anyInt());
         verify(payloadPublisher).publishPayload(encodedPayload, publicKey);
         verify(payloadPublisher).publishPayload(otherEncodedPayload, publicKey);
         verify(payloadEncoder, times(2)).decode(any(byte[].class));
@@ -1122,6 +1287,48 @@ public class TransactionManagerTest {
         verify(payloadEncoder).forRecipient(encodedPayload, recipientKey);
     }
 
+    @Test
+    public void resendIndividualAsSenderTriesRecordedRecipientKeyFirst() {
+
+        final byte[] encodedPayloadData = "getRecipientKeys".getBytes();
+        final PublicKey senderKey = PublicKey.from("PUBLICKEY".getBytes());
+        final PublicKey otherKey = PublicKey.from("OTHERKEY".getBytes());
+        final PublicKey recipientKey = PublicKey.from("RECIPIENTKEY".getBytes());
+
+        final EncryptedTransaction encryptedTransaction = new EncryptedTransaction(null, encodedPayloadData);
+        encryptedTransaction.setRecipientKey(recipientKey.getKeyBytes());
+
+        final EncodedPayload encodedPayload = mock(EncodedPayload.class);
+        when(encodedPayload.getSenderKey()).thenReturn(senderKey);
+        when(encodedPayload.getRecipientBoxes())
+                .thenReturn(singletonList(RecipientBox.from("RECIPIENTBOX".getBytes())));
+        when(encodedPayload.getRecipientKeys()).thenReturn(new ArrayList<>());
+
+        when(encryptedTransactionDAO.retrieveByHash(any(MessageHash.class)))
+                .thenReturn(Optional.of(encryptedTransaction));
+        when(payloadEncoder.decode(encodedPayloadData)).thenReturn(encodedPayload);
+        when(enclave.getPublicKeys()).thenReturn(new LinkedHashSet<>(List.of(otherKey, recipientKey)));
+        when(enclave.unencryptTransactions(List.of(encodedPayload), List.of(recipientKey)))
+                .thenReturn(List.of(new byte[0]));
+
+        final ResendRequest resendRequest =
+                ResendRequest.Builder.create()
+                        .withRecipient(senderKey)
+                        .withHash(mock(MessageHash.class))
+                        .withType(ResendRequest.ResendRequestType.INDIVIDUAL)
+                        .build();
+
+        final ResendResponse result = transactionManager.resend(resendRequest);
+
+        assertThat(result.getPayload().getRecipientKeys()).containsExactly(recipientKey);
+
+        verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
+        verify(payloadEncoder).decode(encodedPayloadData);
+        verify(enclave).getPublicKeys();
+        verify(enclave).unencryptTransactions(List.of(encodedPayload), List.of(recipientKey));
+        verify(encryptedTransactionDAO, never()).updateRecipientKey(any(), any());
+    }
+
     @Test
     public void resendIndividualAsSender() {
 
@@ -1143,7 +1350,7 @@ public class TransactionManagerTest {
                 .thenReturn(Optional.of(encryptedTransaction));
         when(payloadEncoder.decode(encodedPayloadData)).thenReturn(encodedPayload);
         when(enclave.getPublicKeys()).thenReturn(singleton(recipientKey));
-        when(enclave.unencryptTransaction(any(), any())).thenReturn(new byte[0]);
+        when(enclave.unencryptTransactions(anyList(), anyList())).thenReturn(List.of(new byte[0]));
 
         MessageHash transactionHash = mock(MessageHash.class);
         when(transactionHash.getHashBytes()).thenReturn("KEY".getBytes());
@@ -1163,7 +1370,9 @@ public class TransactionManagerTest {
         verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
         verify(payloadEncoder).decode(encodedPayloadData);
         verify(enclave).getPublicKeys();
-        verify(enclave).unencryptTransaction(any(), any());
+        verify(enclave).unencryptTransactions(List.of(encodedPayload), List.of(recipientKey));
+        verify(encryptedTransactionDAO).updateRecipientKey(encryptedTransaction.getHash(), recipientKey.getKeyBytes());
+        verify(encryptedTransactionDAO, never()).update(any(EncryptedTransaction.class));
     }
 
     @Test
@@ -1202,8 +1411,31 @@ public class TransactionManagerTest {
 
         verify(payloadEncoder).decode(any(byte[].class));
         verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-        verify(enclave, times(2)).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
-        verify(enclave).getPublicKeys();
+        verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
+    }
+
+    @Test
+    public void receiveUsesPayloadDecodedByCache() {
+        MessageHash messageHash = new MessageHash("HASH".getBytes());
+        ReceiveRequest receiveRequest = mock(ReceiveRequest.class);
+        when(receiveRequest.getTransactionHash()).thenReturn(messageHash);
+        when(receiveRequest.getRecipient()).thenReturn(Optional.of(mock(PublicKey.class)));
+
+        EncodedPayload payload = mock(EncodedPayload.class);
+        when(payload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+        EncryptedTransaction encryptedTransaction = mock(EncryptedTransaction.class);
+        when(encryptedTransaction.getDecodedPayload()).thenReturn(payload);
+        when(encryptedTransactionDAO.retrieveByHash(messageHash)).thenReturn(Optional.of(encryptedTransaction));
+
+        when(enclave.unencryptTransaction(eq(payload), any(PublicKey.class))).thenReturn("DATA".getBytes());
+
+        ReceiveResponse receiveResponse = transactionManager.receive(receiveRequest);
+
+        assertThat(receiveResponse.getUnencryptedTransactionData()).isEqualTo("DATA".getBytes());
+
+        verify(encryptedTransactionDAO).retrieveByHash(messageHash);
+        verify(enclave).unencryptTransaction(eq(payload), any(PublicKey.class));
+        verify(payloadEncoder, never()).decode(any(byte[].class));
     }
 
     @Test
@@ -1296,8 +1528,7 @@ public class TransactionManagerTest {
 
         verify(payloadEncoder).decode(any(byte[].class));
         verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
-        verify(enclave, times(2)).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
-        verify(enclave).getPublicKeys();
+        verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
     }
 
     @Test
@@ -1330,14 +1561,13 @@ public class TransactionManagerTest {
     public void receiveNoRecipientKeyFound() {
 
         final byte[] keyData = Base64.getEncoder().encode("KEY".getBytes());
-        PublicKey recipient = PublicKey.from("recipient".getBytes());
 
         MessageHash messageHash = mock(MessageHash.class);
         when(messageHash.getHashBytes()).thenReturn("KEY".getBytes());
 
         ReceiveRequest receiveRequest = mock(ReceiveRequest.class);
         when(receiveRequest.getTransactionHash()).thenReturn(messageHash);
-        when(receiveRequest.getRecipient()).thenReturn(Optional.of(recipient));
+        when(receiveRequest.getRecipient()).thenReturn(Optional.empty());
 
         EncryptedTransaction encryptedTransaction = new EncryptedTransaction(messageHash, keyData);
 
@@ -1351,8 +1581,7 @@ public class TransactionManagerTest {
         PublicKey publicKey = mock(PublicKey.class);
         when(enclave.getPublicKeys()).thenReturn(Collections.singleton(publicKey));
 
-        when(enclave.unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class)))
-                .thenThrow(EncryptorException.class);
+        when(enclave.unencryptTransactions(anyList(), anyList())).thenReturn(singletonList(null));
 
         try {
             transactionManager.receive(receiveRequest);
@@ -1360,7 +1589,7 @@ public class TransactionManagerTest {
         } catch (RecipientKeyNotFoundException ex) {
             verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
             verify(enclave).getPublicKeys();
-            verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
+            verify(enclave).unencryptTransactions(List.of(payload), List.of(publicKey));
             verify(payloadEncoder).decode(any(byte[].class));
         }
     }
@@ -1424,8 +1653,7 @@ public class TransactionManagerTest {
         PublicKey publicKey = mock(PublicKey.class);
         when(enclave.getPublicKeys()).thenReturn(Collections.singleton(publicKey));
 
-        when(enclave.unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class)))
-                .thenThrow(EncryptorException.class);
+        when(enclave.unencryptTransactions(anyList(), anyList())).thenReturn(singletonList(null));
 
         try {
             transactionManager.receive(receiveRequest);
@@ -1433,7 +1661,7 @@ public class TransactionManagerTest {
         } catch (RecipientKeyNotFoundException ex) {
             verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
             verify(enclave).getPublicKeys();
-            verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
+            verify(enclave).unencryptTransactions(List.of(payload), List.of(publicKey));
             verify(payloadEncoder).decode(any(byte[].class));
         }
     }
@@ -1459,8 +1687,7 @@ public class TransactionManagerTest {
         PublicKey publicKey = mock(PublicKey.class);
         when(enclave.getPublicKeys()).thenReturn(Collections.singleton(publicKey));
 
-        when(enclave.unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class)))
-                .thenThrow(EncryptorException.class);
+        when(enclave.unencryptTransactions(anyList(), anyList())).thenReturn(singletonList(null));
 
         try {
             transactionManager.receive(receiveRequest);
@@ -1468,7 +1695,7 @@ public class TransactionManagerTest {
         } catch (RecipientKeyNotFoundException ex) {
             verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
             verify(enclave).getPublicKeys();
-            verify(enclave).unencryptTransaction(any(EncodedPayload.class), any(PublicKey.class));
+            verify(enclave).unencryptTransactions(List.of(payload), List.of(publicKey));
             verify(payloadEncoder).decode(any(byte[].class));
         }
     }
@@ -1696,7 +1923,6 @@ public class TransactionManagerTest {
         verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
     }
 
-
     @Test
     public void defaultPublicKey() {
         transactionManager.defaultPublicKey();
@@ -0,0 +1,519 @@
+package com.quorum.tessera.transaction.outbox;
+
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.data.OutboxDAO;
+import com.quorum.tessera.data.PendingDelivery;
+import com.quorum.tessera.discovery.Discovery;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.InvalidRecipientException;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.encryption.KeyNotFoundException;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.partyinfo.node.NodeInfo;
+import com.quorum.tessera.transaction.publish.MultiRecipientPayloadPublisher;
+import com.quorum.tessera.transaction.publish.NodeOfflineException;
+import com.quorum.tessera.transaction.publish.PayloadPublisher;
+import com.quorum.tessera.version.BaseVersion;
+import com.quorum.tessera.version.MultiRecipientPushVersion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+public class OutboxDispatcherTest {
+
+    private static final long NOW = 100_000L;
+
+    private OutboxDAO outboxDAO;
+
+    private EncryptedTransactionDAO encryptedTransactionDAO;
+
+    private PayloadEncoder payloadEncoder;
+
+    private MultiRecipientPayloadPublisher publisher;
+
+    private Discovery discovery;
+
+    private AtomicLong clock;
+
+    private OutboxDispatcher dispatcher;
+
+    private final MessageHash hash = new MessageHash("HASH".getBytes());
+
+    private final EncodedPayload payload = mock(EncodedPayload.class);
+
+    @Before
+    public void onSetUp() {
+        outboxDAO = mock(OutboxDAO.class);
+        encryptedTransactionDAO = mock(EncryptedTransactionDAO.class);
+        payloadEncoder = mock(PayloadEncoder.class);
+        publisher = mock(MultiRecipientPayloadPublisher.class);
+        discovery = mock(Discovery.class);
+        clock = new AtomicLong(NOW);
+
+        when(outboxDAO.oldestCreated()).thenReturn(Optional.empty());
+
+        final EncryptedTransaction transaction = new EncryptedTransaction(hash, "ENCODED".getBytes());
+        when(encryptedTransactionDAO.findByHashes(anyCollection())).thenReturn(List.of(transaction));
+        when(payloadEncoder.decode("ENCODED".getBytes())).thenReturn(payload);
+
+        dispatcher =
+                new OutboxDispatcher(
+                        outboxDAO,
+                        encryptedTransactionDAO,
+                        payloadEncoder,
+                        publisher,
+                        discovery,
+                        Runnable::run,
+                        8,
+                        clock::get);
+    }
+
+    @After
+    public void onTearDown() {
+        verifyNoMoreInteractions(publisher);
+    }
+
+    @Test
+    public void nothingDueOnlyRefreshesMetrics() {
+        when(outboxDAO.retrieveDue(NOW, OutboxDispatcher.SCAN_SIZE)).thenReturn(List.of());
+        when(outboxDAO.count()).thenReturn(3L);
+        when(outboxDAO.oldestCreated()).thenReturn(Optional.of(NOW - 5000L));
+
+        dispatcher.run();
+
+        assertThat(dispatcher.getQueueDepth()).isEqualTo(3L);
+        assertThat(dispatcher.getOldestPendingAgeMillis()).isEqualTo(5000L);
+        assertThat(dispatcher.getDeliveredCount()).isZero();
+        assertThat(dispatcher.getFailedAttemptCount()).isZero();
+
+        verify(outboxDAO).retrieveDue(NOW, OutboxDispatcher.SCAN_SIZE);
+        verify(outboxDAO).count();
+        verify(outboxDAO).oldestCreated();
+        verifyNoMoreInteractions(outboxDAO, encryptedTransactionDAO);
+    }
+
+    @Test
+    public void successfulPushRemovesDelivery() {
+        final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+        final PendingDelivery delivery = new PendingDelivery(hash, recipient.getKeyBytes(), NOW - 10L);
+        when(outboxDAO.retrieveDue(anyLong(), anyInt())).thenReturn(List.of(delivery));
+        hostedOn(recipient, "http://node1", BaseVersion.API_VERSION_1);
+
+        final EncodedPayload stripped = mock(EncodedPayload.class);
+        when(payloadEncoder.forRecipient(payload, recipient)).thenReturn(stripped);
+
+        dispatcher.run();
+
+        verify(publisher).publishPayload(stripped, recipient);
+        verify(outboxDAO).delete(List.of(delivery));
+        verify(outboxDAO, never()).update(any());
+
+        assertThat(dispatcher.getDeliveredCount()).isEqualTo(1L);
+        final OutboxPeer peer = dispatcher.getPeer("http://node1").get();
+        assertThat(peer.getPendingCount()).isZero();
+        assertThat(peer.getLagMillis()).isZero();
+    }
+
+    @Test
+    public void failedPushIsRetriedLater() {
+        final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+        final PendingDelivery delivery = new PendingDelivery(hash, recipient.getKeyBytes(), NOW - 10L);
+        delivery.setAttempts(2);
+        when(outboxDAO.retrieveDue(anyLong(), anyInt())).thenReturn(List.of(delivery));
+        hostedOn(recipient, "http://node1", BaseVersion.API_VERSION_1);
+
+        final EncodedPayload stripped = mock(EncodedPayload.class);
+        when(payloadEncoder.forRecipient(payload, recipient)).thenReturn(stripped);
+        doThrow(new NodeOfflineException(URI.create("http://node1")))
+                .when(publisher)
+                .publishPayload(stripped, recipient);
+
+        dispatcher.run();
+
+        verify(publisher).publishPayload(stripped, recipient);
+        verify(outboxDAO, never()).delete(anyCollection());
+
+        final ArgumentCaptor<PendingDelivery> captor = ArgumentCaptor.forClass(PendingDelivery.class);
+        verify(outboxDAO).update(captor.capture());
+        assertThat(captor.getValue().getAttempts()).isEqualTo(3);
+        assertThat(captor.getValue().getNextAttempt()).isEqualTo(NOW + 4000L);
+
+        assertThat(dispatcher.getFailedAttemptCount()).isEqualTo(1L);
+
+        clock.addAndGet(500L);
+        final OutboxPeer peer = dispatcher.getPeer("http://node1").get();
+        assertThat(peer.getPendingCount()).isEqualTo(1);
+        assertThat(peer.getLagMillis()).isEqualTo(510L);
+    }
+
+    @Test
+    public void deliveriesToTheSameNodeArePushedTogether() {
+        final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+        final PublicKey otherRecipient = PublicKey.from("OTHER_RECIPIENT".getBytes());
+        final PendingDelivery delivery = new PendingDelivery(hash, recipient.getKeyBytes(), NOW);
+        final PendingDelivery otherDelivery = new PendingDelivery(hash, otherRecipient.getKeyBytes(), NOW);
+        when(outboxDAO.retrieveDue(anyLong(), anyInt())).thenReturn(List.of(delivery, otherDelivery));
+        hostedOn(recipient, "http://node1", MultiRecipientPushVersion.API_VERSION_3);
+        hostedOn(otherRecipient, "http://node1", MultiRecipientPushVersion.API_VERSION_3);
+
+        final EncodedPayload stripped = mock(EncodedPayload.class);
+        when(payloadEncoder.forRecipients(payload, List.of(recipient, otherRecipient))).thenReturn(stripped);
+
+        dispatcher.run();
+
+        verify(publisher).publishPayload(stripped, List.of(recipient, otherRecipient));
+        verify(outboxDAO).delete(List.of(delivery, otherDelivery));
+    }
+
+    @Test
+    public void deliveriesToNodesWithoutMultipleRecipientSupportArePushedSeparately() {
+        final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+        final PublicKey otherRecipient = PublicKey.from("OTHER_RECIPIENT".getBytes());
+        final PendingDelivery delivery = new PendingDelivery(hash, recipient.getKeyBytes(), NOW);
+        final PendingDelivery otherDelivery = new PendingDelivery(hash, otherRecipient.getKeyBytes(), NOW);
+        when(outboxDAO.retrieveDue(anyLong(), anyInt())).thenReturn(List.of(delivery, otherDelivery));
+        hostedOn(recipient, "http://node1", BaseVersion.API_VERSION_1);
+        hostedOn(otherRecipient, "http://node1", BaseVersion.API_VERSION_1);
+
+        when(payloadEncoder.forRecipient(any(EncodedPayload.class), any(PublicKey.class))).thenReturn(payload);
+
+        dispatcher.run();
+
+        verify(publisher).publishPayload(payload, recipient);
+        verify(publisher).publishPayload(payload, otherRecipient);
+        verify(outboxDAO).delete(List.of(delivery, otherDelivery));
+    }
+
+    @Test
+    public void plainPublisherPushesEachDeliverySeparately() {
+        final PayloadPublisher plainPublisher = mock(PayloadPublisher.class);
+        dispatcher =
+                new OutboxDispatcher(
+                        outboxDAO,
+                        encryptedTransactionDAO,
+                        payloadEncoder,
+                        plainPublisher,
+                        discovery,
+                        Runnable::run,
+                        8,
+                        clock::get);
+
+        final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+        final PublicKey otherRecipient = PublicKey.from("OTHER_RECIPIENT".getBytes());
+        when(outboxDAO.retrieveDue(anyLong(), anyInt()))
+                .thenReturn(
+                        List.of(
+                                new PendingDelivery(hash, recipient.getKeyBytes(), NOW),
+                                new PendingDelivery(hash, otherRecipient.getKeyBytes(), NOW)));
+        hostedOn(recipient, "http://node1", MultiRecipientPushVersion.API_VERSION_3);
+        hostedOn(otherRecipient, "http://node1", MultiRecipientPushVersion.API_VERSION_3);
+
+        when(payloadEncoder.forRecipient(any(EncodedPayload.class), any(PublicKey.class))).thenReturn(payload);
+
+        dispatcher.run();
+
+        verify(plainPublisher).publishPayload(payload, recipient);
+        verify(plainPublisher).publishPayload(payload, otherRecipient);
+        verifyNoMoreInteractions(plainPublisher);
+    }
+
+    @Test
+    public void deliveryOfMissingTransactionIsDropped() {
+        final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+        final PendingDelivery delivery = new PendingDelivery(hash, recipient.getKeyBytes(), NOW);
+        when(outboxDAO.retrieveDue(anyLong(), anyInt())).thenReturn(List.of(delivery));
+        hostedOn(recipient, "http://node1", BaseVersion.API_VERSION_1);
+        when(encryptedTransactionDAO.findByHashes(anyCollection())).thenReturn(List.of());
+
+        dispatcher.run();
+
+        verify(outboxDAO).delete(List.of(delivery));
+        assertThat(dispatcher.getDroppedCount()).isEqualTo(1L);
+        assertThat(dispatcher.getDeliveredCount()).isZero();
+    }
+
+    @Test
+    public void deliveryToRecipientNotInTransactionIsDropped() {
+        final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+        final PendingDelivery delivery = new PendingDelivery(hash, recipient.getKeyBytes(), NOW);
+        when(outboxDAO.retrieveDue(anyLong(), anyInt())).thenReturn(List.of(delivery));
+        hostedOn(recipient, "http://node1", BaseVersion.API_VERSION_1);
+        when(payloadEncoder.forRecipient(payload, recipient)).thenThrow(new InvalidRecipientException("not found"));
+
+        dispatcher.run();
+
+        verify(outboxDAO).delete(List.of(delivery));
+        verify(outboxDAO, never()).update(any());
+    }
+
+    @Test
+    public void deliveryToUnknownRecipientIsRetried() {
+        final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+        final PendingDelivery delivery = new PendingDelivery(hash, recipient.getKeyBytes(), NOW);
+        when(outboxDAO.retrieveDue(anyLong(), anyInt())).thenReturn(List.of(delivery));
+        when(discovery.getRemoteNodeInfo(recipient)).thenThrow(new KeyNotFoundException("not found"));
+
+        dispatcher.run();
+
+        verify(outboxDAO).update(delivery);
+        assertThat(delivery.getAttempts()).isEqualTo(1);
+        assertThat(delivery.getNextAttempt()).isEqualTo(NOW + OutboxDispatcher.BASE_BACKOFF_MILLIS);
+    }
+
+    @Test
+    public void pushesToEachNodeAreLimited() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(10);
+        try {
+            dispatcher =
+                    new OutboxDispatcher(
+                            outboxDAO,
+                            encryptedTransactionDAO,
+                            payloadEncoder,
+                            publisher,
+                            discovery,
+                            executor,
+                            2,
+                            clock::get);
+
+            final List<PendingDelivery> deliveries =
+                    List.of(
+                            new PendingDelivery(hash, "R1".getBytes(), NOW),
+                            new PendingDelivery(hash, "R2".getBytes(), NOW),
+                            new PendingDelivery(hash, "R3".getBytes(), NOW),
+                            new PendingDelivery(hash, "R4".getBytes(), NOW),
+                            new PendingDelivery(hash, "R5".getBytes(), NOW));
+            when(outboxDAO.retrieveDue(anyLong(), anyInt())).thenReturn(deliveries);
+            deliveries.forEach(d -> hostedOn(PublicKey.from(d.getRecipientKey()), "http://node1"));
+            when(payloadEncoder.forRecipient(any(EncodedPayload.class), any(PublicKey.class))).thenReturn(payload);
+
+            final AtomicInteger inFlight = new AtomicInteger();
+            final AtomicInteger maxInFlight = new AtomicInteger();
+            doAnswer(
+                            invocation -> {
+                                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                                Thread.sleep(20L);
+                                inFlight.decrementAndGet();
+                                return null;
+                            })
+                    .when(publisher)
+                    .publishPayload(any(EncodedPayload.class), any(PublicKey.class));
+
+            dispatcher.run();
+
+            final ArgumentCaptor<Collection<PendingDelivery>> captor = ArgumentCaptor.forClass(Collection.class);
+            verify(outboxDAO, timeout(5000L)).delete(captor.capture());
+
+            assertThat(maxInFlight.get()).isBetween(1, 2);
+            verify(publisher, times(5)).publishPayload(any(EncodedPayload.class), any(PublicKey.class));
+            assertThat(captor.getValue()).containsExactlyInAnyOrderElementsOf(deliveries);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void firstFailedPushStopsPushesToThatNode() {
+        final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+        final PublicKey otherRecipient = PublicKey.from("OTHER_RECIPIENT".getBytes());
+        final PublicKey elsewhere = PublicKey.from("ELSEWHERE".getBytes());
+        final PendingDelivery delivery = new PendingDelivery(hash, recipient.getKeyBytes(), NOW - 10L);
+        final PendingDelivery otherDelivery = new PendingDelivery(hash, otherRecipient.getKeyBytes(), NOW - 5L);
+        final PendingDelivery elsewhereDelivery = new PendingDelivery(hash, elsewhere.getKeyBytes(), NOW);
+        when(outboxDAO.retrieveDue(anyLong(), anyInt()))
+                .thenReturn(List.of(delivery, otherDelivery, elsewhereDelivery));
+        hostedOn(recipient, "http://node1", BaseVersion.API_VERSION_1);
+        hostedOn(otherRecipient, "http://node1", BaseVersion.API_VERSION_1);
+        hostedOn(elsewhere, "http://node2", BaseVersion.API_VERSION_1);
+
+        when(payloadEncoder.forRecipient(any(EncodedPayload.class), any(PublicKey.class))).thenReturn(payload);
+        doThrow(new NodeOfflineException(URI.create("http://node1")))
+                .when(publisher)
+                .publishPayload(payload, recipient);
+
+        dispatcher.run();
+
+        verify(publisher).publishPayload(payload, recipient);
+        verify(publisher).publishPayload(payload, elsewhere);
+        verify(outboxDAO).delete(List.of(elsewhereDelivery));
+        verify(outboxDAO).update(delivery);
+        verify(outboxDAO).update(otherDelivery);
+
+        assertThat(delivery.getAttempts()).isEqualTo(1);
+        assertThat(delivery.getNextAttempt()).isEqualTo(NOW + OutboxDispatcher.BASE_BACKOFF_MILLIS);
+        assertThat(otherDelivery.getAttempts()).isZero();
+        assertThat(otherDelivery.getNextAttempt()).isEqualTo(NOW + OutboxDispatcher.BASE_BACKOFF_MILLIS);
+        assertThat(dispatcher.getFailedAttemptCount()).isEqualTo(1L);
+        assertThat(dispatcher.getPeer("http://node1").get().getPendingCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void runDoesNotWaitForPushesAndSkipsNodesStillBeingPushedTo() {
+        final List<Runnable> workers = new ArrayList<>();
+        dispatcher =
+                new OutboxDispatcher(
+                        outboxDAO,
+                        encryptedTransactionDAO,
+                        payloadEncoder,
+                        publisher,
+                        discovery,
+                        workers::add,
+                        8,
+                        clock::get);
+
+        final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+        final PendingDelivery delivery = new PendingDelivery(hash, recipient.getKeyBytes(), NOW);
+        when(outboxDAO.retrieveDue(anyLong(), anyInt())).thenReturn(List.of(delivery));
+        hostedOn(recipient, "http://node1", BaseVersion.API_VERSION_1);
+        when(payloadEncoder.forRecipient(payload, recipient)).thenReturn(payload);
+
+        dispatcher.run();
+        dispatcher.run();
+
+        assertThat(workers).hasSize(1);
+        verifyNoInteractions(publisher);
+        verify(outboxDAO, never()).delete(anyCollection());
+
+        workers.remove(0).run();
+
+        verify(publisher).publishPayload(payload, recipient);
+        verify(outboxDAO).delete(List.of(delivery));
+
+        dispatcher.run();
+
+        assertThat(workers).hasSize(1);
+    }
+
+    @Test
+    public void deliveriesToNodesStillBeingPushedToAreReadPast() {
+        final List<Runnable> workers = new ArrayList<>();
+        dispatcher =
+                new OutboxDispatcher(
+                        outboxDAO,
+                        encryptedTransactionDAO,
+                        payloadEncoder,
+                        publisher,
+                        discovery,
+                        workers::add,
+                        8,
+                        clock::get);
+
+        final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+        final PendingDelivery delivery = new PendingDelivery(hash, recipient.getKeyBytes(), NOW);
+        when(outboxDAO.retrieveDue(anyLong(), anyInt())).thenReturn(List.of(delivery));
+        hostedOn(recipient, "http://node1", BaseVersion.API_VERSION_1);
+
+        dispatcher.run();
+
+        // a full batch of later deliveries to the busy node, ahead of one to another node
+        final MessageHash busyHash = new MessageHash("BUSY".getBytes());
+        final List<PendingDelivery> busyDeliveries = new ArrayList<>();
+        for (int i = 0; i < OutboxDispatcher.BATCH_SIZE; i++) {
+            final PublicKey busyRecipient = PublicKey.from(("R" + i).getBytes());
+            busyDeliveries.add(new PendingDelivery(busyHash, busyRecipient.getKeyBytes(), NOW));
+            hostedOn(busyRecipient, "http://node1", BaseVersion.API_VERSION_1);
+        }
+        final PublicKey elsewhere = PublicKey.from("ELSEWHERE".getBytes());
+        final PendingDelivery elsewhereDelivery = new PendingDelivery(hash, elsewhere.getKeyBytes(), NOW);
+        hostedOn(elsewhere, "http://node2", BaseVersion.API_VERSION_1);
+        final List<PendingDelivery> due = new ArrayList<>(busyDeliveries);
+        due.add(elsewhereDelivery);
+        when(outboxDAO.retrieveDue(anyLong(), anyInt())).thenReturn(due);
+
+        dispatcher.run();
+
+        assertThat(workers).hasSize(2);
+        verify(encryptedTransactionDAO, times(2)).findByHashes(Set.of(hash));
+        verify(encryptedTransactionDAO, never()).findByHashes(Set.of(busyHash));
+        verify(outboxDAO, never()).update(any());
+    }
+
+    @Test
+    public void backoffDoublesUpToLimit() {
+        assertThat(OutboxDispatcher.backoff(1)).isEqualTo(1000L);
+        assertThat(OutboxDispatcher.backoff(2)).isEqualTo(2000L);
+        assertThat(OutboxDispatcher.backoff(5)).isEqualTo(16000L);
+        assertThat(OutboxDispatcher.backoff(9)).isEqualTo(256000L);
+        assertThat(OutboxDispatcher.backoff(10)).isEqualTo(OutboxDispatcher.MAX_BACKOFF_MILLIS);
+        assertThat(OutboxDispatcher.backoff(1000)).isEqualTo(OutboxDispatcher.MAX_BACKOFF_MILLIS);
+    }
+
+    @Test
+    public void maxConnectionsPerPeerMustBePositive() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(
+                        () ->
+                                new OutboxDispatcher(
+                                        outboxDAO,
+                                        encryptedTransactionDAO,
+                                        payloadEncoder,
+                                        publisher,
+                                        discovery,
+                                        Runnable::run,
+                                        0));
+    }
+
+    @Test
+    public void metricsArePublished() throws Exception {
+        final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+        final PendingDelivery delivery = new PendingDelivery(hash, recipient.getKeyBytes(), NOW - 10L);
+        when(outboxDAO.retrieveDue(anyLong(), anyInt())).thenReturn(List.of(delivery));
+        when(outboxDAO.count()).thenReturn(1L);
+        hostedOn(recipient, "http://node1:8080", BaseVersion.API_VERSION_1);
+        when(payloadEncoder.forRecipient(payload, recipient)).thenReturn(payload);
+        doThrow(new NodeOfflineException(URI.create("http://node1:8080")))
+                .when(publisher)
+                .publishPayload(payload, recipient);
+
+        dispatcher.registerMetrics();
+        dispatcher.run();
+
+        final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName outbox = new ObjectName(OutboxDispatcher.MBEAN_NAME);
+        final ObjectName peer =
+                new ObjectName(
+                        String.format(OutboxDispatcher.PEER_MBEAN_NAME_PATTERN, ObjectName.quote("http://node1:8080")));
+        try {
+            assertThat(mBeanServer.getAttribute(outbox, "QueueDepth")).isEqualTo(1L);
+            assertThat(mBeanServer.getAttribute(outbox, "FailedAttemptCount")).isEqualTo(1L);
+            assertThat(mBeanServer.getAttribute(peer, "PendingCount")).isEqualTo(1);
+            assertThat(mBeanServer.getAttribute(peer, "LagMillis")).isEqualTo(10L);
+        } finally {
+            mBeanServer.unregisterMBean(outbox);
+            mBeanServer.unregisterMBean(peer);
+        }
+
+        verify(publisher).publishPayload(payload, recipient);
+    }
+
+    private void hostedOn(PublicKey recipient, String url, String... supportedVersions) {
+        final NodeInfo nodeInfo = mock(NodeInfo.class);
+        when(nodeInfo.getUrl()).thenReturn(url);
+        when(nodeInfo.supportedApiVersions()).thenReturn(Set.of(supportedVersions));
+        when(discovery.getRemoteNodeInfo(recipient)).thenReturn(nodeInfo);
+    }
+}
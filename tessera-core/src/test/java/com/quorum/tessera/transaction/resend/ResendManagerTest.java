@@ -66,7 +66,8 @@ public class ResendManagerTest {
 
         when(enclave.getPublicKeys()).thenReturn(singleton(senderKey));
         when(encryptedTransactionDAO.retrieveByHash(any(MessageHash.class))).thenReturn(Optional.empty());
-        when(enclave.createNewRecipientBox(any(), any())).thenReturn(newEncryptedMasterKey);
+        when(enclave.createNewRecipientBoxes(any(), eq(singletonList(senderKey))))
+                .thenReturn(singletonList(newEncryptedMasterKey));
 
         resendManager.acceptOwnMessage(encodedPayload);
 
@@ -87,7 +88,7 @@ public class ResendManagerTest {
 
         verify(encryptedTransactionDAO).retrieveByHash(any(MessageHash.class));
         verify(enclave).getPublicKeys();
-        verify(enclave).createNewRecipientBox(any(), any());
+        verify(enclave).createNewRecipientBoxes(any(), eq(singletonList(senderKey)));
         verify(enclave).unencryptTransaction(encodedPayload, null);
     }
 
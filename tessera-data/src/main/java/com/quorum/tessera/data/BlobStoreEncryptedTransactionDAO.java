@@ -0,0 +1,235 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.PersistenceException;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Root;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.stream.Collectors;
+
+/**
+ * A JPA implementation of {@link EncryptedTransactionDAO} that stores the cipher text of each payload apart from the
+ * rest of it. The cipher text never changes, and is kept once in its own table keyed by the transaction hash, which is
+ * the hash of the cipher text. The transaction row keeps the rest of the payload with an empty cipher text, so that
+ * adding a recipient to a transaction only rewrites its recipients and boxes.
+ *
+ * <p>Rows that hold the whole payload, such as those written before this mode was turned on, are read as they are and
+ * split the next time they are written.
+ */
+public class BlobStoreEncryptedTransactionDAO implements EncryptedTransactionDAO {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(BlobStoreEncryptedTransactionDAO.class);
+
+    private static final byte[] NO_CIPHER_TEXT = new byte[0];
+
+    private final EncryptedTransactionDAO delegate;
+
+    private final EntityManagerTemplate entityManagerTemplate;
+
+    private final PayloadEncoder payloadEncoder;
+
+    public BlobStoreEncryptedTransactionDAO(final EntityManagerFactory entityManagerFactory, final int fetchSize) {
+        this(entityManagerFactory, fetchSize, PayloadEncoder.create());
+    }
+
+    public BlobStoreEncryptedTransactionDAO(
+            final EntityManagerFactory entityManagerFactory, final int fetchSize, final PayloadEncoder payloadEncoder) {
+        this.delegate = new EncryptedTransactionDAOImpl(entityManagerFactory, fetchSize);
+        this.entityManagerTemplate = new EntityManagerTemplate(entityManagerFactory, fetchSize);
+        this.payloadEncoder = Objects.requireNonNull(payloadEncoder);
+    }
+
+    @Override
+    public EncryptedTransaction save(final EncryptedTransaction entity) {
+        return entityManagerTemplate.execute(
+                entityManager -> {
+                    final EncryptedTransaction envelope = split(entityManager, entity);
+                    entityManager.persist(envelope);
+                    entity.setTimestamp(envelope.getTimestamp());
+                    LOGGER.debug("Stored transaction {}", entity.getHash());
+                    return entity;
+                });
+    }
+
+    @Override
+    public EncryptedTransaction update(final EncryptedTransaction entity) {
+        return entityManagerTemplate.execute(
+                entityManager -> {
+                    entityManager.merge(split(entityManager, entity));
+                    LOGGER.debug("Updated transaction {}", entity.getHash());
+                    return entity;
+                });
+    }
+
+    @Override
+    public void updateRecipientKey(final MessageHash hash, final byte[] recipientKey) {
+        // the recipient key is kept on the transaction row, which the delegate updates
+        delegate.updateRecipientKey(hash, recipientKey);
+    }
+
+    @Override
+    public <T> EncryptedTransaction save(final EncryptedTransaction transaction, final Callable<T> consumer) {
+        return entityManagerTemplate.execute(
+                entityManager -> {
+                    final EncryptedTransaction envelope = split(entityManager, transaction);
+                    entityManager.persist(envelope);
+                    transaction.setTimestamp(envelope.getTimestamp());
+                    try {
+                        entityManager.flush();
+                        consumer.call();
+                        return transaction;
+                    } catch (RuntimeException ex) {
+                        throw ex;
+                    } catch (Exception e) {
+                        throw new PersistenceException(e);
+                    }
+                });
+    }
+
+    @Override
+    public void delete(final MessageHash hash) {
+        LOGGER.info("Deleting transaction with hash {}", hash);
+
+        entityManagerTemplate.execute(
+                entityManager -> {
+                    final EncryptedTransaction message =
+                            entityManager
+                                    .createNamedQuery("EncryptedTransaction.FindByHash", EncryptedTransaction.class)
+                                    .setParameter("hash", hash.getHashBytes())
+                                    .getResultStream()
+                                    .findAny()
+                                    .orElseThrow(EntityNotFoundException::new);
+
+                    entityManager.remove(message);
+                    entityManager
+                            .createNamedQuery("PayloadBlob.DeleteByHash")
+                            .setParameter("hash", hash.getHashBytes())
+                            .executeUpdate();
+                    return message;
+                });
+    }
+
+    @Override
+    public Optional<EncryptedTransaction> retrieveByHash(final MessageHash hash) {
+        return delegate.retrieveByHash(hash).map(transaction -> join(List.of(transaction)).get(0));
+    }
+
+    @Override
+    public List<EncryptedTransaction> findByHashes(final Collection<MessageHash> messageHashes) {
+        return join(delegate.findByHashes(messageHashes));
+    }
+
+    @Override
+    public List<EncryptedTransaction> retrieveTransactions(final int offset, final int maxResult) {
+        return join(delegate.retrieveTransactions(offset, maxResult));
+    }
+
+    @Override
+    public List<EncryptedTransaction> retrieveTransactionsAfter(
+            final EncryptedTransaction previous, final int maxResult) {
+        return join(delegate.retrieveTransactionsAfter(previous, maxResult));
+    }
+
+    @Override
+    public long transactionCount() {
+        return delegate.transactionCount();
+    }
+
+    @Override
+    public boolean upcheck() {
+        return delegate.upcheck();
+    }
+
+    /**
+     * Stores the cipher text of the transaction if it is not stored already, and returns a copy of the transaction that
+     * holds the rest of its payload
+     */
+    private EncryptedTransaction split(final EntityManager entityManager, final EncryptedTransaction transaction) {
+        final EncodedPayload payload =
+                Optional.ofNullable(transaction.getDecodedPayload())
+                        .orElseGet(() -> payloadEncoder.decode(transaction.getEncodedPayload()));
+
+        final long stored =
+                entityManager
+                        .createNamedQuery("PayloadBlob.CountByHash", Long.class)
+                        .setParameter("hash", transaction.getHash().getHashBytes())
+                        .getSingleResult();
+        if (stored == 0) {
+            entityManager.persist(new PayloadBlob(transaction.getHash(), payload.getCipherText()));
+        }
+
+        final EncodedPayload envelope = EncodedPayload.Builder.from(payload).withCipherText(NO_CIPHER_TEXT).build();
+
+        final EncryptedTransaction copy =
+                new EncryptedTransaction(transaction.getHash(), payloadEncoder.encode(envelope));
+        copy.setTimestamp(transaction.getTimestamp());
+        copy.setRecipientKey(transaction.getRecipientKey());
+        return copy;
+    }
+
+    /** Puts the stored cipher text back into the payloads of transactions read from the database */
+    private List<EncryptedTransaction> join(final List<EncryptedTransaction> transactions) {
+        final Map<MessageHash, EncodedPayload> envelopes =
+                transactions.stream()
+                        .collect(
+                                Collectors.toMap(
+                                        EncryptedTransaction::getHash,
+                                        transaction -> payloadEncoder.decode(transaction.getEncodedPayload())));
+
+        final List<MessageHash> split =
+                envelopes.entrySet().stream()
+                        .filter(entry -> entry.getValue().getCipherText().length == 0)
+                        .map(Map.Entry::getKey)
+                        .collect(Collectors.toList());
+
+        final Map<MessageHash, byte[]> cipherTexts =
+                split.isEmpty()
+                        ? Map.of()
+                        : entityManagerTemplate.execute(
+                                entityManager -> {
+                                    final CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+                                    final CriteriaQuery<PayloadBlob> query =
+                                            criteriaBuilder.createQuery(PayloadBlob.class);
+                                    final Root<PayloadBlob> root = query.from(PayloadBlob.class);
+
+                                    return entityManager
+                                            .createQuery(query.select(root).where(root.get("hash").in(split)))
+                                            .getResultStream()
+                                            .collect(
+                                                    Collectors.toMap(PayloadBlob::getHash, PayloadBlob::getCipherText));
+                                });
+
+        for (final EncryptedTransaction transaction : transactions) {
+            final EncodedPayload envelope = envelopes.get(transaction.getHash());
+            if (envelope.getCipherText().length > 0) {
+                transaction.setDecodedPayload(envelope);
+                continue;
+            }
+
+            final byte[] cipherText =
+                    Optional.ofNullable(cipherTexts.get(transaction.getHash()))
+                            .orElseThrow(
+                                    () ->
+                                            new EntityNotFoundException(
+                                                    "No cipher text stored for transaction " + transaction.getHash()));
+
+            final EncodedPayload payload = EncodedPayload.Builder.from(envelope).withCipherText(cipherText).build();
+            transaction.setEncodedPayload(payloadEncoder.encode(payload));
+            transaction.setDecodedPayload(payload);
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,128 @@
+package com.quorum.tessera.data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+/**
+ * An {@link EncryptedTransactionDAO} that serves lookups by hash from a {@link PayloadCache}, reading through to the
+ * wrapped DAO for transactions that are not cached. Every write invalidates the cached copy of the transaction.
+ */
+public class CachingEncryptedTransactionDAO implements EncryptedTransactionDAO {
+
+    private final EncryptedTransactionDAO delegate;
+
+    private final PayloadCache payloadCache;
+
+    public CachingEncryptedTransactionDAO(final EncryptedTransactionDAO delegate, final PayloadCache payloadCache) {
+        this.delegate = Objects.requireNonNull(delegate);
+        this.payloadCache = Objects.requireNonNull(payloadCache);
+    }
+
+    @Override
+    public EncryptedTransaction save(final EncryptedTransaction entity) {
+        try {
+            return delegate.save(entity);
+        } finally {
+            payloadCache.invalidate(entity.getHash());
+        }
+    }
+
+    @Override
+    public EncryptedTransaction update(final EncryptedTransaction entity) {
+        try {
+            return delegate.update(entity);
+        } finally {
+            payloadCache.invalidate(entity.getHash());
+        }
+    }
+
+    @Override
+    public void updateRecipientKey(final MessageHash hash, final byte[] recipientKey) {
+        try {
+            delegate.updateRecipientKey(hash, recipientKey);
+        } finally {
+            payloadCache.invalidate(hash);
+        }
+    }
+
+    @Override
+    public Optional<EncryptedTransaction> retrieveByHash(final MessageHash hash) {
+        final Optional<EncryptedTransaction> cached = payloadCache.get(hash);
+        if (cached.isPresent()) {
+            return cached;
+        }
+
+        try (PayloadCache.Read read = payloadCache.startRead()) {
+            return delegate.retrieveByHash(hash).map(read::put);
+        }
+    }
+
+    @Override
+    public List<EncryptedTransaction> findByHashes(final Collection<MessageHash> messageHashes) {
+        if (Objects.isNull(messageHashes) || messageHashes.isEmpty()) {
+            return Collections.emptyList();
+        }
+
+        final List<EncryptedTransaction> results = new ArrayList<>(messageHashes.size());
+        final Set<MessageHash> missing = new LinkedHashSet<>();
+        for (final MessageHash hash : messageHashes) {
+            payloadCache.get(hash).ifPresentOrElse(results::add, () -> missing.add(hash));
+        }
+        if (missing.isEmpty()) {
+            return results;
+        }
+
+        try (PayloadCache.Read read = payloadCache.startRead()) {
+            for (final EncryptedTransaction transaction : delegate.findByHashes(missing)) {
+                results.add(read.put(transaction));
+            }
+        }
+        return results;
+    }
+
+    @Override
+    public List<EncryptedTransaction> retrieveTransactions(final int offset, final int maxResult) {
+        return delegate.retrieveTransactions(offset, maxResult);
+    }
+
+    @Override
+    public List<EncryptedTransaction> retrieveTransactionsAfter(
+            final EncryptedTransaction previous, final int maxResult) {
+        return delegate.retrieveTransactionsAfter(previous, maxResult);
+    }
+
+    @Override
+    public long transactionCount() {
+        return delegate.transactionCount();
+    }
+
+    @Override
+    public void delete(final MessageHash hash) {
+        try {
+            delegate.delete(hash);
+        } finally {
+            payloadCache.invalidate(hash);
+        }
+    }
+
+    @Override
+    public <T> EncryptedTransaction save(final EncryptedTransaction transaction, final Callable<T> consumer) {
+        try {
+            return delegate.save(transaction, consumer);
+        } finally {
+            payloadCache.invalidate(transaction.getHash());
+        }
+    }
+
+    @Override
+    public boolean upcheck() {
+        return delegate.upcheck();
+    }
+}
@@ -100,6 +100,10 @@ public class EncryptedRawTransaction implements Serializable {
         return this.timestamp;
     }
 
+    void setTimestamp(final long timestamp) {
+        this.timestamp = timestamp;
+    }
+
     public byte[] getSender() {
         return sender;
     }
@@ -1,5 +1,7 @@
 package com.quorum.tessera.data;
 
+import com.quorum.tessera.enclave.EncodedPayload;
+
 import javax.persistence.*;
 import java.io.Serializable;
 import java.util.Objects;
@@ -14,13 +16,39 @@ import java.util.Objects;
     @NamedQuery(
             name = "EncryptedTransaction.FindByHash",
             query = "SELECT et FROM EncryptedTransaction et WHERE et.hash.hashBytes = :hash"),
+    @NamedQuery(
+            name = "EncryptedTransaction.UpdateRecipientKey",
+            query =
+                    "UPDATE EncryptedTransaction et SET et.recipientKey = :recipientKey "
+                            + "WHERE et.hash.hashBytes = :hash"),
     @NamedQuery(
             name = "EncryptedTransaction.FindAll",
             query = "select et from EncryptedTransaction et order by et.timestamp,et.hash"),
+    @NamedQuery(
+            name = "EncryptedTransaction.FindAllWithoutTimestamp",
+            query =
+                    "select et from EncryptedTransaction et where et.timestamp is null or et.timestamp = 0 "
+                            + "order by et.hash"),
+    @NamedQuery(
+            name = "EncryptedTransaction.FindWithoutTimestampAfter",
+            query =
+                    "select et from EncryptedTransaction et where (et.timestamp is null or et.timestamp = 0) "
+                            + "and et.hash.hashBytes > :hash order by et.hash"),
+    @NamedQuery(
+            name = "EncryptedTransaction.FindAllWithTimestamp",
+            query = "select et from EncryptedTransaction et where et.timestamp > 0 order by et.timestamp,et.hash"),
+    @NamedQuery(
+            name = "EncryptedTransaction.FindWithTimestampAfter",
+            query =
+                    "select et from EncryptedTransaction et where et.timestamp > :timestamp "
+                            + "or (et.timestamp = :timestamp and et.hash.hashBytes > :hash) "
+                            + "order by et.timestamp,et.hash"),
     @NamedQuery(name = "EncryptedTransaction.Upcheck", query = "select count(c) from EncryptedTransaction c")
 })
 @Entity
-@Table(name = "ENCRYPTED_TRANSACTION")
+@Table(
+        name = "ENCRYPTED_TRANSACTION",
+        indexes = @Index(name = "ENCRYPTED_TX_TIMESTAMP_HASH", columnList = "TIMESTAMP,HASH"))
 public class EncryptedTransaction implements Serializable {
 
     @EmbeddedId
@@ -36,6 +64,17 @@ public class EncryptedTransaction implements Serializable {
     @Column(name = "TIMESTAMP", updatable = false)
     private long timestamp;
 
+    /**
+     * The local public key that was last able to open this transaction's recipient box, if known. Rows stored before
+     * this column existed have no value, and are filled in the first time a search for the key succeeds.
+     */
+    @Lob
+    @Column(name = "RECIPIENT_KEY")
+    private byte[] recipientKey;
+
+    /** The decoded form of the encoded payload, if it was decoded when this instance was read */
+    @Transient private transient EncodedPayload decodedPayload;
+
     public EncryptedTransaction(final MessageHash hash, final byte[] encodedPayload) {
         this.hash = hash;
         this.encodedPayload = encodedPayload;
@@ -62,12 +101,38 @@ public class EncryptedTransaction implements Serializable {
 
     public void setEncodedPayload(final byte[] encodedPayload) {
         this.encodedPayload = encodedPayload;
+        this.decodedPayload = null;
     }
 
     public long getTimestamp() {
         return this.timestamp;
     }
 
+    void setTimestamp(final long timestamp) {
+        this.timestamp = timestamp;
+    }
+
+    public byte[] getRecipientKey() {
+        return this.recipientKey;
+    }
+
+    public void setRecipientKey(final byte[] recipientKey) {
+        this.recipientKey = recipientKey;
+    }
+
+    /**
+     * Returns the encoded payload as already decoded when it was read, so that callers can skip decoding it again.
+     *
+     * @return the decoded payload, or {@code null} if it has not been decoded
+     */
+    public EncodedPayload getDecodedPayload() {
+        return this.decodedPayload;
+    }
+
+    void setDecodedPayload(final EncodedPayload decodedPayload) {
+        this.decodedPayload = decodedPayload;
+    }
+
     @Override
     public int hashCode() {
         return 47 * 3 + Objects.hashCode(this.hash);
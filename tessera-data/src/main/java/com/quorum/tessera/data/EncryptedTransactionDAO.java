@@ -24,6 +24,15 @@ public interface EncryptedTransactionDAO {
      */
     EncryptedTransaction update(EncryptedTransaction entity);
 
+    /**
+     * Records the local key able to decrypt a transaction, leaving the rest of the stored transaction as it is. Does
+     * nothing if no transaction has the given hash.
+     *
+     * @param hash the hash of the transaction
+     * @param recipientKey the local public key that decrypts the transaction
+     */
+    void updateRecipientKey(MessageHash hash, byte[] recipientKey);
+
     /**
      * Retrieve a transaction based on its hash
      *
@@ -49,6 +58,20 @@ public interface EncryptedTransactionDAO {
      */
     List<EncryptedTransaction> retrieveTransactions(int offset, int maxResult);
 
+    /**
+     * Retrieves the transactions that follow the given one, ordered by timestamp and then by hash. Each page is found
+     * by seeking past the previous one rather than skipping rows, so the cost of a page does not grow with its position
+     * in the table. This should be preferred over {@link #retrieveTransactions(int, int)} when walking all
+     * transactions.
+     *
+     * <p>Transactions without a timestamp, stored by versions that did not record one, are returned first.
+     *
+     * @param previous the last transaction of the previous page, or {@code null} to start from the beginning
+     * @param maxResult the maximum number of records to return
+     * @return The list of requested rows from the database, which is empty once all rows have been read
+     */
+    List<EncryptedTransaction> retrieveTransactionsAfter(EncryptedTransaction previous, int maxResult);
+
     /**
      * Retrieve the total transaction count.
      *
@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityNotFoundException;
 import javax.persistence.PersistenceException;
+import javax.persistence.TypedQuery;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
@@ -23,6 +24,10 @@ public class EncryptedTransactionDAOImpl implements EncryptedTransactionDAO {
         this.entityManagerTemplate = new EntityManagerTemplate(entityManagerFactory);
     }
 
+    public EncryptedTransactionDAOImpl(EntityManagerFactory entityManagerFactory, int fetchSize) {
+        this.entityManagerTemplate = new EntityManagerTemplate(entityManagerFactory, fetchSize);
+    }
+
     @Override
     public EncryptedTransaction save(final EncryptedTransaction entity) {
         return entityManagerTemplate.execute(
@@ -43,6 +48,18 @@ public class EncryptedTransactionDAOImpl implements EncryptedTransactionDAO {
                 });
     }
 
+    @Override
+    public void updateRecipientKey(final MessageHash hash, final byte[] recipientKey) {
+        entityManagerTemplate.execute(
+                entityManager ->
+                        entityManager
+                                .createNamedQuery("EncryptedTransaction.UpdateRecipientKey")
+                                .setParameter("recipientKey", recipientKey)
+                                .setParameter("hash", hash.getHashBytes())
+                                .executeUpdate());
+        LOGGER.debug("Updated recipient key of transaction {}", hash);
+    }
+
     @Override
     public Optional<EncryptedTransaction> retrieveByHash(final MessageHash hash) {
         LOGGER.debug("Retrieving payload with hash {}", hash);
@@ -67,6 +84,60 @@ public class EncryptedTransactionDAOImpl implements EncryptedTransactionDAO {
                                 .getResultList());
     }
 
+    @Override
+    public List<EncryptedTransaction> retrieveTransactionsAfter(
+            final EncryptedTransaction previous, final int maxResult) {
+        LOGGER.debug(
+                "Fetching batch(after:{},maxResult:{}) EncryptedTransaction database rows",
+                Optional.ofNullable(previous).map(EncryptedTransaction::getHash).orElse(null),
+                maxResult);
+
+        return entityManagerTemplate.execute(
+                entityManager -> {
+                    final List<EncryptedTransaction> results = new ArrayList<>(Math.min(maxResult, 1024));
+
+                    // rows without a timestamp are all read before any with one
+                    final boolean previousHasTimestamp = previous != null && previous.getTimestamp() > 0;
+                    if (!previousHasTimestamp) {
+                        final TypedQuery<EncryptedTransaction> query;
+                        if (previous == null) {
+                            query =
+                                    entityManager.createNamedQuery(
+                                            "EncryptedTransaction.FindAllWithoutTimestamp", EncryptedTransaction.class);
+                        } else {
+                            query =
+                                    entityManager
+                                            .createNamedQuery(
+                                                    "EncryptedTransaction.FindWithoutTimestampAfter",
+                                                    EncryptedTransaction.class)
+                                            .setParameter("hash", previous.getHash().getHashBytes());
+                        }
+                        results.addAll(query.setMaxResults(maxResult).getResultList());
+
+                        if (results.size() < maxResult) {
+                            results.addAll(
+                                    entityManager
+                                            .createNamedQuery(
+                                                    "EncryptedTransaction.FindAllWithTimestamp",
+                                                    EncryptedTransaction.class)
+                                            .setMaxResults(maxResult - results.size())
+                                            .getResultList());
+                        }
+                        return results;
+                    }
+
+                    results.addAll(
+                            entityManager
+                                    .createNamedQuery(
+                                            "EncryptedTransaction.FindWithTimestampAfter", EncryptedTransaction.class)
+                                    .setParameter("timestamp", previous.getTimestamp())
+                                    .setParameter("hash", previous.getHash().getHashBytes())
+                                    .setMaxResults(maxResult)
+                                    .getResultList());
+                    return results;
+                });
+    }
+
     @Override
     public long transactionCount() {
         return entityManagerTemplate.execute(
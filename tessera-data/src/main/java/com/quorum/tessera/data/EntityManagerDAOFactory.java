@@ -1,13 +1,27 @@
 package com.quorum.tessera.data;
 
 import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.config.JdbcPerformanceConfig;
+import com.quorum.tessera.config.LogStoreConfig;
+import com.quorum.tessera.data.logstore.LogStore;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
 import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.quorum.tessera.config.util.EncryptedStringResolver;
 import com.quorum.tessera.data.staging.StagingEntityDAO;
@@ -21,42 +35,73 @@ public class EntityManagerDAOFactory {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EntityManagerDAOFactory.class);
 
+    private static final int STAGING_BATCH_WRITING_SIZE = 100;
+
+    static final String PAYLOAD_CACHE_MBEAN_NAME = "com.quorum.tessera:type=PayloadCache";
+
+    /**
+     * The payload caches in use, by database URL. Several factories may be created for the same database, and their
+     * DAOs must share a cache so that a write through any one of them invalidates the entries seen by the others.
+     */
+    private static final Map<String, PayloadCache> PAYLOAD_CACHES = new ConcurrentHashMap<>();
+
+    /**
+     * The DAOs over log stores in use, by directory. A store can only be opened once, and its DAOs keep state in memory
+     * that must be shared by every factory.
+     */
+    private static final Map<Path, LogStoreEncryptedTransactionDAO> TRANSACTION_LOG_STORES = new ConcurrentHashMap<>();
+
+    private static final Map<Path, LogStoreEncryptedRawTransactionDAO> RAW_TRANSACTION_LOG_STORES =
+            new ConcurrentHashMap<>();
+
     private final EntityManagerFactory entityManagerFactory;
 
     private final EntityManagerFactory stagingEntityManagerFactory;
 
+    private final int fetchSize;
+
+    private final PayloadCache payloadCache;
+
+    private final boolean blobStorage;
+
+    private final LogStoreConfig logStoreConfig;
+
     private EntityManagerDAOFactory(
-            EntityManagerFactory entityManagerFactory, EntityManagerFactory stagingEntityManagerFactory) {
+            EntityManagerFactory entityManagerFactory,
+            EntityManagerFactory stagingEntityManagerFactory,
+            int fetchSize,
+            PayloadCache payloadCache,
+            boolean blobStorage,
+            LogStoreConfig logStoreConfig) {
         this.entityManagerFactory = Objects.requireNonNull(entityManagerFactory);
         this.stagingEntityManagerFactory = Objects.requireNonNull(stagingEntityManagerFactory);
+        this.fetchSize = fetchSize;
+        this.payloadCache = payloadCache;
+        this.blobStorage = blobStorage;
+        this.logStoreConfig = logStoreConfig;
     }
 
     public static EntityManagerDAOFactory newFactory(Config config) {
         LOGGER.debug("New EntityManagerDAOFactory from {}", config);
-        final String username = config.getJdbcConfig().getUsername();
-        final String password = config.getJdbcConfig().getPassword();
+        final JdbcConfig jdbcConfig = config.getJdbcConfig();
+        final String username = jdbcConfig.getUsername();
+        final String password = jdbcConfig.getPassword();
 
         final EncryptedStringResolver resolver = new EncryptedStringResolver();
-        final String url = resolver.resolve(config.getJdbcConfig().getUrl());
+        final String url = resolver.resolve(jdbcConfig.getUrl());
 
-        final HikariConfig hikariConfig = new HikariConfig();
-        hikariConfig.setJdbcUrl(url);
-        hikariConfig.setUsername(username);
-        hikariConfig.setPassword(password);
+        final JdbcPerformanceConfig performance =
+                Optional.ofNullable(jdbcConfig.getPerformance()).orElseGet(JdbcPerformanceConfig::new);
 
-        final DataSource dataSource = new HikariDataSource(hikariConfig);
+        final DataSource dataSource = new HikariDataSource(createHikariConfig(url, username, password, performance));
 
-        Map properties = new HashMap();
+        final Map<String, Object> properties = createPersistenceProperties(performance);
 
         properties.put("javax.persistence.nonJtaDataSource", dataSource);
 
-        properties.put("eclipselink.logging.logger", "org.eclipse.persistence.logging.slf4j.SLF4JLogger");
-        properties.put("eclipselink.logging.level", "FINE");
-        properties.put("eclipselink.logging.parameters", "true");
-        properties.put("eclipselink.logging.level.sql", "FINE");
         properties.put(
                 "javax.persistence.schema-generation.database.action",
-                config.getJdbcConfig().isAutoCreateTables() ? "create" : "none");
+                jdbcConfig.isAutoCreateTables() ? "create" : "none");
 
         LOGGER.debug("Creating EntityManagerFactory from {}", properties);
         final EntityManagerFactory entityManagerFactory = Persistence.createEntityManagerFactory("tessera", properties);
@@ -65,25 +110,167 @@ public class EntityManagerDAOFactory {
         final Map stagingProperties = new HashMap(properties);
         stagingProperties.put("eclipselink.session.customizer", "com.quorum.tessera.eclipselink.AtomicLongSequence");
         stagingProperties.put("javax.persistence.schema-generation.database.action", "drop-and-create");
+        // staged payloads arrive in batches of thousands, so send the inserts to the database in groups
+        stagingProperties.put("eclipselink.jdbc.batch-writing", "JDBC");
+        stagingProperties.put("eclipselink.jdbc.batch-writing.size", String.valueOf(STAGING_BATCH_WRITING_SIZE));
 
         final EntityManagerFactory stagingEntityManagerFactory =
                 Persistence.createEntityManagerFactory("tessera-recover", stagingProperties);
 
-        return new EntityManagerDAOFactory(entityManagerFactory, stagingEntityManagerFactory);
+        final long payloadCacheSize = jdbcConfig.getPayloadCacheSize();
+        final PayloadCache payloadCache =
+                payloadCacheSize > 0
+                        ? PAYLOAD_CACHES.computeIfAbsent(url, k -> createPayloadCache(payloadCacheSize))
+                        : null;
+
+        return new EntityManagerDAOFactory(
+                entityManagerFactory,
+                stagingEntityManagerFactory,
+                jdbcConfig.getFetchSize(),
+                payloadCache,
+                jdbcConfig.isBlobStorage(),
+                jdbcConfig.getLogStore());
+    }
+
+    static HikariConfig createHikariConfig(
+            String url, String username, String password, JdbcPerformanceConfig performance) {
+        final HikariConfig hikariConfig = new HikariConfig();
+        hikariConfig.setJdbcUrl(url);
+        hikariConfig.setUsername(username);
+        hikariConfig.setPassword(password);
+
+        Optional.ofNullable(performance.getMaximumPoolSize()).ifPresent(hikariConfig::setMaximumPoolSize);
+        Optional.ofNullable(performance.getMinimumIdle()).ifPresent(hikariConfig::setMinimumIdle);
+        Optional.ofNullable(performance.getConnectionTimeout()).ifPresent(hikariConfig::setConnectionTimeout);
+        Optional.ofNullable(performance.getIdleTimeout()).ifPresent(hikariConfig::setIdleTimeout);
+        Optional.ofNullable(performance.getMaxLifetime()).ifPresent(hikariConfig::setMaxLifetime);
+
+        final Integer statementCacheSize = performance.getStatementCacheSize();
+        if (statementCacheSize != null) {
+            // each driver has its own setting for its prepared statement cache
+            if (url.startsWith("jdbc:h2:")) {
+                hikariConfig.addDataSourceProperty("QUERY_CACHE_SIZE", statementCacheSize);
+            } else if (url.startsWith("jdbc:postgresql:")) {
+                hikariConfig.addDataSourceProperty("preparedStatementCacheQueries", statementCacheSize);
+            } else if (url.startsWith("jdbc:mysql:") || url.startsWith("jdbc:mariadb:")) {
+                hikariConfig.addDataSourceProperty("cachePrepStmts", statementCacheSize > 0);
+                hikariConfig.addDataSourceProperty("prepStmtCacheSize", statementCacheSize);
+            } else {
+                LOGGER.warn("Statement cache size is not supported for database {}, ignoring it", url);
+            }
+        }
+        return hikariConfig;
+    }
+
+    static Map<String, Object> createPersistenceProperties(JdbcPerformanceConfig performance) {
+        final Map<String, Object> properties = new HashMap<>();
+
+        final String loggingLevel =
+                Optional.ofNullable(performance.getLoggingLevel()).map(String::toUpperCase).orElse("OFF");
+        properties.put("eclipselink.logging.logger", "org.eclipse.persistence.logging.slf4j.SLF4JLogger");
+        properties.put("eclipselink.logging.level", loggingLevel);
+        properties.put("eclipselink.logging.level.sql", loggingLevel);
+        // binding parameters are only logged when statements are, as formatting them costs time on every query
+        properties.put(
+                "eclipselink.logging.parameters",
+                String.valueOf(Set.of("FINE", "FINER", "FINEST", "ALL").contains(loggingLevel)));
+
+        if (performance.getBatchWritingSize() > 0) {
+            properties.put("eclipselink.jdbc.batch-writing", "JDBC");
+            properties.put("eclipselink.jdbc.batch-writing.size", String.valueOf(performance.getBatchWritingSize()));
+        }
+        return properties;
+    }
+
+    /**
+     * Creates a payload cache and publishes its statistics over JMX. Failure to register is not fatal, as the
+     * statistics are informational only.
+     */
+    private static PayloadCache createPayloadCache(long payloadCacheSize) {
+        LOGGER.info("Caching up to {} bytes of payloads", payloadCacheSize);
+        final PayloadCache payloadCache = new PayloadCache(payloadCacheSize);
+        try {
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = new ObjectName(PAYLOAD_CACHE_MBEAN_NAME);
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(payloadCache, objectName);
+        } catch (JMException ex) {
+            LOGGER.warn("Unable to register payload cache metrics", ex);
+        }
+        return payloadCache;
+    }
+
+    /**
+     * Opens a log store with the configured settings, using the defaults of the store for any not given. The store is
+     * shared for as long as the application runs, so it is closed when the JVM shuts down.
+     */
+    private static LogStore openLogStore(Path directory, LogStoreConfig logStoreConfig) {
+        final LogStore logStore;
+        try {
+            logStore =
+                    new LogStore(
+                            directory,
+                            Optional.ofNullable(logStoreConfig.getSegmentSize()).orElse(LogStore.DEFAULT_SEGMENT_SIZE),
+                            logStoreConfig.isSyncWrites(),
+                            Optional.ofNullable(logStoreConfig.getCompactionThreshold())
+                                    .orElse(LogStore.DEFAULT_COMPACTION_THRESHOLD));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> closeLogStore(directory, logStore)));
+        return logStore;
+    }
+
+    private static void closeLogStore(Path directory, LogStore logStore) {
+        try {
+            logStore.close();
+        } catch (IOException ex) {
+            LOGGER.warn("Unable to close log store {}", directory, ex);
+        }
     }
 
     public EncryptedTransactionDAO createEncryptedTransactionDAO() {
         LOGGER.debug("Create EncryptedTransactionDAO");
-        return new EncryptedTransactionDAOImpl(entityManagerFactory);
+        final EncryptedTransactionDAO encryptedTransactionDAO;
+        if (logStoreConfig != null) {
+            encryptedTransactionDAO =
+                    TRANSACTION_LOG_STORES.computeIfAbsent(
+                            logStoreConfig.getDirectory().resolve("transactions").toAbsolutePath().normalize(),
+                            directory -> new LogStoreEncryptedTransactionDAO(openLogStore(directory, logStoreConfig)));
+        } else if (blobStorage) {
+            encryptedTransactionDAO = new BlobStoreEncryptedTransactionDAO(entityManagerFactory, fetchSize);
+        } else {
+            encryptedTransactionDAO = new EncryptedTransactionDAOImpl(entityManagerFactory, fetchSize);
+        }
+        if (payloadCache == null) {
+            return encryptedTransactionDAO;
+        }
+        return new CachingEncryptedTransactionDAO(encryptedTransactionDAO, payloadCache);
     }
 
     public EncryptedRawTransactionDAO createEncryptedRawTransactionDAO() {
         LOGGER.debug("Create EncryptedRawTransactionDAO");
+        if (logStoreConfig != null) {
+            return RAW_TRANSACTION_LOG_STORES.computeIfAbsent(
+                    logStoreConfig.getDirectory().resolve("raw-transactions").toAbsolutePath().normalize(),
+                    directory -> new LogStoreEncryptedRawTransactionDAO(openLogStore(directory, logStoreConfig)));
+        }
         return new EncryptedRawTransactionDAOImpl(entityManagerFactory);
     }
 
+    public OutboxDAO createOutboxDAO() {
+        LOGGER.debug("Create OutboxDAO");
+        if (logStoreConfig == null && !blobStorage) {
+            // the transaction and its deliveries can be written in one database transaction
+            return new OutboxDAOImpl(entityManagerFactory);
+        }
+        return new OutboxDAOImpl(entityManagerFactory, createEncryptedTransactionDAO());
+    }
+
     public StagingEntityDAO createStagingEntityDAO() {
         LOGGER.debug("Create StagingEntityDAO");
-        return new StagingEntityDAOImpl(stagingEntityManagerFactory);
+        return new StagingEntityDAOImpl(stagingEntityManagerFactory, fetchSize);
     }
 }
@@ -1,21 +1,40 @@
 package com.quorum.tessera.data;
 
+import org.eclipse.persistence.config.HintValues;
+import org.eclipse.persistence.config.QueryHints;
+import org.eclipse.persistence.queries.CursoredStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.EntityTransaction;
+import javax.persistence.TypedQuery;
+import java.util.Iterator;
 import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class EntityManagerTemplate {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(EntityManagerTemplate.class);
 
+    /** The number of rows fetched at a time when streaming, if none has been configured */
+    static final int DEFAULT_FETCH_SIZE = 100;
+
     private EntityManagerFactory entityManagerFactory;
 
+    private final int fetchSize;
+
     public EntityManagerTemplate(EntityManagerFactory entityManagerFactory) {
+        this(entityManagerFactory, DEFAULT_FETCH_SIZE);
+    }
+
+    public EntityManagerTemplate(EntityManagerFactory entityManagerFactory, int fetchSize) {
         this.entityManagerFactory = Objects.requireNonNull(entityManagerFactory);
+        this.fetchSize = fetchSize > 0 ? fetchSize : DEFAULT_FETCH_SIZE;
     }
 
     public <T> T execute(EntityManagerCallback<T> callback) {
@@ -39,4 +58,86 @@ public class EntityManagerTemplate {
             entityManager.close();
         }
     }
+
+    /**
+     * Runs the query created by the callback over a database cursor, returning the results as they are read rather than
+     * loading them all at once. Rows are fetched from the database in batches of the configured fetch size, and are not
+     * kept by the persistence context once read, so memory use does not grow with the number of results.
+     *
+     * <p>The stream holds a database connection until it is closed, so must be closed by the caller, preferably with a
+     * try-with-resources block.
+     *
+     * @param callback creates the query to run
+     * @param <T> the type of the query results
+     * @return a stream over the query results
+     */
+    public <T> Stream<T> stream(EntityManagerCallback<TypedQuery<T>> callback) {
+        LOGGER.debug("Enter stream callback");
+        final EntityManager entityManager = entityManagerFactory.createEntityManager();
+        final EntityTransaction transaction = entityManager.getTransaction();
+        transaction.begin();
+        try {
+            final Object result =
+                    callback.execute(entityManager)
+                            .setHint(QueryHints.CURSOR, HintValues.TRUE)
+                            .setHint(QueryHints.CURSOR_PAGE_SIZE, fetchSize)
+                            .setHint(QueryHints.JDBC_FETCH_SIZE, fetchSize)
+                            .setHint(QueryHints.READ_ONLY, HintValues.TRUE)
+                            .setHint(QueryHints.MAINTAIN_CACHE, HintValues.FALSE)
+                            .getSingleResult();
+
+            final CursoredStream cursor = (CursoredStream) result;
+
+            final Iterator<T> iterator =
+                    new Iterator<>() {
+
+                        private int read;
+
+                        @Override
+                        public boolean hasNext() {
+                            return cursor.hasNext();
+                        }
+
+                        @Override
+                        @SuppressWarnings("unchecked")
+                        public T next() {
+                            final T next = (T) cursor.next();
+                            // the cursor keeps everything it has read until told otherwise
+                            if (++read % fetchSize == 0) {
+                                cursor.releasePrevious();
+                            }
+                            return next;
+                        }
+                    };
+
+            final Spliterator<T> spliterator =
+                    Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL);
+
+            return StreamSupport.stream(spliterator, false)
+                    .onClose(
+                            () -> {
+                                try {
+                                    cursor.close();
+                                } finally {
+                                    release(entityManager, transaction);
+                                }
+                            });
+        } catch (Exception ex) {
+            LOGGER.warn("JPA exception thrown during execution {}", ex.getMessage());
+            LOGGER.debug("", ex);
+            release(entityManager, transaction);
+            throw ex;
+        }
+    }
+
+    private static void release(EntityManager entityManager, EntityTransaction transaction) {
+        try {
+            // nothing is written while streaming
+            if (transaction.isActive()) {
+                transaction.rollback();
+            }
+        } finally {
+            entityManager.close();
+        }
+    }
 }
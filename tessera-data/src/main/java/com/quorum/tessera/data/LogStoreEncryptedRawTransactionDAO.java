@@ -0,0 +1,107 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.data.logstore.LogStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityExistsException;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.PersistenceException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/** An {@link EncryptedRawTransactionDAO} that keeps raw transactions in a {@link LogStore}, keyed by hash */
+public class LogStoreEncryptedRawTransactionDAO implements EncryptedRawTransactionDAO {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogStoreEncryptedRawTransactionDAO.class);
+
+    private final LogStore logStore;
+
+    public LogStoreEncryptedRawTransactionDAO(final LogStore logStore) {
+        this.logStore = Objects.requireNonNull(logStore);
+    }
+
+    @Override
+    public synchronized EncryptedRawTransaction save(final EncryptedRawTransaction entity) {
+        if (entity.getHash() == null || entity.getHash().getHashBytes() == null) {
+            throw new PersistenceException("HASH is required");
+        }
+        final boolean missingField =
+                Stream.of(entity.getEncryptedPayload(), entity.getEncryptedKey(), entity.getNonce(), entity.getSender())
+                        .anyMatch(Objects::isNull);
+        if (missingField) {
+            throw new PersistenceException("ENCRYPTED_PAYLOAD, ENCRYPTED_KEY, NONCE and SENDER are required");
+        }
+        if (logStore.contains(entity.getHash().getHashBytes())) {
+            throw new EntityExistsException("Raw transaction " + entity.getHash() + " is already stored");
+        }
+
+        entity.setTimestamp(System.currentTimeMillis());
+        logStore.put(entity.getHash().getHashBytes(), encode(entity));
+        LOGGER.debug("Stored raw transaction {}", entity.getHash());
+        return entity;
+    }
+
+    @Override
+    public Optional<EncryptedRawTransaction> retrieveByHash(final MessageHash hash) {
+        LOGGER.debug("Retrieving payload with hash {}", hash);
+        return logStore.get(hash.getHashBytes()).map(value -> decode(hash, value));
+    }
+
+    @Override
+    public synchronized void delete(final MessageHash hash) {
+        LOGGER.info("Deleting transaction with hash {}", hash);
+        if (!logStore.delete(hash.getHashBytes())) {
+            throw new EntityNotFoundException();
+        }
+    }
+
+    @Override
+    public boolean upcheck() {
+        return logStore.isOpen();
+    }
+
+    private static byte[] encode(final EncryptedRawTransaction transaction) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeLong(transaction.getTimestamp());
+            for (final byte[] field :
+                    new byte[][] {
+                        transaction.getEncryptedPayload(),
+                        transaction.getEncryptedKey(),
+                        transaction.getNonce(),
+                        transaction.getSender()
+                    }) {
+                output.writeInt(field.length);
+                output.write(field);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static EncryptedRawTransaction decode(final MessageHash hash, final byte[] value) {
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(value))) {
+            final long timestamp = input.readLong();
+            final EncryptedRawTransaction transaction =
+                    new EncryptedRawTransaction(
+                            hash,
+                            input.readNBytes(input.readInt()),
+                            input.readNBytes(input.readInt()),
+                            input.readNBytes(input.readInt()),
+                            input.readNBytes(input.readInt()));
+            transaction.setTimestamp(timestamp);
+            return transaction;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
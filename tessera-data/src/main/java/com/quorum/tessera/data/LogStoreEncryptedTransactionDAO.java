@@ -0,0 +1,251 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.data.logstore.LogStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityExistsException;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.PersistenceException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * An {@link EncryptedTransactionDAO} that keeps transactions in a {@link LogStore} rather than a database, keyed by
+ * transaction hash. The order of transactions by timestamp and hash is kept in memory, and rebuilt from the store when
+ * it is opened.
+ *
+ * <p>Each write is a single atomic operation on the store, and no lock is held here while the store syncs it to disk,
+ * so concurrent writers can share an fsync.
+ */
+public class LogStoreEncryptedTransactionDAO implements EncryptedTransactionDAO {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogStoreEncryptedTransactionDAO.class);
+
+    private static final Comparator<Position> ORDER =
+            Comparator.comparingLong((Position position) -> position.timestamp)
+                    .thenComparing(position -> position.hash, Arrays::compareUnsigned);
+
+    private final LogStore logStore;
+
+    private final ConcurrentSkipListSet<Position> positions = new ConcurrentSkipListSet<>(ORDER);
+
+    public LogStoreEncryptedTransactionDAO(final LogStore logStore) {
+        this.logStore = Objects.requireNonNull(logStore);
+        // each value starts with the timestamp, which is all that is needed to place the transaction
+        logStore.forEachPrefix(Long.BYTES, (hash, prefix) -> positions.add(new Position(timestamp(prefix), hash)));
+    }
+
+    @Override
+    public EncryptedTransaction save(final EncryptedTransaction entity) {
+        validate(entity);
+
+        entity.setTimestamp(System.currentTimeMillis());
+        if (!logStore.putIfAbsent(entity.getHash().getHashBytes(), encode(entity))) {
+            throw new EntityExistsException("Transaction " + entity.getHash() + " is already stored");
+        }
+        positions.add(new Position(entity));
+        LOGGER.debug("Stored transaction {}", entity.getHash());
+        return entity;
+    }
+
+    @Override
+    public EncryptedTransaction update(final EncryptedTransaction entity) {
+        validate(entity);
+
+        // as with the database, the timestamp is set when the transaction is first stored and never changed
+        final long now = System.currentTimeMillis();
+        final Optional<byte[]> existing =
+                logStore.getAndUpdate(
+                        entity.getHash().getHashBytes(),
+                        current -> {
+                            final EncryptedTransaction updated =
+                                    new EncryptedTransaction(entity.getHash(), entity.getEncodedPayload());
+                            updated.setRecipientKey(entity.getRecipientKey());
+                            updated.setTimestamp(current == null ? now : timestamp(current));
+                            return encode(updated);
+                        });
+        if (existing.isEmpty()) {
+            positions.add(new Position(now, entity.getHash().getHashBytes()));
+        }
+        LOGGER.debug("Updated transaction {}", entity.getHash());
+        return entity;
+    }
+
+    @Override
+    public void updateRecipientKey(final MessageHash hash, final byte[] recipientKey) {
+        final Optional<byte[]> existing =
+                logStore.getAndUpdate(
+                        hash.getHashBytes(),
+                        current -> {
+                            if (current == null) {
+                                return null;
+                            }
+                            final EncryptedTransaction transaction = decode(hash.getHashBytes(), current);
+                            transaction.setRecipientKey(recipientKey);
+                            return encode(transaction);
+                        });
+        if (existing.isPresent()) {
+            LOGGER.debug("Updated recipient key of transaction {}", hash);
+        }
+    }
+
+    /**
+     * Stores the transaction and then runs the callback, removing the transaction again if the callback fails. Unlike
+     * the database, where the insert is only committed once the callback succeeds, the transaction is written to the
+     * store first, so with {@code syncWrites} it is on disk before the callback runs. A failed callback then costs a
+     * second write to delete it, and a crash while the callback runs leaves the transaction stored.
+     */
+    @Override
+    public <T> EncryptedTransaction save(final EncryptedTransaction transaction, final Callable<T> consumer) {
+        save(transaction);
+        try {
+            consumer.call();
+            return transaction;
+        } catch (Exception ex) {
+            // the transaction is only kept if the callback succeeds
+            delete(transaction.getHash());
+            if (ex instanceof RuntimeException) {
+                throw (RuntimeException) ex;
+            }
+            throw new PersistenceException(ex);
+        }
+    }
+
+    @Override
+    public Optional<EncryptedTransaction> retrieveByHash(final MessageHash hash) {
+        LOGGER.debug("Retrieving payload with hash {}", hash);
+        return logStore.get(hash.getHashBytes()).map(value -> decode(hash.getHashBytes(), value));
+    }
+
+    @Override
+    public List<EncryptedTransaction> findByHashes(final Collection<MessageHash> messageHashes) {
+        if (Objects.isNull(messageHashes) || messageHashes.isEmpty()) {
+            return Collections.emptyList();
+        }
+        return messageHashes.stream()
+                .distinct()
+                .map(this::retrieveByHash)
+                .flatMap(Optional::stream)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<EncryptedTransaction> retrieveTransactions(final int offset, final int maxResult) {
+        return read(positions.stream().skip(offset).limit(maxResult)).collect(Collectors.toList());
+    }
+
+    @Override
+    public List<EncryptedTransaction> retrieveTransactionsAfter(
+            final EncryptedTransaction previous, final int maxResult) {
+        final Collection<Position> following =
+                previous == null ? positions : positions.tailSet(new Position(previous), false);
+        return read(following.stream().limit(maxResult)).collect(Collectors.toList());
+    }
+
+    @Override
+    public long transactionCount() {
+        return logStore.size();
+    }
+
+    @Override
+    public void delete(final MessageHash hash) {
+        LOGGER.info("Deleting transaction with hash {}", hash);
+
+        final byte[] deleted =
+                logStore.getAndUpdate(hash.getHashBytes(), current -> null).orElseThrow(EntityNotFoundException::new);
+        positions.remove(new Position(timestamp(deleted), hash.getHashBytes()));
+    }
+
+    @Override
+    public boolean upcheck() {
+        return logStore.isOpen();
+    }
+
+    /** Reads the transactions at the given positions, skipping any deleted since the positions were taken */
+    private Stream<EncryptedTransaction> read(final Stream<Position> positions) {
+        return positions.map(position -> retrieveByHash(new MessageHash(position.hash))).flatMap(Optional::stream);
+    }
+
+    private static void validate(final EncryptedTransaction entity) {
+        if (entity.getHash() == null || entity.getHash().getHashBytes() == null) {
+            throw new PersistenceException("HASH is required");
+        }
+        if (entity.getEncodedPayload() == null) {
+            throw new PersistenceException("ENCODED_PAYLOAD is required");
+        }
+    }
+
+    /** Reads the timestamp from the start of a stored value */
+    private static long timestamp(final byte[] value) {
+        return ByteBuffer.wrap(value).getLong();
+    }
+
+    private static byte[] encode(final EncryptedTransaction transaction) {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream(transaction.getEncodedPayload().length + 64);
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeLong(transaction.getTimestamp());
+            output.writeInt(transaction.getEncodedPayload().length);
+            output.write(transaction.getEncodedPayload());
+            if (transaction.getRecipientKey() == null) {
+                output.writeInt(-1);
+            } else {
+                output.writeInt(transaction.getRecipientKey().length);
+                output.write(transaction.getRecipientKey());
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static EncryptedTransaction decode(final byte[] hash, final byte[] value) {
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(value))) {
+            final long timestamp = input.readLong();
+            final byte[] encodedPayload = input.readNBytes(input.readInt());
+            final int recipientKeyLength = input.readInt();
+
+            final EncryptedTransaction transaction = new EncryptedTransaction(new MessageHash(hash), encodedPayload);
+            transaction.setTimestamp(timestamp);
+            if (recipientKeyLength >= 0) {
+                transaction.setRecipientKey(input.readNBytes(recipientKeyLength));
+            }
+            return transaction;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /** The place of a transaction in the order transactions are read in */
+    private static final class Position {
+
+        private final long timestamp;
+
+        private final byte[] hash;
+
+        private Position(final long timestamp, final byte[] hash) {
+            this.timestamp = timestamp;
+            this.hash = hash;
+        }
+
+        private Position(final EncryptedTransaction transaction) {
+            this(transaction.getTimestamp(), transaction.getHash().getHashBytes());
+        }
+    }
+}
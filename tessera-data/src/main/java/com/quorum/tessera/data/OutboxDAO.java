@@ -0,0 +1,51 @@
+package com.quorum.tessera.data;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * A data store for transactions that are yet to be pushed to all of their recipients, so that they are delivered even
+ * if a recipient is offline when the transaction is sent
+ */
+public interface OutboxDAO {
+
+    /**
+     * Saves a new transaction along with the deliveries still to be made for it, all or none of which are persisted
+     *
+     * @param transaction the transaction to persist
+     * @param deliveries the deliveries to be made of the transaction
+     * @return the transaction that was persisted
+     */
+    EncryptedTransaction save(EncryptedTransaction transaction, Collection<PendingDelivery> deliveries);
+
+    /**
+     * Retrieves the deliveries whose next attempt is due, earliest first
+     *
+     * @param now the current time, in milliseconds since the epoch
+     * @param maxResults the maximum number of deliveries to retrieve
+     * @return the deliveries that are due
+     */
+    List<PendingDelivery> retrieveDue(long now, int maxResults);
+
+    /**
+     * Records the outcome of a failed attempt to make a delivery
+     *
+     * @param delivery the delivery, with its attempts and next attempt updated
+     */
+    void update(PendingDelivery delivery);
+
+    /**
+     * Removes deliveries that have been made, or can no longer be made. Deliveries that have already been removed are
+     * ignored.
+     *
+     * @param deliveries the deliveries to remove
+     */
+    void delete(Collection<PendingDelivery> deliveries);
+
+    /** @return the number of deliveries still to be made */
+    long count();
+
+    /** @return the time the oldest delivery still to be made was created, if there is one */
+    Optional<Long> oldestCreated();
+}
@@ -0,0 +1,118 @@
+package com.quorum.tessera.data;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/** A JPA implementation of {@link OutboxDAO} */
+public class OutboxDAOImpl implements OutboxDAO {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(OutboxDAOImpl.class);
+
+    private final EntityManagerTemplate entityManagerTemplate;
+
+    private final EncryptedTransactionDAO encryptedTransactionDAO;
+
+    /** Creates an outbox storing its transactions in the same database table as its deliveries */
+    public OutboxDAOImpl(EntityManagerFactory entityManagerFactory) {
+        this(entityManagerFactory, null);
+    }
+
+    /**
+     * Creates an outbox storing its transactions through the given DAO, for when they are not kept in the database table
+     * alongside the deliveries, such as in a log store or split into blobs.
+     */
+    public OutboxDAOImpl(EntityManagerFactory entityManagerFactory, EncryptedTransactionDAO encryptedTransactionDAO) {
+        this.entityManagerTemplate = new EntityManagerTemplate(entityManagerFactory);
+        this.encryptedTransactionDAO = encryptedTransactionDAO;
+    }
+
+    /**
+     * Stores the transaction and its deliveries. When the transaction is stored through a separate DAO the two cannot
+     * be written in one database transaction, so the transaction is stored first and deleted again if the deliveries
+     * cannot be stored. The dispatcher then never sees a delivery before its transaction.
+     */
+    @Override
+    public EncryptedTransaction save(
+            final EncryptedTransaction transaction, final Collection<PendingDelivery> deliveries) {
+        if (encryptedTransactionDAO != null) {
+            encryptedTransactionDAO.save(transaction);
+            try {
+                entityManagerTemplate.execute(
+                        entityManager -> {
+                            deliveries.forEach(entityManager::persist);
+                            return deliveries;
+                        });
+            } catch (RuntimeException ex) {
+                encryptedTransactionDAO.delete(transaction.getHash());
+                throw ex;
+            }
+            LOGGER.debug("Stored transaction {} with {} deliveries", transaction.getHash(), deliveries.size());
+            return transaction;
+        }
+        return entityManagerTemplate.execute(
+                entityManager -> {
+                    entityManager.persist(transaction);
+                    deliveries.forEach(entityManager::persist);
+                    LOGGER.debug("Stored transaction {} with {} deliveries", transaction.getHash(), deliveries.size());
+                    return transaction;
+                });
+    }
+
+    @Override
+    public List<PendingDelivery> retrieveDue(final long now, final int maxResults) {
+        return entityManagerTemplate.execute(
+                entityManager ->
+                        entityManager
+                                .createNamedQuery("PendingDelivery.FindDue", PendingDelivery.class)
+                                .setParameter("now", now)
+                                .setMaxResults(maxResults)
+                                .getResultList());
+    }
+
+    @Override
+    public void update(final PendingDelivery delivery) {
+        entityManagerTemplate.execute(
+                entityManager -> {
+                    if (entityManager.find(PendingDelivery.class, delivery.getId()) == null) {
+                        return null;
+                    }
+                    return entityManager.merge(delivery);
+                });
+    }
+
+    @Override
+    public void delete(final Collection<PendingDelivery> deliveries) {
+        entityManagerTemplate.execute(
+                entityManager -> {
+                    for (PendingDelivery delivery : deliveries) {
+                        final PendingDelivery found = entityManager.find(PendingDelivery.class, delivery.getId());
+                        if (found != null) {
+                            entityManager.remove(found);
+                        }
+                    }
+                    return deliveries;
+                });
+    }
+
+    @Override
+    public long count() {
+        return entityManagerTemplate.execute(
+                entityManager ->
+                        entityManager.createNamedQuery("PendingDelivery.Count", Long.class).getSingleResult());
+    }
+
+    @Override
+    public Optional<Long> oldestCreated() {
+        return entityManagerTemplate.execute(
+                entityManager ->
+                        Optional.ofNullable(
+                                entityManager
+                                        .createNamedQuery("PendingDelivery.OldestCreated", Long.class)
+                                        .getSingleResult()));
+    }
+}
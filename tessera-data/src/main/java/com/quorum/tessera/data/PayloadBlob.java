@@ -0,0 +1,63 @@
+package com.quorum.tessera.data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The JPA entity that holds the cipher text of a transaction stored in blob storage mode, keyed by the transaction
+ * hash. The hash is computed from the cipher text, so a blob never changes once written.
+ */
+@NamedQueries({
+    @NamedQuery(
+            name = "PayloadBlob.CountByHash",
+            query = "select count(b) from PayloadBlob b where b.hash.hashBytes = :hash"),
+    @NamedQuery(name = "PayloadBlob.DeleteByHash", query = "delete from PayloadBlob where hash.hashBytes = :hash")
+})
+@Entity
+@Table(name = "ENCRYPTED_TRANSACTION_BLOB")
+public class PayloadBlob implements Serializable {
+
+    @EmbeddedId
+    @AttributeOverride(
+            name = "hashBytes",
+            column = @Column(name = "HASH", nullable = false, unique = true, updatable = false))
+    private MessageHash hash;
+
+    @Lob
+    @Column(name = "CIPHER_TEXT", nullable = false, updatable = false)
+    private byte[] cipherText;
+
+    public PayloadBlob(final MessageHash hash, final byte[] cipherText) {
+        this.hash = hash;
+        this.cipherText = cipherText;
+    }
+
+    public PayloadBlob() {}
+
+    public MessageHash getHash() {
+        return this.hash;
+    }
+
+    public void setHash(final MessageHash hash) {
+        this.hash = hash;
+    }
+
+    public byte[] getCipherText() {
+        return this.cipherText;
+    }
+
+    public void setCipherText(final byte[] cipherText) {
+        this.cipherText = cipherText;
+    }
+
+    @Override
+    public int hashCode() {
+        return 47 * 3 + Objects.hashCode(this.hash);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return (obj instanceof PayloadBlob) && Objects.equals(this.hash, ((PayloadBlob) obj).hash);
+    }
+}
@@ -0,0 +1,293 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A least-recently-used cache of stored transactions along with their decoded payloads, keyed by transaction hash and
+ * bounded by the memory the cached payloads hold.
+ *
+ * <p>The cache keeps its own copy of each transaction's bytes, which its decoded payload reads from, and hands out a
+ * fresh {@link EncryptedTransaction} on every lookup, so that changes made by a caller to the returned entity are never
+ * seen by other callers. The returned entities share the cached bytes, which must not be modified.
+ *
+ * <p>A transaction read from the database is only added if it was not invalidated since the read began, so that a read
+ * racing with an update cannot put back a version that is already out of date. Invalidations are tracked by hash, and
+ * only for as long as a read that began before them is still in progress.
+ */
+public class PayloadCache implements PayloadCacheMBean {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PayloadCache.class);
+
+    private final long maximumWeight;
+
+    private final PayloadEncoder payloadEncoder;
+
+    private final LinkedHashMap<MessageHash, CachedTransaction> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** The generations at which the reads still in progress began, each with the number of reads begun at it */
+    private final TreeMap<Long, Integer> activeReads = new TreeMap<>();
+
+    /** The generation of the last invalidation of each transaction, oldest first, kept while an older read is active */
+    private final LinkedHashMap<MessageHash, Long> invalidations = new LinkedHashMap<>();
+
+    private long weight;
+
+    private long generation;
+
+    private long clearedAt;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    public PayloadCache(final long maximumWeight) {
+        this(maximumWeight, PayloadEncoder.create());
+    }
+
+    public PayloadCache(final long maximumWeight, final PayloadEncoder payloadEncoder) {
+        if (maximumWeight < 0) {
+            throw new IllegalArgumentException("Payload cache size cannot be negative");
+        }
+        this.maximumWeight = maximumWeight;
+        this.payloadEncoder = Objects.requireNonNull(payloadEncoder);
+    }
+
+    /**
+     * Fetches a copy of the cached transaction with the given hash
+     *
+     * @param hash the hash of the transaction
+     * @return a copy of the transaction with its decoded payload, or empty if it is not cached
+     */
+    public Optional<EncryptedTransaction> get(final MessageHash hash) {
+        final CachedTransaction cached;
+        synchronized (entries) {
+            cached = entries.get(hash);
+        }
+        if (cached == null) {
+            misses.increment();
+            return Optional.empty();
+        }
+        hits.increment();
+        return Optional.of(cached.toEntity());
+    }
+
+    /**
+     * Starts reading transactions from the database to add to the cache. The read must be started before the database
+     * is queried, and closed once the transactions read have been added.
+     *
+     * @return the read, through which the transactions are added
+     */
+    public Read startRead() {
+        synchronized (entries) {
+            activeReads.merge(generation, 1, Integer::sum);
+            return new Read(generation);
+        }
+    }
+
+    private EncryptedTransaction put(final EncryptedTransaction transaction, final long generation) {
+        final CachedTransaction cached;
+        try {
+            cached = new CachedTransaction(transaction, payloadEncoder);
+        } catch (RuntimeException ex) {
+            LOGGER.debug("Unable to decode payload of transaction {}, not caching it", transaction.getHash(), ex);
+            return transaction;
+        }
+
+        final long entryWeight = cached.weight();
+        if (entryWeight <= maximumWeight) {
+            synchronized (entries) {
+                if (!invalidatedSince(cached.hash, generation)) {
+                    final CachedTransaction previous = entries.put(cached.hash, cached);
+                    if (previous != null) {
+                        weight -= previous.weight();
+                    }
+                    weight += entryWeight;
+                    evict();
+                }
+            }
+        }
+        return cached.toEntity();
+    }
+
+    private boolean invalidatedSince(final MessageHash hash, final long generation) {
+        return clearedAt > generation || invalidations.getOrDefault(hash, generation) > generation;
+    }
+
+    private void endRead(final long generation) {
+        synchronized (entries) {
+            activeReads.computeIfPresent(generation, (g, count) -> count == 1 ? null : count - 1);
+
+            // invalidations made before the oldest read still in progress began cannot affect any read
+            final long oldest = activeReads.isEmpty() ? this.generation : activeReads.firstKey();
+            final Iterator<Long> iterator = invalidations.values().iterator();
+            while (iterator.hasNext() && iterator.next() <= oldest) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Removes the transaction with the given hash, which is about to change or has changed in the database
+     *
+     * @param hash the hash of the transaction
+     */
+    public void invalidate(final MessageHash hash) {
+        synchronized (entries) {
+            generation++;
+            if (!activeReads.isEmpty()) {
+                // moved to the end, keeping the invalidations in the order they were made
+                invalidations.remove(hash);
+                invalidations.put(hash, generation);
+            }
+            final CachedTransaction previous = entries.remove(hash);
+            if (previous != null) {
+                weight -= previous.weight();
+            }
+        }
+    }
+
+    /** Removes every entry in the cache */
+    public void clear() {
+        synchronized (entries) {
+            generation++;
+            clearedAt = generation;
+            invalidations.clear();
+            entries.clear();
+            weight = 0;
+        }
+    }
+
+    private void evict() {
+        final Iterator<CachedTransaction> iterator = entries.values().iterator();
+        while (weight > maximumWeight && iterator.hasNext()) {
+            weight -= iterator.next().weight();
+            iterator.remove();
+            evictions.increment();
+        }
+    }
+
+    @Override
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    @Override
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    @Override
+    public double getHitRatio() {
+        final long hitCount = hits.sum();
+        final long requestCount = hitCount + misses.sum();
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public int getSize() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    @Override
+    public long getWeight() {
+        synchronized (entries) {
+            return weight;
+        }
+    }
+
+    @Override
+    public long getMaximumWeight() {
+        return maximumWeight;
+    }
+
+    /** A read of transactions from the database, which adds the transactions read unless they have since changed */
+    public final class Read implements AutoCloseable {
+
+        private final long generation;
+
+        private boolean closed;
+
+        private Read(final long generation) {
+            this.generation = generation;
+        }
+
+        /**
+         * Decodes a transaction read from the database and adds it to the cache, unless it has been invalidated since
+         * the read started or its payload cannot be decoded.
+         *
+         * @param transaction the transaction that was read
+         * @return a copy of the transaction with its decoded payload, or the given transaction if it could not be
+         *     decoded
+         */
+        public EncryptedTransaction put(final EncryptedTransaction transaction) {
+            return PayloadCache.this.put(transaction, generation);
+        }
+
+        @Override
+        public void close() {
+            if (!closed) {
+                closed = true;
+                endRead(generation);
+            }
+        }
+    }
+
+    private static final class CachedTransaction {
+
+        private final MessageHash hash;
+
+        private final byte[] encodedPayload;
+
+        private final long timestamp;
+
+        private final byte[] recipientKey;
+
+        private final EncodedPayload decodedPayload;
+
+        private CachedTransaction(final EncryptedTransaction transaction, final PayloadEncoder payloadEncoder) {
+            this.hash = transaction.getHash();
+            this.encodedPayload = transaction.getEncodedPayload().clone();
+            this.timestamp = transaction.getTimestamp();
+            this.recipientKey =
+                    Optional.ofNullable(transaction.getRecipientKey()).map(byte[]::clone).orElse(null);
+            // decoded from the cached copy, which the decoded payload then refers to rather than keeping its own
+            this.decodedPayload = payloadEncoder.decode(encodedPayload);
+        }
+
+        /**
+         * The encoded bytes count twice, as the decoded payload copies each field out of them when it is first read,
+         * holding about as much again once the payload has been used.
+         */
+        private long weight() {
+            return 2L * encodedPayload.length + (recipientKey == null ? 0 : recipientKey.length);
+        }
+
+        private EncryptedTransaction toEntity() {
+            final EncryptedTransaction transaction = new EncryptedTransaction(hash, encodedPayload);
+            transaction.setTimestamp(timestamp);
+            transaction.setRecipientKey(recipientKey);
+            transaction.setDecodedPayload(decodedPayload);
+            return transaction;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.quorum.tessera.data;
+
+/** JMX view of the {@link PayloadCache} statistics */
+public interface PayloadCacheMBean {
+
+    long getHitCount();
+
+    long getMissCount();
+
+    double getHitRatio();
+
+    long getEvictionCount();
+
+    int getSize();
+
+    long getWeight();
+
+    long getMaximumWeight();
+}
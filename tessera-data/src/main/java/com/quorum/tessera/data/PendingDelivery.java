@@ -0,0 +1,90 @@
+package com.quorum.tessera.data;
+
+import javax.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * The JPA entity recording that a stored transaction has yet to be pushed to one of its recipients, and when the next
+ * attempt to push it is due
+ */
+@NamedQueries({
+    @NamedQuery(
+            name = "PendingDelivery.FindDue",
+            query = "select p from PendingDelivery p where p.nextAttempt <= :now order by p.nextAttempt"),
+    @NamedQuery(name = "PendingDelivery.Count", query = "select count(p) from PendingDelivery p"),
+    @NamedQuery(name = "PendingDelivery.OldestCreated", query = "select min(p.created) from PendingDelivery p")
+})
+@Entity
+@Table(name = "PENDING_DELIVERY", indexes = @Index(name = "PENDING_DELIVERY_NEXT_ATTEMPT", columnList = "NEXT_ATTEMPT"))
+public class PendingDelivery implements Serializable {
+
+    @EmbeddedId private PendingDeliveryId id;
+
+    @Column(name = "CREATED", nullable = false, updatable = false)
+    private long created;
+
+    @Column(name = "ATTEMPTS", nullable = false)
+    private int attempts;
+
+    @Column(name = "NEXT_ATTEMPT", nullable = false)
+    private long nextAttempt;
+
+    public PendingDelivery(final MessageHash hash, final byte[] recipientKey, final long created) {
+        this.id = new PendingDeliveryId(hash, recipientKey);
+        this.created = created;
+        this.nextAttempt = created;
+    }
+
+    public PendingDelivery() {}
+
+    public PendingDeliveryId getId() {
+        return id;
+    }
+
+    public void setId(final PendingDeliveryId id) {
+        this.id = id;
+    }
+
+    public MessageHash getHash() {
+        return id.getHash();
+    }
+
+    public byte[] getRecipientKey() {
+        return id.getRecipientKey();
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public void setCreated(final long created) {
+        this.created = created;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(final int attempts) {
+        this.attempts = attempts;
+    }
+
+    public long getNextAttempt() {
+        return nextAttempt;
+    }
+
+    public void setNextAttempt(final long nextAttempt) {
+        this.nextAttempt = nextAttempt;
+    }
+
+    @Override
+    public int hashCode() {
+        return 47 * 3 + Objects.hashCode(this.id);
+    }
+
+    @Override
+    public boolean equals(final Object obj) {
+        return (obj instanceof PendingDelivery) && Objects.equals(this.id, ((PendingDelivery) obj).id);
+    }
+}
@@ -0,0 +1,52 @@
+package com.quorum.tessera.data;
+
+import javax.persistence.Column;
+import javax.persistence.Embeddable;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.Base64;
+
+/** Identifies a delivery still to be made: the transaction, and the recipient it is to be pushed to */
+@Embeddable
+public class PendingDeliveryId implements Serializable {
+
+    @Column(name = "HASH", nullable = false, updatable = false, length = 100)
+    private byte[] hash;
+
+    @Column(name = "RECIPIENT_KEY", nullable = false, updatable = false, length = 100)
+    private byte[] recipientKey;
+
+    public PendingDeliveryId() {}
+
+    public PendingDeliveryId(final MessageHash hash, final byte[] recipientKey) {
+        this.hash = hash.getHashBytes();
+        this.recipientKey = Arrays.copyOf(recipientKey, recipientKey.length);
+    }
+
+    public MessageHash getHash() {
+        return new MessageHash(hash);
+    }
+
+    public byte[] getRecipientKey() {
+        return Arrays.copyOf(recipientKey, recipientKey.length);
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (!(o instanceof PendingDeliveryId)) {
+            return false;
+        }
+        final PendingDeliveryId that = (PendingDeliveryId) o;
+        return Arrays.equals(hash, that.hash) && Arrays.equals(recipientKey, that.recipientKey);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Arrays.hashCode(hash) + Arrays.hashCode(recipientKey);
+    }
+
+    @Override
+    public String toString() {
+        return Base64.getEncoder().encodeToString(hash) + " to " + Base64.getEncoder().encodeToString(recipientKey);
+    }
+}
@@ -0,0 +1,829 @@
+package com.quorum.tessera.data.logstore;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+/**
+ * An embedded key-value store that appends every write to a log of segment files, and keeps an in-memory hash index
+ * from each key to the place in the log that holds its latest value. Values are read straight from the log, through a
+ * memory mapping for every segment but the one being written to.
+ *
+ * <p>Each record is laid out as a CRC32 checksum, a sequence number, the key length, the value length (or -1 for a
+ * deletion), the key and the value. When the store is opened the segments are scanned to rebuild the index, and where
+ * a key appears more than once the record with the highest sequence number wins. A record that was only partly written
+ * when the process stopped fails its checksum, and the rest of that segment is ignored.
+ *
+ * <p>When syncing is on, each write waits until its record is on disk. Writers keep appending while a sync is under
+ * way, and a writer that finds one under way waits for it and then syncs everything written in the meantime, so
+ * concurrent writers share a single fsync. Conditional writes, such as {@link #putIfAbsent(byte[], byte[])}, check
+ * and append under the same lock, and also wait for their sync outside it.
+ *
+ * <p>Once the replaced and deleted records in the sealed segments pass the compaction threshold, the live records of
+ * all sealed segments are copied into new segments in the background, and the old segments are deleted. A marker file
+ * listing the segments involved is written before any segment is replaced, so that a compaction interrupted part way
+ * through is completed when the store is next opened.
+ */
+public class LogStore implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LogStore.class);
+
+    public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    public static final double DEFAULT_COMPACTION_THRESHOLD = 0.5;
+
+    /** Segments are memory-mapped, so must stay well within the size of a single mapping */
+    static final long MAXIMUM_SEGMENT_SIZE = 1024L * 1024 * 1024;
+
+    static final int HEADER_SIZE = 20;
+
+    static final String SEGMENT_SUFFIX = ".log";
+
+    static final String COMPACTING_SUFFIX = ".compacting";
+
+    static final String COMPACTION_MARKER = "compaction";
+
+    private static final int TOMBSTONE = -1;
+
+    /** Returned by a {@link Decision} to append nothing */
+    private static final byte[] UNCHANGED = new byte[0];
+
+    private final Path directory;
+
+    private final long segmentSize;
+
+    private final boolean syncWrites;
+
+    private final double compactionThreshold;
+
+    private final Map<Key, Location> index = new ConcurrentHashMap<>();
+
+    /** Guards the segments; records are appended under the write lock and read under the read lock */
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final List<Segment> sealed = new ArrayList<>();
+
+    private Segment active;
+
+    private boolean activeDamaged;
+
+    private long nextSegmentId;
+
+    private long nextSequence;
+
+    private long appendCount;
+
+    private boolean closed;
+
+    private final Object syncLock = new Object();
+
+    private long syncedCount;
+
+    /** Held while a compaction runs, so that only one runs at a time */
+    private final ReentrantLock compactionLock = new ReentrantLock();
+
+    private final ExecutorService compactor =
+            Executors.newSingleThreadExecutor(
+                    runnable -> {
+                        final Thread thread = new Thread(runnable, "log-store-compactor");
+                        thread.setDaemon(true);
+                        return thread;
+                    });
+
+    public LogStore(final Path directory) throws IOException {
+        this(directory, DEFAULT_SEGMENT_SIZE, true, DEFAULT_COMPACTION_THRESHOLD);
+    }
+
+    public LogStore(
+            final Path directory, final long segmentSize, final boolean syncWrites, final double compactionThreshold)
+            throws IOException {
+        if (segmentSize <= 0 || segmentSize > MAXIMUM_SEGMENT_SIZE) {
+            throw new IllegalArgumentException("Segment size must be between 1 and " + MAXIMUM_SEGMENT_SIZE);
+        }
+        if (compactionThreshold <= 0 || compactionThreshold > 1) {
+            throw new IllegalArgumentException("Compaction threshold must be above 0 and at most 1");
+        }
+        this.directory = Objects.requireNonNull(directory);
+        this.segmentSize = segmentSize;
+        this.syncWrites = syncWrites;
+        this.compactionThreshold = compactionThreshold;
+
+        Files.createDirectories(directory);
+        completeCompaction();
+        load();
+        active = Segment.create(nextSegmentId, segmentPath(nextSegmentId));
+        nextSegmentId++;
+
+        LOGGER.info("Opened log store {} with {} records in {} segments", directory, index.size(), sealed.size());
+    }
+
+    /**
+     * Fetches the value stored for a key
+     *
+     * @param key the key to look up
+     * @return the value, or empty if the key has no value
+     */
+    public Optional<byte[]> get(final byte[] key) {
+        return read(key, Integer.MAX_VALUE);
+    }
+
+    /** Reads up to the given number of bytes from the start of the value stored for a key */
+    private Optional<byte[]> read(final byte[] key, final int maxLength) {
+        lock.readLock().lock();
+        try {
+            ensureOpen();
+            final Location location = index.get(new Key(key));
+            if (location == null) {
+                return Optional.empty();
+            }
+            return Optional.of(
+                    location.segment.read(location.valueOffset(), Math.min(location.valueLength, maxLength)));
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean contains(final byte[] key) {
+        return index.containsKey(new Key(key));
+    }
+
+    /** @return the number of keys with a value */
+    public long size() {
+        return index.size();
+    }
+
+    /**
+     * Stores a value for a key, replacing any value it had
+     *
+     * @param key the key
+     * @param value the value to store
+     */
+    public void put(final byte[] key, final byte[] value) {
+        Objects.requireNonNull(value);
+        append(Objects.requireNonNull(key), current -> value);
+    }
+
+    /**
+     * Stores a value for a key, unless the key already has a value
+     *
+     * @param key the key
+     * @param value the value to store
+     * @return whether the value was stored
+     */
+    public boolean putIfAbsent(final byte[] key, final byte[] value) {
+        Objects.requireNonNull(value);
+        return append(Objects.requireNonNull(key), current -> current == null ? value : UNCHANGED) == null;
+    }
+
+    /**
+     * Replaces the value of a key with the one the function gives for its current value, with no other write to the
+     * key in between. The function runs while writes are held up, so should be quick.
+     *
+     * @param key the key
+     * @param function given the current value, or {@code null} if there is none, returns the value to store, or {@code
+     *     null} to remove the key
+     * @return the value the key had before, or empty if it had none
+     */
+    public Optional<byte[]> getAndUpdate(final byte[] key, final UnaryOperator<byte[]> function) {
+        final List<byte[]> previous = new ArrayList<>(1);
+        append(
+                Objects.requireNonNull(key),
+                current -> {
+                    final byte[] value =
+                            current == null ? null : current.segment.read(current.valueOffset(), current.valueLength);
+                    previous.add(value);
+                    final byte[] updated = function.apply(value);
+                    return (value == null && updated == null) ? UNCHANGED : updated;
+                });
+        return Optional.ofNullable(previous.get(0));
+    }
+
+    /**
+     * Removes the value stored for a key
+     *
+     * @param key the key to remove
+     * @return whether the key had a value
+     */
+    public boolean delete(final byte[] key) {
+        if (!contains(Objects.requireNonNull(key))) {
+            return false;
+        }
+        return append(key, current -> current == null ? UNCHANGED : null) != null;
+    }
+
+    /**
+     * Passes each key and its value to the given action, in no particular order. Keys written while this runs may or
+     * may not be seen.
+     */
+    public void forEach(final BiConsumer<byte[], byte[]> action) {
+        for (final Key key : index.keySet()) {
+            get(key.bytes).ifPresent(value -> action.accept(key.bytes.clone(), value));
+        }
+    }
+
+    /**
+     * Passes each key and the start of its value to the given action, in no particular order, reading no more than the
+     * given number of bytes of each value. Keys written while this runs may or may not be seen.
+     *
+     * @param length the most bytes to read from the start of each value
+     * @param action the action to pass each key and the start of its value to
+     */
+    public void forEachPrefix(final int length, final BiConsumer<byte[], byte[]> action) {
+        for (final Key key : index.keySet()) {
+            read(key.bytes, length).ifPresent(prefix -> action.accept(key.bytes.clone(), prefix));
+        }
+    }
+
+    public boolean isOpen() {
+        lock.readLock().lock();
+        try {
+            return !closed;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the live records of all sealed segments into new segments, and deletes the sealed segments. Writes and
+     * reads carry on while the records are copied. Waits for any compaction already running to finish first.
+     */
+    public void compact() throws IOException {
+        compactionLock.lock();
+        try {
+            final List<Segment> inputs;
+            lock.readLock().lock();
+            try {
+                ensureOpen();
+                inputs = new ArrayList<>(sealed);
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (inputs.isEmpty()) {
+                return;
+            }
+
+            final List<Segment> outputs = new ArrayList<>();
+            final List<Move> moves = new ArrayList<>();
+            try {
+                for (final Segment input : inputs) {
+                    final ByteBuffer contents = input.contents();
+                    Record record;
+                    while ((record = Record.read(contents)) != null) {
+                        final Location live = index.get(record.key);
+                        if (live == null || live.segment != input || live.offset != record.offset) {
+                            continue;
+                        }
+                        Segment output = outputs.isEmpty() ? null : outputs.get(outputs.size() - 1);
+                        if (output == null || output.size() >= segmentSize) {
+                            final long id = reserveSegmentId();
+                            output = Segment.create(id, directory.resolve(id + COMPACTING_SUFFIX));
+                            outputs.add(output);
+                        }
+                        final ByteBuffer copy =
+                                input.contents()
+                                        .position(Math.toIntExact(record.offset))
+                                        .limit(Math.toIntExact(record.offset + live.recordLength()));
+                        moves.add(new Move(record.key, live, output, output.append(copy)));
+                    }
+                }
+                for (final Segment output : outputs) {
+                    output.seal();
+                }
+            } catch (IOException | RuntimeException ex) {
+                for (final Segment output : outputs) {
+                    output.delete();
+                }
+                throw ex;
+            }
+
+            writeCompactionMarker(inputs, outputs);
+            for (final Segment output : outputs) {
+                output.moveTo(segmentPath(output.id()));
+            }
+
+            lock.writeLock().lock();
+            try {
+                for (final Move move : moves) {
+                    final Location moved =
+                            new Location(
+                                    move.output,
+                                    move.offset,
+                                    move.from.keyLength,
+                                    move.from.valueLength,
+                                    move.from.sequence);
+                    if (!index.replace(move.key, move.from, moved)) {
+                        // written again or deleted while it was being copied
+                        move.output.addDeadBytes(moved.recordLength());
+                    }
+                }
+                sealed.removeAll(inputs);
+                sealed.addAll(outputs);
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            for (final Segment input : inputs) {
+                input.delete();
+            }
+            Files.delete(directory.resolve(COMPACTION_MARKER));
+
+            LOGGER.info(
+                    "Compacted {} segments of log store {} into {}, keeping {} records",
+                    inputs.size(),
+                    directory,
+                    outputs.size(),
+                    moves.size());
+        } finally {
+            compactionLock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        compactor.shutdown();
+        try {
+            compactor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (!closed) {
+                closed = true;
+                active.close();
+                LOGGER.info("Closed log store {}", directory);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int segmentCount() {
+        lock.readLock().lock();
+        try {
+            return sealed.size() + 1;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Appends the record the decision gives for a key, under the write lock, and then waits for it to be on disk
+     *
+     * @return where the key's value was before, or {@code null} if it had none
+     */
+    private Location append(final byte[] key, final Decision decision) {
+        if (key.length == 0) {
+            throw new IllegalArgumentException("Key must not be empty");
+        }
+        final Key indexKey = new Key(key.clone());
+
+        final long count;
+        final Location previous;
+        boolean rolled = false;
+        lock.writeLock().lock();
+        try {
+            ensureOpen();
+            final Location current = index.get(indexKey);
+            final byte[] value = decision.valueFor(current);
+            if (value == UNCHANGED) {
+                return current;
+            }
+
+            final int valueLength = value == null ? TOMBSTONE : value.length;
+            final int recordLength = HEADER_SIZE + key.length + Math.max(valueLength, 0);
+            if (activeDamaged || (active.size() > 0 && active.size() + recordLength > segmentSize)) {
+                roll();
+                rolled = true;
+            }
+
+            final long sequence = nextSequence++;
+            final long offset;
+            try {
+                offset = active.append(Record.encode(sequence, key, value));
+            } catch (IOException ex) {
+                // later records must not follow a partly written one, which would hide them when the store is opened
+                activeDamaged = true;
+                throw ex;
+            }
+
+            if (value == null) {
+                previous = index.remove(indexKey);
+                active.addDeadBytes(recordLength);
+            } else {
+                previous = index.put(indexKey, new Location(active, offset, key.length, value.length, sequence));
+            }
+            if (previous != null) {
+                previous.segment.addDeadBytes(previous.recordLength());
+            }
+            count = ++appendCount;
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        if (rolled && compactionDue()) {
+            compactor.execute(
+                    () -> {
+                        try {
+                            // an earlier compaction may already have dealt with this segment
+                            if (compactionDue()) {
+                                compact();
+                            }
+                        } catch (IOException | RuntimeException ex) {
+                            LOGGER.warn("Unable to compact log store {}", directory, ex);
+                        }
+                    });
+        }
+        if (syncWrites) {
+            sync(count);
+        }
+        return previous;
+    }
+
+    /**
+     * Waits until the given number of records are on disk, syncing them and any others written since if needed. The
+     * sync runs without holding the segment lock, so that other writers can append in the meantime and share the next
+     * sync.
+     */
+    private void sync(final long count) {
+        synchronized (syncLock) {
+            if (syncedCount >= count) {
+                return;
+            }
+            final Segment segment;
+            final long target;
+            lock.readLock().lock();
+            try {
+                ensureOpen();
+                segment = active;
+                target = appendCount;
+            } finally {
+                lock.readLock().unlock();
+            }
+            // records in earlier segments were flushed when those segments were sealed
+            try {
+                force(segment);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+            syncedCount = target;
+        }
+    }
+
+    /** Flushes a segment to disk, kept apart so tests can observe and hold up syncs */
+    void force(final Segment segment) throws IOException {
+        segment.force();
+    }
+
+    private void roll() throws IOException {
+        active.seal();
+        sealed.add(active);
+        active = Segment.create(nextSegmentId, segmentPath(nextSegmentId));
+        nextSegmentId++;
+        activeDamaged = false;
+    }
+
+    private boolean compactionDue() {
+        lock.readLock().lock();
+        try {
+            final long total = sealed.stream().mapToLong(Segment::size).sum();
+            final long dead = sealed.stream().mapToLong(Segment::deadBytes).sum();
+            return total > 0 && dead >= total * compactionThreshold;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long reserveSegmentId() {
+        lock.writeLock().lock();
+        try {
+            return nextSegmentId++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureOpen() {
+        if (closed) {
+            throw new IllegalStateException("Log store " + directory + " is closed");
+        }
+    }
+
+    private Path segmentPath(final long id) {
+        return directory.resolve(id + SEGMENT_SUFFIX);
+    }
+
+    private void writeCompactionMarker(final List<Segment> inputs, final List<Segment> outputs) throws IOException {
+        final String contents =
+                outputs.stream().map(segment -> "+" + segment.id()).collect(Collectors.joining("\n", "", "\n"))
+                        + inputs.stream().map(segment -> "-" + segment.id()).collect(Collectors.joining("\n"));
+
+        final Path temporary = directory.resolve(COMPACTION_MARKER + ".tmp");
+        try (FileChannel channel =
+                FileChannel.open(
+                        temporary,
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.TRUNCATE_EXISTING,
+                        StandardOpenOption.WRITE)) {
+            final ByteBuffer buffer = ByteBuffer.wrap(contents.getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(COMPACTION_MARKER), StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Finishes a compaction that was interrupted after its marker was written, or throws away the output of one that
+     * was interrupted before
+     */
+    private void completeCompaction() throws IOException {
+        final Path marker = directory.resolve(COMPACTION_MARKER);
+        if (Files.exists(marker)) {
+            LOGGER.info("Completing interrupted compaction of log store {}", directory);
+            for (final String line : Files.readAllLines(marker, StandardCharsets.UTF_8)) {
+                if (line.isEmpty()) {
+                    continue;
+                }
+                final long id = Long.parseLong(line.substring(1));
+                if (line.charAt(0) == '+') {
+                    final Path output = directory.resolve(id + COMPACTING_SUFFIX);
+                    if (Files.exists(output)) {
+                        Files.move(output, segmentPath(id), StandardCopyOption.ATOMIC_MOVE);
+                    }
+                } else {
+                    Files.deleteIfExists(segmentPath(id));
+                }
+            }
+            Files.delete(marker);
+        }
+
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(directory, "*" + COMPACTING_SUFFIX)) {
+            for (final Path leftover : leftovers) {
+                LOGGER.info("Deleting {} left by an unfinished compaction", leftover);
+                Files.delete(leftover);
+            }
+        }
+        Files.deleteIfExists(directory.resolve(COMPACTION_MARKER + ".tmp"));
+    }
+
+    private void load() throws IOException {
+        final List<Long> ids = new ArrayList<>();
+        try (DirectoryStream<Path> segments = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+            for (final Path path : segments) {
+                final String name = path.getFileName().toString();
+                ids.add(Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length())));
+            }
+        }
+        ids.sort(Long::compare);
+
+        // after a compaction a key's records may be in any order across segments, so deletions are remembered
+        final Map<Key, Long> deletions = new HashMap<>();
+        for (final long id : ids) {
+            nextSegmentId = id + 1;
+            final Segment segment = Segment.openSealed(id, segmentPath(id));
+            if (segment.size() == 0) {
+                // the active segment of a store that was closed without writing to it
+                segment.delete();
+                continue;
+            }
+            sealed.add(segment);
+            load(segment, deletions);
+        }
+    }
+
+    private void load(final Segment segment, final Map<Key, Long> deletions) {
+        final ByteBuffer contents = segment.contents();
+        Record record;
+        while ((record = Record.read(contents)) != null) {
+            nextSequence = Math.max(nextSequence, record.sequence + 1);
+            final Location current = index.get(record.key);
+
+            if (record.valueLength == TOMBSTONE) {
+                segment.addDeadBytes(record.length());
+                if (current != null && current.sequence < record.sequence) {
+                    index.remove(record.key);
+                    current.segment.addDeadBytes(current.recordLength());
+                }
+                deletions.merge(record.key, record.sequence, Math::max);
+                continue;
+            }
+
+            final long deletedAt = deletions.getOrDefault(record.key, -1L);
+            if (deletedAt > record.sequence || (current != null && current.sequence >= record.sequence)) {
+                segment.addDeadBytes(record.length());
+                continue;
+            }
+            index.put(
+                    record.key,
+                    new Location(segment, record.offset, record.key.bytes.length, record.valueLength, record.sequence));
+            if (current != null) {
+                current.segment.addDeadBytes(current.recordLength());
+            }
+        }
+
+        if (contents.hasRemaining()) {
+            LOGGER.warn(
+                    "Ignoring {} bytes at the end of {} that do not hold a complete record",
+                    contents.remaining(),
+                    segment.path());
+            segment.addDeadBytes(contents.remaining());
+        }
+    }
+
+    /** Chooses what to append for a key, given where its current value is, or {@code null} if it has none */
+    @FunctionalInterface
+    private interface Decision {
+
+        /**
+         * @return the value to append, {@code null} for a deletion, or {@link #UNCHANGED} to append nothing
+         */
+        byte[] valueFor(Location current) throws IOException;
+    }
+
+    /** A key, compared by content */
+    private static final class Key {
+
+        private final byte[] bytes;
+
+        private final int hashCode;
+
+        private Key(final byte[] bytes) {
+            this.bytes = Objects.requireNonNull(bytes);
+            this.hashCode = Arrays.hashCode(bytes);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(final Object obj) {
+            return (obj instanceof Key) && Arrays.equals(bytes, ((Key) obj).bytes);
+        }
+    }
+
+    /** Where the latest value of a key is in the log */
+    private static final class Location {
+
+        private final Segment segment;
+
+        private final long offset;
+
+        private final int keyLength;
+
+        private final int valueLength;
+
+        private final long sequence;
+
+        private Location(
+                final Segment segment,
+                final long offset,
+                final int keyLength,
+                final int valueLength,
+                final long sequence) {
+            this.segment = segment;
+            this.offset = offset;
+            this.keyLength = keyLength;
+            this.valueLength = valueLength;
+            this.sequence = sequence;
+        }
+
+        private long valueOffset() {
+            return offset + HEADER_SIZE + keyLength;
+        }
+
+        private int recordLength() {
+            return HEADER_SIZE + keyLength + valueLength;
+        }
+    }
+
+    /** A live record being copied by a compaction */
+    private static final class Move {
+
+        private final Key key;
+
+        private final Location from;
+
+        private final Segment output;
+
+        private final long offset;
+
+        private Move(final Key key, final Location from, final Segment output, final long offset) {
+            this.key = key;
+            this.from = from;
+            this.output = output;
+            this.offset = offset;
+        }
+    }
+
+    /** The header and key of a record read back from a segment */
+    private static final class Record {
+
+        private final long offset;
+
+        private final long sequence;
+
+        private final Key key;
+
+        private final int valueLength;
+
+        private Record(final long offset, final long sequence, final Key key, final int valueLength) {
+            this.offset = offset;
+            this.sequence = sequence;
+            this.key = key;
+            this.valueLength = valueLength;
+        }
+
+        private int length() {
+            return HEADER_SIZE + key.bytes.length + Math.max(valueLength, 0);
+        }
+
+        static ByteBuffer encode(final long sequence, final byte[] key, final byte[] value) {
+            final int valueLength = value == null ? TOMBSTONE : value.length;
+            final ByteBuffer record = ByteBuffer.allocate(HEADER_SIZE + key.length + Math.max(valueLength, 0));
+            record.putInt(0).putLong(sequence).putInt(key.length).putInt(valueLength).put(key);
+            if (value != null) {
+                record.put(value);
+            }
+
+            final CRC32 checksum = new CRC32();
+            checksum.update(record.array(), Integer.BYTES, record.capacity() - Integer.BYTES);
+            return record.putInt(0, (int) checksum.getValue()).rewind();
+        }
+
+        /**
+         * Reads the record at the position of the buffer and moves past it
+         *
+         * @return the record, or {@code null} at the end of the buffer or if the record is incomplete or corrupt, in
+         *     which case the position is left at its start
+         */
+        static Record read(final ByteBuffer buffer) {
+            final int offset = buffer.position();
+            if (buffer.remaining() < HEADER_SIZE) {
+                return null;
+            }
+
+            final int storedChecksum = buffer.getInt(offset);
+            final long sequence = buffer.getLong(offset + 4);
+            final int keyLength = buffer.getInt(offset + 12);
+            final int valueLength = buffer.getInt(offset + 16);
+            if (keyLength <= 0 || valueLength < TOMBSTONE) {
+                return null;
+            }
+            final long bodyLength = (long) keyLength + Math.max(valueLength, 0);
+            if (bodyLength > buffer.remaining() - HEADER_SIZE) {
+                return null;
+            }
+
+            final CRC32 checksum = new CRC32();
+            checksum.update(
+                    buffer.duplicate()
+                            .position(offset + Integer.BYTES)
+                            .limit(offset + HEADER_SIZE + (int) bodyLength));
+            if ((int) checksum.getValue() != storedChecksum) {
+                return null;
+            }
+
+            final byte[] key = new byte[keyLength];
+            buffer.position(offset + HEADER_SIZE);
+            buffer.get(key);
+            buffer.position(offset + HEADER_SIZE + (int) bodyLength);
+            return new Record(offset, sequence, new Key(key), valueLength);
+        }
+    }
+}
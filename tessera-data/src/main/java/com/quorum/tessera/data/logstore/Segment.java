@@ -0,0 +1,155 @@
+package com.quorum.tessera.data.logstore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * One file of the log. A segment is written through a file channel while it is the active segment, and is
+ * memory-mapped for reading once it has been sealed. A segment is never written to again after it is sealed.
+ */
+final class Segment {
+
+    private final long id;
+
+    private Path path;
+
+    private volatile FileChannel channel;
+
+    private MappedByteBuffer mapped;
+
+    private long size;
+
+    /** The number of bytes taken by records that have since been replaced or deleted */
+    private long deadBytes;
+
+    private Segment(final long id, final Path path) {
+        this.id = id;
+        this.path = path;
+    }
+
+    static Segment create(final long id, final Path path) throws IOException {
+        final Segment segment = new Segment(id, path);
+        segment.channel =
+                FileChannel.open(
+                        path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return segment;
+    }
+
+    static Segment openSealed(final long id, final Path path) throws IOException {
+        final Segment segment = new Segment(id, path);
+        try (FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+            segment.size = fileChannel.size();
+            segment.mapped = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, segment.size);
+        }
+        return segment;
+    }
+
+    long id() {
+        return id;
+    }
+
+    Path path() {
+        return path;
+    }
+
+    long size() {
+        return size;
+    }
+
+    long deadBytes() {
+        return deadBytes;
+    }
+
+    void addDeadBytes(final long bytes) {
+        this.deadBytes += bytes;
+    }
+
+    boolean isSealed() {
+        return mapped != null;
+    }
+
+    /**
+     * Writes a record to the end of the segment
+     *
+     * @return the offset at which the record starts
+     */
+    long append(final ByteBuffer record) throws IOException {
+        final long offset = size;
+        long position = offset;
+        while (record.hasRemaining()) {
+            position += channel.write(record, position);
+        }
+        size = position;
+        return offset;
+    }
+
+    byte[] read(final long offset, final int length) throws IOException {
+        final byte[] data = new byte[length];
+        if (mapped != null) {
+            mapped.duplicate().position(Math.toIntExact(offset)).get(data);
+            return data;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.wrap(data);
+        long position = offset;
+        while (buffer.hasRemaining()) {
+            final int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of segment " + path);
+            }
+            position += read;
+        }
+        return data;
+    }
+
+    /** Returns a read-only view of the whole segment, which must be sealed */
+    ByteBuffer contents() {
+        return mapped.duplicate();
+    }
+
+    /** Flushes the segment to disk. Safe to call while it is being sealed or closed, both of which flush it first */
+    void force() throws IOException {
+        final FileChannel current = channel;
+        if (current == null) {
+            return;
+        }
+        try {
+            current.force(false);
+        } catch (ClosedChannelException ex) {
+            // sealed or closed in the meantime, after being flushed
+        }
+    }
+
+    /** Flushes the segment to disk and switches it to being read through a memory mapping */
+    void seal() throws IOException {
+        channel.force(false);
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        channel.close();
+        channel = null;
+    }
+
+    void moveTo(final Path target) throws IOException {
+        Files.move(path, target, StandardCopyOption.ATOMIC_MOVE);
+        this.path = target;
+    }
+
+    void close() throws IOException {
+        if (channel != null) {
+            channel.force(false);
+            channel.close();
+            channel = null;
+        }
+    }
+
+    void delete() throws IOException {
+        close();
+        Files.deleteIfExists(path);
+    }
+}
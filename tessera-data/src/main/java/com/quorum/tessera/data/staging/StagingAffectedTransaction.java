@@ -6,6 +6,9 @@ import java.util.Objects;
 
 @Entity
 @Table(name = "ST_AFFECTED_TRANSACTION")
+@NamedQuery(
+        name = "StagingAffectedTransaction.findAllHashes",
+        query = "select act.sourceTransaction.hash, act.hash from StagingAffectedTransaction act")
 public class StagingAffectedTransaction {
 
     @Id
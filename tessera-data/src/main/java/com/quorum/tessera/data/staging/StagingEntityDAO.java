@@ -2,6 +2,7 @@ package com.quorum.tessera.data.staging;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /** A data store for transactions that need to be retrieved later */
 public interface StagingEntityDAO {
@@ -14,6 +15,15 @@ public interface StagingEntityDAO {
      */
     StagingTransaction save(StagingTransaction entity);
 
+    /**
+     * Save a group of new transactions in a single database transaction, so that either all or none of them are
+     * persisted. All fields are required to be non-null on each entity
+     *
+     * @param entities The entities to be persisted
+     * @return The entities that were persisted
+     */
+    List<StagingTransaction> saveAll(List<StagingTransaction> entities);
+
     /**
      * Update an Encrypted Transaction All fields are required to be non-null on the entity
      *
@@ -31,11 +41,16 @@ public interface StagingEntityDAO {
     Optional<StagingTransaction> retrieveByHash(String hash);
 
     /**
-     * Retrieves a list of all transactions stored in the database order by stage
+     * Streams all transactions ordered by validation stage, with transactions that could not be staged last, and then
+     * by hash so all versions of a transaction are adjacent. Rows are read from the database as the stream is
+     * consumed, so only a small number are held in memory at any time.
+     *
+     * <p>The stream holds a database connection open and must be closed once used, preferably with a try-with-resources
+     * block.
      *
-     * @return The list of all rows in the database order by stage
+     * @return a stream of all transactions ordered by stage and hash
      */
-    List<StagingTransaction> retrieveTransactionBatchOrderByStageAndHash(int offset, int maxResult);
+    Stream<StagingTransaction> streamTransactionsOrderByStageAndHash();
 
     /**
      * counts all staging transactions
@@ -52,9 +67,11 @@ public interface StagingEntityDAO {
     long countStaged();
 
     /**
-     * Find transactions ready to be staged and update validation stage.
+     * Assigns a validation stage to every transaction that can be staged, so that each transaction is at a later stage
+     * than all of the transactions it affects. Transactions that affect one which is unknown, or that depend on each
+     * other, are left without a stage.
      *
      * @return number of records that have been updated
      */
-    int updateStageForBatch(int batchSize, long validationStage);
+    int stageTransactions();
 }
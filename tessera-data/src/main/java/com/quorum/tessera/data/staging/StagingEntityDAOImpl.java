@@ -9,100 +9,141 @@ import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
-/**
- * A JPA implementation of {@link StagingEntityDAO}
- */
+/** A JPA implementation of {@link StagingEntityDAO} */
 public class StagingEntityDAOImpl implements StagingEntityDAO {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(StagingEntityDAOImpl.class);
 
+    /** Kept below the limit some databases place on the number of values in an IN clause */
+    private static final int UPDATE_STAGE_CHUNK_SIZE = 1000;
+
     private EntityManagerTemplate entityManagerTemplate;
 
     public StagingEntityDAOImpl(EntityManagerFactory entityManagerFactory) {
         this.entityManagerTemplate = new EntityManagerTemplate(entityManagerFactory);
     }
 
+    public StagingEntityDAOImpl(EntityManagerFactory entityManagerFactory, int fetchSize) {
+        this.entityManagerTemplate = new EntityManagerTemplate(entityManagerFactory, fetchSize);
+    }
+
     @Override
     public StagingTransaction save(final StagingTransaction entity) {
-        return entityManagerTemplate.execute(entityManager -> {
-            entityManager.persist(entity);
+        return entityManagerTemplate.execute(
+                entityManager -> {
+                    entityManager.persist(entity);
+
+                    LOGGER.debug("Persisting StagingTransaction entity with hash {} ", entity.getHash());
+
+                    return entity;
+                });
+    }
+
+    @Override
+    public List<StagingTransaction> saveAll(final List<StagingTransaction> entities) {
+        return entityManagerTemplate.execute(
+                entityManager -> {
+                    entities.forEach(entityManager::persist);
 
-            LOGGER.debug("Persisting StagingTransaction entity with hash {} ", entity.getHash());
+                    LOGGER.debug("Persisting {} StagingTransaction entities", entities.size());
 
-            return entity;
-        });
+                    return entities;
+                });
     }
 
     @Override
     public StagingTransaction update(StagingTransaction entity) {
 
-        return entityManagerTemplate.execute(entityManager -> {
-            entityManager.merge(entity);
+        return entityManagerTemplate.execute(
+                entityManager -> {
+                    entityManager.merge(entity);
 
-            LOGGER.debug("Merging StagingTransaction entity with hash {}", entity.getHash());
+                    LOGGER.debug("Merging StagingTransaction entity with hash {}", entity.getHash());
 
-            return entity;
-        });
+                    return entity;
+                });
     }
 
     @Override
     public Optional<StagingTransaction> retrieveByHash(final String hash) {
-        return entityManagerTemplate.execute(entityManager -> {
-            LOGGER.debug("Retrieving payload with hash {}", hash);
-
-            CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-            CriteriaQuery<StagingTransaction> query = criteriaBuilder.createQuery(StagingTransaction.class);
-            Root<StagingTransaction> root = query.from(StagingTransaction.class);
-            query.select(root)
-                .where(
-                    criteriaBuilder.equal(root.get("hash"), hash)
-                );
-            return Optional.ofNullable(entityManager.createQuery(query).getSingleResult());
-        });
+        return entityManagerTemplate.execute(
+                entityManager -> {
+                    LOGGER.debug("Retrieving payload with hash {}", hash);
+
+                    CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+                    CriteriaQuery<StagingTransaction> query = criteriaBuilder.createQuery(StagingTransaction.class);
+                    Root<StagingTransaction> root = query.from(StagingTransaction.class);
+                    query.select(root).where(criteriaBuilder.equal(root.get("hash"), hash));
+                    return Optional.ofNullable(entityManager.createQuery(query).getSingleResult());
+                });
     }
 
     @Override
-    public List<StagingTransaction> retrieveTransactionBatchOrderByStageAndHash(int offset, int maxResults) {
-        LOGGER.debug(
-            "Fetching batch (offset:{},maxResults:{}) of StagingTransaction database rows order by stage and hash",
-            offset,
-            maxResults);
-
-        return entityManagerTemplate.execute(em -> em
-            .createNamedQuery("StagingTransaction.findAllOrderByStage", StagingTransaction.class)
-            .setFirstResult(offset)
-            .setMaxResults(maxResults)
-            .getResultList());
+    public Stream<StagingTransaction> streamTransactionsOrderByStageAndHash() {
+        LOGGER.debug("Streaming all StagingTransaction database rows order by stage and hash");
+
+        return entityManagerTemplate.stream(
+                em -> em.createNamedQuery("StagingTransaction.findAllOrderByStage", StagingTransaction.class));
     }
 
     @Override
     public long countAll() {
-        return entityManagerTemplate.execute(em ->
-            em.createNamedQuery("StagingTransaction.countAll", Long.class).getSingleResult()
-        );
+        return entityManagerTemplate.execute(
+                em -> em.createNamedQuery("StagingTransaction.countAll", Long.class).getSingleResult());
     }
 
     @Override
     public long countStaged() {
-        return entityManagerTemplate.execute(em ->
-            em.createNamedQuery("StagingTransaction.countStaged", Long.class).getSingleResult()
-        );
+        return entityManagerTemplate.execute(
+                em -> em.createNamedQuery("StagingTransaction.countStaged", Long.class).getSingleResult());
     }
 
     @Override
-    public int updateStageForBatch(int batchSize, long validationStage) {
-
-        return entityManagerTemplate.execute(
-            entityManager -> {
-                List<StagingTransaction> resultList = entityManager.createNamedQuery("StagingTransaction.stagingQuery", StagingTransaction.class)
-                    .setMaxResults(batchSize)
-                    .getResultList();
-
-                resultList.forEach(st -> st.setValidationStage(validationStage));
-
-                return resultList.size();
-            });
+    public int stageTransactions() {
+
+        final ValidationStageCalculator calculator = new ValidationStageCalculator();
+
+        try (Stream<Object[]> hashesAndStages =
+                entityManagerTemplate.stream(
+                        em -> em.createNamedQuery("StagingTransaction.findAllHashesAndStages", Object[].class))) {
+            hashesAndStages.forEach(row -> calculator.addTransaction((String) row[0], (Long) row[1]));
+        }
+
+        try (Stream<Object[]> affectedHashes =
+                entityManagerTemplate.stream(
+                        em -> em.createNamedQuery("StagingAffectedTransaction.findAllHashes", Object[].class))) {
+            affectedHashes.forEach(row -> calculator.addAffectedTransaction((String) row[0], (String) row[1]));
+        }
+
+        int updated = 0;
+        for (Map.Entry<Long, List<String>> stage : calculator.calculate().entrySet()) {
+            final List<String> hashes = stage.getValue();
+            LOGGER.debug("Staging {} transactions at stage {}", hashes.size(), stage.getKey());
+
+            updated +=
+                    entityManagerTemplate.execute(
+                            em -> {
+                                int count = 0;
+                                for (int i = 0; i < hashes.size(); i += UPDATE_STAGE_CHUNK_SIZE) {
+                                    count +=
+                                            em.createNamedQuery("StagingTransaction.updateStage")
+                                                    .setParameter("stage", stage.getKey())
+                                                    .setParameter(
+                                                            "hashes",
+                                                            hashes.subList(
+                                                                    i,
+                                                                    Math.min(
+                                                                            i + UPDATE_STAGE_CHUNK_SIZE,
+                                                                            hashes.size())))
+                                                    .executeUpdate();
+                                }
+                                return count;
+                            });
+        }
+        return updated;
     }
 }
@@ -10,17 +10,19 @@ import java.util.*;
 @Entity
 @Table(
         name = "ST_TRANSACTION",
-        indexes = {@Index(name = "ST_TRANSACTION_VALSTG", columnList = "VALIDATION_STAGE"),
+        indexes = {
+            @Index(name = "ST_TRANSACTION_VALSTG", columnList = "VALIDATION_STAGE"),
             @Index(name = "ST_TRANSACTION_HASH", columnList = "HASH")
         })
 @NamedQueries({
     @NamedQuery(
-            name = "StagingTransaction.stagingQuery",
+            name = "StagingTransaction.findAllHashesAndStages",
+            query = "select st.hash, st.validationStage from StagingTransaction st"),
+    @NamedQuery(
+            name = "StagingTransaction.updateStage",
             query =
-                    "select st FROM StagingTransaction st where st.validationStage is null and not exists "
-                            + "    (select act from StagingAffectedTransaction act  where act.sourceTransaction.hash = st.hash and  "
-                            + "        (select coalesce(sum(CASE WHEN ast.validationStage is Null THEN 1 else 0 END), 1) from StagingTransaction ast where ast.hash = act.hash) > 0"
-                            + "    )"),
+                    "update StagingTransaction st set st.validationStage = :stage "
+                            + "where st.validationStage is null and st.hash in :hashes"),
     @NamedQuery(name = "StagingTransaction.countAll", query = "select count(st) from StagingTransaction st"),
     @NamedQuery(
             name = "StagingTransaction.countStaged",
@@ -0,0 +1,164 @@
+package com.quorum.tessera.data.staging;
+
+import java.util.*;
+
+/**
+ * Works out the validation stage of staged transactions from the graph of their affected contract transactions.
+ *
+ * <p>A transaction can be validated once every transaction it affects has been, so its stage is one more than the
+ * highest stage among them, and a transaction that affects nothing is at stage 1. A transaction that affects one which
+ * is unknown or part of a cycle can never be staged, and neither can anything that depends on it.
+ *
+ * <p>All versions of a transaction share the same hash, and are treated as a single node of the graph. The stages are
+ * found in a single pass over the graph, with nodes and edges held in primitive arrays indexed by node, so the time
+ * taken grows linearly with the number of transactions and affected transactions.
+ */
+final class ValidationStageCalculator {
+
+    private static final long UNSTAGED = -1L;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final Map<String, Integer> nodeIndexes = new HashMap<>();
+
+    private String[] hashes = new String[INITIAL_CAPACITY];
+
+    /** the stage of each node, or UNSTAGED if any of its versions still needs a stage */
+    private long[] stages = new long[INITIAL_CAPACITY];
+
+    private int nodeCount;
+
+    private int[] dependents = new int[INITIAL_CAPACITY];
+
+    private int[] dependencies = new int[INITIAL_CAPACITY];
+
+    private int edgeCount;
+
+    /** nodes that affect a transaction which is not known */
+    private final BitSet blocked = new BitSet();
+
+    /**
+     * Adds a version of a transaction. All transactions must be added before any of their affected transactions.
+     *
+     * @param hash the hash of the transaction
+     * @param validationStage the stage already assigned to this version, or {@code null} if it has none
+     */
+    void addTransaction(final String hash, final Long validationStage) {
+        final long stage = Optional.ofNullable(validationStage).orElse(UNSTAGED);
+
+        final Integer existing = nodeIndexes.get(hash);
+        if (existing != null) {
+            final int index = existing;
+            stages[index] = (stages[index] == UNSTAGED || stage == UNSTAGED) ? UNSTAGED : Math.max(stages[index], stage);
+            return;
+        }
+
+        if (nodeCount == hashes.length) {
+            hashes = Arrays.copyOf(hashes, nodeCount * 2);
+            stages = Arrays.copyOf(stages, nodeCount * 2);
+        }
+        hashes[nodeCount] = hash;
+        stages[nodeCount] = stage;
+        nodeIndexes.put(hash, nodeCount);
+        nodeCount++;
+    }
+
+    /**
+     * Records that a transaction affects another.
+     *
+     * @param hash the hash of the transaction
+     * @param affectedHash the hash of the transaction it affects
+     */
+    void addAffectedTransaction(final String hash, final String affectedHash) {
+        final Integer dependent = nodeIndexes.get(hash);
+        if (dependent == null) {
+            return;
+        }
+
+        final Integer dependency = nodeIndexes.get(affectedHash);
+        if (dependency == null) {
+            blocked.set(dependent);
+            return;
+        }
+
+        if (edgeCount == dependents.length) {
+            dependents = Arrays.copyOf(dependents, edgeCount * 2);
+            dependencies = Arrays.copyOf(dependencies, edgeCount * 2);
+        }
+        dependents[edgeCount] = dependent;
+        dependencies[edgeCount] = dependency;
+        edgeCount++;
+    }
+
+    /**
+     * Calculates the stage of every transaction that does not yet have one and can be staged.
+     *
+     * @return the hashes of the transactions to stage, grouped by their new stage in ascending order
+     */
+    SortedMap<Long, List<String>> calculate() {
+
+        // the number of unstaged transactions each node is waiting on, and the highest stage among its staged ones
+        final int[] waitingOn = new int[nodeCount];
+        final long[] highestAffectedStage = new long[nodeCount];
+        final int[] dependentOffsets = new int[nodeCount + 1];
+
+        for (int edge = 0; edge < edgeCount; edge++) {
+            final int dependent = dependents[edge];
+            final int dependency = dependencies[edge];
+            if (stages[dependent] != UNSTAGED) {
+                continue;
+            }
+            if (stages[dependency] == UNSTAGED) {
+                waitingOn[dependent]++;
+                dependentOffsets[dependency + 1]++;
+            } else {
+                highestAffectedStage[dependent] = Math.max(highestAffectedStage[dependent], stages[dependency]);
+            }
+        }
+
+        // group the waiting nodes by the node they wait on, so each can be released when that node is staged
+        for (int node = 0; node < nodeCount; node++) {
+            dependentOffsets[node + 1] += dependentOffsets[node];
+        }
+        final int[] waitingNodes = new int[dependentOffsets[nodeCount]];
+        final int[] nextSlot = Arrays.copyOf(dependentOffsets, nodeCount);
+        for (int edge = 0; edge < edgeCount; edge++) {
+            final int dependent = dependents[edge];
+            final int dependency = dependencies[edge];
+            if (stages[dependent] == UNSTAGED && stages[dependency] == UNSTAGED) {
+                waitingNodes[nextSlot[dependency]++] = dependent;
+            }
+        }
+
+        final long[] newStages = new long[nodeCount];
+        final int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+
+        for (int node = 0; node < nodeCount; node++) {
+            if (stages[node] == UNSTAGED && waitingOn[node] == 0 && !blocked.get(node)) {
+                newStages[node] = highestAffectedStage[node] + 1;
+                queue[tail++] = node;
+            }
+        }
+
+        while (head < tail) {
+            final int node = queue[head++];
+            for (int i = dependentOffsets[node]; i < dependentOffsets[node + 1]; i++) {
+                final int waiting = waitingNodes[i];
+                highestAffectedStage[waiting] = Math.max(highestAffectedStage[waiting], newStages[node]);
+                if (--waitingOn[waiting] == 0 && !blocked.get(waiting)) {
+                    newStages[waiting] = highestAffectedStage[waiting] + 1;
+                    queue[tail++] = waiting;
+                }
+            }
+        }
+
+        final SortedMap<Long, List<String>> hashesByStage = new TreeMap<>();
+        for (int i = 0; i < tail; i++) {
+            final int node = queue[i];
+            hashesByStage.computeIfAbsent(newStages[node], stage -> new ArrayList<>()).add(hashes[node]);
+        }
+        return hashesByStage;
+    }
+}
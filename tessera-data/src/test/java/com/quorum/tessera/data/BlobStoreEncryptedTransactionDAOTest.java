@@ -0,0 +1,179 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.encryption.PublicKey;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.Persistence;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+@RunWith(Parameterized.class)
+public class BlobStoreEncryptedTransactionDAOTest {
+
+    private static final MessageHash HASH = new MessageHash("HASH".getBytes());
+
+    private static final byte[] CIPHER_TEXT = "CIPHER_TEXT".getBytes();
+
+    private final PayloadEncoder payloadEncoder = PayloadEncoder.create();
+
+    private EntityManagerFactory entityManagerFactory;
+
+    private EncryptedTransactionDAO encryptedTransactionDAO;
+
+    private TestConfig testConfig;
+
+    public BlobStoreEncryptedTransactionDAOTest(TestConfig testConfig) {
+        this.testConfig = testConfig;
+    }
+
+    @Before
+    public void onSetUp() {
+        Map properties = new HashMap();
+        properties.put("javax.persistence.jdbc.url", testConfig.getUrl());
+        properties.put("javax.persistence.jdbc.user", "junit");
+        properties.put("javax.persistence.jdbc.password", "");
+        properties.put("eclipselink.logging.logger", "org.eclipse.persistence.logging.slf4j.SLF4JLogger");
+        properties.put("eclipselink.logging.level", "FINE");
+        properties.put("eclipselink.logging.parameters", "true");
+        properties.put("eclipselink.logging.level.sql", "FINE");
+        properties.put("eclipselink.cache.shared.default", "false");
+        properties.put("javax.persistence.schema-generation.database.action", "create");
+
+        entityManagerFactory = Persistence.createEntityManagerFactory("tessera", properties);
+        encryptedTransactionDAO = new BlobStoreEncryptedTransactionDAO(entityManagerFactory, 0);
+    }
+
+    @After
+    public void onTearDown() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        entityManager.createQuery("delete from EncryptedTransaction").executeUpdate();
+        entityManager.createQuery("delete from PayloadBlob").executeUpdate();
+        entityManager.getTransaction().commit();
+    }
+
+    @Test
+    public void saveStoresCipherTextApart() {
+        final byte[] encoded = payloadEncoder.encode(payload(1));
+
+        final EncryptedTransaction saved = encryptedTransactionDAO.save(new EncryptedTransaction(HASH, encoded));
+        assertThat(saved.getTimestamp()).isPositive();
+
+        final EntityManager entityManager = entityManagerFactory.createEntityManager();
+        final EncryptedTransaction row = entityManager.find(EncryptedTransaction.class, HASH);
+        assertThat(payloadEncoder.decode(row.getEncodedPayload()).getCipherText()).isEmpty();
+        assertThat(entityManager.find(PayloadBlob.class, HASH).getCipherText()).isEqualTo(CIPHER_TEXT);
+        entityManager.close();
+
+        final EncryptedTransaction retrieved = encryptedTransactionDAO.retrieveByHash(HASH).get();
+        assertThat(retrieved.getEncodedPayload()).isEqualTo(encoded);
+        assertThat(retrieved.getDecodedPayload().getCipherText()).isEqualTo(CIPHER_TEXT);
+        assertThat(retrieved.getTimestamp()).isEqualTo(saved.getTimestamp());
+    }
+
+    @Test
+    public void updateKeepsStoredCipherText() {
+        encryptedTransactionDAO.save(new EncryptedTransaction(HASH, payloadEncoder.encode(payload(1))));
+
+        final EncryptedTransaction retrieved = encryptedTransactionDAO.retrieveByHash(HASH).get();
+        final byte[] updated = payloadEncoder.encode(payload(2));
+        retrieved.setEncodedPayload(updated);
+        encryptedTransactionDAO.update(retrieved);
+
+        final EncryptedTransaction after = encryptedTransactionDAO.retrieveByHash(HASH).get();
+        assertThat(after.getEncodedPayload()).isEqualTo(updated);
+        assertThat(after.getDecodedPayload().getRecipientKeys()).hasSize(2);
+
+        final EntityManager entityManager = entityManagerFactory.createEntityManager();
+        assertThat(entityManager.createQuery("select count(b) from PayloadBlob b").getSingleResult()).isEqualTo(1L);
+        entityManager.close();
+    }
+
+    @Test
+    public void updateRecipientKeyKeepsPayload() {
+        final byte[] encoded = payloadEncoder.encode(payload(1));
+        encryptedTransactionDAO.save(new EncryptedTransaction(HASH, encoded));
+
+        encryptedTransactionDAO.updateRecipientKey(HASH, "KEY".getBytes());
+
+        final EncryptedTransaction after = encryptedTransactionDAO.retrieveByHash(HASH).get();
+        assertThat(after.getRecipientKey()).isEqualTo("KEY".getBytes());
+        assertThat(after.getEncodedPayload()).isEqualTo(encoded);
+    }
+
+    @Test
+    public void rowsWithWholePayloadAreReadAsTheyAre() {
+        final byte[] whole = payloadEncoder.encode(payload(1));
+        final MessageHash otherHash = new MessageHash("OTHER".getBytes());
+        new EncryptedTransactionDAOImpl(entityManagerFactory).save(new EncryptedTransaction(otherHash, whole));
+        encryptedTransactionDAO.save(new EncryptedTransaction(HASH, whole));
+
+        assertThat(encryptedTransactionDAO.retrieveByHash(otherHash).get().getEncodedPayload()).isEqualTo(whole);
+        assertThat(encryptedTransactionDAO.findByHashes(List.of(HASH, otherHash)))
+                .extracting(EncryptedTransaction::getEncodedPayload)
+                .containsOnly(whole);
+        assertThat(encryptedTransactionDAO.retrieveTransactionsAfter(null, 10))
+                .extracting(EncryptedTransaction::getEncodedPayload)
+                .containsOnly(whole);
+    }
+
+    @Test
+    public void deleteRemovesCipherText() {
+        encryptedTransactionDAO.save(new EncryptedTransaction(HASH, payloadEncoder.encode(payload(1))));
+
+        encryptedTransactionDAO.delete(HASH);
+
+        assertThat(encryptedTransactionDAO.retrieveByHash(HASH)).isEmpty();
+        final EntityManager entityManager = entityManagerFactory.createEntityManager();
+        assertThat(entityManager.find(PayloadBlob.class, HASH)).isNull();
+        entityManager.close();
+    }
+
+    @Test
+    public void missingCipherTextIsAnError() {
+        encryptedTransactionDAO.save(new EncryptedTransaction(HASH, payloadEncoder.encode(payload(1))));
+
+        final EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        entityManager.createQuery("delete from PayloadBlob").executeUpdate();
+        entityManager.getTransaction().commit();
+        entityManager.close();
+
+        final Throwable throwable = catchThrowable(() -> encryptedTransactionDAO.retrieveByHash(HASH));
+
+        assertThat(throwable).isInstanceOf(EntityNotFoundException.class).hasMessageContaining(HASH.toString());
+    }
+
+    private static EncodedPayload payload(final int recipientCount) {
+        final EncodedPayload.Builder builder =
+                EncodedPayload.Builder.create()
+                        .withSenderKey(PublicKey.from("SENDER".getBytes()))
+                        .withCipherText(CIPHER_TEXT)
+                        .withCipherTextNonce("NONCE".getBytes())
+                        .withRecipientNonce("RECIPIENT_NONCE".getBytes());
+        for (int i = 0; i < recipientCount; i++) {
+            builder.withRecipientKey(PublicKey.from(("RECIPIENT" + i).getBytes()))
+                    .withRecipientBox(("BOX" + i).getBytes());
+        }
+        return builder.build();
+    }
+
+    @Parameterized.Parameters(name = "DB {0}")
+    public static Collection<TestConfig> connectionDetails() {
+        return List.of(TestConfig.values());
+    }
+}
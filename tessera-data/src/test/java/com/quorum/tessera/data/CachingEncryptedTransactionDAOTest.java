@@ -0,0 +1,165 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+public class CachingEncryptedTransactionDAOTest {
+
+    private static final MessageHash HASH = new MessageHash("HASH".getBytes());
+
+    private static final MessageHash OTHER_HASH = new MessageHash("OTHER".getBytes());
+
+    private EncryptedTransactionDAO delegate;
+
+    private PayloadCache payloadCache;
+
+    private EncodedPayload encodedPayload;
+
+    private CachingEncryptedTransactionDAO dao;
+
+    @Before
+    public void onSetUp() {
+        delegate = mock(EncryptedTransactionDAO.class);
+        encodedPayload = mock(EncodedPayload.class);
+        final PayloadEncoder payloadEncoder = mock(PayloadEncoder.class);
+        when(payloadEncoder.decode(any())).thenReturn(encodedPayload);
+        payloadCache = new PayloadCache(1000, payloadEncoder);
+        dao = new CachingEncryptedTransactionDAO(delegate, payloadCache);
+    }
+
+    @After
+    public void onTearDown() {
+        verifyNoMoreInteractions(delegate);
+    }
+
+    @Test
+    public void retrieveByHashReadsThroughOnce() {
+        when(delegate.retrieveByHash(HASH)).thenReturn(Optional.of(new EncryptedTransaction(HASH, "DATA".getBytes())));
+
+        final Optional<EncryptedTransaction> first = dao.retrieveByHash(HASH);
+        final Optional<EncryptedTransaction> second = dao.retrieveByHash(HASH);
+
+        assertThat(first).isPresent();
+        assertThat(first.get().getDecodedPayload()).isSameAs(encodedPayload);
+        assertThat(second).isPresent();
+        assertThat(second.get().getEncodedPayload()).isEqualTo("DATA".getBytes());
+        assertThat(second.get().getDecodedPayload()).isSameAs(encodedPayload);
+        verify(delegate).retrieveByHash(HASH);
+    }
+
+    @Test
+    public void missingTransactionIsNotCached() {
+        when(delegate.retrieveByHash(HASH)).thenReturn(Optional.empty());
+
+        assertThat(dao.retrieveByHash(HASH)).isEmpty();
+        assertThat(dao.retrieveByHash(HASH)).isEmpty();
+
+        verify(delegate, times(2)).retrieveByHash(HASH);
+    }
+
+    @Test
+    public void findByHashesOnlyReadsMissingTransactions() {
+        when(delegate.retrieveByHash(HASH)).thenReturn(Optional.of(new EncryptedTransaction(HASH, "DATA".getBytes())));
+        when(delegate.findByHashes(Set.of(OTHER_HASH)))
+                .thenReturn(List.of(new EncryptedTransaction(OTHER_HASH, "OTHER".getBytes())));
+        dao.retrieveByHash(HASH);
+
+        final List<EncryptedTransaction> first = dao.findByHashes(List.of(HASH, OTHER_HASH));
+        final List<EncryptedTransaction> second = dao.findByHashes(List.of(HASH, OTHER_HASH));
+
+        assertThat(first).extracting(EncryptedTransaction::getHash).containsExactlyInAnyOrder(HASH, OTHER_HASH);
+        assertThat(second).extracting(EncryptedTransaction::getHash).containsExactlyInAnyOrder(HASH, OTHER_HASH);
+        verify(delegate).retrieveByHash(HASH);
+        verify(delegate).findByHashes(Set.of(OTHER_HASH));
+    }
+
+    @Test
+    public void findByNoHashes() {
+        assertThat(dao.findByHashes(List.of())).isEmpty();
+        assertThat(dao.findByHashes(null)).isEmpty();
+    }
+
+    @Test
+    public void updateInvalidatesCachedTransaction() {
+        final EncryptedTransaction transaction = new EncryptedTransaction(HASH, "DATA".getBytes());
+        when(delegate.retrieveByHash(HASH)).thenReturn(Optional.of(transaction));
+        dao.retrieveByHash(HASH);
+
+        dao.update(transaction);
+        dao.retrieveByHash(HASH);
+
+        verify(delegate).update(transaction);
+        verify(delegate, times(2)).retrieveByHash(HASH);
+    }
+
+    @Test
+    public void updateRecipientKeyInvalidatesCachedTransaction() {
+        when(delegate.retrieveByHash(HASH)).thenReturn(Optional.of(new EncryptedTransaction(HASH, "DATA".getBytes())));
+        dao.retrieveByHash(HASH);
+
+        dao.updateRecipientKey(HASH, "KEY".getBytes());
+        dao.retrieveByHash(HASH);
+
+        verify(delegate).updateRecipientKey(HASH, "KEY".getBytes());
+        verify(delegate, times(2)).retrieveByHash(HASH);
+    }
+
+    @Test
+    public void deleteInvalidatesCachedTransactionEvenIfItFails() {
+        when(delegate.retrieveByHash(HASH)).thenReturn(Optional.of(new EncryptedTransaction(HASH, "DATA".getBytes())));
+        doThrow(new IllegalStateException()).when(delegate).delete(HASH);
+        dao.retrieveByHash(HASH);
+
+        final Throwable throwable = catchThrowable(() -> dao.delete(HASH));
+        dao.retrieveByHash(HASH);
+
+        assertThat(throwable).isInstanceOf(IllegalStateException.class);
+        verify(delegate).delete(HASH);
+        verify(delegate, times(2)).retrieveByHash(HASH);
+    }
+
+    @Test
+    public void saveInvalidatesCachedTransaction() throws Exception {
+        final EncryptedTransaction transaction = new EncryptedTransaction(HASH, "DATA".getBytes());
+        final Callable<Object> callback = mock(Callable.class);
+        when(delegate.retrieveByHash(HASH)).thenReturn(Optional.of(transaction));
+
+        dao.retrieveByHash(HASH);
+        dao.save(transaction);
+        dao.retrieveByHash(HASH);
+        dao.save(transaction, callback);
+        dao.retrieveByHash(HASH);
+
+        verify(delegate).save(transaction);
+        verify(delegate).save(transaction, callback);
+        verify(delegate, times(3)).retrieveByHash(HASH);
+    }
+
+    @Test
+    public void otherOperationsAreDelegated() {
+        final EncryptedTransaction previous = new EncryptedTransaction(HASH, "DATA".getBytes());
+
+        dao.retrieveTransactions(1, 2);
+        dao.retrieveTransactionsAfter(previous, 3);
+        dao.transactionCount();
+        dao.upcheck();
+
+        verify(delegate).retrieveTransactions(1, 2);
+        verify(delegate).retrieveTransactionsAfter(previous, 3);
+        verify(delegate).transactionCount();
+        verify(delegate).upcheck();
+    }
+}
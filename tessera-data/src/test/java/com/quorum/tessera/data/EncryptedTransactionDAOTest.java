@@ -123,6 +123,23 @@ public class EncryptedTransactionDAOTest {
         entityManager.getTransaction().rollback();
     }
 
+    @Test
+    public void updateRecipientKeyLeavesPayloadUntouched() {
+        final EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
+        encryptedTransaction.setEncodedPayload(new byte[] {5});
+        encryptedTransaction.setHash(new MessageHash(new byte[] {1}));
+        encryptedTransactionDAO.save(encryptedTransaction);
+
+        encryptedTransactionDAO.updateRecipientKey(encryptedTransaction.getHash(), "KEY".getBytes());
+        encryptedTransactionDAO.updateRecipientKey(new MessageHash(new byte[] {2}), "KEY".getBytes());
+
+        final EncryptedTransaction after = encryptedTransactionDAO.retrieveByHash(encryptedTransaction.getHash()).get();
+        assertThat(after.getRecipientKey()).isEqualTo("KEY".getBytes());
+        assertThat(after.getEncodedPayload()).containsExactly(5);
+        assertThat(after.getTimestamp()).isEqualTo(encryptedTransaction.getTimestamp());
+        assertThat(encryptedTransactionDAO.transactionCount()).isEqualTo(1);
+    }
+
     @Test
     public void cannotPersistMultipleOfSameHash() {
 
@@ -189,6 +206,74 @@ public class EncryptedTransactionDAOTest {
         assertThat(retrievedList).hasSameElementsAs(payloads);
     }
 
+    @Test
+    public void seekingThroughTransactionsReturnsAllInOrder() {
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        final List<EncryptedTransaction> payloads =
+                IntStream.range(0, 50)
+                        .mapToObj(i -> UUID.randomUUID().toString().getBytes())
+                        .map(MessageHash::new)
+                        .map(hash -> new EncryptedTransaction(hash, hash.getHashBytes()))
+                        .peek(entityManager::persist)
+                        .collect(Collectors.toList());
+
+        entityManager.getTransaction().commit();
+
+        final List<EncryptedTransaction> retrievedList = new ArrayList<>();
+        List<EncryptedTransaction> page = encryptedTransactionDAO.retrieveTransactionsAfter(null, 7);
+        while (!page.isEmpty()) {
+            assertThat(page.size()).isLessThanOrEqualTo(7);
+            retrievedList.addAll(page);
+            page = encryptedTransactionDAO.retrieveTransactionsAfter(page.get(page.size() - 1), 7);
+        }
+
+        assertThat(retrievedList).hasSameSizeAs(payloads);
+        assertThat(retrievedList).hasSameElementsAs(payloads);
+        assertThat(retrievedList)
+                .containsExactlyElementsOf(encryptedTransactionDAO.retrieveTransactions(0, Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void seekingThroughTransactionsReturnsThoseWithoutTimestampFirst() {
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        final List<EncryptedTransaction> payloads =
+                IntStream.range(0, 10)
+                        .mapToObj(i -> UUID.randomUUID().toString().getBytes())
+                        .map(MessageHash::new)
+                        .map(hash -> new EncryptedTransaction(hash, hash.getHashBytes()))
+                        .peek(entityManager::persist)
+                        .collect(Collectors.toList());
+        entityManager.getTransaction().commit();
+
+        final List<MessageHash> withoutTimestamp =
+                List.of(payloads.get(2).getHash(), payloads.get(5).getHash(), payloads.get(9).getHash());
+
+        entityManager.getTransaction().begin();
+        withoutTimestamp.forEach(
+                hash ->
+                        entityManager
+                                .createNativeQuery("UPDATE ENCRYPTED_TRANSACTION SET TIMESTAMP = NULL WHERE HASH = ?")
+                                .setParameter(1, hash.getHashBytes())
+                                .executeUpdate());
+        entityManager.getTransaction().commit();
+
+        final List<EncryptedTransaction> retrievedList = new ArrayList<>();
+        List<EncryptedTransaction> page = encryptedTransactionDAO.retrieveTransactionsAfter(null, 2);
+        while (!page.isEmpty()) {
+            retrievedList.addAll(page);
+            page = encryptedTransactionDAO.retrieveTransactionsAfter(page.get(page.size() - 1), 2);
+        }
+
+        assertThat(retrievedList).hasSameElementsAs(payloads).hasSameSizeAs(payloads);
+        assertThat(retrievedList.subList(0, 3))
+                .extracting(EncryptedTransaction::getHash)
+                .containsExactlyInAnyOrderElementsOf(withoutTimestamp);
+    }
+
     @Test
     public void deleteTransactionRemovesFromDatabaseAndReturnsTrue() {
 
@@ -34,6 +34,19 @@ public class EncryptedTransactionTest {
         assertThat(encryptedTransaction.getEncodedPayload()).isSameAs(payload);
     }
 
+    @Test
+    public void recipientKeyIsUnsetByDefault() {
+
+        EncryptedTransaction encryptedTransaction = new EncryptedTransaction(mock(MessageHash.class), new byte[0]);
+
+        assertThat(encryptedTransaction.getRecipientKey()).isNull();
+
+        byte[] recipientKey = "RECIPIENT".getBytes();
+        encryptedTransaction.setRecipientKey(recipientKey);
+
+        assertThat(encryptedTransaction.getRecipientKey()).isSameAs(recipientKey);
+    }
+
     @Test
     public void subclassesEqual() {
 
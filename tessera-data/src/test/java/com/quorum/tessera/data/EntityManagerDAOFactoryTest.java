@@ -2,9 +2,18 @@ package com.quorum.tessera.data;
 
 import com.quorum.tessera.config.Config;
 import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.config.JdbcPerformanceConfig;
+import com.quorum.tessera.config.LogStoreConfig;
 import com.quorum.tessera.data.staging.StagingEntityDAO;
+import com.zaxxer.hikari.HikariConfig;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -12,6 +21,8 @@ import static org.mockito.Mockito.when;
 
 public class EntityManagerDAOFactoryTest {
 
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
     private EntityManagerDAOFactory entityManagerDAOFactory;
 
     private static boolean createTables = false;
@@ -43,13 +54,211 @@ public class EntityManagerDAOFactoryTest {
     public void createEncryptedTransactionDAO() {
         EncryptedTransactionDAO encryptedTransactionDAO = entityManagerDAOFactory.createEncryptedTransactionDAO();
         assertThat(encryptedTransactionDAO).isNotNull();
+    }
+
+    @Test
+    public void createCachingEncryptedTransactionDAO() {
+        Config config = mock(Config.class);
+        JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+        when(jdbcConfig.getUsername()).thenReturn("junit");
+        when(jdbcConfig.getPassword()).thenReturn("junit");
+        when(jdbcConfig.getUrl()).thenReturn("jdbc:h2:mem:junit");
+        when(jdbcConfig.getPayloadCacheSize()).thenReturn(1024L);
+        when(config.getJdbcConfig()).thenReturn(jdbcConfig);
+
+        EntityManagerDAOFactory factory = EntityManagerDAOFactory.newFactory(config);
+
+        assertThat(factory.createEncryptedTransactionDAO()).isExactlyInstanceOf(CachingEncryptedTransactionDAO.class);
+        assertThat(entityManagerDAOFactory.createEncryptedTransactionDAO())
+                .isExactlyInstanceOf(EncryptedTransactionDAOImpl.class);
+    }
+
+    @Test
+    public void createBlobStoreEncryptedTransactionDAO() {
+        Config config = mock(Config.class);
+        JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+        when(jdbcConfig.getUsername()).thenReturn("junit");
+        when(jdbcConfig.getPassword()).thenReturn("junit");
+        when(jdbcConfig.getUrl()).thenReturn("jdbc:h2:mem:junit");
+        when(jdbcConfig.isBlobStorage()).thenReturn(true);
+        when(config.getJdbcConfig()).thenReturn(jdbcConfig);
+
+        EntityManagerDAOFactory factory = EntityManagerDAOFactory.newFactory(config);
+
+        assertThat(factory.createEncryptedTransactionDAO()).isExactlyInstanceOf(BlobStoreEncryptedTransactionDAO.class);
+    }
+
+    @Test
+    public void createLogStoreDAOs() throws Exception {
+        Config config = mock(Config.class);
+        JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+        when(jdbcConfig.getUsername()).thenReturn("junit");
+        when(jdbcConfig.getPassword()).thenReturn("junit");
+        when(jdbcConfig.getUrl()).thenReturn("jdbc:h2:mem:junit");
+        when(jdbcConfig.isBlobStorage()).thenReturn(true);
+        when(jdbcConfig.getLogStore()).thenReturn(new LogStoreConfig(temporaryFolder.newFolder().toPath()));
+        when(config.getJdbcConfig()).thenReturn(jdbcConfig);
+
+        EntityManagerDAOFactory factory = EntityManagerDAOFactory.newFactory(config);
+
+        EncryptedTransactionDAO encryptedTransactionDAO = factory.createEncryptedTransactionDAO();
+        assertThat(encryptedTransactionDAO).isExactlyInstanceOf(LogStoreEncryptedTransactionDAO.class);
+        assertThat(factory.createEncryptedTransactionDAO()).isSameAs(encryptedTransactionDAO);
+        assertThat(EntityManagerDAOFactory.newFactory(config).createEncryptedTransactionDAO())
+                .isSameAs(encryptedTransactionDAO);
+        assertThat(factory.createEncryptedRawTransactionDAO())
+                .isExactlyInstanceOf(LogStoreEncryptedRawTransactionDAO.class);
+    }
+
+    @Test
+    public void createOutboxDAO() {
+        OutboxDAO outboxDAO = entityManagerDAOFactory.createOutboxDAO();
+        assertThat(outboxDAO).isNotNull();
+    }
+
+    @Test
+    public void createOutboxDAOStoresTransactionsInLogStore() throws Exception {
+        Config config = mock(Config.class);
+        JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+        when(jdbcConfig.getUsername()).thenReturn("junit");
+        when(jdbcConfig.getPassword()).thenReturn("junit");
+        when(jdbcConfig.getUrl()).thenReturn("jdbc:h2:mem:junit");
+        when(jdbcConfig.isAutoCreateTables()).thenReturn(true);
+        when(jdbcConfig.getLogStore()).thenReturn(new LogStoreConfig(temporaryFolder.newFolder().toPath()));
+        when(config.getJdbcConfig()).thenReturn(jdbcConfig);
 
+        EntityManagerDAOFactory factory = EntityManagerDAOFactory.newFactory(config);
+
+        MessageHash hash = new MessageHash(UUID.randomUUID().toString().getBytes());
+        factory.createOutboxDAO()
+                .save(
+                        new EncryptedTransaction(hash, "payload".getBytes()),
+                        List.of(new PendingDelivery(hash, "recipient".getBytes(), 100L)));
+
+        assertThat(factory.createEncryptedTransactionDAO().retrieveByHash(hash)).isPresent();
     }
 
     @Test
     public void createStagingEntityDAO() {
         StagingEntityDAO stagingEntityDAO = entityManagerDAOFactory.createStagingEntityDAO();
         assertThat(stagingEntityDAO).isNotNull();
+    }
+
+    @Test
+    public void createWithPerformanceProfile() {
+        JdbcPerformanceConfig performance = new JdbcPerformanceConfig();
+        performance.setMaximumPoolSize(4);
+        performance.setStatementCacheSize(64);
+        performance.setBatchWritingSize(50);
+        performance.setLoggingLevel("warning");
+
+        Config config = mock(Config.class);
+        JdbcConfig jdbcConfig = mock(JdbcConfig.class);
+        when(jdbcConfig.getUsername()).thenReturn("junit");
+        when(jdbcConfig.getPassword()).thenReturn("junit");
+        when(jdbcConfig.getUrl()).thenReturn("jdbc:h2:mem:junit");
+        when(jdbcConfig.getPerformance()).thenReturn(performance);
+        when(jdbcConfig.isAutoCreateTables()).thenReturn(true);
+        when(config.getJdbcConfig()).thenReturn(jdbcConfig);
+
+        EncryptedTransactionDAO encryptedTransactionDAO =
+                EntityManagerDAOFactory.newFactory(config).createEncryptedTransactionDAO();
+
+        assertThat(encryptedTransactionDAO.upcheck()).isTrue();
+    }
+
+    @Test
+    public void hikariConfigKeepsPoolDefaultsWithoutProfile() {
+        HikariConfig defaults = new HikariConfig();
+
+        HikariConfig hikariConfig =
+                EntityManagerDAOFactory.createHikariConfig(
+                        "jdbc:h2:mem:junit", "junit", "secret", new JdbcPerformanceConfig());
+
+        assertThat(hikariConfig.getJdbcUrl()).isEqualTo("jdbc:h2:mem:junit");
+        assertThat(hikariConfig.getUsername()).isEqualTo("junit");
+        assertThat(hikariConfig.getPassword()).isEqualTo("secret");
+        assertThat(hikariConfig.getMaximumPoolSize()).isEqualTo(defaults.getMaximumPoolSize());
+        assertThat(hikariConfig.getConnectionTimeout()).isEqualTo(defaults.getConnectionTimeout());
+        assertThat(hikariConfig.getDataSourceProperties()).isEmpty();
+    }
+
+    @Test
+    public void hikariConfigAppliesPoolSettings() {
+        JdbcPerformanceConfig performance = new JdbcPerformanceConfig();
+        performance.setMaximumPoolSize(20);
+        performance.setMinimumIdle(5);
+        performance.setConnectionTimeout(5000L);
+        performance.setIdleTimeout(60000L);
+        performance.setMaxLifetime(900000L);
+
+        HikariConfig hikariConfig =
+                EntityManagerDAOFactory.createHikariConfig("jdbc:h2:mem:junit", "junit", "", performance);
+
+        assertThat(hikariConfig.getMaximumPoolSize()).isEqualTo(20);
+        assertThat(hikariConfig.getMinimumIdle()).isEqualTo(5);
+        assertThat(hikariConfig.getConnectionTimeout()).isEqualTo(5000L);
+        assertThat(hikariConfig.getIdleTimeout()).isEqualTo(60000L);
+        assertThat(hikariConfig.getMaxLifetime()).isEqualTo(900000L);
+    }
+
+    @Test
+    public void statementCacheSizeIsPassedToEachDriver() {
+        JdbcPerformanceConfig performance = new JdbcPerformanceConfig();
+        performance.setStatementCacheSize(128);
+
+        assertThat(
+                        EntityManagerDAOFactory.createHikariConfig("jdbc:h2:mem:junit", "", "", performance)
+                                .getDataSourceProperties())
+                .containsEntry("QUERY_CACHE_SIZE", 128);
+        assertThat(
+                        EntityManagerDAOFactory.createHikariConfig("jdbc:postgresql://host/db", "", "", performance)
+                                .getDataSourceProperties())
+                .containsEntry("preparedStatementCacheQueries", 128);
+        assertThat(
+                        EntityManagerDAOFactory.createHikariConfig("jdbc:mysql://host/db", "", "", performance)
+                                .getDataSourceProperties())
+                .containsEntry("cachePrepStmts", true)
+                .containsEntry("prepStmtCacheSize", 128);
+        assertThat(
+                        EntityManagerDAOFactory.createHikariConfig("jdbc:sqlite:db", "", "", performance)
+                                .getDataSourceProperties())
+                .isEmpty();
+    }
+
+    @Test
+    public void loggingIsOffByDefault() {
+        Map<String, Object> properties =
+                EntityManagerDAOFactory.createPersistenceProperties(new JdbcPerformanceConfig());
+
+        assertThat(properties)
+                .containsEntry("eclipselink.logging.level", "OFF")
+                .containsEntry("eclipselink.logging.level.sql", "OFF")
+                .containsEntry("eclipselink.logging.parameters", "false")
+                .doesNotContainKey("eclipselink.jdbc.batch-writing");
+    }
+
+    @Test
+    public void fineLoggingIncludesParameters() {
+        JdbcPerformanceConfig performance = new JdbcPerformanceConfig();
+        performance.setLoggingLevel("fine");
+
+        Map<String, Object> properties = EntityManagerDAOFactory.createPersistenceProperties(performance);
+
+        assertThat(properties)
+                .containsEntry("eclipselink.logging.level", "FINE")
+                .containsEntry("eclipselink.logging.parameters", "true");
+    }
+
+    @Test
+    public void batchWritingIsEnabledWithSize() {
+        JdbcPerformanceConfig performance = new JdbcPerformanceConfig();
+        performance.setBatchWritingSize(25);
+
+        Map<String, Object> properties = EntityManagerDAOFactory.createPersistenceProperties(performance);
 
+        assertThat(properties)
+                .containsEntry("eclipselink.jdbc.batch-writing", "JDBC")
+                .containsEntry("eclipselink.jdbc.batch-writing.size", "25");
     }
 }
@@ -0,0 +1,145 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.data.logstore.LogStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.persistence.EntityExistsException;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.PersistenceException;
+import java.io.IOException;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class LogStoreEncryptedRawTransactionDAOTest {
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+
+    private LogStore logStore;
+
+    private EncryptedRawTransactionDAO encryptedRawTransactionDAO;
+
+    @Before
+    public void onSetUp() throws IOException {
+        directory = temporaryFolder.getRoot().toPath();
+        logStore = new LogStore(directory);
+        encryptedRawTransactionDAO = new LogStoreEncryptedRawTransactionDAO(logStore);
+    }
+
+    @After
+    public void onTearDown() throws IOException {
+        logStore.close();
+    }
+
+    @Test
+    public void saveDoesntAllowNullEncryptedPayload() {
+        EncryptedRawTransaction encryptedRawTransaction = new EncryptedRawTransaction();
+        encryptedRawTransaction.setHash(new MessageHash(new byte[] {5}));
+        encryptedRawTransaction.setEncryptedKey("key".getBytes());
+        encryptedRawTransaction.setNonce("nonce".getBytes());
+        encryptedRawTransaction.setSender("from".getBytes());
+
+        final Throwable throwable = catchThrowable(() -> encryptedRawTransactionDAO.save(encryptedRawTransaction));
+
+        assertThat(throwable).isInstanceOf(PersistenceException.class).hasMessageContaining("ENCRYPTED_PAYLOAD");
+    }
+
+    @Test
+    public void saveDoesntAllowNullHash() {
+        EncryptedRawTransaction encryptedRawTransaction = new EncryptedRawTransaction();
+        encryptedRawTransaction.setEncryptedPayload(new byte[] {5});
+        encryptedRawTransaction.setEncryptedKey("key".getBytes());
+        encryptedRawTransaction.setNonce("nonce".getBytes());
+        encryptedRawTransaction.setSender("from".getBytes());
+
+        final Throwable throwable = catchThrowable(() -> encryptedRawTransactionDAO.save(encryptedRawTransaction));
+
+        assertThat(throwable).isInstanceOf(PersistenceException.class).hasMessageContaining("HASH");
+    }
+
+    @Test
+    public void cannotPersistMultipleOfSameHash() {
+        encryptedRawTransactionDAO.save(transaction(new byte[] {1}));
+
+        final Throwable throwable =
+                catchThrowable(() -> encryptedRawTransactionDAO.save(transaction(new byte[] {1})));
+
+        assertThat(throwable).isInstanceOf(EntityExistsException.class);
+    }
+
+    @Test
+    public void persistedTransactionIsRetrievedByHash() {
+        final long before = System.currentTimeMillis();
+        final EncryptedRawTransaction transaction = encryptedRawTransactionDAO.save(transaction(new byte[] {1}));
+
+        final EncryptedRawTransaction result =
+                encryptedRawTransactionDAO.retrieveByHash(new MessageHash(new byte[] {1})).get();
+
+        assertThat(result.getTimestamp()).isEqualTo(transaction.getTimestamp()).isGreaterThanOrEqualTo(before);
+        assertThat(result.getEncryptedPayload()).isEqualTo("payload".getBytes());
+        assertThat(result.getEncryptedKey()).isEqualTo("key".getBytes());
+        assertThat(result.getNonce()).isEqualTo("nonce".getBytes());
+        assertThat(result.getSender()).isEqualTo("from".getBytes());
+    }
+
+    @Test
+    public void retrieveByHashIsEmptyWhenNotPresent() {
+        assertThat(encryptedRawTransactionDAO.retrieveByHash(new MessageHash(new byte[] {1}))).isEmpty();
+    }
+
+    @Test
+    public void transactionsSurviveReopening() throws IOException {
+        encryptedRawTransactionDAO.save(transaction(new byte[] {1}));
+        encryptedRawTransactionDAO.save(transaction(new byte[] {2}));
+        encryptedRawTransactionDAO.delete(new MessageHash(new byte[] {2}));
+        logStore.close();
+
+        logStore = new LogStore(directory);
+        encryptedRawTransactionDAO = new LogStoreEncryptedRawTransactionDAO(logStore);
+
+        assertThat(encryptedRawTransactionDAO.retrieveByHash(new MessageHash(new byte[] {1}))).isPresent();
+        assertThat(encryptedRawTransactionDAO.retrieveByHash(new MessageHash(new byte[] {2}))).isEmpty();
+    }
+
+    @Test
+    public void deleteRemovesTransaction() {
+        encryptedRawTransactionDAO.save(transaction(new byte[] {1}));
+
+        encryptedRawTransactionDAO.delete(new MessageHash(new byte[] {1}));
+
+        assertThat(encryptedRawTransactionDAO.retrieveByHash(new MessageHash(new byte[] {1}))).isEmpty();
+    }
+
+    @Test
+    public void deleteThrowsEntityNotFoundExceptionForNonExistentHash() {
+        final Throwable throwable =
+                catchThrowable(() -> encryptedRawTransactionDAO.delete(new MessageHash(new byte[] {1})));
+
+        assertThat(throwable).isInstanceOf(EntityNotFoundException.class);
+    }
+
+    @Test
+    public void upcheckFollowsStore() throws IOException {
+        assertThat(encryptedRawTransactionDAO.upcheck()).isTrue();
+
+        logStore.close();
+
+        assertThat(encryptedRawTransactionDAO.upcheck()).isFalse();
+    }
+
+    private static EncryptedRawTransaction transaction(final byte[] hash) {
+        return new EncryptedRawTransaction(
+                new MessageHash(hash),
+                "payload".getBytes(),
+                "key".getBytes(),
+                "nonce".getBytes(),
+                "from".getBytes());
+    }
+}
@@ -0,0 +1,313 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.data.logstore.LogStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.persistence.EntityExistsException;
+import javax.persistence.EntityNotFoundException;
+import javax.persistence.PersistenceException;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+
+public class LogStoreEncryptedTransactionDAOTest {
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+
+    private LogStore logStore;
+
+    private EncryptedTransactionDAO encryptedTransactionDAO;
+
+    @Before
+    public void onSetUp() throws IOException {
+        directory = temporaryFolder.getRoot().toPath();
+        logStore = new LogStore(directory);
+        encryptedTransactionDAO = new LogStoreEncryptedTransactionDAO(logStore);
+    }
+
+    @After
+    public void onTearDown() throws IOException {
+        logStore.close();
+    }
+
+    @Test
+    public void saveDoesntAllowNullEncodedPayload() {
+        EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
+        encryptedTransaction.setHash(new MessageHash(new byte[] {5}));
+
+        final Throwable throwable = catchThrowable(() -> encryptedTransactionDAO.save(encryptedTransaction));
+
+        assertThat(throwable).isInstanceOf(PersistenceException.class).hasMessageContaining("ENCODED_PAYLOAD");
+    }
+
+    @Test
+    public void saveDoesntAllowNullHash() {
+        EncryptedTransaction encryptedTransaction = new EncryptedTransaction();
+        encryptedTransaction.setEncodedPayload(new byte[] {5});
+
+        final Throwable throwable = catchThrowable(() -> encryptedTransactionDAO.save(encryptedTransaction));
+
+        assertThat(throwable).isInstanceOf(PersistenceException.class).hasMessageContaining("HASH");
+    }
+
+    @Test
+    public void cannotPersistMultipleOfSameHash() {
+        final MessageHash hash = new MessageHash(new byte[] {1});
+        encryptedTransactionDAO.save(new EncryptedTransaction(hash, new byte[] {5}));
+
+        final Throwable throwable =
+                catchThrowable(() -> encryptedTransactionDAO.save(new EncryptedTransaction(hash, new byte[] {6})));
+
+        assertThat(throwable).isInstanceOf(EntityExistsException.class);
+        assertThat(encryptedTransactionDAO.retrieveByHash(hash).get().getEncodedPayload()).containsExactly(5);
+    }
+
+    @Test
+    public void concurrentSavesOfSameHashStoreOnlyOne() throws Exception {
+        final MessageHash hash = new MessageHash(new byte[] {1});
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        final List<Future<Boolean>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < 8; i++) {
+                final byte[] payload = {(byte) i};
+                results.add(
+                        executor.submit(
+                                () -> {
+                                    try {
+                                        encryptedTransactionDAO.save(new EncryptedTransaction(hash, payload));
+                                        return true;
+                                    } catch (EntityExistsException ex) {
+                                        return false;
+                                    }
+                                }));
+            }
+
+            int saved = 0;
+            for (final Future<Boolean> result : results) {
+                saved += result.get() ? 1 : 0;
+            }
+            assertThat(saved).isEqualTo(1);
+        } finally {
+            executor.shutdown();
+        }
+        assertThat(encryptedTransactionDAO.transactionCount()).isEqualTo(1);
+        assertThat(encryptedTransactionDAO.retrieveTransactions(0, 10)).hasSize(1);
+    }
+
+    @Test
+    public void persistAddsTimestampAndIsRetrievedByHash() {
+        final long before = System.currentTimeMillis();
+        final EncryptedTransaction transaction = transaction();
+        transaction.setRecipientKey("RECIPIENT".getBytes());
+
+        encryptedTransactionDAO.save(transaction);
+
+        final EncryptedTransaction result = encryptedTransactionDAO.retrieveByHash(transaction.getHash()).get();
+        assertThat(result.getTimestamp()).isEqualTo(transaction.getTimestamp()).isGreaterThanOrEqualTo(before);
+        assertThat(result.getEncodedPayload()).isEqualTo(transaction.getEncodedPayload());
+        assertThat(result.getRecipientKey()).isEqualTo("RECIPIENT".getBytes());
+        assertThat(encryptedTransactionDAO.transactionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void retrieveByHashIsEmptyWhenNotPresent() {
+        assertThat(encryptedTransactionDAO.retrieveByHash(new MessageHash(new byte[] {1}))).isEmpty();
+    }
+
+    @Test
+    public void updateTransactionKeepsTimestamp() {
+        final EncryptedTransaction transaction = encryptedTransactionDAO.save(transaction());
+
+        final EncryptedTransaction update = new EncryptedTransaction(transaction.getHash(), new byte[] {9});
+        encryptedTransactionDAO.update(update);
+
+        final EncryptedTransaction result = encryptedTransactionDAO.retrieveByHash(transaction.getHash()).get();
+        assertThat(result.getEncodedPayload()).containsExactly(9);
+        assertThat(result.getTimestamp()).isEqualTo(transaction.getTimestamp());
+        assertThat(encryptedTransactionDAO.retrieveTransactions(0, 10)).containsExactly(transaction);
+    }
+
+    @Test
+    public void updateRecipientKeyLeavesPayloadUntouched() {
+        final EncryptedTransaction transaction = encryptedTransactionDAO.save(transaction());
+
+        encryptedTransactionDAO.updateRecipientKey(transaction.getHash(), "KEY".getBytes());
+        encryptedTransactionDAO.updateRecipientKey(new MessageHash(new byte[] {1}), "KEY".getBytes());
+
+        final EncryptedTransaction result = encryptedTransactionDAO.retrieveByHash(transaction.getHash()).get();
+        assertThat(result.getRecipientKey()).isEqualTo("KEY".getBytes());
+        assertThat(result.getEncodedPayload()).isEqualTo(transaction.getEncodedPayload());
+        assertThat(result.getTimestamp()).isEqualTo(transaction.getTimestamp());
+        assertThat(encryptedTransactionDAO.transactionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void updateOfMissingTransactionStoresIt() {
+        final EncryptedTransaction transaction = transaction();
+
+        encryptedTransactionDAO.update(transaction);
+
+        assertThat(encryptedTransactionDAO.retrieveByHash(transaction.getHash())).isPresent();
+        assertThat(encryptedTransactionDAO.retrieveTransactions(0, 10)).containsExactly(transaction);
+    }
+
+    @Test
+    public void findByHashes() {
+        final List<EncryptedTransaction> transactions = saveTransactions(5);
+        final List<MessageHash> hashes =
+                Stream.concat(
+                                transactions.stream().limit(3).map(EncryptedTransaction::getHash),
+                                Stream.of(new MessageHash(new byte[] {1})))
+                        .collect(Collectors.toList());
+
+        assertThat(encryptedTransactionDAO.findByHashes(hashes)).containsExactlyElementsOf(transactions.subList(0, 3));
+        assertThat(encryptedTransactionDAO.findByHashes(List.of())).isEmpty();
+    }
+
+    @Test
+    public void seekingThroughTransactionsReturnsAllInOrder() {
+        final List<EncryptedTransaction> transactions = saveTransactions(50);
+
+        final List<EncryptedTransaction> retrievedList = new ArrayList<>();
+        List<EncryptedTransaction> page = encryptedTransactionDAO.retrieveTransactionsAfter(null, 7);
+        while (!page.isEmpty()) {
+            assertThat(page.size()).isLessThanOrEqualTo(7);
+            retrievedList.addAll(page);
+            page = encryptedTransactionDAO.retrieveTransactionsAfter(page.get(page.size() - 1), 7);
+        }
+
+        assertThat(retrievedList).hasSameElementsAs(transactions).hasSameSizeAs(transactions);
+        assertThat(retrievedList)
+                .containsExactlyElementsOf(encryptedTransactionDAO.retrieveTransactions(0, Integer.MAX_VALUE));
+        assertThat(encryptedTransactionDAO.retrieveTransactions(10, 5))
+                .containsExactlyElementsOf(retrievedList.subList(10, 15));
+    }
+
+    @Test
+    public void transactionsSurviveReopening() throws IOException {
+        final List<EncryptedTransaction> transactions = saveTransactions(20);
+        final List<EncryptedTransaction> ordered = encryptedTransactionDAO.retrieveTransactions(0, Integer.MAX_VALUE);
+        encryptedTransactionDAO.delete(transactions.get(0).getHash());
+        logStore.close();
+
+        logStore = new LogStore(directory);
+        encryptedTransactionDAO = new LogStoreEncryptedTransactionDAO(logStore);
+
+        assertThat(encryptedTransactionDAO.transactionCount()).isEqualTo(19);
+        assertThat(encryptedTransactionDAO.retrieveTransactions(0, Integer.MAX_VALUE))
+                .containsExactlyElementsOf(
+                        ordered.stream().filter(t -> !t.equals(transactions.get(0))).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void deleteTransactionRemovesIt() {
+        final EncryptedTransaction transaction = encryptedTransactionDAO.save(transaction());
+
+        encryptedTransactionDAO.delete(transaction.getHash());
+
+        assertThat(encryptedTransactionDAO.retrieveByHash(transaction.getHash())).isEmpty();
+        assertThat(encryptedTransactionDAO.retrieveTransactions(0, 10)).isEmpty();
+        assertThat(encryptedTransactionDAO.transactionCount()).isZero();
+    }
+
+    @Test
+    public void deleteThrowsEntityNotFoundExceptionForNonExistentHash() {
+        final Throwable throwable =
+                catchThrowable(() -> encryptedTransactionDAO.delete(new MessageHash(new byte[] {1})));
+
+        assertThat(throwable).isInstanceOf(EntityNotFoundException.class);
+    }
+
+    @Test
+    public void saveTransactionWithCallback() throws Exception {
+        final EncryptedTransaction transaction = transaction();
+        Callable<Void> callback = mock(Callable.class);
+
+        encryptedTransactionDAO.save(transaction, callback);
+
+        assertThat(encryptedTransactionDAO.retrieveByHash(transaction.getHash())).isPresent();
+        verify(callback).call();
+    }
+
+    @Test
+    public void saveTransactionWithCallbackException() throws Exception {
+        final EncryptedTransaction transaction = transaction();
+        Callable<Void> callback = mock(Callable.class);
+        when(callback.call()).thenThrow(new Exception("OUCH"));
+
+        final Throwable throwable = catchThrowable(() -> encryptedTransactionDAO.save(transaction, callback));
+
+        assertThat(throwable).isInstanceOf(PersistenceException.class).hasMessageContaining("OUCH");
+        assertThat(encryptedTransactionDAO.retrieveByHash(transaction.getHash())).isEmpty();
+        assertThat(encryptedTransactionDAO.retrieveTransactions(0, 10)).isEmpty();
+    }
+
+    @Test
+    public void saveTransactionWithCallbackRuntimeException() throws Exception {
+        final EncryptedTransaction transaction = transaction();
+        Callable<Void> callback = mock(Callable.class);
+        when(callback.call()).thenThrow(new RuntimeException("OUCH"));
+
+        final Throwable throwable = catchThrowable(() -> encryptedTransactionDAO.save(transaction, callback));
+
+        assertThat(throwable).isExactlyInstanceOf(RuntimeException.class).hasMessage("OUCH");
+        assertThat(encryptedTransactionDAO.retrieveByHash(transaction.getHash())).isEmpty();
+    }
+
+    @Test
+    public void callBackShouldNotBeExecutedIfSaveFails() {
+        final EncryptedTransaction transaction = encryptedTransactionDAO.save(transaction());
+        Callable<Void> callback = mock(Callable.class);
+
+        final Throwable throwable =
+                catchThrowable(
+                        () ->
+                                encryptedTransactionDAO.save(
+                                        new EncryptedTransaction(transaction.getHash(), new byte[] {1}), callback));
+
+        assertThat(throwable).isInstanceOf(EntityExistsException.class);
+        verifyZeroInteractions(callback);
+    }
+
+    @Test
+    public void upcheckFollowsStore() throws IOException {
+        assertThat(encryptedTransactionDAO.upcheck()).isTrue();
+
+        logStore.close();
+
+        assertThat(encryptedTransactionDAO.upcheck()).isFalse();
+    }
+
+    private List<EncryptedTransaction> saveTransactions(final int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> encryptedTransactionDAO.save(transaction()))
+                .collect(Collectors.toList());
+    }
+
+    private static EncryptedTransaction transaction() {
+        final byte[] hash = UUID.randomUUID().toString().getBytes();
+        return new EncryptedTransaction(new MessageHash(hash), UUID.randomUUID().toString().getBytes());
+    }
+}
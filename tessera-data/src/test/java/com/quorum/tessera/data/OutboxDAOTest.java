@@ -0,0 +1,222 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.data.logstore.LogStore;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+import javax.persistence.PersistenceException;
+import java.io.IOException;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.failBecauseExceptionWasNotThrown;
+
+@RunWith(Parameterized.class)
+public class OutboxDAOTest {
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private EntityManagerFactory entityManagerFactory;
+
+    private OutboxDAO outboxDAO;
+
+    private TestConfig testConfig;
+
+    public OutboxDAOTest(TestConfig testConfig) {
+        this.testConfig = testConfig;
+    }
+
+    @Before
+    public void onSetUp() {
+
+        Map properties = new HashMap();
+        properties.put("javax.persistence.jdbc.url", testConfig.getUrl());
+        properties.put("javax.persistence.jdbc.user", "junit");
+        properties.put("javax.persistence.jdbc.password", "");
+        properties.put("eclipselink.logging.logger", "org.eclipse.persistence.logging.slf4j.SLF4JLogger");
+        properties.put("eclipselink.logging.level", "FINE");
+        properties.put("eclipselink.logging.parameters", "true");
+        properties.put("eclipselink.logging.level.sql", "FINE");
+        properties.put("javax.persistence.schema-generation.database.action", "drop-and-create");
+
+        entityManagerFactory = Persistence.createEntityManagerFactory("tessera", properties);
+
+        outboxDAO = new OutboxDAOImpl(entityManagerFactory);
+    }
+
+    @After
+    public void onTearDown() {
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        entityManager.getTransaction().begin();
+        entityManager.createQuery("delete from PendingDelivery").executeUpdate();
+        entityManager.createQuery("delete from EncryptedTransaction").executeUpdate();
+        entityManager.getTransaction().commit();
+    }
+
+    @Test
+    public void saveStoresTransactionAndDeliveries() {
+        final MessageHash hash = new MessageHash(UUID.randomUUID().toString().getBytes());
+        final EncryptedTransaction transaction = new EncryptedTransaction(hash, "payload".getBytes());
+
+        outboxDAO.save(
+                transaction,
+                List.of(
+                        new PendingDelivery(hash, "recipient1".getBytes(), 100L),
+                        new PendingDelivery(hash, "recipient2".getBytes(), 100L)));
+
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        assertThat(entityManager.find(EncryptedTransaction.class, hash)).isNotNull();
+        assertThat(outboxDAO.count()).isEqualTo(2);
+
+        final PendingDelivery delivery =
+                entityManager.find(PendingDelivery.class, new PendingDeliveryId(hash, "recipient1".getBytes()));
+        assertThat(delivery).isNotNull();
+        assertThat(delivery.getHash()).isEqualTo(hash);
+        assertThat(delivery.getRecipientKey()).isEqualTo("recipient1".getBytes());
+        assertThat(delivery.getCreated()).isEqualTo(100L);
+        assertThat(delivery.getNextAttempt()).isEqualTo(100L);
+        assertThat(delivery.getAttempts()).isZero();
+    }
+
+    @Test
+    public void saveStoresNothingIfAnyDeliveryCannotBeStored() {
+        final MessageHash hash = new MessageHash(UUID.randomUUID().toString().getBytes());
+        final EncryptedTransaction transaction = new EncryptedTransaction(hash, "payload".getBytes());
+
+        final PendingDelivery delivery = new PendingDelivery(hash, "recipient".getBytes(), 100L);
+        final PendingDelivery duplicate = new PendingDelivery(hash, "recipient".getBytes(), 100L);
+
+        try {
+            outboxDAO.save(transaction, List.of(delivery, duplicate));
+            failBecauseExceptionWasNotThrown(PersistenceException.class);
+        } catch (PersistenceException ex) {
+            EntityManager entityManager = entityManagerFactory.createEntityManager();
+            assertThat(entityManager.find(EncryptedTransaction.class, hash)).isNull();
+            assertThat(outboxDAO.count()).isZero();
+        }
+    }
+
+    @Test
+    public void saveStoresTransactionThroughConfiguredDAO() throws IOException {
+        try (LogStore logStore = new LogStore(temporaryFolder.getRoot().toPath())) {
+            final EncryptedTransactionDAO encryptedTransactionDAO = new LogStoreEncryptedTransactionDAO(logStore);
+            final OutboxDAO logStoreOutboxDAO = new OutboxDAOImpl(entityManagerFactory, encryptedTransactionDAO);
+
+            final MessageHash hash = new MessageHash(UUID.randomUUID().toString().getBytes());
+            final PendingDelivery delivery = new PendingDelivery(hash, "recipient".getBytes(), 100L);
+
+            logStoreOutboxDAO.save(new EncryptedTransaction(hash, "payload".getBytes()), List.of(delivery));
+
+            assertThat(encryptedTransactionDAO.retrieveByHash(hash)).isPresent();
+            assertThat(entityManagerFactory.createEntityManager().find(EncryptedTransaction.class, hash)).isNull();
+            assertThat(logStoreOutboxDAO.retrieveDue(100L, 10)).containsExactly(delivery);
+        }
+    }
+
+    @Test
+    public void saveRemovesTransactionFromConfiguredDAOIfAnyDeliveryCannotBeStored() throws IOException {
+        try (LogStore logStore = new LogStore(temporaryFolder.getRoot().toPath())) {
+            final EncryptedTransactionDAO encryptedTransactionDAO = new LogStoreEncryptedTransactionDAO(logStore);
+            final OutboxDAO logStoreOutboxDAO = new OutboxDAOImpl(entityManagerFactory, encryptedTransactionDAO);
+
+            final MessageHash hash = new MessageHash(UUID.randomUUID().toString().getBytes());
+            final PendingDelivery delivery = new PendingDelivery(hash, "recipient".getBytes(), 100L);
+            final PendingDelivery duplicate = new PendingDelivery(hash, "recipient".getBytes(), 100L);
+
+            try {
+                logStoreOutboxDAO.save(
+                        new EncryptedTransaction(hash, "payload".getBytes()), List.of(delivery, duplicate));
+                failBecauseExceptionWasNotThrown(PersistenceException.class);
+            } catch (PersistenceException ex) {
+                assertThat(encryptedTransactionDAO.retrieveByHash(hash)).isEmpty();
+                assertThat(logStoreOutboxDAO.count()).isZero();
+            }
+        }
+    }
+
+    @Test
+    public void retrieveDueReturnsDeliveriesDueByNextAttempt() {
+        final MessageHash hash = new MessageHash(UUID.randomUUID().toString().getBytes());
+
+        final PendingDelivery later = new PendingDelivery(hash, "later".getBytes(), 100L);
+        later.setNextAttempt(300L);
+        final PendingDelivery earlier = new PendingDelivery(hash, "earlier".getBytes(), 100L);
+        earlier.setNextAttempt(200L);
+        final PendingDelivery notDue = new PendingDelivery(hash, "notDue".getBytes(), 100L);
+        notDue.setNextAttempt(400L);
+
+        outboxDAO.save(new EncryptedTransaction(hash, "payload".getBytes()), List.of(later, earlier, notDue));
+
+        assertThat(outboxDAO.retrieveDue(300L, 10)).containsExactly(earlier, later);
+        assertThat(outboxDAO.retrieveDue(300L, 1)).containsExactly(earlier);
+        assertThat(outboxDAO.retrieveDue(100L, 10)).isEmpty();
+    }
+
+    @Test
+    public void updateRecordsAttempt() {
+        final MessageHash hash = new MessageHash(UUID.randomUUID().toString().getBytes());
+        final PendingDelivery delivery = new PendingDelivery(hash, "recipient".getBytes(), 100L);
+        outboxDAO.save(new EncryptedTransaction(hash, "payload".getBytes()), List.of(delivery));
+
+        delivery.setAttempts(1);
+        delivery.setNextAttempt(1100L);
+        outboxDAO.update(delivery);
+
+        final PendingDelivery updated =
+                entityManagerFactory.createEntityManager().find(PendingDelivery.class, delivery.getId());
+        assertThat(updated.getAttempts()).isEqualTo(1);
+        assertThat(updated.getNextAttempt()).isEqualTo(1100L);
+        assertThat(updated.getCreated()).isEqualTo(100L);
+    }
+
+    @Test
+    public void updateIgnoresDeletedDelivery() {
+        final PendingDelivery delivery =
+                new PendingDelivery(new MessageHash("hash".getBytes()), "recipient".getBytes(), 100L);
+
+        outboxDAO.update(delivery);
+
+        assertThat(outboxDAO.count()).isZero();
+    }
+
+    @Test
+    public void deleteRemovesDeliveries() {
+        final MessageHash hash = new MessageHash(UUID.randomUUID().toString().getBytes());
+        final PendingDelivery delivered = new PendingDelivery(hash, "delivered".getBytes(), 100L);
+        final PendingDelivery pending = new PendingDelivery(hash, "pending".getBytes(), 100L);
+        outboxDAO.save(new EncryptedTransaction(hash, "payload".getBytes()), List.of(delivered, pending));
+
+        final PendingDelivery alreadyDeleted = new PendingDelivery(hash, "deleted".getBytes(), 100L);
+        outboxDAO.delete(List.of(delivered, alreadyDeleted));
+
+        assertThat(outboxDAO.retrieveDue(Long.MAX_VALUE, 10)).containsExactly(pending);
+        assertThat(entityManagerFactory.createEntityManager().find(EncryptedTransaction.class, hash)).isNotNull();
+    }
+
+    @Test
+    public void oldestCreated() {
+        assertThat(outboxDAO.oldestCreated()).isEmpty();
+
+        final MessageHash hash = new MessageHash(UUID.randomUUID().toString().getBytes());
+        outboxDAO.save(
+                new EncryptedTransaction(hash, "payload".getBytes()),
+                List.of(
+                        new PendingDelivery(hash, "first".getBytes(), 200L),
+                        new PendingDelivery(hash, "second".getBytes(), 100L)));
+
+        assertThat(outboxDAO.oldestCreated()).contains(100L);
+    }
+
+    @Parameterized.Parameters(name = "DB {0}")
+    public static Collection<TestConfig> connectionDetails() {
+        return List.of(TestConfig.values());
+    }
+}
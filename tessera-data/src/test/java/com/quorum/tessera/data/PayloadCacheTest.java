@@ -0,0 +1,199 @@
+package com.quorum.tessera.data;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.same;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PayloadCacheTest {
+
+    private PayloadEncoder payloadEncoder;
+
+    private EncodedPayload encodedPayload;
+
+    @Before
+    public void onSetUp() {
+        payloadEncoder = mock(PayloadEncoder.class);
+        encodedPayload = mock(EncodedPayload.class);
+        when(payloadEncoder.decode(any())).thenReturn(encodedPayload);
+    }
+
+    private static EncryptedTransaction transaction(String hash, int size) {
+        final EncryptedTransaction transaction =
+                new EncryptedTransaction(new MessageHash(hash.getBytes()), new byte[size]);
+        transaction.setRecipientKey("KEY".getBytes());
+        return transaction;
+    }
+
+    private static EncryptedTransaction put(PayloadCache cache, EncryptedTransaction transaction) {
+        try (PayloadCache.Read read = cache.startRead()) {
+            return read.put(transaction);
+        }
+    }
+
+    @Test
+    public void cachedTransactionIsDecodedOnceFromItsCopy() {
+        final PayloadCache cache = new PayloadCache(100, payloadEncoder);
+
+        final EncryptedTransaction added = put(cache, transaction("ONE", 10));
+        final EncryptedTransaction first = cache.get(new MessageHash("ONE".getBytes())).get();
+        final EncryptedTransaction second = cache.get(new MessageHash("ONE".getBytes())).get();
+
+        assertThat(added.getDecodedPayload()).isSameAs(encodedPayload);
+        assertThat(first).isEqualTo(second).isNotSameAs(second);
+        assertThat(first.getDecodedPayload()).isSameAs(encodedPayload);
+        assertThat(first.getEncodedPayload()).hasSize(10).isSameAs(second.getEncodedPayload());
+        assertThat(first.getRecipientKey()).isEqualTo("KEY".getBytes());
+        assertThat(cache.getHitCount()).isEqualTo(2);
+        assertThat(cache.getMissCount()).isZero();
+        assertThat(cache.getHitRatio()).isEqualTo(1.0);
+        assertThat(cache.getSize()).isEqualTo(1);
+        // the encoded bytes count for the decoded payload as well, plus the recipient key
+        assertThat(cache.getWeight()).isEqualTo(23);
+        assertThat(cache.getMaximumWeight()).isEqualTo(100);
+        verify(payloadEncoder).decode(same(first.getEncodedPayload()));
+    }
+
+    @Test
+    public void missIsCounted() {
+        final PayloadCache cache = new PayloadCache(100, payloadEncoder);
+
+        assertThat(cache.get(new MessageHash("ONE".getBytes()))).isEmpty();
+
+        put(cache, transaction("ONE", 10));
+        cache.get(new MessageHash("ONE".getBytes()));
+
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.getHitRatio()).isEqualTo(0.5);
+    }
+
+    @Test
+    public void leastRecentlyUsedEntriesAreEvictedByWeight() {
+        final PayloadCache cache = new PayloadCache(200, payloadEncoder);
+
+        put(cache, transaction("ONE", 40));
+        put(cache, transaction("TWO", 40));
+        cache.get(new MessageHash("ONE".getBytes()));
+        put(cache, transaction("THREE", 40));
+
+        assertThat(cache.get(new MessageHash("ONE".getBytes()))).isPresent();
+        assertThat(cache.get(new MessageHash("TWO".getBytes()))).isEmpty();
+        assertThat(cache.get(new MessageHash("THREE".getBytes()))).isPresent();
+        assertThat(cache.getEvictionCount()).isEqualTo(1);
+        assertThat(cache.getWeight()).isEqualTo(166);
+    }
+
+    @Test
+    public void transactionLargerThanCacheIsNotCached() {
+        final PayloadCache cache = new PayloadCache(100, payloadEncoder);
+
+        final EncryptedTransaction result = put(cache, transaction("ONE", 101));
+
+        assertThat(result.getDecodedPayload()).isSameAs(encodedPayload);
+        assertThat(cache.getSize()).isZero();
+        assertThat(cache.getEvictionCount()).isZero();
+    }
+
+    @Test
+    public void invalidatedEntryIsRemoved() {
+        final PayloadCache cache = new PayloadCache(100, payloadEncoder);
+        put(cache, transaction("ONE", 10));
+
+        cache.invalidate(new MessageHash("ONE".getBytes()));
+
+        assertThat(cache.get(new MessageHash("ONE".getBytes()))).isEmpty();
+        assertThat(cache.getWeight()).isZero();
+    }
+
+    @Test
+    public void readStartedBeforeInvalidationIsNotCached() {
+        final PayloadCache cache = new PayloadCache(100, payloadEncoder);
+
+        final EncryptedTransaction result;
+        try (PayloadCache.Read read = cache.startRead()) {
+            cache.invalidate(new MessageHash("ONE".getBytes()));
+            result = read.put(transaction("ONE", 10));
+        }
+
+        assertThat(result.getDecodedPayload()).isSameAs(encodedPayload);
+        assertThat(cache.getSize()).isZero();
+    }
+
+    @Test
+    public void invalidationOfOtherTransactionDoesNotStopCaching() {
+        final PayloadCache cache = new PayloadCache(100, payloadEncoder);
+
+        try (PayloadCache.Read read = cache.startRead()) {
+            cache.invalidate(new MessageHash("TWO".getBytes()));
+            read.put(transaction("ONE", 10));
+        }
+
+        assertThat(cache.get(new MessageHash("ONE".getBytes()))).isPresent();
+    }
+
+    @Test
+    public void invalidationBeforeReadStartedDoesNotStopCaching() {
+        final PayloadCache cache = new PayloadCache(100, payloadEncoder);
+        final PayloadCache.Read earlierRead = cache.startRead();
+        cache.invalidate(new MessageHash("ONE".getBytes()));
+
+        put(cache, transaction("ONE", 10));
+        earlierRead.close();
+
+        assertThat(cache.get(new MessageHash("ONE".getBytes()))).isPresent();
+    }
+
+    @Test
+    public void readStartedBeforeClearIsNotCached() {
+        final PayloadCache cache = new PayloadCache(100, payloadEncoder);
+
+        try (PayloadCache.Read read = cache.startRead()) {
+            cache.clear();
+            read.put(transaction("ONE", 10));
+        }
+
+        assertThat(cache.getSize()).isZero();
+    }
+
+    @Test
+    public void clearRemovesEverything() {
+        final PayloadCache cache = new PayloadCache(100, payloadEncoder);
+        put(cache, transaction("ONE", 10));
+        put(cache, transaction("TWO", 10));
+
+        cache.clear();
+
+        assertThat(cache.getSize()).isZero();
+        assertThat(cache.getWeight()).isZero();
+    }
+
+    @Test
+    public void undecodablePayloadIsNotCached() {
+        when(payloadEncoder.decode(any())).thenThrow(new IllegalArgumentException("bad payload"));
+        final PayloadCache cache = new PayloadCache(100, payloadEncoder);
+        final EncryptedTransaction transaction = transaction("ONE", 10);
+
+        final EncryptedTransaction result = put(cache, transaction);
+
+        assertThat(result).isSameAs(transaction);
+        assertThat(Optional.ofNullable(result.getDecodedPayload())).isEmpty();
+        assertThat(cache.getSize()).isZero();
+    }
+
+    @Test
+    public void negativeSizeIsRejected() {
+        final Throwable throwable = catchThrowable(() -> new PayloadCache(-1, payloadEncoder));
+
+        assertThat(throwable).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,418 @@
+package com.quorum.tessera.data.logstore;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class LogStoreTest {
+
+    @Rule public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private Path directory;
+
+    private LogStore logStore;
+
+    @Before
+    public void onSetUp() throws IOException {
+        directory = temporaryFolder.getRoot().toPath().resolve("store");
+        logStore = new LogStore(directory, 1024, true, 0.5);
+    }
+
+    @After
+    public void onTearDown() throws IOException {
+        logStore.close();
+    }
+
+    @Test
+    public void putThenGet() {
+        logStore.put(bytes("key"), bytes("value"));
+
+        assertThat(logStore.get(bytes("key"))).hasValue(bytes("value"));
+        assertThat(logStore.contains(bytes("key"))).isTrue();
+        assertThat(logStore.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void getMissingKeyIsEmpty() {
+        assertThat(logStore.get(bytes("key"))).isEmpty();
+        assertThat(logStore.contains(bytes("key"))).isFalse();
+    }
+
+    @Test
+    public void putReplacesValue() {
+        logStore.put(bytes("key"), bytes("first"));
+        logStore.put(bytes("key"), bytes("second"));
+
+        assertThat(logStore.get(bytes("key"))).hasValue(bytes("second"));
+        assertThat(logStore.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void emptyValueIsKept() {
+        logStore.put(bytes("key"), new byte[0]);
+
+        assertThat(logStore.get(bytes("key"))).hasValue(new byte[0]);
+    }
+
+    @Test
+    public void emptyKeyIsRejected() {
+        final Throwable throwable = catchThrowable(() -> logStore.put(new byte[0], bytes("value")));
+
+        assertThat(throwable).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void delete() {
+        logStore.put(bytes("key"), bytes("value"));
+
+        assertThat(logStore.delete(bytes("key"))).isTrue();
+        assertThat(logStore.delete(bytes("key"))).isFalse();
+        assertThat(logStore.get(bytes("key"))).isEmpty();
+        assertThat(logStore.size()).isZero();
+    }
+
+    @Test
+    public void putIfAbsentKeepsExistingValue() {
+        assertThat(logStore.putIfAbsent(bytes("key"), bytes("first"))).isTrue();
+        assertThat(logStore.putIfAbsent(bytes("key"), bytes("second"))).isFalse();
+
+        assertThat(logStore.get(bytes("key"))).hasValue(bytes("first"));
+    }
+
+    @Test
+    public void getAndUpdateGivesPreviousValue() {
+        assertThat(logStore.getAndUpdate(bytes("key"), current -> null)).isEmpty();
+        assertThat(logStore.contains(bytes("key"))).isFalse();
+
+        assertThat(logStore.getAndUpdate(bytes("key"), current -> bytes("first"))).isEmpty();
+        assertThat(logStore.getAndUpdate(bytes("key"), current -> bytes(new String(current) + "+second")))
+                .hasValue(bytes("first"));
+        assertThat(logStore.get(bytes("key"))).hasValue(bytes("first+second"));
+
+        assertThat(logStore.getAndUpdate(bytes("key"), current -> null)).hasValue(bytes("first+second"));
+        assertThat(logStore.contains(bytes("key"))).isFalse();
+    }
+
+    @Test
+    public void writersWaitingOnSyncShareTheNextOne() throws Exception {
+        final AtomicInteger syncs = new AtomicInteger();
+        final CountDownLatch syncing = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final LogStore store =
+                new LogStore(temporaryFolder.getRoot().toPath().resolve("synced"), 1024 * 1024, true, 0.5) {
+                    @Override
+                    void force(final Segment segment) throws IOException {
+                        if (syncs.incrementAndGet() == 1) {
+                            syncing.countDown();
+                            await(release);
+                        }
+                        super.force(segment);
+                    }
+                };
+
+        final ExecutorService executor = Executors.newFixedThreadPool(11);
+        try {
+            final Future<?> first = executor.submit(() -> store.put(bytes("first"), bytes("value")));
+            await(syncing);
+
+            // appended while the first sync is held up, so all wait for the next one
+            final List<Future<?>> others =
+                    IntStream.range(0, 10)
+                            .mapToObj(i -> executor.submit(() -> store.putIfAbsent(bytes("key" + i), bytes("value"))))
+                            .collect(Collectors.toList());
+            while (store.size() < 11) {
+                Thread.sleep(1);
+            }
+            release.countDown();
+
+            first.get();
+            for (final Future<?> other : others) {
+                other.get();
+            }
+        } finally {
+            executor.shutdown();
+            store.close();
+        }
+
+        assertThat(syncs).hasValue(2);
+    }
+
+    @Test
+    public void forEachVisitsEveryKey() {
+        IntStream.range(0, 10).forEach(i -> logStore.put(bytes("key" + i), bytes("value" + i)));
+        logStore.delete(bytes("key3"));
+
+        final Map<String, String> contents = new HashMap<>();
+        logStore.forEach((key, value) -> contents.put(string(key), string(value)));
+
+        assertThat(contents).hasSize(9).containsEntry("key0", "value0").doesNotContainKey("key3");
+    }
+
+    @Test
+    public void forEachPrefixReadsTheStartOfEachValue() {
+        logStore.put(bytes("key1"), bytes("value1"));
+        logStore.put(bytes("key2"), bytes("v"));
+
+        final Map<String, String> contents = new HashMap<>();
+        logStore.forEachPrefix(3, (key, prefix) -> contents.put(string(key), string(prefix)));
+
+        assertThat(contents).hasSize(2).containsEntry("key1", "val").containsEntry("key2", "v");
+    }
+
+    @Test
+    public void valuesSurviveReopening() throws IOException {
+        IntStream.range(0, 100).forEach(i -> logStore.put(bytes("key" + i), bytes("value" + i)));
+        logStore.put(bytes("key1"), bytes("replaced"));
+        logStore.delete(bytes("key2"));
+        logStore.close();
+
+        logStore = new LogStore(directory, 1024, true, 0.5);
+
+        assertThat(logStore.size()).isEqualTo(99);
+        assertThat(logStore.get(bytes("key0"))).hasValue(bytes("value0"));
+        assertThat(logStore.get(bytes("key1"))).hasValue(bytes("replaced"));
+        assertThat(logStore.get(bytes("key2"))).isEmpty();
+        assertThat(logStore.get(bytes("key99"))).hasValue(bytes("value99"));
+    }
+
+    @Test
+    public void partlyWrittenRecordIsIgnoredWhenReopening() throws IOException {
+        logStore.put(bytes("key"), bytes("value"));
+        logStore.close();
+
+        Files.write(newestSegment(), new byte[] {1, 2, 3, 4, 5, 6, 7}, StandardOpenOption.APPEND);
+
+        logStore = new LogStore(directory, 1024, true, 0.5);
+        logStore.put(bytes("other"), bytes("value"));
+
+        assertThat(logStore.get(bytes("key"))).hasValue(bytes("value"));
+        assertThat(logStore.get(bytes("other"))).hasValue(bytes("value"));
+    }
+
+    @Test
+    public void corruptRecordIsIgnoredWhenReopening() throws IOException {
+        logStore.put(bytes("key"), bytes("value"));
+        logStore.put(bytes("other"), bytes("value"));
+        logStore.close();
+
+        final Path segment = newestSegment();
+        final byte[] contents = Files.readAllBytes(segment);
+        contents[contents.length - 1] ^= 1;
+        Files.write(segment, contents);
+
+        logStore = new LogStore(directory, 1024, true, 0.5);
+
+        assertThat(logStore.get(bytes("key"))).hasValue(bytes("value"));
+        assertThat(logStore.get(bytes("other"))).isEmpty();
+    }
+
+    @Test
+    public void writesRollOntoNewSegments() {
+        IntStream.range(0, 100).forEach(i -> logStore.put(bytes("key" + i), new byte[100]));
+
+        assertThat(logStore.segmentCount()).isGreaterThan(10);
+        assertThat(logStore.size()).isEqualTo(100);
+    }
+
+    @Test
+    public void compactionDropsReplacedRecords() throws IOException {
+        // a record that is never replaced keeps the segments below the threshold, so no compaction starts by itself
+        logStore.close();
+        logStore = new LogStore(directory, 1024, true, 1);
+        logStore.put(bytes("kept"), new byte[500]);
+        IntStream.range(0, 100).forEach(i -> logStore.put(bytes("key" + (i % 5)), bytes("value" + i)));
+        logStore.put(bytes("gone"), bytes("value"));
+        logStore.delete(bytes("gone"));
+        final int segmentsBefore = logStore.segmentCount();
+
+        logStore.compact();
+
+        assertThat(logStore.segmentCount()).isLessThan(segmentsBefore);
+        assertThat(logStore.size()).isEqualTo(6);
+        assertThat(logStore.get(bytes("kept"))).hasValue(new byte[500]);
+        IntStream.range(95, 100)
+                .forEach(i -> assertThat(logStore.get(bytes("key" + (i % 5)))).hasValue(bytes("value" + i)));
+        assertThat(logStore.get(bytes("gone"))).isEmpty();
+        assertThat(Files.exists(directory.resolve(LogStore.COMPACTION_MARKER))).isFalse();
+    }
+
+    @Test
+    public void compactedValuesSurviveReopening() throws IOException {
+        IntStream.range(0, 100).forEach(i -> logStore.put(bytes("key" + (i % 5)), bytes("value" + i)));
+        logStore.compact();
+        logStore.put(bytes("key0"), bytes("latest"));
+        logStore.delete(bytes("key1"));
+        logStore.close();
+
+        logStore = new LogStore(directory, 1024, true, 0.5);
+
+        assertThat(logStore.size()).isEqualTo(4);
+        assertThat(logStore.get(bytes("key0"))).hasValue(bytes("latest"));
+        assertThat(logStore.get(bytes("key1"))).isEmpty();
+        assertThat(logStore.get(bytes("key4"))).hasValue(bytes("value99"));
+    }
+
+    @Test
+    public void deletionIsKeptWhenCompactedRecordsAreReopened() throws IOException {
+        logStore.put(bytes("key"), bytes("value"));
+        IntStream.range(0, 20).forEach(i -> logStore.put(bytes("filler"), new byte[100]));
+        logStore.delete(bytes("key"));
+        IntStream.range(0, 20).forEach(i -> logStore.put(bytes("filler"), new byte[100]));
+        logStore.compact();
+        logStore.close();
+
+        logStore = new LogStore(directory, 1024, true, 0.5);
+
+        assertThat(logStore.get(bytes("key"))).isEmpty();
+        assertThat(logStore.get(bytes("filler"))).hasValue(new byte[100]);
+    }
+
+    @Test
+    public void compactionRunsInTheBackgroundOnceDue() throws Exception {
+        IntStream.range(0, 500).forEach(i -> logStore.put(bytes("key"), new byte[100]));
+
+        for (int i = 0; i < 100 && logStore.segmentCount() > 10; i++) {
+            Thread.sleep(50);
+        }
+
+        assertThat(logStore.segmentCount()).isLessThanOrEqualTo(10);
+        assertThat(logStore.get(bytes("key"))).hasValue(new byte[100]);
+    }
+
+    @Test
+    public void unfinishedCompactionOutputIsDeleted() throws IOException {
+        logStore.put(bytes("key"), bytes("value"));
+        logStore.close();
+        final Path leftover = directory.resolve("99" + LogStore.COMPACTING_SUFFIX);
+        Files.write(leftover, new byte[] {1, 2, 3});
+
+        logStore = new LogStore(directory, 1024, true, 0.5);
+
+        assertThat(Files.exists(leftover)).isFalse();
+        assertThat(logStore.get(bytes("key"))).hasValue(bytes("value"));
+    }
+
+    @Test
+    public void interruptedCompactionIsCompleted() throws IOException {
+        logStore.put(bytes("key"), bytes("old"));
+        logStore.close();
+        final Path input = newestSegment();
+
+        // a compaction that stopped after writing its marker, before replacing its input
+        final Path output = directory.resolve("99" + LogStore.COMPACTING_SUFFIX);
+        final Path otherDirectory = temporaryFolder.newFolder().toPath();
+        final LogStore other = new LogStore(otherDirectory);
+        other.put(bytes("key"), bytes("compacted"));
+        other.close();
+        Files.copy(otherDirectory.resolve("0" + LogStore.SEGMENT_SUFFIX), output);
+        final String inputId = input.getFileName().toString().replace(LogStore.SEGMENT_SUFFIX, "");
+        Files.write(directory.resolve(LogStore.COMPACTION_MARKER), bytes("+99\n-" + inputId));
+
+        logStore = new LogStore(directory, 1024, true, 0.5);
+
+        assertThat(Files.exists(input)).isFalse();
+        assertThat(Files.exists(output)).isFalse();
+        assertThat(Files.exists(directory.resolve("99" + LogStore.SEGMENT_SUFFIX))).isTrue();
+        assertThat(logStore.get(bytes("key"))).hasValue(bytes("compacted"));
+    }
+
+    @Test
+    public void concurrentWritesAreAllStored() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            final List<Callable<Void>> writers =
+                    IntStream.range(0, 8)
+                            .<Callable<Void>>mapToObj(
+                                    writer ->
+                                            () -> {
+                                                for (int i = 0; i < 50; i++) {
+                                                    logStore.put(bytes(writer + ":" + i), bytes("value" + i));
+                                                }
+                                                return null;
+                                            })
+                            .collect(Collectors.toList());
+            for (final Future<Void> result : executor.invokeAll(writers)) {
+                result.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        logStore.close();
+
+        logStore = new LogStore(directory, 1024, true, 0.5);
+
+        assertThat(logStore.size()).isEqualTo(400);
+        assertThat(logStore.get(bytes("7:49"))).hasValue(bytes("value49"));
+    }
+
+    @Test
+    public void closedStoreRejectsWrites() throws IOException {
+        logStore.close();
+
+        assertThat(logStore.isOpen()).isFalse();
+        assertThat(catchThrowable(() -> logStore.put(bytes("key"), bytes("value"))))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void invalidSettingsAreRejected() {
+        final Path other = temporaryFolder.getRoot().toPath().resolve("other");
+
+        assertThat(catchThrowable(() -> new LogStore(other, 0, true, 0.5)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(catchThrowable(() -> new LogStore(other, 1024, true, 1.5)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void await(final CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private Path newestSegment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.toString().endsWith(LogStore.SEGMENT_SUFFIX))
+                    .max((a, b) -> Long.compare(segmentId(a), segmentId(b)))
+                    .orElseThrow();
+        }
+    }
+
+    private static long segmentId(final Path path) {
+        final String name = path.getFileName().toString();
+        return Long.parseLong(name.substring(0, name.length() - LogStore.SEGMENT_SUFFIX.length()));
+    }
+
+    private static byte[] bytes(final String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(final byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
@@ -2,6 +2,7 @@ package com.quorum.tessera.data.staging;
 
 import com.quorum.tessera.data.TestConfig;
 import com.quorum.tessera.data.Utils;
+import com.quorum.tessera.eclipselink.AtomicLongSequence;
 import com.quorum.tessera.enclave.PrivacyMode;
 import org.junit.After;
 import org.junit.Before;
@@ -14,11 +15,11 @@ import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
 import javax.persistence.criteria.Root;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 
 @RunWith(Parameterized.class)
 public class StagingEntityDAOTest {
@@ -49,11 +50,16 @@ public class StagingEntityDAOTest {
         properties.put("javax.persistence.schema-generation.database.action", "drop-and-create");
         properties.put("eclipselink.cache.shared.default", "false");
         properties.put("eclipselink.session.customizer", "com.quorum.tessera.eclipselink.AtomicLongSequence");
+        properties.put("eclipselink.jdbc.batch-writing", "JDBC");
 
         entityManagerFactory = Persistence.createEntityManagerFactory("tessera-recover", properties);
 
         stagingEntityDAO = new StagingEntityDAOImpl(entityManagerFactory);
 
+        // generated ids come from a sequence shared by every test, so move it clear of the ids the tests set themselves
+        final AtomicLongSequence sequence = new AtomicLongSequence();
+        while ((Long) sequence.getGeneratedValue(null, null, null) < 1000) {}
+
         transactions = createFixtures();
     }
 
@@ -70,62 +76,28 @@ public class StagingEntityDAOTest {
     }
 
     @Test
-    public void updateStageForBatch() {
-
-        final long validationStage = new Random().nextLong();
-        final int batchSize = 1;
-
-        int results = stagingEntityDAO.updateStageForBatch(batchSize, validationStage);
-        assertThat(results).isEqualTo(batchSize);
-
-        EntityManager entityManager = entityManagerFactory.createEntityManager();
-        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
-        CriteriaQuery<Long> criteriaQuery = criteriaBuilder.createQuery(Long.class);
-        Root<StagingTransaction> root = criteriaQuery.from(StagingTransaction.class);
-        criteriaQuery
-                .select(criteriaBuilder.count(root))
-                .where(criteriaBuilder.equal(root.get("validationStage"), validationStage));
-
-        Long countPending =
-                entityManager.createQuery(criteriaQuery).setParameter("stage", validationStage).getSingleResult();
-
-        assertThat(countPending).isEqualTo((long) batchSize);
-    }
-
-    @Test
-    public void testStagingQuery() {
-
-        final List<StagingTransaction> preStaging =
-                stagingEntityDAO.retrieveTransactionBatchOrderByStageAndHash(0, Integer.MAX_VALUE);
+    public void stageTransactions() {
 
-        final AtomicLong stage = new AtomicLong(0);
-        final int batchSize = 10;
+        final int staged = stagingEntityDAO.stageTransactions();
 
-        assertThat(preStaging.size()).isEqualTo(7);
-        preStaging.forEach(
-                stagingTransaction -> {
-                    assertThat(stagingTransaction.getValidationStage()).isNull();
-                });
+        assertThat(staged).isEqualTo(6);
 
-        while (stagingEntityDAO.updateStageForBatch(batchSize, stage.incrementAndGet()) != 0) {}
+        final List<StagingTransaction> verifiedTransactions = streamAll(stagingEntityDAO);
 
-        final List<StagingTransaction> verifiedTransactions =
-                stagingEntityDAO.retrieveTransactionBatchOrderByStageAndHash(0, Integer.MAX_VALUE);
-
-        // First tx to process will need to be Tx1
+        // Tx1 affects nothing
         assertThat(verifiedTransactions.get(0).getValidationStage()).isEqualTo(1L);
         assertThat(verifiedTransactions.get(0).getId()).isEqualTo(1L);
 
-        // Then tx2 (2 versions) and 3
-        assertThat(verifiedTransactions.get(1).getValidationStage()).isEqualTo(2L);
-        assertThat(verifiedTransactions.get(2).getValidationStage()).isEqualTo(2L);
-        assertThat(verifiedTransactions.get(3).getValidationStage()).isEqualTo(2L);
+        // Then tx2 (2 versions) and 3, which affect tx1
+        assertThat(verifiedTransactions.subList(1, 4))
+                .extracting(StagingTransaction::getValidationStage)
+                .containsOnly(2L);
 
-        // Then transaction 4 as its affected tx (3) had been validated
+        // Then transaction 4, which affects tx3
         assertThat(verifiedTransactions.get(4).getValidationStage()).isEqualTo(3L);
         assertThat(verifiedTransactions.get(4).getId()).isEqualTo(4L);
 
-        // Then transaction 7 as all of its affected txs (1 and 4) had been validated
+        // Then transaction 7, which affects tx1 and tx4
         assertThat(verifiedTransactions.get(5).getValidationStage()).isEqualTo(4L);
         assertThat(verifiedTransactions.get(5).getId()).isEqualTo(7L);
 
@@ -133,60 +105,32 @@ public class StagingEntityDAOTest {
         assertThat(verifiedTransactions.get(6).getValidationStage()).isNull();
         assertThat(verifiedTransactions.get(6).getId()).isEqualTo(5L);
 
-        final List<StagingTransaction> allTransactions =
-                stagingEntityDAO.retrieveTransactionBatchOrderByStageAndHash(0, Integer.MAX_VALUE);
-
-        assertThat(allTransactions.stream().filter(et -> et.getValidationStage() == null).count()).isEqualTo(1);
         assertThat(stagingEntityDAO.countAll()).isEqualTo(7);
         assertThat(stagingEntityDAO.countStaged()).isEqualTo(6);
     }
 
     @Test
-    public void paginationCanCauseDifferentStagingValueButOrderShouldBeMaintained() {
-
-        final List<StagingTransaction> preStaging =
-                stagingEntityDAO.retrieveTransactionBatchOrderByStageAndHash(0, Integer.MAX_VALUE);
-
-        final AtomicLong stage = new AtomicLong(0);
-        final int batchSize = 1;
-
-        assertThat(preStaging.size()).isEqualTo(7);
-        preStaging.forEach(
-                stagingTransaction -> {
-                    assertThat(stagingTransaction.getValidationStage()).isNull();
-                });
+    public void stageTransactionsAgainStagesNothingNew() {
 
-        while (stagingEntityDAO.updateStageForBatch(batchSize, stage.incrementAndGet()) != 0) {}
+        assertThat(stagingEntityDAO.stageTransactions()).isEqualTo(6);
+        assertThat(stagingEntityDAO.stageTransactions()).isEqualTo(0);
 
-        final List<StagingTransaction> verifiedTransactions =
-                stagingEntityDAO.retrieveTransactionBatchOrderByStageAndHash(0, Integer.MAX_VALUE);
-
-        // Order increase by one due to pagination
-        assertThat(verifiedTransactions.get(0).getValidationStage()).isEqualTo(1L);
-        assertThat(verifiedTransactions.get(1).getValidationStage()).isEqualTo(2L);
-        assertThat(verifiedTransactions.get(2).getValidationStage()).isEqualTo(3L);
-        assertThat(verifiedTransactions.get(3).getValidationStage()).isEqualTo(4L);
-        assertThat(verifiedTransactions.get(4).getValidationStage()).isEqualTo(5L);
-        assertThat(verifiedTransactions.get(5).getValidationStage()).isEqualTo(6L);
-        assertThat(verifiedTransactions.get(6).getValidationStage()).isNull();
+        assertThat(stagingEntityDAO.countStaged()).isEqualTo(6);
+    }
 
-        final List<String> possibleOrdering =
-                Arrays.asList("1,21,22,3,4,7,5", "1,3,21,22,4,7,5", "1,3,4,21,22,7,5", "1,3,4,7,21,22,5");
+    @Test
+    public void streamingTransactionsFollowsStageOrder() {
 
-        final String order =
-                verifiedTransactions.stream()
-                        .map(StagingTransaction::getId)
-                        .map(String::valueOf)
-                        .collect(Collectors.joining(","));
+        stagingEntityDAO.stageTransactions();
 
-        assertThat(possibleOrdering.contains(order));
+        final List<StagingTransaction> expected = streamAll(stagingEntityDAO);
 
-        final List<StagingTransaction> allTransactions =
-                stagingEntityDAO.retrieveTransactionBatchOrderByStageAndHash(0, Integer.MAX_VALUE);
+        final List<StagingTransaction> streamed = streamAll(new StagingEntityDAOImpl(entityManagerFactory, 2));
 
-        assertThat(allTransactions.stream().filter(et -> et.getValidationStage() == null).count()).isEqualTo(1);
-        assertThat(stagingEntityDAO.countAll()).isEqualTo(7);
-        assertThat(stagingEntityDAO.countStaged()).isEqualTo(6);
+        assertThat(streamed)
+                .extracting(StagingTransaction::getId)
+                .containsExactlyElementsOf(
+                        expected.stream().map(StagingTransaction::getId).collect(Collectors.toList()));
     }
 
     @Test
@@ -249,6 +193,50 @@ public class StagingEntityDAOTest {
         retrieved.getAffectedContractTransactions().forEach(a -> assertThat(a.getId()).isNotNull());
     }
 
+    @Test
+    public void testSaveAll() {
+
+        final List<StagingTransaction> stagingTransactions = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            final StagingTransaction stagingTransaction = new StagingTransaction();
+            stagingTransaction.setHash(Utils.createHashStr());
+            stagingTransaction.setPrivacyMode(PrivacyMode.STANDARD_PRIVATE);
+
+            final StagingAffectedTransaction affected = new StagingAffectedTransaction();
+            affected.setSourceTransaction(stagingTransaction);
+            affected.setHash("affected" + i);
+            stagingTransaction.setAffectedContractTransactions(Set.of(affected));
+
+            stagingTransactions.add(stagingTransaction);
+        }
+
+        final List<StagingTransaction> saved = stagingEntityDAO.saveAll(stagingTransactions);
+
+        assertThat(saved).containsExactlyElementsOf(stagingTransactions);
+        assertThat(stagingEntityDAO.countAll()).isEqualTo(transactions.size() + 25);
+
+        for (StagingTransaction stagingTransaction : stagingTransactions) {
+            final StagingTransaction retrieved = stagingEntityDAO.retrieveByHash(stagingTransaction.getHash()).get();
+            assertThat(retrieved).isEqualTo(stagingTransaction);
+            assertThat(retrieved.getAffectedContractTransactions()).hasSize(1);
+        }
+    }
+
+    @Test
+    public void saveAllPersistsNothingIfAnyTransactionFails() {
+
+        final StagingTransaction valid = new StagingTransaction();
+        valid.setHash(Utils.createHashStr());
+
+        // the hash column is not nullable
+        final StagingTransaction invalid = new StagingTransaction();
+
+        final Throwable throwable = catchThrowable(() -> stagingEntityDAO.saveAll(List.of(valid, invalid)));
+
+        assertThat(throwable).isInstanceOf(PersistenceException.class);
+        assertThat(stagingEntityDAO.countAll()).isEqualTo(transactions.size());
+    }
+
     public Map<String, StagingTransaction> createFixtures() {
 
         final EntityManager entityManager = entityManagerFactory.createEntityManager();
@@ -369,6 +357,12 @@ public class StagingEntityDAOTest {
         return transactions;
     }
 
+    private static List<StagingTransaction> streamAll(StagingEntityDAO stagingEntityDAO) {
+        try (Stream<StagingTransaction> stream = stagingEntityDAO.streamTransactionsOrderByStageAndHash()) {
+            return stream.collect(Collectors.toList());
+        }
+    }
+
     @Parameterized.Parameters(name = "DB {0}")
     public static Collection<TestConfig> connectionDetails() {
         return List.of(TestConfig.values());
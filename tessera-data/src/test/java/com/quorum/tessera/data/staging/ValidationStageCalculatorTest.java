@@ -0,0 +1,120 @@
+package com.quorum.tessera.data.staging;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ValidationStageCalculatorTest {
+
+    private final ValidationStageCalculator calculator = new ValidationStageCalculator();
+
+    @Test
+    public void nothingToStage() {
+        assertThat(calculator.calculate()).isEmpty();
+    }
+
+    @Test
+    public void transactionsWithoutAffectedTransactionsAreFirst() {
+        calculator.addTransaction("A", null);
+        calculator.addTransaction("B", null);
+
+        assertThat(calculator.calculate()).containsExactly(Map.entry(1L, List.of("A", "B")));
+    }
+
+    @Test
+    public void stageIsAfterHighestAffectedTransaction() {
+        calculator.addTransaction("D", null);
+        calculator.addTransaction("C", null);
+        calculator.addTransaction("B", null);
+        calculator.addTransaction("A", null);
+
+        // D affects A and C, C affects B, B affects A
+        calculator.addAffectedTransaction("D", "A");
+        calculator.addAffectedTransaction("D", "C");
+        calculator.addAffectedTransaction("C", "B");
+        calculator.addAffectedTransaction("B", "A");
+
+        final SortedMap<Long, List<String>> result = calculator.calculate();
+
+        assertThat(result)
+                .containsExactly(
+                        Map.entry(1L, List.of("A")),
+                        Map.entry(2L, List.of("B")),
+                        Map.entry(3L, List.of("C")),
+                        Map.entry(4L, List.of("D")));
+    }
+
+    @Test
+    public void versionsOfATransactionShareAStage() {
+        calculator.addTransaction("A", null);
+        calculator.addTransaction("B", null);
+        calculator.addTransaction("B", null);
+
+        calculator.addAffectedTransaction("B", "A");
+        calculator.addAffectedTransaction("B", "A");
+
+        assertThat(calculator.calculate())
+                .containsExactly(Map.entry(1L, List.of("A")), Map.entry(2L, List.of("B")));
+    }
+
+    @Test
+    public void unknownAffectedTransactionBlocksDependents() {
+        calculator.addTransaction("A", null);
+        calculator.addTransaction("B", null);
+        calculator.addTransaction("C", null);
+
+        calculator.addAffectedTransaction("B", "UNKNOWN");
+        calculator.addAffectedTransaction("C", "B");
+
+        assertThat(calculator.calculate()).containsExactly(Map.entry(1L, List.of("A")));
+    }
+
+    @Test
+    public void cyclesAreNeverStaged() {
+        calculator.addTransaction("A", null);
+        calculator.addTransaction("B", null);
+        calculator.addTransaction("C", null);
+        calculator.addTransaction("SELF", null);
+
+        calculator.addAffectedTransaction("A", "B");
+        calculator.addAffectedTransaction("B", "A");
+        calculator.addAffectedTransaction("SELF", "SELF");
+
+        assertThat(calculator.calculate()).containsExactly(Map.entry(1L, List.of("C")));
+    }
+
+    @Test
+    public void stagesFollowThoseAlreadyAssigned() {
+        calculator.addTransaction("A", 3L);
+        calculator.addTransaction("A", 5L);
+        calculator.addTransaction("B", null);
+        calculator.addTransaction("C", 1L);
+        calculator.addTransaction("C", null);
+
+        calculator.addAffectedTransaction("B", "A");
+        calculator.addAffectedTransaction("C", "B");
+
+        // A is fully staged so is left alone, but C still has a version without a stage
+        assertThat(calculator.calculate())
+                .containsExactly(Map.entry(6L, List.of("B")), Map.entry(7L, List.of("C")));
+    }
+
+    @Test
+    public void longChainsAreStagedInOnePass() {
+        final int length = 100_000;
+        IntStream.range(0, length).forEach(i -> calculator.addTransaction("T" + i, null));
+        IntStream.range(1, length).forEach(i -> calculator.addAffectedTransaction("T" + i, "T" + (i - 1)));
+
+        final SortedMap<Long, List<String>> result = calculator.calculate();
+
+        assertThat(result).hasSize(length);
+        assertThat(result.firstKey()).isEqualTo(1L);
+        assertThat(result.lastKey()).isEqualTo((long) length);
+        assertThat(result.get((long) length)).containsExactly("T" + (length - 1));
+    }
+}
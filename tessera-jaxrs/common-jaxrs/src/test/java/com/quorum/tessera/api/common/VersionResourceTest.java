@@ -31,12 +31,10 @@ public class VersionResourceTest {
         assertThat(instance.getDistributionVersion()).isEqualTo(MockVersion.VERSION);
     }
 
-
     @Test
     public void getVersions() {
         assertThat(instance.getVersions())
-            .containsExactlyElementsOf(Stream.of("1.0", "2.0")
-                .map(Json::createValue)
-                .collect(Collectors.toSet()));
+                .containsExactlyElementsOf(
+                        Stream.of("1.0", "2.0", "3.0").map(Json::createValue).collect(Collectors.toList()));
     }
 }
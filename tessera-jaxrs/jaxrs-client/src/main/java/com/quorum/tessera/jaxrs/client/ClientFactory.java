@@ -4,10 +4,13 @@ import com.quorum.tessera.config.ServerConfig;
 import com.quorum.tessera.context.RestClientFactory;
 import com.quorum.tessera.reflect.ReflectCallback;
 import com.quorum.tessera.ssl.context.SSLContextFactory;
+import com.quorum.tessera.config.util.ClientPropertyHelper;
 import com.quorum.tessera.config.util.IntervalPropertyHelper;
 
 import java.lang.reflect.Method;
 import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
 import java.util.Arrays;
 
 import javax.net.ssl.SSLContext;
@@ -86,4 +89,35 @@ public class ClientFactory implements RestClientFactory {
             return clientBuilder.build();
         }
     }
+
+    /**
+     * Creates a new non-blocking client, which may or may not be SSL enabled depending on the configuration.
+     *
+     * <p>Unix sockets are not supported by the non-blocking client, so callers should use {@link
+     * #buildFrom(ServerConfig)} for them.
+     *
+     * @param config the server configuration of this node
+     * @return the client
+     * @see PeerHttpClient
+     */
+    public PeerHttpClient buildAsyncFrom(final ServerConfig config) {
+        if (config.isUnixSocket()) {
+            throw new UnsupportedOperationException("Unix sockets are not supported by the non-blocking client");
+        }
+
+        final long pollInterval = new IntervalPropertyHelper(config.getProperties()).partyInfoInterval();
+        final Duration timeout = Duration.ofMillis(Math.round(Math.ceil(pollInterval * 0.75)));
+
+        final HttpClient.Builder httpClientBuilder =
+                HttpClient.newBuilder().version(HttpClient.Version.HTTP_2).connectTimeout(timeout);
+
+        if (config.isSsl()) {
+            httpClientBuilder.sslContext(
+                    sslContextFactory.from(config.getServerUri().toString(), config.getSslConfig()));
+        }
+
+        final int maxConnectionsPerPeer = new ClientPropertyHelper(config.getProperties()).maxConnectionsPerPeer();
+
+        return new PeerHttpClient(httpClientBuilder.build(), timeout, maxConnectionsPerPeer);
+    }
 }
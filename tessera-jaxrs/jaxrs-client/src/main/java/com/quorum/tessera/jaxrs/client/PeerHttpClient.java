@@ -0,0 +1,139 @@
+package com.quorum.tessera.jaxrs.client;
+
+import com.quorum.tessera.shared.Constants;
+import com.quorum.tessera.version.ApiVersion;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * A non-blocking HTTP client for calls to other nodes.
+ *
+ * <p>Connections are kept alive and reused, and negotiate HTTP/2 where the other node supports it, in which case
+ * requests to it are multiplexed over a single connection. The number of requests in flight to each node is limited,
+ * which bounds the connections opened to it over HTTP/1.1; further requests wait, without holding a thread, until an
+ * earlier one completes.
+ */
+public class PeerHttpClient {
+
+    private final HttpClient httpClient;
+
+    private final Duration requestTimeout;
+
+    private final int maxConnectionsPerPeer;
+
+    private final Map<String, PeerLimiter> limiters = new ConcurrentHashMap<>();
+
+    public PeerHttpClient(final HttpClient httpClient, final Duration requestTimeout, final int maxConnectionsPerPeer) {
+        if (maxConnectionsPerPeer < 1) {
+            throw new IllegalArgumentException("maxConnectionsPerPeer must be at least 1");
+        }
+        this.httpClient = Objects.requireNonNull(httpClient);
+        this.requestTimeout = Objects.requireNonNull(requestTimeout);
+        this.maxConnectionsPerPeer = maxConnectionsPerPeer;
+    }
+
+    /**
+     * Posts binary data to a node, with the API versions this node supports.
+     *
+     * @param baseUrl the URL of the node
+     * @param path the path of the resource to post to
+     * @param body the data to post
+     * @return the response, or a future completed with an {@link java.io.IOException} if the node could not be reached
+     */
+    public CompletableFuture<HttpResponse<byte[]>> post(final String baseUrl, final String path, final byte[] body) {
+        final URI uri = resolve(baseUrl, path);
+
+        final HttpRequest.Builder request =
+                HttpRequest.newBuilder(uri)
+                        .timeout(requestTimeout)
+                        .header("Content-Type", "application/octet-stream")
+                        .POST(HttpRequest.BodyPublishers.ofByteArray(body));
+        ApiVersion.versions().forEach(v -> request.header(Constants.API_VERSION_HEADER, v));
+
+        final PeerLimiter limiter =
+                limiters.computeIfAbsent(uri.getScheme() + "://" + uri.getRawAuthority(), k -> new PeerLimiter());
+
+        return limiter.submit(() -> httpClient.sendAsync(request.build(), HttpResponse.BodyHandlers.ofByteArray()));
+    }
+
+    static URI resolve(final String baseUrl, final String path) {
+        final String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        final String resource = path.startsWith("/") ? path : "/" + path;
+        return URI.create(base + resource);
+    }
+
+    int getMaxConnectionsPerPeer() {
+        return maxConnectionsPerPeer;
+    }
+
+    /** Starts requests to a single node while fewer than the limit are in flight, and queues the rest */
+    private class PeerLimiter {
+
+        private final Queue<Runnable> waiting = new ArrayDeque<>();
+
+        private int inFlight;
+
+        <T> CompletableFuture<T> submit(final Supplier<CompletableFuture<T>> request) {
+            final CompletableFuture<T> result = new CompletableFuture<>();
+
+            final Runnable start =
+                    () -> {
+                        final CompletableFuture<T> sent;
+                        try {
+                            sent = request.get();
+                        } catch (RuntimeException ex) {
+                            release();
+                            result.completeExceptionally(ex);
+                            return;
+                        }
+                        sent.whenComplete(
+                                (response, ex) -> {
+                                    release();
+                                    if (ex != null) {
+                                        result.completeExceptionally(ex);
+                                    } else {
+                                        result.complete(response);
+                                    }
+                                });
+                    };
+
+            final boolean startNow;
+            synchronized (this) {
+                startNow = inFlight < maxConnectionsPerPeer;
+                if (startNow) {
+                    inFlight++;
+                } else {
+                    waiting.add(start);
+                }
+            }
+            if (startNow) {
+                start.run();
+            }
+            return result;
+        }
+
+        private void release() {
+            final Runnable next;
+            synchronized (this) {
+                next = waiting.poll();
+                if (next == null) {
+                    inFlight--;
+                }
+            }
+            if (next != null) {
+                next.run();
+            }
+        }
+    }
+}
@@ -96,4 +96,42 @@ public class ClientFactoryTest {
         ClientFactory clientFactory = new ClientFactory();
         assertThat(clientFactory).isNotNull();
     }
+
+    @Test
+    public void buildAsyncInsecureClient() {
+        ServerConfig serverConfig = mock(ServerConfig.class);
+        when(serverConfig.isSsl()).thenReturn(false);
+        when(serverConfig.getProperties()).thenReturn(Map.of("maxConnectionsPerPeer", "3"));
+
+        PeerHttpClient client = factory.buildAsyncFrom(serverConfig);
+
+        assertThat(client).isNotNull();
+        assertThat(client.getMaxConnectionsPerPeer()).isEqualTo(3);
+    }
+
+    @Test
+    public void buildAsyncSecureClient() throws Exception {
+        ServerConfig serverConfig = mock(ServerConfig.class);
+        SslConfig sslConfig = mock(SslConfig.class);
+        when(serverConfig.isSsl()).thenReturn(true);
+        when(serverConfig.getServerUri()).thenReturn(new URI("https://localhost:8080"));
+        when(serverConfig.getSslConfig()).thenReturn(sslConfig);
+        when(serverConfig.getProperties()).thenReturn(Collections.emptyMap());
+
+        SSLContext sslContext = SSLContext.getDefault();
+        when(sslContextFactory.from("https://localhost:8080", sslConfig)).thenReturn(sslContext);
+
+        PeerHttpClient client = factory.buildAsyncFrom(serverConfig);
+
+        assertThat(client).isNotNull();
+        verify(sslContextFactory).from("https://localhost:8080", sslConfig);
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void buildAsyncUnixSocketClientIsNotSupported() {
+        ServerConfig serverConfig = mock(ServerConfig.class);
+        when(serverConfig.isUnixSocket()).thenReturn(true);
+
+        factory.buildAsyncFrom(serverConfig);
+    }
 }
@@ -0,0 +1,156 @@
+package com.quorum.tessera.jaxrs.client;
+
+import com.quorum.tessera.shared.Constants;
+import com.quorum.tessera.version.ApiVersion;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+public class PeerHttpClientTest {
+
+    private HttpServer server;
+
+    private String serverUrl;
+
+    private ExecutorService serverExecutor;
+
+    @Before
+    public void onSetUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+        serverUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @After
+    public void onTearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    private static PeerHttpClient client(int maxConnectionsPerPeer) {
+        return new PeerHttpClient(HttpClient.newHttpClient(), Duration.ofSeconds(5), maxConnectionsPerPeer);
+    }
+
+    @Test
+    public void postSendsBodyAndVersionHeaders() throws Exception {
+        final AtomicReference<byte[]> received = new AtomicReference<>();
+        final AtomicReference<List<String>> versions = new AtomicReference<>();
+        final AtomicReference<String> contentType = new AtomicReference<>();
+
+        server.createContext(
+                "/push",
+                exchange -> {
+                    received.set(exchange.getRequestBody().readAllBytes());
+                    versions.set(exchange.getRequestHeaders().get(Constants.API_VERSION_HEADER));
+                    contentType.set(exchange.getRequestHeaders().getFirst("Content-Type"));
+                    final byte[] response = "OK".getBytes();
+                    exchange.sendResponseHeaders(201, response.length);
+                    try (OutputStream out = exchange.getResponseBody()) {
+                        out.write(response);
+                    }
+                });
+
+        final HttpResponse<byte[]> response =
+                client(2).post(serverUrl + "/", "/push", "DATA".getBytes()).get(5, TimeUnit.SECONDS);
+
+        assertThat(response.statusCode()).isEqualTo(201);
+        assertThat(response.body()).isEqualTo("OK".getBytes());
+        assertThat(received.get()).isEqualTo("DATA".getBytes());
+        assertThat(versions.get()).containsExactlyInAnyOrderElementsOf(ApiVersion.versions());
+        assertThat(contentType.get()).isEqualTo("application/octet-stream");
+    }
+
+    @Test
+    public void requestsInFlightToAPeerAreLimited() throws Exception {
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+        final CountDownLatch twoArrived = new CountDownLatch(2);
+
+        server.createContext(
+                "/partyinfo",
+                exchange -> {
+                    maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                    twoArrived.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                    exchange.getRequestBody().readAllBytes();
+                    inFlight.decrementAndGet();
+                    exchange.sendResponseHeaders(200, -1);
+                    exchange.close();
+                });
+
+        final PeerHttpClient client = client(2);
+
+        final List<CompletableFuture<HttpResponse<byte[]>>> responses = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            responses.add(client.post(serverUrl, "partyinfo", new byte[] {(byte) i}));
+        }
+
+        assertThat(twoArrived.await(5, TimeUnit.SECONDS)).isTrue();
+        // give any request over the limit the chance to arrive
+        Thread.sleep(200);
+        assertThat(inFlight.get()).isEqualTo(2);
+
+        release.countDown();
+        for (CompletableFuture<HttpResponse<byte[]>> response : responses) {
+            assertThat(response.get(5, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+        }
+        assertThat(maxInFlight.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void unreachablePeerCompletesWithIOException() throws Exception {
+        final int closedPort;
+        try (ServerSocket socket = new ServerSocket(0)) {
+            closedPort = socket.getLocalPort();
+        }
+
+        final PeerHttpClient client = client(1);
+
+        final Throwable first =
+                catchThrowable(() -> client.post("http://localhost:" + closedPort, "/push", new byte[0]).join());
+        final Throwable second =
+                catchThrowable(() -> client.post("http://localhost:" + closedPort, "/push", new byte[0]).join());
+
+        assertThat(first).isInstanceOf(CompletionException.class).hasCauseInstanceOf(IOException.class);
+        // the failed request frees its place for the next one
+        assertThat(second).isInstanceOf(CompletionException.class).hasCauseInstanceOf(IOException.class);
+    }
+
+    @Test
+    public void resolve() {
+        assertThat(PeerHttpClient.resolve("http://node:9001/", "/push")).isEqualTo(URI.create("http://node:9001/push"));
+        assertThat(PeerHttpClient.resolve("http://node:9001", "push")).isEqualTo(URI.create("http://node:9001/push"));
+    }
+
+    @Test
+    public void maxConnectionsPerPeerMustBePositive() {
+        final Throwable throwable = catchThrowable(() -> client(0));
+
+        assertThat(throwable).isInstanceOf(IllegalArgumentException.class);
+    }
+}
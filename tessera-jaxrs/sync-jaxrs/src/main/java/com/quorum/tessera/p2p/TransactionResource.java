@@ -142,6 +142,30 @@ public class TransactionResource {
 
         LOGGER.debug("Received push request");
 
+        return storePushedPayload(payload);
+    }
+
+    @ApiOperation(value = "Transmit an encrypted payload for several recipients hosted by this node in one request")
+    @ApiResponses({
+        @ApiResponse(code = 201, message = "Key created status"),
+        @ApiResponse(code = 500, message = "General error")
+    })
+    @POST
+    @Path("pushMultiple")
+    @Consumes(APPLICATION_OCTET_STREAM)
+    public Response pushMultiple(
+            @ApiParam(
+                            name = "payload",
+                            required = true,
+                            value = "Key data to be stored, with a recipient box for each recipient key listed.")
+                    final byte[] payload) {
+
+        LOGGER.debug("Received push request for multiple recipients");
+
+        return storePushedPayload(payload);
+    }
+
+    private Response storePushedPayload(final byte[] payload) {
         final MessageHash messageHash = transactionManager.storePayload(payloadEncoder.decode(payload));
         LOGGER.debug("Push request generated hash {}", messageHash);
         // TODO: Return the query url not the string of the messageHash
@@ -0,0 +1,64 @@
+package com.quorum.tessera.p2p.partyinfo;
+
+import com.quorum.tessera.jaxrs.client.PeerHttpClient;
+import com.quorum.tessera.partyinfo.AsyncP2pClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.ProcessingException;
+import javax.ws.rs.core.Response.Status;
+import java.io.IOException;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Sends party info to other nodes with the non-blocking {@link PeerHttpClient}.
+ *
+ * <p>Failures to reach a node are raised as a {@link ProcessingException}, as for the {@link RestP2pClient}.
+ */
+public class AsyncRestP2pClient implements AsyncP2pClient {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncRestP2pClient.class);
+
+    private final PeerHttpClient client;
+
+    public AsyncRestP2pClient(final PeerHttpClient client) {
+        this.client = Objects.requireNonNull(client);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> sendPartyInfoAsync(final String targetUrl, final byte[] data) {
+        LOGGER.debug("Sending PartyInfo to peer {}", targetUrl);
+
+        return client.post(targetUrl, "/partyinfo", data)
+                .handle(
+                        (response, ex) -> {
+                            if (ex != null) {
+                                final Throwable cause =
+                                        Optional.of(ex)
+                                                .filter(CompletionException.class::isInstance)
+                                                .map(Throwable::getCause)
+                                                .orElse(ex);
+                                if (cause instanceof IOException) {
+                                    throw new ProcessingException(cause);
+                                }
+                                throw new CompletionException(cause);
+                            }
+
+                            final int returnStatusCode = response.statusCode();
+                            if (Status.OK.getStatusCode() != returnStatusCode
+                                    && Status.CREATED.getStatusCode() != returnStatusCode) {
+                                LOGGER.warn(
+                                        "PartyInfo returned status code for peer {} was {}",
+                                        targetUrl,
+                                        returnStatusCode);
+                                return false;
+                            }
+
+                            LOGGER.debug("Successful PartyInfo call to {}", targetUrl);
+                            return Objects.nonNull(response.body());
+                        });
+    }
+}
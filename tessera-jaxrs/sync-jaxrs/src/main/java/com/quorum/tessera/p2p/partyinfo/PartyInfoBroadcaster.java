@@ -2,10 +2,12 @@ package com.quorum.tessera.p2p.partyinfo;
 
 import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.discovery.NodeUri;
+import com.quorum.tessera.partyinfo.AsyncP2pClient;
 import com.quorum.tessera.partyinfo.P2pClient;
 import com.quorum.tessera.partyinfo.model.PartyInfo;
 import com.quorum.tessera.partyinfo.model.PartyInfoBuilder;
 import com.quorum.tessera.partyinfo.node.NodeInfo;
+import com.quorum.tessera.threading.ExecutorFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -15,7 +17,6 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
 
 /**
  * Polls every so often to all known nodes for any new discoverable nodes. This keeps all nodes up-to date and
@@ -40,7 +41,7 @@ public class PartyInfoBroadcaster implements Runnable {
             Discovery.getInstance(),
             PartyInfoParser.create(),
             p2pClient,
-            Executors.newCachedThreadPool(),
+            new ExecutorFactory().createOutboundP2p("partyinfo-broadcast"),
             PartyStore.getInstance());
     }
 
@@ -99,20 +100,24 @@ public class PartyInfoBroadcaster implements Runnable {
     }
 
     /**
-     * Sends a request for node information to a single target
+     * Sends a request for node information to a single target. A non-blocking client is called directly, otherwise the
+     * call is made on the executor.
      *
      * @param url the target URL to call
      * @param encodedPartyInfo the encoded current party information
      */
     protected void pollSingleParty(final String url, final byte[] encodedPartyInfo) {
         final NodeUri nodeUri = NodeUri.create(url);
-        CompletableFuture.runAsync(
-            () -> {
-                LOGGER.debug("Sending party info to {}", nodeUri.asString());
-                p2pClient.sendPartyInfo(url, encodedPartyInfo);
-                LOGGER.debug("Sent party info to {}", nodeUri.asString());
-            },
-            executor)
+        LOGGER.debug("Sending party info to {}", nodeUri.asString());
+
+        final CompletableFuture<Boolean> sent;
+        if (p2pClient instanceof AsyncP2pClient) {
+            sent = ((AsyncP2pClient) p2pClient).sendPartyInfoAsync(url, encodedPartyInfo);
+        } else {
+            sent = CompletableFuture.supplyAsync(() -> p2pClient.sendPartyInfo(url, encodedPartyInfo), executor);
+        }
+
+        sent.thenRun(() -> LOGGER.debug("Sent party info to {}", nodeUri.asString()))
             .exceptionally(
                 ex -> {
                     Throwable cause = Optional.of(ex).map(Throwable::getCause).orElse(ex);
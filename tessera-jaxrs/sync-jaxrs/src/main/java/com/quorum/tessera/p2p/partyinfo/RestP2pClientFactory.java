@@ -4,6 +4,8 @@ import com.quorum.tessera.partyinfo.P2pClient;
 import com.quorum.tessera.partyinfo.P2pClientFactory;
 import com.quorum.tessera.config.CommunicationType;
 import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.ServerConfig;
+import com.quorum.tessera.config.util.ClientPropertyHelper;
 import com.quorum.tessera.jaxrs.client.ClientFactory;
 import com.quorum.tessera.ssl.context.ClientSSLContextFactory;
 import com.quorum.tessera.ssl.context.SSLContextFactory;
@@ -17,6 +19,12 @@ public class RestP2pClientFactory implements P2pClientFactory {
         SSLContextFactory clientSSLContextFactory = ClientSSLContextFactory.create();
 
         ClientFactory clientFactory = new ClientFactory(clientSSLContextFactory);
+
+        final ServerConfig serverConfig = config.getP2PServerConfig();
+        if (new ClientPropertyHelper(serverConfig.getProperties()).asyncClient() && !serverConfig.isUnixSocket()) {
+            return new AsyncRestP2pClient(clientFactory.buildAsyncFrom(serverConfig));
+        }
+
         Client client = clientFactory.buildFrom(config.getP2PServerConfig());
 
         return new RestP2pClient(client);
@@ -6,13 +6,13 @@ import com.quorum.tessera.p2p.partyinfo.PartyInfoParser;
 import com.quorum.tessera.partyinfo.P2pClient;
 import com.quorum.tessera.partyinfo.model.*;
 import com.quorum.tessera.partyinfo.node.NodeInfo;
+import com.quorum.tessera.threading.ExecutorFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import java.util.Set;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 
 /** A poller that will contact all outstanding parties that need to have transactions resent for a single round */
@@ -36,7 +36,7 @@ public class SyncPoller implements Runnable {
         ResendPartyStore resendPartyStore, TransactionRequester transactionRequester, P2pClient p2pClient) {
 
         this(
-            Executors.newCachedThreadPool(),
+            new ExecutorFactory().createOutboundP2p("sync-poller"),
             resendPartyStore,
             transactionRequester,
             DiscoveryFactory.provider(),
@@ -57,6 +57,20 @@ public class TransactionResourceTest {
         verify(payloadEncoder).decode(someData);
     }
 
+    @Test
+    public void pushMultiple() {
+        final byte[] someData = "SomeData".getBytes();
+        final EncodedPayload payload = mock(EncodedPayload.class);
+        when(payloadEncoder.decode(someData)).thenReturn(payload);
+
+        final Response result = transactionResource.pushMultiple(someData);
+
+        assertThat(result.getStatus()).isEqualTo(201);
+        assertThat(result.hasEntity()).isTrue();
+        verify(transactionManager).storePayload(payload);
+        verify(payloadEncoder).decode(someData);
+    }
+
     @Test
     public void resend() {
         ResendRequest resendRequest = new ResendRequest();
@@ -0,0 +1,88 @@
+package com.quorum.tessera.p2p.partyinfo;
+
+import com.quorum.tessera.jaxrs.client.PeerHttpClient;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.ws.rs.ProcessingException;
+import java.net.ConnectException;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+public class AsyncRestP2pClientTest {
+
+    private static final String TARGET_URL = "http://somedomain.com";
+
+    private static final byte[] DATA = "SOMEDATA".getBytes();
+
+    private PeerHttpClient client;
+
+    private AsyncRestP2pClient p2pClient;
+
+    @Before
+    public void onSetUp() {
+        client = mock(PeerHttpClient.class);
+        p2pClient = new AsyncRestP2pClient(client);
+    }
+
+    @After
+    public void onTearDown() {
+        verify(client).post(TARGET_URL, "/partyinfo", DATA);
+        verifyNoMoreInteractions(client);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void respondWith(int status, byte[] body) {
+        final HttpResponse<byte[]> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        when(response.body()).thenReturn(body);
+        when(client.post(TARGET_URL, "/partyinfo", DATA)).thenReturn(CompletableFuture.completedFuture(response));
+    }
+
+    @Test
+    public void sendPartyInfo() {
+        respondWith(200, "RESULT".getBytes());
+
+        assertThat(p2pClient.sendPartyInfoAsync(TARGET_URL, DATA).join()).isTrue();
+    }
+
+    @Test
+    public void sendPartyInfoCreated() {
+        respondWith(201, "RESULT".getBytes());
+
+        assertThat(p2pClient.sendPartyInfo(TARGET_URL, DATA)).isTrue();
+    }
+
+    @Test
+    public void sendPartyInfoReturnsError() {
+        respondWith(500, new byte[0]);
+
+        assertThat(p2pClient.sendPartyInfo(TARGET_URL, DATA)).isFalse();
+    }
+
+    @Test
+    public void unreachablePeerRaisesProcessingException() {
+        when(client.post(TARGET_URL, "/partyinfo", DATA))
+                .thenReturn(CompletableFuture.failedFuture(new CompletionException(new ConnectException())));
+
+        final Throwable throwable = catchThrowable(() -> p2pClient.sendPartyInfo(TARGET_URL, DATA));
+
+        assertThat(throwable).isInstanceOf(ProcessingException.class).hasCauseInstanceOf(ConnectException.class);
+    }
+
+    @Test
+    public void otherFailuresArePassedOn() {
+        final IllegalStateException cause = new IllegalStateException("unexpected");
+        when(client.post(TARGET_URL, "/partyinfo", DATA)).thenReturn(CompletableFuture.failedFuture(cause));
+
+        final Throwable throwable = catchThrowable(() -> p2pClient.sendPartyInfo(TARGET_URL, DATA));
+
+        assertThat(throwable).isSameAs(cause);
+    }
+}
@@ -1,6 +1,7 @@
 package com.quorum.tessera.p2p.partyinfo;
 
 import com.quorum.tessera.discovery.Discovery;
+import com.quorum.tessera.partyinfo.AsyncP2pClient;
 import com.quorum.tessera.partyinfo.P2pClient;
 import com.quorum.tessera.partyinfo.model.PartyInfo;
 import com.quorum.tessera.partyinfo.node.NodeInfo;
@@ -12,6 +13,7 @@ import org.mockito.invocation.InvocationOnMock;
 import javax.ws.rs.ProcessingException;
 import java.net.URI;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
 
@@ -146,4 +148,35 @@ public class PartyInfoBroadcasterTest {
         verify(partyStore).remove(URI.create(uriData));
         verify(p2pClient).sendPartyInfo(anyString(), any(byte[].class));
     }
+
+    @Test
+    public void asyncClientIsCalledWithoutExecutor() {
+        final AsyncP2pClient asyncP2pClient = mock(AsyncP2pClient.class);
+        when(asyncP2pClient.sendPartyInfoAsync(TARGET_URL, DATA)).thenReturn(CompletableFuture.completedFuture(true));
+
+        final PartyInfoBroadcaster broadcaster =
+                new PartyInfoBroadcaster(discovery, partyInfoParser, asyncP2pClient, executor, partyStore);
+
+        broadcaster.pollSingleParty(TARGET_URL, DATA);
+
+        verify(asyncP2pClient).sendPartyInfoAsync(TARGET_URL, DATA);
+        verifyNoMoreInteractions(asyncP2pClient);
+        verifyNoInteractions(executor);
+    }
+
+    @Test
+    public void asyncClientProcessingExceptionRemovesNode() {
+        final AsyncP2pClient asyncP2pClient = mock(AsyncP2pClient.class);
+        when(asyncP2pClient.sendPartyInfoAsync(TARGET_URL, DATA))
+                .thenReturn(CompletableFuture.failedFuture(new ProcessingException("OUCH")));
+
+        final PartyInfoBroadcaster broadcaster =
+                new PartyInfoBroadcaster(discovery, partyInfoParser, asyncP2pClient, executor, partyStore);
+
+        broadcaster.pollSingleParty(TARGET_URL, DATA);
+
+        verify(asyncP2pClient).sendPartyInfoAsync(TARGET_URL, DATA);
+        verify(discovery).onDisconnect(URI.create(TARGET_URL));
+        verify(partyStore).remove(URI.create(TARGET_URL));
+    }
 }
@@ -10,6 +10,8 @@ import static org.assertj.core.api.Assertions.assertThat;
 import org.junit.Test;
 
 import java.net.URI;
+import java.util.List;
+import java.util.Map;
 
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -35,4 +37,19 @@ public class RestP2pClientFactoryTest {
 
         assertThat(result).isNotNull();
     }
+
+    @Test
+    public void createAsync() {
+        RestP2pClientFactory factory = new RestP2pClientFactory();
+
+        Config config = new Config();
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.setCommunicationType(CommunicationType.REST);
+        serverConfig.setApp(AppType.P2P);
+        serverConfig.setServerAddress("http://someaddress");
+        serverConfig.setProperties(Map.of("asyncClient", "true"));
+        config.setServerConfigs(List.of(serverConfig));
+
+        assertThat(factory.create(config)).isExactlyInstanceOf(AsyncRestP2pClient.class);
+    }
 }
@@ -1,18 +1,29 @@
 package com.quorum.tessera.q2t;
 
+import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.encryption.KeyNotFoundException;
 import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.partyinfo.node.NodeInfo;
 import com.quorum.tessera.threading.CancellableCountDownLatch;
 import com.quorum.tessera.threading.CancellableCountDownLatchFactory;
 import com.quorum.tessera.threading.ExecutorFactory;
+import com.quorum.tessera.transaction.publish.AsyncPayloadPublisher;
 import com.quorum.tessera.transaction.publish.BatchPayloadPublisher;
 import com.quorum.tessera.transaction.publish.BatchPublishPayloadException;
+import com.quorum.tessera.transaction.publish.MultiRecipientPayloadPublisher;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
+import com.quorum.tessera.version.MultiRecipientPushVersion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.Executor;
 
 public class AsyncBatchPayloadPublisher implements BatchPayloadPublisher {
@@ -27,24 +38,34 @@ public class AsyncBatchPayloadPublisher implements BatchPayloadPublisher {
 
     private final PayloadEncoder encoder;
 
+    private final Discovery discovery;
+
     public AsyncBatchPayloadPublisher(
             ExecutorFactory executorFactory,
             CancellableCountDownLatchFactory countDownLatchFactory,
             PayloadPublisher publisher,
-            PayloadEncoder encoder) {
-        this.executor = executorFactory.createCachedThreadPool();
+            PayloadEncoder encoder,
+            Discovery discovery) {
+        this.executor = executorFactory.createOutboundP2p("batch-publish");
         this.countDownLatchFactory = countDownLatchFactory;
         this.publisher = publisher;
         this.encoder = encoder;
+        this.discovery = discovery;
     }
 
     /**
      * Asynchronously strips (leaving data intended only for that particular recipient) and publishes the payload to
      * each recipient identified by the provided keys.
      *
+     * <p>Where several recipients are hosted by the same node, and both the publisher and that node support it, they
+     * are sent a single payload holding the box for each of them, so the node receives the ciphertext only once.
+     *
      * <p>This method blocks until all pushes return successfully; if a push fails with an exception, the method exits
      * immediately and does not wait for the remaining responses.
      *
+     * <p>If the publisher is itself non-blocking, the pushes are all started from the calling thread rather than each
+     * taking a thread of the executor.
+     *
      * @param payload the payload object to be stripped and pushed
      * @param recipientKeys list of public keys identifying the target nodes
      */
@@ -54,21 +75,26 @@ public class AsyncBatchPayloadPublisher implements BatchPayloadPublisher {
             return;
         }
 
-        final CancellableCountDownLatch latch = countDownLatchFactory.create(recipientKeys.size());
-
-        recipientKeys.forEach(
-                recipient ->
-                        executor.execute(
-                                () -> {
-                                    try {
-                                        final EncodedPayload outgoing = encoder.forRecipient(payload, recipient);
-                                        publisher.publishPayload(outgoing, recipient);
-                                        latch.countDown();
-                                    } catch (RuntimeException e) {
-                                        LOGGER.info("unable to publish payload in batch: {}", e.getMessage());
-                                        latch.cancelWithException(e);
-                                    }
-                                }));
+        final List<List<PublicKey>> pushes = groupByNode(recipientKeys);
+
+        final CancellableCountDownLatch latch = countDownLatchFactory.create(pushes.size());
+
+        if (publisher instanceof AsyncPayloadPublisher) {
+            publishPayloadAsync((AsyncPayloadPublisher) publisher, payload, pushes, latch);
+        } else {
+            pushes.forEach(
+                    recipients ->
+                            executor.execute(
+                                    () -> {
+                                        try {
+                                            publish(payload, recipients);
+                                            latch.countDown();
+                                        } catch (RuntimeException e) {
+                                            LOGGER.info("unable to publish payload in batch: {}", e.getMessage());
+                                            latch.cancelWithException(e);
+                                        }
+                                    }));
+        }
 
         try {
             latch.await();
@@ -76,4 +102,86 @@ public class AsyncBatchPayloadPublisher implements BatchPayloadPublisher {
             throw new BatchPublishPayloadException(e);
         }
     }
+
+    /**
+     * Splits the recipients into the pushes to make: one per recipient, except for recipients sharing a node that
+     * accepts several of them in one push.
+     *
+     * <p>A recipient whose node cannot be found is pushed on its own, so the failure is raised by that push and
+     * reported through the latch like any other.
+     */
+    private List<List<PublicKey>> groupByNode(List<PublicKey> recipientKeys) {
+        final List<List<PublicKey>> pushes = new ArrayList<>(recipientKeys.size());
+
+        if (!(publisher instanceof MultiRecipientPayloadPublisher) || recipientKeys.size() == 1) {
+            recipientKeys.forEach(recipient -> pushes.add(List.of(recipient)));
+            return pushes;
+        }
+
+        final Map<String, List<PublicKey>> recipientsByNode = new LinkedHashMap<>();
+        for (PublicKey recipient : recipientKeys) {
+            final NodeInfo nodeInfo;
+            try {
+                nodeInfo = discovery.getRemoteNodeInfo(recipient);
+            } catch (KeyNotFoundException e) {
+                pushes.add(List.of(recipient));
+                continue;
+            }
+            if (nodeInfo.supportedApiVersions().contains(MultiRecipientPushVersion.API_VERSION_3)) {
+                recipientsByNode.computeIfAbsent(nodeInfo.getUrl(), url -> new ArrayList<>()).add(recipient);
+            } else {
+                pushes.add(List.of(recipient));
+            }
+        }
+        pushes.addAll(recipientsByNode.values());
+
+        return pushes;
+    }
+
+    private void publish(EncodedPayload payload, List<PublicKey> recipients) {
+        if (recipients.size() == 1) {
+            final PublicKey recipient = recipients.get(0);
+            publisher.publishPayload(encoder.forRecipient(payload, recipient), recipient);
+        } else {
+            final EncodedPayload outgoing = encoder.forRecipients(payload, recipients);
+            ((MultiRecipientPayloadPublisher) publisher).publishPayload(outgoing, recipients);
+        }
+    }
+
+    private void publishPayloadAsync(
+            AsyncPayloadPublisher asyncPublisher,
+            EncodedPayload payload,
+            List<List<PublicKey>> pushes,
+            CancellableCountDownLatch latch) {
+        for (List<PublicKey> recipients : pushes) {
+            final CompletableFuture<Void> published;
+            try {
+                if (recipients.size() == 1) {
+                    final PublicKey recipient = recipients.get(0);
+                    published = asyncPublisher.publishPayloadAsync(encoder.forRecipient(payload, recipient), recipient);
+                } else {
+                    final EncodedPayload outgoing = encoder.forRecipients(payload, recipients);
+                    published = asyncPublisher.publishPayloadAsync(outgoing, recipients);
+                }
+            } catch (RuntimeException e) {
+                LOGGER.info("unable to publish payload in batch: {}", e.getMessage());
+                latch.cancelWithException(e);
+                return;
+            }
+
+            published.whenComplete(
+                    (result, ex) -> {
+                        if (ex == null) {
+                            latch.countDown();
+                            return;
+                        }
+                        final Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+                        LOGGER.info("unable to publish payload in batch: {}", cause.getMessage());
+                        latch.cancelWithException(
+                                cause instanceof RuntimeException
+                                        ? (RuntimeException) cause
+                                        : new CompletionException(cause));
+                    });
+        }
+    }
 }
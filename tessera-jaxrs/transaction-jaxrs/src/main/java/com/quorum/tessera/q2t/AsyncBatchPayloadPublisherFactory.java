@@ -1,5 +1,6 @@
 package com.quorum.tessera.q2t;
 
+import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.PayloadEncoder;
 import com.quorum.tessera.threading.CancellableCountDownLatchFactory;
 import com.quorum.tessera.threading.ExecutorFactory;
@@ -14,6 +15,7 @@ public class AsyncBatchPayloadPublisherFactory implements BatchPayloadPublisherF
         ExecutorFactory executorFactory = new ExecutorFactory();
         CancellableCountDownLatchFactory countDownLatchFactory = new CancellableCountDownLatchFactory();
         PayloadEncoder encoder = PayloadEncoder.create();
-        return new AsyncBatchPayloadPublisher(executorFactory, countDownLatchFactory, publisher, encoder);
+        Discovery discovery = Discovery.getInstance();
+        return new AsyncBatchPayloadPublisher(executorFactory, countDownLatchFactory, publisher, encoder, discovery);
     }
 }
@@ -0,0 +1,109 @@
+package com.quorum.tessera.q2t;
+
+import com.quorum.tessera.discovery.Discovery;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.jaxrs.client.PeerHttpClient;
+import com.quorum.tessera.partyinfo.node.NodeInfo;
+import com.quorum.tessera.transaction.exception.EnhancedPrivacyNotSupportedException;
+import com.quorum.tessera.transaction.publish.AsyncPayloadPublisher;
+import com.quorum.tessera.transaction.publish.NodeOfflineException;
+import com.quorum.tessera.transaction.publish.PublishPayloadException;
+import com.quorum.tessera.version.EnhancedPrivacyVersion;
+import com.quorum.tessera.version.MultiRecipientPushVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.net.URI;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/** Pushes payloads to other nodes with the non-blocking {@link PeerHttpClient} */
+public class AsyncRestPayloadPublisher implements AsyncPayloadPublisher {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(AsyncRestPayloadPublisher.class);
+
+    private final PeerHttpClient client;
+
+    private final PayloadEncoder payloadEncoder;
+
+    private final Discovery discovery;
+
+    public AsyncRestPayloadPublisher(PeerHttpClient client, Discovery discovery) {
+        this(client, PayloadEncoder.create(), discovery);
+    }
+
+    public AsyncRestPayloadPublisher(PeerHttpClient client, PayloadEncoder payloadEncoder, Discovery discovery) {
+        this.client = Objects.requireNonNull(client);
+        this.payloadEncoder = Objects.requireNonNull(payloadEncoder);
+        this.discovery = Objects.requireNonNull(discovery);
+    }
+
+    @Override
+    public CompletableFuture<Void> publishPayloadAsync(EncodedPayload payload, PublicKey recipientKey) {
+        final NodeInfo remoteNodeInfo = discovery.getRemoteNodeInfo(recipientKey);
+        return publish(payload, recipientKey, remoteNodeInfo, "/push");
+    }
+
+    /**
+     * Publishes the payload to recipients hosted on the same node in a single request to its {@code /pushMultiple}
+     * endpoint, which is available from {@link MultiRecipientPushVersion#API_VERSION_3}.
+     */
+    @Override
+    public CompletableFuture<Void> publishPayloadAsync(EncodedPayload payload, List<PublicKey> recipientKeys) {
+        final PublicKey recipientKey = recipientKeys.get(0);
+        final NodeInfo remoteNodeInfo = discovery.getRemoteNodeInfo(recipientKey);
+        return publish(payload, recipientKey, remoteNodeInfo, "/pushMultiple");
+    }
+
+    private CompletableFuture<Void> publish(
+            EncodedPayload payload, PublicKey recipientKey, NodeInfo remoteNodeInfo, String path) {
+
+        if (PrivacyMode.STANDARD_PRIVATE != payload.getPrivacyMode()
+                && !remoteNodeInfo.supportedApiVersions().contains(EnhancedPrivacyVersion.API_VERSION_2)) {
+            return CompletableFuture.failedFuture(
+                    new EnhancedPrivacyNotSupportedException(
+                            "Transactions with enhanced privacy is not currently supported on recipient "
+                                    + recipientKey.encodeToBase64()));
+        }
+
+        final String targetUrl = remoteNodeInfo.getUrl();
+
+        LOGGER.info("Publishing message to {}", targetUrl);
+
+        final byte[] encoded = payloadEncoder.encode(payload);
+
+        return client.post(targetUrl, path, encoded)
+                .handle(
+                        (response, ex) -> {
+                            if (ex != null) {
+                                final Throwable cause =
+                                        Optional.of(ex)
+                                                .filter(CompletionException.class::isInstance)
+                                                .map(Throwable::getCause)
+                                                .orElse(ex);
+                                if (cause instanceof IOException) {
+                                    LOGGER.debug("", cause);
+                                    throw new NodeOfflineException(URI.create(targetUrl));
+                                }
+                                throw new CompletionException(cause);
+                            }
+
+                            if (Response.Status.OK.getStatusCode() != response.statusCode()
+                                    && Response.Status.CREATED.getStatusCode() != response.statusCode()) {
+                                throw new PublishPayloadException(
+                                        "Unable to push payload to recipient url " + targetUrl);
+                            }
+
+                            LOGGER.info("Published to {}", targetUrl);
+                            return null;
+                        });
+    }
+}
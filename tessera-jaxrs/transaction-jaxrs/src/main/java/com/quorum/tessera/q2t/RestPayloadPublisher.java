@@ -8,9 +8,10 @@ import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.transaction.exception.EnhancedPrivacyNotSupportedException;
 import com.quorum.tessera.partyinfo.node.NodeInfo;
 import com.quorum.tessera.transaction.publish.NodeOfflineException;
-import com.quorum.tessera.transaction.publish.PayloadPublisher;
+import com.quorum.tessera.transaction.publish.MultiRecipientPayloadPublisher;
 import com.quorum.tessera.transaction.publish.PublishPayloadException;
 import com.quorum.tessera.version.EnhancedPrivacyVersion;
+import com.quorum.tessera.version.MultiRecipientPushVersion;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -20,8 +21,9 @@ import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.net.URI;
+import java.util.List;
 
-public class RestPayloadPublisher implements PayloadPublisher {
+public class RestPayloadPublisher implements MultiRecipientPayloadPublisher {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RestPayloadPublisher.class);
 
@@ -43,8 +45,22 @@ public class RestPayloadPublisher implements PayloadPublisher {
 
     @Override
     public void publishPayload(EncodedPayload payload, PublicKey recipientKey) {
+        final NodeInfo remoteNodeInfo = discovery.getRemoteNodeInfo(recipientKey);
+        publish(payload, recipientKey, remoteNodeInfo, "/push");
+    }
 
+    /**
+     * Publishes the payload to recipients hosted on the same node in a single request to its {@code /pushMultiple}
+     * endpoint, which is available from {@link MultiRecipientPushVersion#API_VERSION_3}.
+     */
+    @Override
+    public void publishPayload(EncodedPayload payload, List<PublicKey> recipientKeys) {
+        final PublicKey recipientKey = recipientKeys.get(0);
         final NodeInfo remoteNodeInfo = discovery.getRemoteNodeInfo(recipientKey);
+        publish(payload, recipientKey, remoteNodeInfo, "/pushMultiple");
+    }
+
+    private void publish(EncodedPayload payload, PublicKey recipientKey, NodeInfo remoteNodeInfo, String path) {
 
         if (PrivacyMode.STANDARD_PRIVATE != payload.getPrivacyMode()
                 && !remoteNodeInfo.supportedApiVersions().contains(EnhancedPrivacyVersion.API_VERSION_2)) {
@@ -62,7 +78,7 @@ public class RestPayloadPublisher implements PayloadPublisher {
         try (Response response =
                 restclient
                         .target(targetUrl)
-                        .path("/push")
+                        .path(path)
                         .request()
                         .post(Entity.entity(encoded, MediaType.APPLICATION_OCTET_STREAM_TYPE))) {
 
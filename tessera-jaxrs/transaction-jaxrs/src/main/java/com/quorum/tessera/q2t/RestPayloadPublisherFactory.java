@@ -2,6 +2,8 @@ package com.quorum.tessera.q2t;
 
 import com.quorum.tessera.config.CommunicationType;
 import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.ServerConfig;
+import com.quorum.tessera.config.util.ClientPropertyHelper;
 import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.jaxrs.client.ClientFactory;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
@@ -17,6 +19,12 @@ public class RestPayloadPublisherFactory implements PayloadPublisherFactory {
         Discovery partyInfoService = Discovery.getInstance();
 
         ClientFactory clientFactory = new ClientFactory();
+
+        final ServerConfig serverConfig = config.getP2PServerConfig();
+        if (new ClientPropertyHelper(serverConfig.getProperties()).asyncClient() && !serverConfig.isUnixSocket()) {
+            return new AsyncRestPayloadPublisher(clientFactory.buildAsyncFrom(serverConfig), partyInfoService);
+        }
+
         Client client = clientFactory.buildFrom(config.getP2PServerConfig());
         return new RestPayloadPublisher(client, partyInfoService);
     }
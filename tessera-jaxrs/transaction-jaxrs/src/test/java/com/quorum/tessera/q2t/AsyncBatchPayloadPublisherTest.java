@@ -1,12 +1,17 @@
 package com.quorum.tessera.q2t;
 
+import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.encryption.KeyNotFoundException;
 import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.partyinfo.node.NodeInfo;
 import com.quorum.tessera.threading.CancellableCountDownLatch;
 import com.quorum.tessera.threading.CancellableCountDownLatchFactory;
 import com.quorum.tessera.threading.ExecutorFactory;
+import com.quorum.tessera.transaction.publish.AsyncPayloadPublisher;
 import com.quorum.tessera.transaction.publish.BatchPublishPayloadException;
+import com.quorum.tessera.transaction.publish.MultiRecipientPayloadPublisher;
 import com.quorum.tessera.transaction.publish.PayloadPublisher;
 import com.quorum.tessera.transaction.publish.PublishPayloadException;
 import org.junit.After;
@@ -17,8 +22,11 @@ import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.Executor;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.ThrowableAssert.catchThrowable;
@@ -30,7 +38,7 @@ public class AsyncBatchPayloadPublisherTest {
 
     private AsyncBatchPayloadPublisher asyncPublisher;
 
-    private Executor executor;
+    private ExecutorService executor;
 
     private ExecutorFactory executorFactory;
 
@@ -42,11 +50,13 @@ public class AsyncBatchPayloadPublisherTest {
 
     private PayloadEncoder encoder;
 
+    private Discovery discovery;
+
     @Before
     public void onSetup() {
         this.executorFactory = mock(ExecutorFactory.class);
-        this.executor = mock(Executor.class);
-        when(executorFactory.createCachedThreadPool()).thenReturn(executor);
+        this.executor = mock(ExecutorService.class);
+        when(executorFactory.createOutboundP2p("batch-publish")).thenReturn(executor);
 
         this.countDownLatchFactory = mock(CancellableCountDownLatchFactory.class);
         this.countDownLatch = mock(CancellableCountDownLatch.class);
@@ -54,13 +64,15 @@ public class AsyncBatchPayloadPublisherTest {
 
         this.publisher = mock(PayloadPublisher.class);
         this.encoder = mock(PayloadEncoder.class);
+        this.discovery = mock(Discovery.class);
         this.asyncPublisher =
-                new AsyncBatchPayloadPublisher(executorFactory, countDownLatchFactory, publisher, encoder);
+                new AsyncBatchPayloadPublisher(executorFactory, countDownLatchFactory, publisher, encoder, discovery);
     }
 
     @After
     public void onTeardown() {
-        verifyNoMoreInteractions(executor, executorFactory, countDownLatch, countDownLatchFactory, publisher, encoder);
+        verifyNoMoreInteractions(
+                executor, executorFactory, countDownLatch, countDownLatchFactory, publisher, encoder, discovery);
     }
 
     @Test
@@ -75,18 +87,18 @@ public class AsyncBatchPayloadPublisherTest {
         asyncPublisher.publishPayload(payload, recipients);
 
         verify(countDownLatchFactory).create(2);
-        verify(executorFactory).createCachedThreadPool();
+        verify(executorFactory).createOutboundP2p("batch-publish");
         verify(executor, times(2)).execute(any(Runnable.class));
         verify(countDownLatch).await();
     }
 
     @Test
     public void publishPayloadStripsAndPublishes() throws InterruptedException {
-        final Executor realExecutor = Executors.newSingleThreadExecutor();
-        when(executorFactory.createCachedThreadPool()).thenReturn(realExecutor);
+        final ExecutorService realExecutor = Executors.newSingleThreadExecutor();
+        when(executorFactory.createOutboundP2p("batch-publish")).thenReturn(realExecutor);
 
         asyncPublisher =
-            new AsyncBatchPayloadPublisher(executorFactory, countDownLatchFactory, publisher, encoder);
+            new AsyncBatchPayloadPublisher(executorFactory, countDownLatchFactory, publisher, encoder, discovery);
 
         final EncodedPayload payload = mock(EncodedPayload.class);
         final EncodedPayload strippedPayload = mock(EncodedPayload.class);
@@ -109,7 +121,7 @@ public class AsyncBatchPayloadPublisherTest {
 
         asyncPublisher.publishPayload(payload, recipients);
 
-        verify(executorFactory, times(2)).createCachedThreadPool();
+        verify(executorFactory, times(2)).createOutboundP2p("batch-publish");
         verify(countDownLatchFactory).create(2);
         verify(encoder).forRecipient(payload, recipient);
         verify(encoder).forRecipient(payload, otherRecipient);
@@ -126,7 +138,7 @@ public class AsyncBatchPayloadPublisherTest {
 
         asyncPublisher.publishPayload(payload, recipients);
 
-        verify(executorFactory).createCachedThreadPool();
+        verify(executorFactory).createOutboundP2p("batch-publish");
     }
 
     @Test
@@ -146,7 +158,7 @@ public class AsyncBatchPayloadPublisherTest {
         assertThat(ex).isExactlyInstanceOf(BatchPublishPayloadException.class);
         assertThat(ex).hasCause(cause);
 
-        verify(executorFactory).createCachedThreadPool();
+        verify(executorFactory).createOutboundP2p("batch-publish");
         verify(executor, times(2)).execute(any(Runnable.class));
         verify(countDownLatchFactory).create(2);
         verify(countDownLatch).await();
@@ -154,11 +166,11 @@ public class AsyncBatchPayloadPublisherTest {
 
     @Test
     public void publishPayloadCancelsCountDownLatchIfOneTaskFails() throws InterruptedException {
-        final Executor realExecutor = Executors.newCachedThreadPool();
-        when(executorFactory.createCachedThreadPool()).thenReturn(realExecutor);
+        final ExecutorService realExecutor = Executors.newCachedThreadPool();
+        when(executorFactory.createOutboundP2p("batch-publish")).thenReturn(realExecutor);
 
         asyncPublisher =
-            new AsyncBatchPayloadPublisher(executorFactory, countDownLatchFactory, publisher, encoder);
+            new AsyncBatchPayloadPublisher(executorFactory, countDownLatchFactory, publisher, encoder, discovery);
 
         final EncodedPayload payload = mock(EncodedPayload.class);
         final EncodedPayload strippedPayload = mock(EncodedPayload.class);
@@ -187,7 +199,7 @@ public class AsyncBatchPayloadPublisherTest {
 
         asyncPublisher.publishPayload(payload, recipients);
 
-        verify(executorFactory, times(2)).createCachedThreadPool();
+        verify(executorFactory, times(2)).createOutboundP2p("batch-publish");
         verify(countDownLatchFactory).create(2);
         verify(encoder).forRecipient(payload, recipient);
         verify(encoder).forRecipient(payload, otherRecipient);
@@ -197,4 +209,213 @@ public class AsyncBatchPayloadPublisherTest {
         verify(countDownLatch).cancelWithException(cause);
         verify(countDownLatch).await();
     }
+
+    @Test
+    public void asyncPublisherIsCalledWithoutExecutor() throws InterruptedException {
+        final AsyncPayloadPublisher asyncPayloadPublisher = mock(AsyncPayloadPublisher.class);
+        asyncPublisher =
+                new AsyncBatchPayloadPublisher(
+                        executorFactory, countDownLatchFactory, asyncPayloadPublisher, encoder, discovery);
+
+        final EncodedPayload payload = mock(EncodedPayload.class);
+        final EncodedPayload strippedPayload = mock(EncodedPayload.class);
+
+        final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+        final PublicKey otherRecipient = PublicKey.from("OTHERRECIPIENT".getBytes());
+        hostedOn(recipient, "http://node1", "v1", "v2");
+        hostedOn(otherRecipient, "http://node1", "v1", "v2");
+
+        when(encoder.forRecipient(any(EncodedPayload.class), any(PublicKey.class))).thenReturn(strippedPayload);
+        when(asyncPayloadPublisher.publishPayloadAsync(any(EncodedPayload.class), any(PublicKey.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        asyncPublisher.publishPayload(payload, List.of(recipient, otherRecipient));
+
+        verify(executorFactory, times(2)).createOutboundP2p("batch-publish");
+        verify(countDownLatchFactory).create(2);
+        verify(encoder).forRecipient(payload, recipient);
+        verify(encoder).forRecipient(payload, otherRecipient);
+        verify(asyncPayloadPublisher).publishPayloadAsync(strippedPayload, recipient);
+        verify(asyncPayloadPublisher).publishPayloadAsync(strippedPayload, otherRecipient);
+        verify(countDownLatch, times(2)).countDown();
+        verify(countDownLatch).await();
+        verify(discovery).getRemoteNodeInfo(recipient);
+        verify(discovery).getRemoteNodeInfo(otherRecipient);
+        verifyNoMoreInteractions(asyncPayloadPublisher);
+    }
+
+    @Test
+    public void asyncPublisherFailureCancelsCountDownLatch() throws InterruptedException {
+        final AsyncPayloadPublisher asyncPayloadPublisher = mock(AsyncPayloadPublisher.class);
+        asyncPublisher =
+                new AsyncBatchPayloadPublisher(
+                        executorFactory, countDownLatchFactory, asyncPayloadPublisher, encoder, discovery);
+
+        final EncodedPayload payload = mock(EncodedPayload.class);
+        final EncodedPayload strippedPayload = mock(EncodedPayload.class);
+
+        final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+        final PublicKey otherRecipient = PublicKey.from("OTHERRECIPIENT".getBytes());
+        hostedOn(recipient, "http://node1", "v1", "v2");
+        hostedOn(otherRecipient, "http://node2", "v1", "v2", "v3");
+
+        final PublishPayloadException cause = new PublishPayloadException("some exception");
+
+        when(encoder.forRecipient(any(EncodedPayload.class), any(PublicKey.class))).thenReturn(strippedPayload);
+        when(asyncPayloadPublisher.publishPayloadAsync(strippedPayload, recipient))
+                .thenReturn(CompletableFuture.failedFuture(cause));
+        when(asyncPayloadPublisher.publishPayloadAsync(strippedPayload, otherRecipient))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        asyncPublisher.publishPayload(payload, List.of(recipient, otherRecipient));
+
+        verify(executorFactory, times(2)).createOutboundP2p("batch-publish");
+        verify(countDownLatchFactory).create(2);
+        verify(encoder).forRecipient(payload, recipient);
+        verify(encoder).forRecipient(payload, otherRecipient);
+        verify(asyncPayloadPublisher).publishPayloadAsync(strippedPayload, recipient);
+        verify(asyncPayloadPublisher).publishPayloadAsync(strippedPayload, otherRecipient);
+        verify(countDownLatch).cancelWithException(cause);
+        verify(countDownLatch).countDown();
+        verify(countDownLatch).await();
+        verify(discovery).getRemoteNodeInfo(recipient);
+        verify(discovery).getRemoteNodeInfo(otherRecipient);
+        verifyNoMoreInteractions(asyncPayloadPublisher);
+    }
+
+    @Test
+    public void recipientsOnTheSameNodeArePublishedTogether() throws InterruptedException {
+        final ExecutorService realExecutor = Executors.newSingleThreadExecutor();
+        when(executorFactory.createOutboundP2p("batch-publish")).thenReturn(realExecutor);
+
+        final MultiRecipientPayloadPublisher multiRecipientPublisher = mock(MultiRecipientPayloadPublisher.class);
+        asyncPublisher =
+                new AsyncBatchPayloadPublisher(
+                        executorFactory, countDownLatchFactory, multiRecipientPublisher, encoder, discovery);
+
+        final EncodedPayload payload = mock(EncodedPayload.class);
+        final EncodedPayload strippedPayload = mock(EncodedPayload.class);
+        final EncodedPayload combinedPayload = mock(EncodedPayload.class);
+
+        final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+        final PublicKey otherRecipient = PublicKey.from("OTHERRECIPIENT".getBytes());
+        final PublicKey recipientOnOtherNode = PublicKey.from("RECIPIENTONOTHERNODE".getBytes());
+        hostedOn(recipient, "http://node1", "v1", "v2", "v3");
+        hostedOn(otherRecipient, "http://node1", "v1", "v2", "v3");
+        hostedOn(recipientOnOtherNode, "http://node2", "v1", "v2", "v3");
+
+        when(encoder.forRecipients(payload, List.of(recipient, otherRecipient))).thenReturn(combinedPayload);
+        when(encoder.forRecipient(payload, recipientOnOtherNode)).thenReturn(strippedPayload);
+
+        doAnswer(
+                        invocation -> {
+                            realExecutor.shutdown();
+                            realExecutor.awaitTermination(1, TimeUnit.SECONDS);
+                            return null;
+                        })
+                .when(countDownLatch)
+                .await();
+
+        asyncPublisher.publishPayload(payload, List.of(recipient, recipientOnOtherNode, otherRecipient));
+
+        verify(executorFactory, times(2)).createOutboundP2p("batch-publish");
+        verify(countDownLatchFactory).create(2);
+        verify(discovery).getRemoteNodeInfo(recipient);
+        verify(discovery).getRemoteNodeInfo(otherRecipient);
+        verify(discovery).getRemoteNodeInfo(recipientOnOtherNode);
+        verify(encoder).forRecipients(payload, List.of(recipient, otherRecipient));
+        verify(encoder).forRecipient(payload, recipientOnOtherNode);
+        verify(multiRecipientPublisher).publishPayload(combinedPayload, List.of(recipient, otherRecipient));
+        verify(multiRecipientPublisher).publishPayload(strippedPayload, recipientOnOtherNode);
+        verify(countDownLatch, times(2)).countDown();
+        verify(countDownLatch).await();
+        verifyNoMoreInteractions(multiRecipientPublisher);
+    }
+
+    @Test
+    public void recipientsOnNodeWithoutSupportArePublishedSeparately() throws InterruptedException {
+        final AsyncPayloadPublisher asyncPayloadPublisher = mock(AsyncPayloadPublisher.class);
+        asyncPublisher =
+                new AsyncBatchPayloadPublisher(
+                        executorFactory, countDownLatchFactory, asyncPayloadPublisher, encoder, discovery);
+
+        final EncodedPayload payload = mock(EncodedPayload.class);
+        final EncodedPayload strippedPayload = mock(EncodedPayload.class);
+        final EncodedPayload combinedPayload = mock(EncodedPayload.class);
+
+        final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+        final PublicKey otherRecipient = PublicKey.from("OTHERRECIPIENT".getBytes());
+        final PublicKey legacyRecipient = PublicKey.from("LEGACYRECIPIENT".getBytes());
+        final PublicKey otherLegacyRecipient = PublicKey.from("OTHERLEGACYRECIPIENT".getBytes());
+        hostedOn(recipient, "http://node1", "v1", "v2", "v3");
+        hostedOn(otherRecipient, "http://node1", "v1", "v2", "v3");
+        hostedOn(legacyRecipient, "http://node2", "v1", "v2");
+        hostedOn(otherLegacyRecipient, "http://node2", "v1", "v2");
+
+        when(encoder.forRecipients(payload, List.of(recipient, otherRecipient))).thenReturn(combinedPayload);
+        when(encoder.forRecipient(any(EncodedPayload.class), any(PublicKey.class))).thenReturn(strippedPayload);
+        when(asyncPayloadPublisher.publishPayloadAsync(any(EncodedPayload.class), any(PublicKey.class)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+        when(asyncPayloadPublisher.publishPayloadAsync(combinedPayload, List.of(recipient, otherRecipient)))
+                .thenReturn(CompletableFuture.completedFuture(null));
+
+        asyncPublisher.publishPayload(
+                payload, List.of(recipient, legacyRecipient, otherRecipient, otherLegacyRecipient));
+
+        verify(executorFactory, times(2)).createOutboundP2p("batch-publish");
+        verify(countDownLatchFactory).create(3);
+        verify(discovery).getRemoteNodeInfo(recipient);
+        verify(discovery).getRemoteNodeInfo(otherRecipient);
+        verify(discovery).getRemoteNodeInfo(legacyRecipient);
+        verify(discovery).getRemoteNodeInfo(otherLegacyRecipient);
+        verify(encoder).forRecipients(payload, List.of(recipient, otherRecipient));
+        verify(encoder).forRecipient(payload, legacyRecipient);
+        verify(encoder).forRecipient(payload, otherLegacyRecipient);
+        verify(asyncPayloadPublisher).publishPayloadAsync(combinedPayload, List.of(recipient, otherRecipient));
+        verify(asyncPayloadPublisher).publishPayloadAsync(strippedPayload, legacyRecipient);
+        verify(asyncPayloadPublisher).publishPayloadAsync(strippedPayload, otherLegacyRecipient);
+        verify(countDownLatch, times(3)).countDown();
+        verify(countDownLatch).await();
+        verifyNoMoreInteractions(asyncPayloadPublisher);
+    }
+
+    @Test
+    public void recipientWithUnknownNodeIsReportedThroughCountDownLatch() throws InterruptedException {
+        final AsyncPayloadPublisher asyncPayloadPublisher = mock(AsyncPayloadPublisher.class);
+        asyncPublisher =
+                new AsyncBatchPayloadPublisher(
+                        executorFactory, countDownLatchFactory, asyncPayloadPublisher, encoder, discovery);
+
+        final EncodedPayload payload = mock(EncodedPayload.class);
+        final EncodedPayload strippedPayload = mock(EncodedPayload.class);
+
+        final PublicKey recipient = PublicKey.from("RECIPIENT".getBytes());
+        final PublicKey unknownRecipient = PublicKey.from("UNKNOWNRECIPIENT".getBytes());
+        hostedOn(recipient, "http://node1", "v1", "v2", "v3");
+
+        final KeyNotFoundException exception = new KeyNotFoundException("Recipient not found");
+        when(discovery.getRemoteNodeInfo(unknownRecipient)).thenThrow(exception);
+
+        when(encoder.forRecipient(any(EncodedPayload.class), any(PublicKey.class))).thenReturn(strippedPayload);
+        when(asyncPayloadPublisher.publishPayloadAsync(strippedPayload, unknownRecipient)).thenThrow(exception);
+
+        asyncPublisher.publishPayload(payload, List.of(unknownRecipient, recipient));
+
+        verify(executorFactory, times(2)).createOutboundP2p("batch-publish");
+        verify(countDownLatchFactory).create(2);
+        verify(discovery).getRemoteNodeInfo(recipient);
+        verify(discovery).getRemoteNodeInfo(unknownRecipient);
+        verify(encoder).forRecipient(payload, unknownRecipient);
+        verify(asyncPayloadPublisher).publishPayloadAsync(strippedPayload, unknownRecipient);
+        verify(countDownLatch).cancelWithException(exception);
+        verify(countDownLatch).await();
+        verifyNoMoreInteractions(asyncPayloadPublisher);
+    }
+
+    private void hostedOn(PublicKey recipient, String url, String... supportedVersions) {
+        final NodeInfo nodeInfo = mock(NodeInfo.class);
+        when(nodeInfo.getUrl()).thenReturn(url);
+        when(nodeInfo.supportedApiVersions()).thenReturn(Set.of(supportedVersions));
+        when(discovery.getRemoteNodeInfo(recipient)).thenReturn(nodeInfo);
+    }
 }
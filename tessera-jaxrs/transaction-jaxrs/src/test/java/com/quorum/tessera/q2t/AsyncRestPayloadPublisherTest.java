@@ -0,0 +1,189 @@
+package com.quorum.tessera.q2t;
+
+import com.quorum.tessera.discovery.Discovery;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.jaxrs.client.PeerHttpClient;
+import com.quorum.tessera.partyinfo.node.NodeInfo;
+import com.quorum.tessera.transaction.exception.EnhancedPrivacyNotSupportedException;
+import com.quorum.tessera.transaction.publish.NodeOfflineException;
+import com.quorum.tessera.transaction.publish.PublishPayloadException;
+import com.quorum.tessera.version.EnhancedPrivacyVersion;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+import static org.mockito.Mockito.*;
+
+public class AsyncRestPayloadPublisherTest {
+
+    private static final String TARGET_URL = "http://someplace.com";
+
+    private AsyncRestPayloadPublisher publisher;
+
+    private PeerHttpClient client;
+
+    private PayloadEncoder encoder;
+
+    private Discovery discovery;
+
+    private EncodedPayload encodedPayload;
+
+    private PublicKey recipientKey;
+
+    private NodeInfo nodeInfo;
+
+    private final byte[] payloadData = "Some Data".getBytes();
+
+    @Before
+    public void onSetUp() {
+        client = mock(PeerHttpClient.class);
+        encoder = mock(PayloadEncoder.class);
+        discovery = mock(Discovery.class);
+        publisher = new AsyncRestPayloadPublisher(client, encoder, discovery);
+
+        encodedPayload = mock(EncodedPayload.class);
+        when(encodedPayload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+        when(encoder.encode(encodedPayload)).thenReturn(payloadData);
+
+        recipientKey = mock(PublicKey.class);
+        nodeInfo = mock(NodeInfo.class);
+        when(nodeInfo.getUrl()).thenReturn(TARGET_URL);
+        when(discovery.getRemoteNodeInfo(recipientKey)).thenReturn(nodeInfo);
+    }
+
+    @After
+    public void tearDown() {
+        verifyNoMoreInteractions(client, encoder, discovery);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void respondWith(int status) {
+        final HttpResponse<byte[]> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(status);
+        when(client.post(TARGET_URL, "/push", payloadData)).thenReturn(CompletableFuture.completedFuture(response));
+    }
+
+    @Test
+    public void publish() {
+        respondWith(200);
+
+        CompletableFuture<Void> result = publisher.publishPayloadAsync(encodedPayload, recipientKey);
+
+        assertThat(result).isCompleted();
+        assertThat(result.isCompletedExceptionally()).isFalse();
+
+        verify(encoder).encode(encodedPayload);
+        verify(client).post(TARGET_URL, "/push", payloadData);
+        verify(discovery).getRemoteNodeInfo(recipientKey);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void publishToMultipleRecipients() {
+        final PublicKey otherRecipientKey = mock(PublicKey.class);
+
+        final HttpResponse<byte[]> response = mock(HttpResponse.class);
+        when(response.statusCode()).thenReturn(201);
+        when(client.post(TARGET_URL, "/pushMultiple", payloadData))
+                .thenReturn(CompletableFuture.completedFuture(response));
+
+        publisher.publishPayload(encodedPayload, List.of(recipientKey, otherRecipientKey));
+
+        verify(encoder).encode(encodedPayload);
+        verify(client).post(TARGET_URL, "/pushMultiple", payloadData);
+        verify(discovery).getRemoteNodeInfo(recipientKey);
+    }
+
+    @Test
+    public void publishReturns201() {
+        respondWith(201);
+
+        publisher.publishPayload(encodedPayload, recipientKey);
+
+        verify(encoder).encode(encodedPayload);
+        verify(client).post(TARGET_URL, "/push", payloadData);
+        verify(discovery).getRemoteNodeInfo(recipientKey);
+    }
+
+    @Test
+    public void publishReturnsError() {
+        respondWith(500);
+
+        Throwable throwable = catchThrowable(() -> publisher.publishPayload(encodedPayload, recipientKey));
+
+        assertThat(throwable)
+                .isInstanceOf(PublishPayloadException.class)
+                .hasMessage("Unable to push payload to recipient url " + TARGET_URL);
+
+        verify(encoder).encode(encodedPayload);
+        verify(client).post(TARGET_URL, "/push", payloadData);
+        verify(discovery).getRemoteNodeInfo(recipientKey);
+    }
+
+    @Test
+    public void unreachableRecipientIsOffline() {
+        when(client.post(TARGET_URL, "/push", payloadData))
+                .thenReturn(CompletableFuture.failedFuture(new CompletionException(new ConnectException())));
+
+        Throwable throwable = catchThrowable(() -> publisher.publishPayload(encodedPayload, recipientKey));
+
+        assertThat(throwable).isInstanceOf(NodeOfflineException.class);
+        assertThat(((NodeOfflineException) throwable).getUri()).isEqualTo(URI.create(TARGET_URL));
+
+        verify(encoder).encode(encodedPayload);
+        verify(client).post(TARGET_URL, "/push", payloadData);
+        verify(discovery).getRemoteNodeInfo(recipientKey);
+    }
+
+    @Test
+    public void otherFailuresArePassedOn() {
+        final IllegalStateException cause = new IllegalStateException("unexpected");
+        when(client.post(TARGET_URL, "/push", payloadData)).thenReturn(CompletableFuture.failedFuture(cause));
+
+        Throwable throwable = catchThrowable(() -> publisher.publishPayload(encodedPayload, recipientKey));
+
+        assertThat(throwable).isSameAs(cause);
+
+        verify(encoder).encode(encodedPayload);
+        verify(client).post(TARGET_URL, "/push", payloadData);
+        verify(discovery).getRemoteNodeInfo(recipientKey);
+    }
+
+    @Test
+    public void enhancedPrivacyNotSupportedByRecipient() {
+        when(encodedPayload.getPrivacyMode()).thenReturn(PrivacyMode.PARTY_PROTECTION);
+        when(nodeInfo.supportedApiVersions()).thenReturn(Set.of("v1"));
+
+        CompletableFuture<Void> result = publisher.publishPayloadAsync(encodedPayload, recipientKey);
+
+        assertThat(catchThrowable(result::join)).hasCauseInstanceOf(EnhancedPrivacyNotSupportedException.class);
+
+        verify(discovery).getRemoteNodeInfo(recipientKey);
+    }
+
+    @Test
+    public void enhancedPrivacySupportedByRecipient() {
+        respondWith(200);
+        when(encodedPayload.getPrivacyMode()).thenReturn(PrivacyMode.PARTY_PROTECTION);
+        when(nodeInfo.supportedApiVersions()).thenReturn(Set.of(EnhancedPrivacyVersion.API_VERSION_2));
+
+        publisher.publishPayload(encodedPayload, recipientKey);
+
+        verify(encoder).encode(encodedPayload);
+        verify(client).post(TARGET_URL, "/push", payloadData);
+        verify(discovery).getRemoteNodeInfo(recipientKey);
+    }
+}
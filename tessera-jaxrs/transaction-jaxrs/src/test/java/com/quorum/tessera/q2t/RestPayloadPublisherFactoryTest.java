@@ -9,6 +9,7 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -35,4 +36,19 @@ public class RestPayloadPublisherFactoryTest {
         PayloadPublisher payloadPublisher = factory.create(config);
         assertThat(payloadPublisher).isExactlyInstanceOf(RestPayloadPublisher.class);
     }
+
+    @Test
+    public void createAsync() {
+
+        final Config config = new Config();
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.setCommunicationType(CommunicationType.REST);
+        serverConfig.setApp(AppType.P2P);
+        serverConfig.setServerAddress("http://someaddeess");
+        serverConfig.setProperties(Map.of("asyncClient", "true"));
+        config.setServerConfigs(Arrays.asList(serverConfig));
+
+        PayloadPublisher payloadPublisher = factory.create(config);
+        assertThat(payloadPublisher).isExactlyInstanceOf(AsyncRestPayloadPublisher.class);
+    }
 }
@@ -95,6 +95,42 @@ public class RestPayloadPublisherTest {
         verify(discovery).getRemoteNodeInfo(eq(recipientKey));
     }
 
+    @Test
+    public void publishToMultipleRecipients() {
+
+        Invocation.Builder invocationBuilder = mockClient.getWebTarget().getMockInvocationBuilder();
+
+        List<javax.ws.rs.client.Entity> postedEntities = new ArrayList<>();
+
+        doAnswer(
+                        (invocation) -> {
+                            postedEntities.add(invocation.getArgument(0));
+                            return Response.created(URI.create("http://location")).build();
+                        })
+                .when(invocationBuilder)
+                .post(any(javax.ws.rs.client.Entity.class));
+
+        EncodedPayload encodedPayload = mock(EncodedPayload.class);
+        when(encodedPayload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+        byte[] payloadData = "Some Data".getBytes();
+        when(encoder.encode(encodedPayload)).thenReturn(payloadData);
+
+        PublicKey recipientKey = mock(PublicKey.class);
+        PublicKey otherRecipientKey = mock(PublicKey.class);
+        NodeInfo nodeInfo = mock(NodeInfo.class);
+        when(nodeInfo.getUrl()).thenReturn("http://someplace.com");
+        when(discovery.getRemoteNodeInfo(recipientKey)).thenReturn(nodeInfo);
+
+        publisher.publishPayload(encodedPayload, List.of(recipientKey, otherRecipientKey));
+
+        assertThat(postedEntities).hasSize(1);
+        assertThat(postedEntities.get(0).getEntity()).isSameAs(payloadData);
+
+        verify(encoder).encode(encodedPayload);
+        verify(invocationBuilder).post(any(javax.ws.rs.client.Entity.class));
+        verify(discovery).getRemoteNodeInfo(recipientKey);
+    }
+
     @Test
     public void publishReturns201() {
 
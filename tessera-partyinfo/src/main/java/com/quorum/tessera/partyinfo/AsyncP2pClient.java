@@ -0,0 +1,30 @@
+package com.quorum.tessera.partyinfo;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/** A {@link P2pClient} that makes its calls without blocking the calling thread */
+public interface AsyncP2pClient extends P2pClient {
+
+    /**
+     * Sends this node's party info to another node
+     *
+     * @param targetUrl the URL of the node
+     * @param data the encoded party info
+     * @return a future completed with whether the node accepted the party info, or exceptionally if it could not be
+     *     reached
+     */
+    CompletableFuture<Boolean> sendPartyInfoAsync(String targetUrl, byte[] data);
+
+    @Override
+    default boolean sendPartyInfo(String targetUrl, byte[] data) {
+        try {
+            return sendPartyInfoAsync(targetUrl, data).join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+}
@@ -1,15 +1,22 @@
 package com.quorum.tessera.recovery;
 
 import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.RecoveryConfig;
 import com.quorum.tessera.data.EntityManagerDAOFactory;
 import com.quorum.tessera.data.staging.StagingEntityDAO;
 import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.PayloadEncoder;
 import com.quorum.tessera.recovery.resend.BatchTransactionRequester;
 import com.quorum.tessera.recovery.resend.BatchTransactionRequesterFactory;
+import com.quorum.tessera.threading.ExecutorFactory;
+import com.quorum.tessera.threading.ExecutorSettings;
 import com.quorum.tessera.transaction.TransactionManager;
 import com.quorum.tessera.transaction.TransactionManagerFactory;
 
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Supplier;
+
 public class RecoveryFactoryImpl implements RecoveryFactory {
     @Override
     public Recovery create(Config config) {
@@ -23,7 +30,24 @@ public class RecoveryFactoryImpl implements RecoveryFactory {
 
         PayloadEncoder payloadEncoder = PayloadEncoder.create();
 
+        final int syncThreads =
+                Optional.ofNullable(config.getRecovery())
+                        .map(RecoveryConfig::getSyncThreads)
+                        .filter(threads -> threads > 0)
+                        .orElse(Runtime.getRuntime().availableProcessors());
+
+        final Supplier<ExecutorService> syncExecutors =
+                () ->
+                        new ExecutorFactory()
+                                .create("recovery-sync", ExecutorSettings.defaults().withMaxThreads(syncThreads));
+
         return new RecoveryImpl(
-                stagingEntityDAO, Discovery.getInstance(), transactionRequester, transactionManager, payloadEncoder);
+                stagingEntityDAO,
+                Discovery.getInstance(),
+                transactionRequester,
+                transactionManager,
+                payloadEncoder,
+                syncExecutors,
+                syncThreads);
     }
 }
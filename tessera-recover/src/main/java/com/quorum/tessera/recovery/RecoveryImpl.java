@@ -16,19 +16,20 @@ import org.slf4j.LoggerFactory;
 
 import javax.persistence.PersistenceException;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
-
-import static java.util.stream.Collectors.toList;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 public class RecoveryImpl implements Recovery {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(RecoveryImpl.class);
 
-    private static final int BATCH_SIZE = 10000;
-
     private final StagingEntityDAO stagingEntityDAO;
 
     private final Discovery discovery;
@@ -39,17 +40,47 @@ public class RecoveryImpl implements Recovery {
 
     private final PayloadEncoder payloadEncoder;
 
+    private final Supplier<ExecutorService> syncExecutors;
+
+    private final int syncParallelism;
+
     public RecoveryImpl(
             StagingEntityDAO stagingEntityDAO,
             Discovery discovery,
             BatchTransactionRequester transactionRequester,
             TransactionManager transactionManager,
             PayloadEncoder payloadEncoder) {
+        this(
+                stagingEntityDAO,
+                discovery,
+                transactionRequester,
+                transactionManager,
+                payloadEncoder,
+                Executors::newSingleThreadExecutor,
+                1);
+    }
+
+    /**
+     * @param syncExecutors creates the executor that stores the transactions of each validation stage concurrently,
+     *     which is shut down once the sync finishes
+     * @param syncParallelism the number of threads available to the sync executor, used to bound how many transactions
+     *     may be queued on it at once
+     */
+    public RecoveryImpl(
+            StagingEntityDAO stagingEntityDAO,
+            Discovery discovery,
+            BatchTransactionRequester transactionRequester,
+            TransactionManager transactionManager,
+            PayloadEncoder payloadEncoder,
+            Supplier<ExecutorService> syncExecutors,
+            int syncParallelism) {
         this.stagingEntityDAO = Objects.requireNonNull(stagingEntityDAO);
         this.discovery = Objects.requireNonNull(discovery);
         this.transactionRequester = Objects.requireNonNull(transactionRequester);
         this.transactionManager = Objects.requireNonNull(transactionManager);
         this.payloadEncoder = Objects.requireNonNull(payloadEncoder);
+        this.syncExecutors = Objects.requireNonNull(syncExecutors);
+        this.syncParallelism = Math.max(1, syncParallelism);
     }
 
     @Override
@@ -85,9 +116,8 @@ public class RecoveryImpl implements Recovery {
     @Override
     public RecoveryResult stage() {
 
-        final AtomicLong stage = new AtomicLong(0);
-
-        while (stagingEntityDAO.updateStageForBatch(BATCH_SIZE, stage.incrementAndGet()) != 0) {}
+        final int stagedCount = stagingEntityDAO.stageTransactions();
+        LOGGER.debug("Staged {} transactions", stagedCount);
 
         final long totalCount = stagingEntityDAO.countAll();
         final long validatedCount = stagingEntityDAO.countStaged();
@@ -107,35 +137,60 @@ public class RecoveryImpl implements Recovery {
         final AtomicInteger payloadCount = new AtomicInteger(0);
         final AtomicInteger syncFailureCount = new AtomicInteger(0);
 
-        final int maxResult = BATCH_SIZE;
-
-        for (int offset = 0; offset < stagingEntityDAO.countAll(); offset += maxResult) {
-
-            final List<StagingTransaction> transactions =
-                    stagingEntityDAO.retrieveTransactionBatchOrderByStageAndHash(offset, maxResult);
-
-            final Map<String, List<StagingTransaction>> grouped =
-                    transactions.stream()
-                            .collect(Collectors.groupingBy(StagingTransaction::getHash, LinkedHashMap::new, toList()));
-
-            grouped.forEach(
-                    (key, value) ->
-                            value.stream()
-                                    .filter(
-                                            t -> {
-                                                payloadCount.incrementAndGet();
-                                                byte[] payload = t.getPayload();
-                                                try {
-                                                    EncodedPayload encodedPayload = payloadEncoder.decode(payload);
-                                                    transactionManager.storePayload(encodedPayload);
-                                                } catch (PrivacyViolationException | PersistenceException ex) {
-                                                    LOGGER.error(
-                                                            "An error occurred during batch resend sync stage.", ex);
-                                                    syncFailureCount.incrementAndGet();
-                                                }
-                                                return PrivacyMode.PRIVATE_STATE_VALIDATION == t.getPrivacyMode();
-                                            })
-                                    .findFirst());
+        // Transactions in the same validation stage never depend on each other, so each stage is stored concurrently,
+        // waiting for one to finish before starting the next. Rows are ordered by hash within a stage, so all versions
+        // of a transaction arrive together and are stored in order on a single thread, stopping once a PSV version has
+        // been stored.
+        final Consumer<List<StagingTransaction>> storeVersions =
+                versions ->
+                        versions.stream()
+                                .filter(
+                                        t -> {
+                                            payloadCount.incrementAndGet();
+                                            byte[] payload = t.getPayload();
+                                            try {
+                                                EncodedPayload encodedPayload = payloadEncoder.decode(payload);
+                                                transactionManager.storePayload(encodedPayload);
+                                            } catch (PrivacyViolationException | PersistenceException ex) {
+                                                LOGGER.error("An error occurred during batch resend sync stage.", ex);
+                                                syncFailureCount.incrementAndGet();
+                                            }
+                                            return PrivacyMode.PRIVATE_STATE_VALIDATION == t.getPrivacyMode();
+                                        })
+                                .findFirst();
+
+        final ExecutorService syncExecutor = syncExecutors.get();
+        final StageBarrier stageBarrier = new StageBarrier(syncExecutor, syncParallelism * 4);
+
+        try (Stream<StagingTransaction> transactions = stagingEntityDAO.streamTransactionsOrderByStageAndHash()) {
+
+            List<StagingTransaction> versions = new ArrayList<>();
+            for (Iterator<StagingTransaction> iterator = transactions.iterator(); iterator.hasNext(); ) {
+                final StagingTransaction transaction = iterator.next();
+
+                if (!versions.isEmpty()) {
+                    final StagingTransaction previous = versions.get(0);
+                    if (!Objects.equals(previous.getValidationStage(), transaction.getValidationStage())) {
+                        stageBarrier.submit(versions, storeVersions);
+                        stageBarrier.await();
+                        versions = new ArrayList<>();
+                    } else if (!Objects.equals(previous.getHash(), transaction.getHash())) {
+                        stageBarrier.submit(versions, storeVersions);
+                        versions = new ArrayList<>();
+                    }
+                }
+                versions.add(transaction);
+            }
+
+            if (!versions.isEmpty()) {
+                stageBarrier.submit(versions, storeVersions);
+            }
+        } finally {
+            try {
+                stageBarrier.await();
+            } finally {
+                syncExecutor.shutdown();
+            }
         }
 
         if (syncFailureCount.get() > 0) {
@@ -149,4 +204,55 @@ public class RecoveryImpl implements Recovery {
         }
         return RecoveryResult.SUCCESS;
     }
+
+    /**
+     * Runs work for a single validation stage on the sync executor, bounding the amount queued at once, and waits for
+     * all of it to finish before the next stage starts.
+     */
+    private final class StageBarrier {
+
+        private final ExecutorService executor;
+
+        private final int maxOutstanding;
+
+        private final Semaphore outstanding;
+
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        StageBarrier(ExecutorService executor, int maxOutstanding) {
+            this.executor = executor;
+            this.maxOutstanding = maxOutstanding;
+            this.outstanding = new Semaphore(maxOutstanding);
+        }
+
+        <T> void submit(T work, Consumer<T> task) {
+            outstanding.acquireUninterruptibly();
+            try {
+                executor.execute(
+                        () -> {
+                            try {
+                                task.accept(work);
+                            } catch (RuntimeException ex) {
+                                failure.compareAndSet(null, ex);
+                            } finally {
+                                outstanding.release();
+                            }
+                        });
+            } catch (RuntimeException ex) {
+                outstanding.release();
+                throw ex;
+            }
+        }
+
+        /** Waits for all submitted work to finish, rethrowing the first unexpected error raised by any of it */
+        void await() {
+            outstanding.acquireUninterruptibly(maxOutstanding);
+            outstanding.release(maxOutstanding);
+
+            final RuntimeException ex = failure.get();
+            if (ex != null) {
+                throw ex;
+            }
+        }
+    }
 }
@@ -8,7 +8,11 @@ import com.quorum.tessera.data.staging.StagingEntityDAO;
 import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.enclave.EnclaveFactory;
+import com.quorum.tessera.enclave.PayloadEncoder;
 import com.quorum.tessera.recovery.resend.*;
+import com.quorum.tessera.threading.ExecutorFactory;
+import com.quorum.tessera.threading.ExecutorSettings;
+import com.quorum.tessera.util.Base64Codec;
 
 public interface BatchResendManager {
 
@@ -33,13 +37,22 @@ public interface BatchResendManager {
                                     ResendBatchPublisherFactory.newFactory(config).create(config);
 
                             final int defaultMaxResults = 10000;
+                            final int prepareParallelism = Runtime.getRuntime().availableProcessors();
+                            final ExecutorFactory executorFactory = new ExecutorFactory();
                             return new BatchResendManagerImpl(
+                                    PayloadEncoder.create(),
+                                    Base64Codec.create(),
                                     enclave,
                                     stagingEntityDAO,
                                     encryptedTransactionDAO,
                                     discovery,
                                     resendBatchPublisher,
-                                    defaultMaxResults);
+                                    defaultMaxResults,
+                                    executorFactory.create(
+                                            "resend-prepare",
+                                            ExecutorSettings.defaults().withMaxThreads(prepareParallelism)),
+                                    prepareParallelism,
+                                    executorFactory.create("resend-publish"));
                         });
     }
 }
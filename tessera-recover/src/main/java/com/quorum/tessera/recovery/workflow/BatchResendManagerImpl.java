@@ -1,7 +1,9 @@
 package com.quorum.tessera.recovery.workflow;
 
+import com.quorum.tessera.data.EncryptedTransaction;
 import com.quorum.tessera.data.EncryptedTransactionDAO;
 import com.quorum.tessera.data.staging.StagingEntityDAO;
+import com.quorum.tessera.data.staging.StagingTransaction;
 import com.quorum.tessera.data.staging.StagingTransactionUtils;
 import com.quorum.tessera.discovery.Discovery;
 import com.quorum.tessera.enclave.Enclave;
@@ -12,9 +14,13 @@ import com.quorum.tessera.recovery.resend.ResendBatchPublisher;
 import com.quorum.tessera.recovery.resend.ResendBatchRequest;
 import com.quorum.tessera.recovery.resend.ResendBatchResponse;
 import com.quorum.tessera.util.Base64Codec;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import java.util.stream.IntStream;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
 
 public class BatchResendManagerImpl implements BatchResendManager {
 
@@ -34,6 +40,12 @@ public class BatchResendManagerImpl implements BatchResendManager {
 
     private final int maxResults;
 
+    private final Executor prepareExecutor;
+
+    private final int prepareParallelism;
+
+    private final Executor publishExecutor;
+
     public BatchResendManagerImpl(
             Enclave enclave,
             StagingEntityDAO stagingEntityDAO,
@@ -61,6 +73,39 @@ public class BatchResendManagerImpl implements BatchResendManager {
             Discovery discovery,
             ResendBatchPublisher resendBatchPublisher,
             int maxResults) {
+        this(
+                payloadEncoder,
+                base64Decoder,
+                enclave,
+                stagingEntityDAO,
+                encryptedTransactionDAO,
+                discovery,
+                resendBatchPublisher,
+                maxResults,
+                Runnable::run,
+                1,
+                Runnable::run);
+    }
+
+    /**
+     * @param prepareExecutor runs the decoding and re-encrypting of transactions for the recipient
+     * @param prepareParallelism the number of threads available to the prepare executor, used to bound how many chunks
+     *     of transactions may be queued on it at once
+     * @param publishExecutor sends prepared batches to the recipient, so that publishing overlaps with preparing the
+     *     next batch
+     */
+    public BatchResendManagerImpl(
+            PayloadEncoder payloadEncoder,
+            Base64Codec base64Decoder,
+            Enclave enclave,
+            StagingEntityDAO stagingEntityDAO,
+            EncryptedTransactionDAO encryptedTransactionDAO,
+            Discovery discovery,
+            ResendBatchPublisher resendBatchPublisher,
+            int maxResults,
+            Executor prepareExecutor,
+            int prepareParallelism,
+            Executor publishExecutor) {
         this.payloadEncoder = Objects.requireNonNull(payloadEncoder);
         this.base64Decoder = Objects.requireNonNull(base64Decoder);
         this.enclave = Objects.requireNonNull(enclave);
@@ -69,10 +114,9 @@ public class BatchResendManagerImpl implements BatchResendManager {
         this.discovery = Objects.requireNonNull(discovery);
         this.resendBatchPublisher = Objects.requireNonNull(resendBatchPublisher);
         this.maxResults = maxResults;
-    }
-
-    static int calculateBatchCount(long maxResults, long total) {
-        return (int) Math.ceil((double) total / maxResults);
+        this.prepareExecutor = Objects.requireNonNull(prepareExecutor);
+        this.prepareParallelism = Math.max(1, prepareParallelism);
+        this.publishExecutor = Objects.requireNonNull(publishExecutor);
     }
 
     @Override
@@ -83,34 +127,86 @@ public class BatchResendManagerImpl implements BatchResendManager {
         final PublicKey recipientPublicKey = PublicKey.from(publicKeyData);
 
         final long transactionCount = encryptedTransactionDAO.transactionCount();
-        final long batchCount = calculateBatchCount(maxResults, transactionCount);
 
         final BatchWorkflow batchWorkflow =
                 BatchWorkflowFactory.newFactory(
-                                enclave, payloadEncoder, discovery, resendBatchPublisher, transactionCount)
+                                enclave,
+                                payloadEncoder,
+                                discovery,
+                                resendBatchPublisher,
+                                transactionCount,
+                                publishExecutor)
                         .create();
 
-        IntStream.range(0, (int) batchCount)
-                .map(i -> i * maxResults)
-                .mapToObj(offset -> encryptedTransactionDAO.retrieveTransactions(offset, maxResults))
-                .flatMap(List::stream)
-                .forEach(
-                        encryptedTransaction -> {
-                            final BatchWorkflowContext context = new BatchWorkflowContext();
-                            context.setEncryptedTransaction(encryptedTransaction);
-                            context.setRecipientKey(recipientPublicKey);
-                            context.setBatchSize(batchSize);
-                            batchWorkflow.execute(context);
-                        });
+        // Transactions are read from the database a page at a time on this thread and handed to the prepare executor.
+        // Each page is read by its own short query, so no connection is held open while earlier pages are published.
+        // Only a bounded number of pages may be outstanding, so that reading cannot run far ahead of preparing.
+        final Semaphore outstandingChunks = new Semaphore(prepareParallelism * 2);
+        final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+        try {
+            List<EncryptedTransaction> chunk = encryptedTransactionDAO.retrieveTransactionsAfter(null, batchSize);
+
+            while (!chunk.isEmpty() && failure.get() == null) {
+                final List<EncryptedTransaction> page = chunk;
+
+                outstandingChunks.acquireUninterruptibly();
+                try {
+                    prepareExecutor.execute(
+                            () -> {
+                                try {
+                                    if (failure.get() != null) {
+                                        return;
+                                    }
+                                    final List<BatchWorkflowContext> contexts = new ArrayList<>(page.size());
+                                    for (EncryptedTransaction encryptedTransaction : page) {
+                                        final BatchWorkflowContext context = new BatchWorkflowContext();
+                                        context.setEncryptedTransaction(encryptedTransaction);
+                                        context.setRecipientKey(recipientPublicKey);
+                                        context.setBatchSize(batchSize);
+                                        contexts.add(context);
+                                    }
+                                    batchWorkflow.execute(contexts);
+                                } catch (RuntimeException ex) {
+                                    failure.compareAndSet(null, ex);
+                                } finally {
+                                    outstandingChunks.release();
+                                }
+                            });
+                } catch (RuntimeException ex) {
+                    outstandingChunks.release();
+                    throw ex;
+                }
+
+                // a short page is the last one
+                chunk =
+                        page.size() < batchSize
+                                ? List.of()
+                                : encryptedTransactionDAO.retrieveTransactionsAfter(
+                                        page.get(page.size() - 1), batchSize);
+            }
+        } finally {
+            // wait for every chunk that was handed out to finish
+            outstandingChunks.acquireUninterruptibly(prepareParallelism * 2);
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+
+        batchWorkflow.complete();
 
         return ResendBatchResponse.from(batchWorkflow.getPublishedMessageCount());
     }
 
     @Override
-    public synchronized void storeResendBatch(PushBatchRequest resendPushBatchRequest) {
-        resendPushBatchRequest.getEncodedPayloads().stream()
-                .map(StagingTransactionUtils::fromRawPayload)
-                .forEach(stagingEntityDAO::save);
+    public void storeResendBatch(PushBatchRequest resendPushBatchRequest) {
+        final List<StagingTransaction> stagingTransactions =
+                resendPushBatchRequest.getEncodedPayloads().stream()
+                        .map(StagingTransactionUtils::fromRawPayload)
+                        .collect(Collectors.toList());
+
+        stagingEntityDAO.saveAll(stagingTransactions);
     }
 
     private int validateRequestBatchSize(int s) {
@@ -1,11 +1,14 @@
 package com.quorum.tessera.recovery.workflow;
 
-
-
 public interface BatchWorkflow extends BatchWorkflowAction {
     @Override
     boolean execute(BatchWorkflowContext context);
 
     long getPublishedMessageCount();
 
+    /**
+     * Publishes any payloads still being held, and waits until everything has been sent. Called once every transaction
+     * has been executed.
+     */
+    default void complete() {}
 }
@@ -1,7 +1,20 @@
 package com.quorum.tessera.recovery.workflow;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 public interface BatchWorkflowAction {
 
     boolean execute(BatchWorkflowContext context);
 
+    /**
+     * Executes the action for several transactions together, such as a chunk read from the database at once. Actions
+     * that can share work between transactions, such as a single call to the enclave, override this.
+     *
+     * @param contexts the transactions to execute the action for
+     * @return the contexts the action succeeded for, in the order given
+     */
+    default List<BatchWorkflowContext> execute(List<BatchWorkflowContext> contexts) {
+        return contexts.stream().filter(this::execute).collect(Collectors.toList());
+    }
 }
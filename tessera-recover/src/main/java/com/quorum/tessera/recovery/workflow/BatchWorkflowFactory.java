@@ -6,6 +6,8 @@ import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.enclave.PayloadEncoder;
 import com.quorum.tessera.recovery.resend.ResendBatchPublisher;
 
+import java.util.concurrent.Executor;
+
 public interface BatchWorkflowFactory {
 
     BatchWorkflow create();
@@ -16,6 +18,16 @@ public interface BatchWorkflowFactory {
             Discovery discovery,
             ResendBatchPublisher resendBatchPublisher,
             long transactionCount) {
+        return newFactory(enclave, payloadEncoder, discovery, resendBatchPublisher, transactionCount, Runnable::run);
+    }
+
+    static BatchWorkflowFactory newFactory(
+            Enclave enclave,
+            PayloadEncoder payloadEncoder,
+            Discovery discovery,
+            ResendBatchPublisher resendBatchPublisher,
+            long transactionCount,
+            Executor publishExecutor) {
         return ServiceLoaderUtil.load(BatchWorkflowFactory.class)
                 .orElse(
                         new BatchWorkflowFactoryImpl() {
@@ -25,6 +37,7 @@ public interface BatchWorkflowFactory {
                                 setPayloadEncoder(payloadEncoder);
                                 setResendBatchPublisher(resendBatchPublisher);
                                 setTransactionCount(transactionCount);
+                                setPublishExecutor(publishExecutor);
                             }
                         });
     }
@@ -5,9 +5,12 @@ import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.enclave.PayloadEncoder;
 import com.quorum.tessera.recovery.resend.ResendBatchPublisher;
 
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicLong;
-import java.util.function.Predicate;
 
 public class BatchWorkflowFactoryImpl implements BatchWorkflowFactory {
 
@@ -21,6 +24,8 @@ public class BatchWorkflowFactoryImpl implements BatchWorkflowFactory {
 
     private long transactionCount;
 
+    private Executor publishExecutor = Runnable::run;
+
     public void setEnclave(Enclave enclave) {
         this.enclave = enclave;
     }
@@ -41,6 +46,10 @@ public class BatchWorkflowFactoryImpl implements BatchWorkflowFactory {
         this.transactionCount = transactionCount;
     }
 
+    public void setPublishExecutor(Executor publishExecutor) {
+        this.publishExecutor = publishExecutor;
+    }
+
     @Override
     public BatchWorkflow create() {
 
@@ -51,7 +60,8 @@ public class BatchWorkflowFactoryImpl implements BatchWorkflowFactory {
         FilterPayload filterPayload = new FilterPayload(enclave);
         SearchRecipientKeyForPayload searchRecipientKeyForPayload = new SearchRecipientKeyForPayload(enclave);
         SenderIsNotRecipient senderIsNotRecipient = new SenderIsNotRecipient(enclave);
-        EncodedPayloadPublisher encodedPayloadPublisher = new EncodedPayloadPublisher(resendBatchPublisher);
+        EncodedPayloadPublisher encodedPayloadPublisher =
+                new EncodedPayloadPublisher(resendBatchPublisher, publishExecutor);
 
         List<BatchWorkflowAction> handlers =
                 List.of(
@@ -70,23 +80,44 @@ public class BatchWorkflowFactoryImpl implements BatchWorkflowFactory {
 
             @Override
             public boolean execute(BatchWorkflowContext context) {
+                return !execute(List.of(context)).isEmpty();
+            }
 
-                context.setExpectedTotal(filteredMessageCount.get());
-
-                boolean outcome =
-                        handlers.stream().filter(Predicate.not(h -> h.execute(context))).findFirst().isEmpty();
-
-                if (!outcome) {
-                    context.setExpectedTotal(filteredMessageCount.decrementAndGet());
-                    encodedPayloadPublisher.checkOutstandingPayloads(context);
+            /** Runs each handler over all of the contexts still remaining before moving on to the next handler */
+            @Override
+            public List<BatchWorkflowContext> execute(List<BatchWorkflowContext> contexts) {
+                List<BatchWorkflowContext> remaining = contexts;
+                for (BatchWorkflowAction handler : handlers) {
+                    if (remaining.isEmpty()) {
+                        break;
+                    }
+                    remaining.forEach(context -> context.setExpectedTotal(filteredMessageCount.get()));
+
+                    final List<BatchWorkflowContext> passed = handler.execute(remaining);
+
+                    final Set<BatchWorkflowContext> passedSet = Collections.newSetFromMap(new IdentityHashMap<>());
+                    passedSet.addAll(passed);
+                    for (BatchWorkflowContext context : remaining) {
+                        if (!passedSet.contains(context)) {
+                            context.setExpectedTotal(filteredMessageCount.decrementAndGet());
+                            encodedPayloadPublisher.checkOutstandingPayloads(context);
+                        }
+                    }
+                    remaining = passed;
                 }
-                return outcome;
+                return remaining;
             }
 
             @Override
             public long getPublishedMessageCount() {
                 return encodedPayloadPublisher.getPublishedCount();
             }
+
+            @Override
+            public void complete() {
+                encodedPayloadPublisher.flush();
+                encodedPayloadPublisher.awaitPublished();
+            }
         };
     }
 }
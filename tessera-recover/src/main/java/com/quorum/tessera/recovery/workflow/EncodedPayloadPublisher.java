@@ -5,24 +5,49 @@ import com.quorum.tessera.recovery.resend.ResendBatchPublisher;
 
 import java.util.ArrayList;
 import java.util.List;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Collects prepared payloads into batches and publishes them to the recipient.
+ *
+ * <p>Batches are handed to the publish executor, so that a batch can be sent while the next one is being prepared. They
+ * are sent one at a time and in order, and only a small number may be waiting to be sent, so that preparation cannot
+ * get far ahead of the network. Payloads may be added from several threads at once.
+ */
 public class EncodedPayloadPublisher implements BatchWorkflowAction {
 
+    /** The number of batches that may be waiting to be sent before adding more payloads blocks */
+    static final int MAX_PENDING_BATCHES = 2;
+
     private String targetUrl;
 
     private List<EncodedPayload> payloads;
 
     private ResendBatchPublisher resendBatchPublisher;
 
+    private final Executor publishExecutor;
+
+    private final Semaphore pendingBatches = new Semaphore(MAX_PENDING_BATCHES);
+
+    private CompletableFuture<Void> published = CompletableFuture.completedFuture(null);
+
     private long messageCounter = 0L;
 
     public EncodedPayloadPublisher(ResendBatchPublisher resendBatchPublisher) {
+        this(resendBatchPublisher, Runnable::run);
+    }
+
+    public EncodedPayloadPublisher(ResendBatchPublisher resendBatchPublisher, Executor publishExecutor) {
         this.resendBatchPublisher = resendBatchPublisher;
+        this.publishExecutor = publishExecutor;
         this.payloads = new ArrayList<>();
     }
 
     @Override
-    public boolean execute(BatchWorkflowContext event) {
+    public synchronized boolean execute(BatchWorkflowContext event) {
 
         final int batchSize = event.getBatchSize();
 
@@ -33,28 +58,78 @@ public class EncodedPayloadPublisher implements BatchWorkflowAction {
         long total = event.getExpectedTotal();
 
         if (payloads.size() == batchSize || payloads.size() >= total || messageCounter + payloads.size() >= total) {
-            resendBatchPublisher.publishBatch(payloads, targetUrl);
-            messageCounter += payloads.size();
-            payloads.clear();
+            publishPayloads();
         }
 
         return true;
     }
 
-    public long getPublishedCount() {
+    /**
+     * The number of payloads handed over for publishing. Use {@link #awaitPublished()} to wait until they have all been
+     * sent.
+     */
+    public synchronized long getPublishedCount() {
         return messageCounter;
     }
 
-    public void checkOutstandingPayloads(BatchWorkflowContext event) {
+    public synchronized void checkOutstandingPayloads(BatchWorkflowContext event) {
 
         final long total = event.getExpectedTotal();
 
         final int noOfPayloads = payloads.size();
 
         if (noOfPayloads > 0 && (noOfPayloads >= total || messageCounter + noOfPayloads >= total)) {
-            resendBatchPublisher.publishBatch(payloads, targetUrl);
-            messageCounter += payloads.size();
-            payloads.clear();
+            publishPayloads();
+        }
+    }
+
+    /** Publishes any payloads that have not yet made up a full batch */
+    public synchronized void flush() {
+        if (!payloads.isEmpty()) {
+            publishPayloads();
+        }
+    }
+
+    /**
+     * Waits until all batches handed over so far have been sent.
+     *
+     * @throws RuntimeException the first error raised while sending a batch, after which no further batches are sent
+     */
+    public void awaitPublished() {
+        final CompletableFuture<Void> outstanding;
+        synchronized (this) {
+            outstanding = published;
+        }
+        join(outstanding);
+    }
+
+    private void publishPayloads() {
+        final List<EncodedPayload> batch = new ArrayList<>(payloads);
+        final String url = targetUrl;
+
+        messageCounter += batch.size();
+        payloads.clear();
+
+        pendingBatches.acquireUninterruptibly();
+        published =
+                published
+                        .thenRunAsync(() -> resendBatchPublisher.publishBatch(batch, url), publishExecutor)
+                        .whenComplete((result, ex) -> pendingBatches.release());
+
+        // once a batch has failed nothing more will be sent, so stop preparing payloads
+        if (published.isCompletedExceptionally()) {
+            join(published);
+        }
+    }
+
+    private static void join(CompletableFuture<Void> future) {
+        try {
+            future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
         }
     }
 }
@@ -5,15 +5,26 @@ import com.quorum.tessera.data.MessageHash;
 import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.enclave.EnclaveNotAvailableException;
 import com.quorum.tessera.enclave.EncodedPayload;
-import com.quorum.tessera.encryption.EncryptorException;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.transaction.exception.RecipientKeyNotFoundException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+/**
+ * Finds which of the local keys a transaction was sent to, for transactions stored without their recipients.
+ *
+ * <p>The transactions of a chunk are searched together, first trying the key recorded against each transaction on its
+ * own, then every other local key for those that are still unmatched. Each step is a single call to the enclave for the
+ * whole chunk.
+ */
 public class SearchRecipientKeyForPayload implements BatchWorkflowAction {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(SearchRecipientKeyForPayload.class);
@@ -26,40 +37,97 @@ public class SearchRecipientKeyForPayload implements BatchWorkflowAction {
 
     @Override
     public boolean execute(BatchWorkflowContext event) {
+        execute(List.of(event));
+        return true;
+    }
 
-        EncodedPayload encodedPayload = event.getEncodedPayload();
+    @Override
+    public List<BatchWorkflowContext> execute(List<BatchWorkflowContext> contexts) {
 
-        if (!encodedPayload.getRecipientKeys().isEmpty()) {
-            return true;
+        final List<BatchWorkflowContext> searching =
+                contexts.stream()
+                        .filter(context -> context.getEncodedPayload().getRecipientKeys().isEmpty())
+                        .collect(Collectors.toList());
+        if (searching.isEmpty()) {
+            return contexts;
         }
 
-        PublicKey recipientKey =
-                searchForRecipientKey(encodedPayload)
-                        .orElseThrow(
-                                () -> {
-                                    EncryptedTransaction encryptedTransaction = event.getEncryptedTransaction();
-                                    final MessageHash hash = encryptedTransaction.getHash();
-                                    String message = String.format("No key found as recipient of message %s", hash);
-                                    return new RecipientKeyNotFoundException(message);
-                                });
+        final Set<PublicKey> localKeys = enclave.getPublicKeys();
+        final Map<BatchWorkflowContext, PublicKey> found = new IdentityHashMap<>();
 
-        EncodedPayload adjustedPayload =
-                EncodedPayload.Builder.from(encodedPayload).withRecipientKeys(List.of(recipientKey)).build();
+        // the key recorded against the stored transaction is the most likely match, so it is tried alone first
+        final List<BatchWorkflowContext> recordedContexts = new ArrayList<>();
+        final List<PublicKey> recordedKeys = new ArrayList<>();
+        for (BatchWorkflowContext context : searching) {
+            recordedKey(context)
+                    .filter(localKeys::contains)
+                    .ifPresent(
+                            key -> {
+                                recordedContexts.add(context);
+                                recordedKeys.add(key);
+                            });
+        }
+        tryKeys(recordedContexts, recordedKeys, found);
 
-        event.setEncodedPayload(adjustedPayload);
+        final List<BatchWorkflowContext> candidateContexts = new ArrayList<>();
+        final List<PublicKey> candidateKeys = new ArrayList<>();
+        for (BatchWorkflowContext context : searching) {
+            if (found.containsKey(context)) {
+                continue;
+            }
+            final Optional<PublicKey> recorded = recordedKey(context);
+            for (PublicKey key : localKeys) {
+                if (!recorded.filter(key::equals).isPresent()) {
+                    candidateContexts.add(context);
+                    candidateKeys.add(key);
+                }
+            }
+        }
+        tryKeys(candidateContexts, candidateKeys, found);
 
-        return true;
+        for (BatchWorkflowContext context : searching) {
+            final PublicKey recipientKey = found.get(context);
+            if (recipientKey == null) {
+                final MessageHash hash = context.getEncryptedTransaction().getHash();
+                throw new RecipientKeyNotFoundException(String.format("No key found as recipient of message %s", hash));
+            }
+            context.setEncodedPayload(
+                    EncodedPayload.Builder.from(context.getEncodedPayload())
+                            .withRecipientKeys(List.of(recipientKey))
+                            .build());
+        }
+        return contexts;
+    }
+
+    private static Optional<PublicKey> recordedKey(BatchWorkflowContext context) {
+        return Optional.ofNullable(context.getEncryptedTransaction())
+                .map(EncryptedTransaction::getRecipientKey)
+                .map(PublicKey::from);
     }
 
-    private Optional<PublicKey> searchForRecipientKey(final EncodedPayload payload) {
-        for (final PublicKey potentialMatchingKey : enclave.getPublicKeys()) {
-            try {
-                enclave.unencryptTransaction(payload, potentialMatchingKey);
-                return Optional.of(potentialMatchingKey);
-            } catch (EnclaveNotAvailableException | IndexOutOfBoundsException | EncryptorException ex) {
+    /** Attempts to decrypt each context's payload with the key at the same index, recording the first key that works */
+    private void tryKeys(
+            List<BatchWorkflowContext> contexts, List<PublicKey> keys, Map<BatchWorkflowContext, PublicKey> found) {
+        if (contexts.isEmpty()) {
+            return;
+        }
+
+        final List<EncodedPayload> payloads =
+                contexts.stream().map(BatchWorkflowContext::getEncodedPayload).collect(Collectors.toList());
+        final List<byte[]> results;
+        try {
+            results = enclave.unencryptTransactions(payloads, keys);
+        } catch (EnclaveNotAvailableException ex) {
+            LOGGER.debug("Unable to attempt payload decryption, discarding.", ex);
+            return;
+        }
+
+        for (int i = 0; i < contexts.size(); i++) {
+            if (results.get(i) == null) {
                 LOGGER.debug("Attempted payload decryption using wrong key, discarding.");
+                continue;
             }
+            found.putIfAbsent(contexts.get(i), keys.get(i));
         }
-        return Optional.empty();
     }
 }
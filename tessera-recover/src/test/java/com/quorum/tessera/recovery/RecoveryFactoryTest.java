@@ -16,4 +16,17 @@ public class RecoveryFactoryTest extends RecoveryTestCase {
         Recovery recovery = recoveryFactory.create(config);
         assertThat(recovery).isNotNull();
     }
+
+    @Test
+    public void createRecoveryInstanceWithSyncThreads() {
+
+        final RecoveryConfig recoveryConfig = new RecoveryConfig();
+        recoveryConfig.setSyncThreads(2);
+
+        final Config config = getConfig();
+        config.setRecovery(recoveryConfig);
+
+        Recovery recovery = RecoveryFactory.newFactory().create(config);
+        assertThat(recovery).isNotNull();
+    }
 }
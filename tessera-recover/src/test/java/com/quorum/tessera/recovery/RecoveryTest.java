@@ -14,9 +14,14 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.Mockito.*;
 
 public class RecoveryTest extends RecoveryTestCase {
@@ -111,10 +116,7 @@ public class RecoveryTest extends RecoveryTestCase {
     @Test
     public void testStagingSuccess() {
 
-        // Staging loop run 3 times until there is no record left
-        when(stagingEntityDAO.updateStageForBatch(anyInt(), eq(1L))).thenReturn(1);
-        when(stagingEntityDAO.updateStageForBatch(anyInt(), eq(2L))).thenReturn(1);
-        when(stagingEntityDAO.updateStageForBatch(anyInt(), eq(3L))).thenReturn(0);
+        when(stagingEntityDAO.stageTransactions()).thenReturn(2);
 
         when(stagingEntityDAO.countAll()).thenReturn(2L);
         when(stagingEntityDAO.countStaged()).thenReturn(2L);
@@ -123,7 +125,7 @@ public class RecoveryTest extends RecoveryTestCase {
 
         assertThat(result).isEqualTo(RecoveryResult.SUCCESS);
 
-        verify(stagingEntityDAO, times(3)).updateStageForBatch(anyInt(), anyLong());
+        verify(stagingEntityDAO).stageTransactions();
         verify(stagingEntityDAO).countAll();
         verify(stagingEntityDAO).countStaged();
     }
@@ -134,12 +136,12 @@ public class RecoveryTest extends RecoveryTestCase {
         when(stagingEntityDAO.countAll()).thenReturn(2L);
         when(stagingEntityDAO.countStaged()).thenReturn(1L);
 
-        when(stagingEntityDAO.updateStageForBatch(anyInt(), anyLong())).thenReturn(0);
+        when(stagingEntityDAO.stageTransactions()).thenReturn(0);
         RecoveryResult result = recovery.stage();
 
         assertThat(result).isEqualTo(RecoveryResult.PARTIAL_SUCCESS);
 
-        verify(stagingEntityDAO).updateStageForBatch(anyInt(), anyLong());
+        verify(stagingEntityDAO).stageTransactions();
         verify(stagingEntityDAO).countAll();
         verify(stagingEntityDAO).countStaged();
     }
@@ -147,7 +149,7 @@ public class RecoveryTest extends RecoveryTestCase {
     @Test
     public void testStagingFailed() {
 
-        when(stagingEntityDAO.updateStageForBatch(anyInt(), anyLong())).thenReturn(0);
+        when(stagingEntityDAO.stageTransactions()).thenReturn(0);
 
         when(stagingEntityDAO.countAll()).thenReturn(2L);
         when(stagingEntityDAO.countStaged()).thenReturn(0L);
@@ -156,7 +158,7 @@ public class RecoveryTest extends RecoveryTestCase {
 
         assertThat(result).isEqualTo(RecoveryResult.FAILURE);
 
-        verify(stagingEntityDAO).updateStageForBatch(anyInt(), anyLong());
+        verify(stagingEntityDAO).stageTransactions();
         verify(stagingEntityDAO).countAll();
         verify(stagingEntityDAO).countStaged();
     }
@@ -173,14 +175,12 @@ public class RecoveryTest extends RecoveryTestCase {
         when(version1.getPayload()).thenReturn("payload1".getBytes());
         when(version2.getPayload()).thenReturn("payload2".getBytes());
 
-        when(stagingEntityDAO.retrieveTransactionBatchOrderByStageAndHash(anyInt(), anyInt()))
-                .thenReturn(List.of(version1, version2));
-        when(stagingEntityDAO.countAll()).thenReturn(2L);
+        when(stagingEntityDAO.streamTransactionsOrderByStageAndHash()).thenReturn(Stream.of(version1, version2));
 
         when(transactionManager.storePayload(any())).thenReturn(new MessageHash("hash".getBytes()));
 
-        EncodedPayload firstPayload = mock(EncodedPayload.class);
-        EncodedPayload secondPayload = mock(EncodedPayload.class);
+        EncodedPayload firstPayload = encodedPayload("payload1");
+        EncodedPayload secondPayload = encodedPayload("payload2");
         when(payloadEncoder.decode("payload1".getBytes())).thenReturn(firstPayload);
         when(payloadEncoder.decode("payload2".getBytes())).thenReturn(secondPayload);
 
@@ -188,8 +188,7 @@ public class RecoveryTest extends RecoveryTestCase {
 
         assertThat(result).isEqualTo(RecoveryResult.SUCCESS);
 
-        verify(stagingEntityDAO).retrieveTransactionBatchOrderByStageAndHash(anyInt(), anyInt());
-        verify(stagingEntityDAO, times(2)).countAll();
+        verify(stagingEntityDAO).streamTransactionsOrderByStageAndHash();
 
         verify(payloadEncoder).decode("payload1".getBytes());
         verify(payloadEncoder).decode("payload2".getBytes());
@@ -210,12 +209,10 @@ public class RecoveryTest extends RecoveryTestCase {
         when(version1.getPayload()).thenReturn("payload1".getBytes());
         when(version2.getPayload()).thenReturn("payload2".getBytes());
 
-        when(stagingEntityDAO.retrieveTransactionBatchOrderByStageAndHash(anyInt(), anyInt()))
-                .thenReturn(List.of(version1, version2));
-        when(stagingEntityDAO.countAll()).thenReturn(2L);
+        when(stagingEntityDAO.streamTransactionsOrderByStageAndHash()).thenReturn(Stream.of(version1, version2));
 
-        EncodedPayload encodedPayload = mock(EncodedPayload.class);
-        EncodedPayload encodedPayload2 = mock(EncodedPayload.class);
+        EncodedPayload encodedPayload = encodedPayload("payload1");
+        EncodedPayload encodedPayload2 = encodedPayload("payload2");
         when(payloadEncoder.decode("payload1".getBytes())).thenReturn(encodedPayload);
         when(payloadEncoder.decode("payload2".getBytes())).thenReturn(encodedPayload2);
 
@@ -225,8 +222,7 @@ public class RecoveryTest extends RecoveryTestCase {
 
         assertThat(result).isEqualTo(RecoveryResult.PARTIAL_SUCCESS);
 
-        verify(stagingEntityDAO).retrieveTransactionBatchOrderByStageAndHash(anyInt(), anyInt());
-        verify(stagingEntityDAO, times(2)).countAll();
+        verify(stagingEntityDAO).streamTransactionsOrderByStageAndHash();
 
         verify(payloadEncoder).decode("payload1".getBytes());
         verify(payloadEncoder).decode("payload2".getBytes());
@@ -250,10 +246,7 @@ public class RecoveryTest extends RecoveryTestCase {
 
         List<StagingTransaction> stagingTransactions = List.of(version1, version2);
 
-        when(stagingEntityDAO.retrieveTransactionBatchOrderByStageAndHash(anyInt(), anyInt()))
-                .thenReturn(stagingTransactions);
-
-        when(stagingEntityDAO.countAll()).thenReturn((long) stagingTransactions.size());
+        when(stagingEntityDAO.streamTransactionsOrderByStageAndHash()).thenReturn(stagingTransactions.stream());
 
         when(transactionManager.storePayload(any())).thenThrow(PrivacyViolationException.class);
 
@@ -261,8 +254,7 @@ public class RecoveryTest extends RecoveryTestCase {
 
         assertThat(result).isEqualTo(RecoveryResult.FAILURE);
 
-        verify(stagingEntityDAO).retrieveTransactionBatchOrderByStageAndHash(anyInt(), anyInt());
-        verify(stagingEntityDAO, times(2)).countAll();
+        verify(stagingEntityDAO).streamTransactionsOrderByStageAndHash();
 
         verify(payloadEncoder, times(2)).decode(any());
 
@@ -284,8 +276,8 @@ public class RecoveryTest extends RecoveryTestCase {
         when(version2.getPayload()).thenReturn("payload1".getBytes());
         when(anotherTx.getPayload()).thenReturn("payload2".getBytes());
 
-        EncodedPayload encodedPayload = mock(EncodedPayload.class);
-        EncodedPayload encodedPayload2 = mock(EncodedPayload.class);
+        EncodedPayload encodedPayload = encodedPayload("payload1");
+        EncodedPayload encodedPayload2 = encodedPayload("payload2");
         when(payloadEncoder.decode("payload1".getBytes())).thenReturn(encodedPayload);
         when(payloadEncoder.decode("payload2".getBytes())).thenReturn(encodedPayload2);
 
@@ -293,9 +285,8 @@ public class RecoveryTest extends RecoveryTestCase {
         when(version2.getPrivacyMode()).thenReturn(PrivacyMode.PRIVATE_STATE_VALIDATION);
         when(anotherTx.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
 
-        when(stagingEntityDAO.retrieveTransactionBatchOrderByStageAndHash(anyInt(), anyInt()))
-                .thenReturn(List.of(version1, version2, anotherTx));
-        when(stagingEntityDAO.countAll()).thenReturn(3L);
+        when(stagingEntityDAO.streamTransactionsOrderByStageAndHash())
+                .thenReturn(Stream.of(version1, version2, anotherTx));
 
         when(transactionManager.storePayload(any())).thenThrow(PrivacyViolationException.class);
 
@@ -303,8 +294,7 @@ public class RecoveryTest extends RecoveryTestCase {
 
         assertThat(result).isEqualTo(RecoveryResult.FAILURE);
 
-        verify(stagingEntityDAO).retrieveTransactionBatchOrderByStageAndHash(anyInt(), anyInt());
-        verify(stagingEntityDAO, times(2)).countAll();
+        verify(stagingEntityDAO).streamTransactionsOrderByStageAndHash();
         verify(payloadEncoder).decode("payload1".getBytes());
         verify(payloadEncoder).decode("payload2".getBytes());
 
@@ -312,6 +302,150 @@ public class RecoveryTest extends RecoveryTestCase {
         verify(transactionManager).storePayload(encodedPayload2);
     }
 
+    @Test
+    public void testSyncStoresEachStageBeforeTheNext() {
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            recovery =
+                    new RecoveryImpl(
+                            stagingEntityDAO,
+                            discovery,
+                            transactionRequester,
+                            transactionManager,
+                            payloadEncoder,
+                            () -> executorService,
+                            4);
+
+            final List<StagingTransaction> transactions = new ArrayList<>();
+            final Map<EncodedPayload, Long> stages = new HashMap<>();
+            for (long stage = 1; stage <= 3; stage++) {
+                for (int i = 0; i < 10; i++) {
+                    final StagingTransaction transaction = mock(StagingTransaction.class);
+                    final String payloadName = "payload" + stage + "-" + i;
+                    final byte[] payload = payloadName.getBytes();
+                    final EncodedPayload encodedPayload = encodedPayload(payloadName);
+                    when(transaction.getHash()).thenReturn("TXN" + stage + "-" + i);
+                    when(transaction.getValidationStage()).thenReturn(stage);
+                    when(transaction.getPayload()).thenReturn(payload);
+                    when(payloadEncoder.decode(payload)).thenReturn(encodedPayload);
+                    transactions.add(transaction);
+                    stages.put(encodedPayload, stage);
+                }
+            }
+
+            when(stagingEntityDAO.streamTransactionsOrderByStageAndHash()).thenReturn(transactions.stream());
+
+            final List<Long> storedStages = Collections.synchronizedList(new ArrayList<>());
+            when(transactionManager.storePayload(any()))
+                    .thenAnswer(
+                            invocation -> {
+                                storedStages.add(stages.get(invocation.getArgument(0)));
+                                return new MessageHash("hash".getBytes());
+                            });
+
+            final RecoveryResult result = recovery.sync();
+
+            assertThat(result).isEqualTo(RecoveryResult.SUCCESS);
+            assertThat(storedStages).hasSize(30).isSorted();
+            assertThat(executorService.isShutdown()).isTrue();
+
+            verify(stagingEntityDAO).streamTransactionsOrderByStageAndHash();
+            verify(payloadEncoder, times(30)).decode(any());
+            verify(transactionManager, times(30)).storePayload(any());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSyncConcurrentFailuresAreCounted() {
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(4);
+        try {
+            recovery =
+                    new RecoveryImpl(
+                            stagingEntityDAO,
+                            discovery,
+                            transactionRequester,
+                            transactionManager,
+                            payloadEncoder,
+                            () -> executorService,
+                            4);
+
+            final List<StagingTransaction> transactions = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                final StagingTransaction transaction = mock(StagingTransaction.class);
+                when(transaction.getHash()).thenReturn("TXN" + i);
+                when(transaction.getValidationStage()).thenReturn(1L);
+                transactions.add(transaction);
+            }
+
+            when(stagingEntityDAO.streamTransactionsOrderByStageAndHash()).thenReturn(transactions.stream());
+            when(payloadEncoder.decode(any())).thenReturn(mock(EncodedPayload.class));
+
+            final AtomicInteger calls = new AtomicInteger();
+            when(transactionManager.storePayload(any()))
+                    .thenAnswer(
+                            invocation -> {
+                                if (calls.incrementAndGet() % 2 == 0) {
+                                    throw new PrivacyViolationException("failed");
+                                }
+                                return new MessageHash("hash".getBytes());
+                            });
+
+            assertThat(recovery.sync()).isEqualTo(RecoveryResult.PARTIAL_SUCCESS);
+
+            verify(stagingEntityDAO).streamTransactionsOrderByStageAndHash();
+            verify(payloadEncoder, times(20)).decode(any());
+            verify(transactionManager, times(20)).storePayload(any());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testSyncUnexpectedErrorIsRaised() {
+
+        final ExecutorService executorService = Executors.newFixedThreadPool(2);
+        try {
+            recovery =
+                    new RecoveryImpl(
+                            stagingEntityDAO,
+                            discovery,
+                            transactionRequester,
+                            transactionManager,
+                            payloadEncoder,
+                            () -> executorService,
+                            2);
+
+            final StagingTransaction transaction = mock(StagingTransaction.class);
+            when(transaction.getHash()).thenReturn("TXN1");
+            when(transaction.getValidationStage()).thenReturn(1L);
+
+            final StagingTransaction laterTransaction = mock(StagingTransaction.class);
+            when(laterTransaction.getHash()).thenReturn("TXN2");
+            when(laterTransaction.getValidationStage()).thenReturn(2L);
+
+            when(stagingEntityDAO.streamTransactionsOrderByStageAndHash())
+                    .thenReturn(Stream.of(transaction, laterTransaction));
+
+            final IllegalStateException exception = new IllegalStateException("Unexpected");
+            when(payloadEncoder.decode(any())).thenThrow(exception);
+
+            final Throwable throwable = catchThrowable(recovery::sync);
+
+            assertThat(throwable).isSameAs(exception);
+            assertThat(executorService.isShutdown()).isTrue();
+
+            verify(stagingEntityDAO).streamTransactionsOrderByStageAndHash();
+            verify(payloadEncoder).decode(any());
+            verifyNoInteractions(transactionManager);
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
     @Test
     public void testRecoverSuccess() {
 
@@ -359,4 +493,8 @@ public class RecoveryTest extends RecoveryTestCase {
         verify(recovery).stage();
         verify(recovery).sync();
     }
+
+    private static EncodedPayload encodedPayload(String cipherText) {
+        return EncodedPayload.Builder.create().withCipherText(cipherText.getBytes()).build();
+    }
 }
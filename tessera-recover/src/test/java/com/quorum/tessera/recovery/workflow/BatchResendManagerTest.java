@@ -19,18 +19,20 @@ import com.quorum.tessera.util.Base64Codec;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
-import static org.mockito.AdditionalMatchers.gt;
 
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.IntStream;
 
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.mockito.AdditionalMatchers.lt;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.Mockito.*;
 
 public class BatchResendManagerTest {
@@ -103,17 +105,10 @@ public class BatchResendManagerTest {
         final ResendBatchRequest request =
                 ResendBatchRequest.Builder.create().withBatchSize(3).withPublicKey(KEY_STRING).build();
 
-        List<EncryptedTransaction> transactions =
-                IntStream.range(0, 5)
-                        .mapToObj(i -> mock(EncryptedTransaction.class))
-                        .collect(Collectors.toUnmodifiableList());
-
         when(encryptedTransactionDAO.transactionCount()).thenReturn(101L);
         MockBatchWorkflowFactory.transactionCount = 101L;
 
-        when(encryptedTransactionDAO.retrieveTransactions(lt(100), anyInt())).thenReturn(transactions);
-        when(encryptedTransactionDAO.retrieveTransactions(gt(99), anyInt()))
-                .thenReturn(singletonList(mock(EncryptedTransaction.class)));
+        storedTransactions(101);
 
         final BatchWorkflow batchWorkflow = MockBatchWorkflowFactory.getWorkflow();
 
@@ -124,7 +119,7 @@ public class BatchResendManagerTest {
 
         assertThat(result.getTotal()).isEqualTo(101L);
 
-        verify(encryptedTransactionDAO, times(21)).retrieveTransactions(anyInt(), anyInt());
+        verify(encryptedTransactionDAO, times(34)).retrieveTransactionsAfter(any(), eq(3));
         verify(encryptedTransactionDAO).transactionCount();
         verify(resendBatchPublisher, times(34)).publishBatch(any(), any());
     }
@@ -134,17 +129,10 @@ public class BatchResendManagerTest {
 
         final ResendBatchRequest request = ResendBatchRequest.Builder.create().withPublicKey(KEY_STRING).build();
 
-        List<EncryptedTransaction> transactions =
-                IntStream.range(0, 5)
-                        .mapToObj(i -> mock(EncryptedTransaction.class))
-                        .collect(Collectors.toUnmodifiableList());
-
         when(encryptedTransactionDAO.transactionCount()).thenReturn(101L);
         MockBatchWorkflowFactory.transactionCount = 101L;
 
-        when(encryptedTransactionDAO.retrieveTransactions(lt(100), anyInt())).thenReturn(transactions);
-        when(encryptedTransactionDAO.retrieveTransactions(gt(99), anyInt()))
-                .thenReturn(singletonList(mock(EncryptedTransaction.class)));
+        storedTransactions(101);
 
         final BatchWorkflow batchWorkflow = MockBatchWorkflowFactory.getWorkflow();
 
@@ -155,7 +143,7 @@ public class BatchResendManagerTest {
 
         assertThat(result.getTotal()).isEqualTo(101L);
 
-        verify(encryptedTransactionDAO, times(21)).retrieveTransactions(anyInt(), anyInt());
+        verify(encryptedTransactionDAO, times(21)).retrieveTransactionsAfter(any(), eq(5));
         verify(encryptedTransactionDAO).transactionCount();
         verify(resendBatchPublisher, times(21)).publishBatch(any(), any());
     }
@@ -166,17 +154,10 @@ public class BatchResendManagerTest {
         final ResendBatchRequest request =
                 ResendBatchRequest.Builder.create().withBatchSize(10000000).withPublicKey(KEY_STRING).build();
 
-        List<EncryptedTransaction> transactions =
-                IntStream.range(0, 5)
-                        .mapToObj(i -> mock(EncryptedTransaction.class))
-                        .collect(Collectors.toUnmodifiableList());
-
         when(encryptedTransactionDAO.transactionCount()).thenReturn(101L);
         MockBatchWorkflowFactory.transactionCount = 101L;
 
-        when(encryptedTransactionDAO.retrieveTransactions(lt(100), anyInt())).thenReturn(transactions);
-        when(encryptedTransactionDAO.retrieveTransactions(gt(99), anyInt()))
-                .thenReturn(singletonList(mock(EncryptedTransaction.class)));
+        storedTransactions(101);
 
         final BatchWorkflow batchWorkflow = MockBatchWorkflowFactory.getWorkflow();
 
@@ -187,37 +168,108 @@ public class BatchResendManagerTest {
 
         assertThat(result.getTotal()).isEqualTo(101L);
 
-        verify(encryptedTransactionDAO, times(21)).retrieveTransactions(anyInt(), anyInt());
+        verify(encryptedTransactionDAO, times(21)).retrieveTransactionsAfter(any(), eq(5));
         verify(encryptedTransactionDAO).transactionCount();
         verify(resendBatchPublisher, times(21)).publishBatch(any(), any());
     }
 
     @Test
-    public void createWithMinimalConstructor() {
-        assertThat(
-                        new BatchResendManagerImpl(
-                                enclave, stagingEntityDAO, encryptedTransactionDAO, discovery, resendBatchPublisher, 1))
-                .isNotNull();
+    public void resendBatchPreparesAndPublishesOnExecutors() {
+        final ExecutorService prepareExecutor = Executors.newFixedThreadPool(4);
+        final ExecutorService publishExecutor = Executors.newSingleThreadExecutor();
+        try {
+            manager =
+                    new BatchResendManagerImpl(
+                            payloadEncoder,
+                            Base64Codec.create(),
+                            enclave,
+                            stagingEntityDAO,
+                            encryptedTransactionDAO,
+                            discovery,
+                            resendBatchPublisher,
+                            5,
+                            prepareExecutor,
+                            4,
+                            publishExecutor);
+
+            final ResendBatchRequest request =
+                    ResendBatchRequest.Builder.create().withBatchSize(3).withPublicKey(KEY_STRING).build();
+
+            when(encryptedTransactionDAO.transactionCount()).thenReturn(101L);
+            MockBatchWorkflowFactory.transactionCount = 101L;
+
+            storedTransactions(101);
+
+            final List<Integer> publishedBatchSizes = new CopyOnWriteArrayList<>();
+            doAnswer(invocation -> publishedBatchSizes.add(invocation.<List<?>>getArgument(0).size()))
+                    .when(resendBatchPublisher)
+                    .publishBatch(any(), any());
+
+            final ResendBatchResponse result = manager.resendBatch(request);
+
+            assertThat(MockBatchWorkflowFactory.getExecuteInvocationCounter()).isEqualTo(101);
+            assertThat(result.getTotal()).isEqualTo(101L);
+
+            // every payload has been sent by the time the response is returned
+            assertThat(publishedBatchSizes.stream().mapToInt(Integer::intValue).sum()).isEqualTo(101);
+            assertThat(publishedBatchSizes).allMatch(size -> size <= 3);
+
+            verify(encryptedTransactionDAO, times(34)).retrieveTransactionsAfter(any(), eq(3));
+            verify(encryptedTransactionDAO).transactionCount();
+            verify(resendBatchPublisher, times(publishedBatchSizes.size())).publishBatch(any(), any());
+        } finally {
+            prepareExecutor.shutdownNow();
+            publishExecutor.shutdownNow();
+        }
     }
 
     @Test
-    public void calculateBatchCount() {
-        long numberOfRecords = 10;
-        long maxResults = 3;
-
-        int batchCount = BatchResendManagerImpl.calculateBatchCount(maxResults, numberOfRecords);
-
-        assertThat(batchCount).isEqualTo(4);
+    public void resendBatchRaisesFirstPreparationFailure() {
+        final ExecutorService prepareExecutor = Executors.newFixedThreadPool(2);
+        try {
+            manager =
+                    new BatchResendManagerImpl(
+                            payloadEncoder,
+                            Base64Codec.create(),
+                            enclave,
+                            stagingEntityDAO,
+                            encryptedTransactionDAO,
+                            discovery,
+                            resendBatchPublisher,
+                            5,
+                            prepareExecutor,
+                            2,
+                            Runnable::run);
+
+            final ResendBatchRequest request =
+                    ResendBatchRequest.Builder.create().withBatchSize(3).withPublicKey(KEY_STRING).build();
+
+            when(encryptedTransactionDAO.transactionCount()).thenReturn(10L);
+            MockBatchWorkflowFactory.transactionCount = 10L;
+
+            storedTransactions(10);
+
+            final RuntimeException publishFailure = new RuntimeException("Publish failed");
+            doThrow(publishFailure).when(resendBatchPublisher).publishBatch(any(), any());
+
+            final Throwable throwable = catchThrowable(() -> manager.resendBatch(request));
+
+            assertThat(throwable).isSameAs(publishFailure);
+
+            verify(encryptedTransactionDAO, atLeastOnce()).retrieveTransactionsAfter(any(), eq(3));
+            verify(encryptedTransactionDAO).transactionCount();
+            verify(resendBatchPublisher, atLeastOnce()).publishBatch(any(), any());
+        } finally {
+            prepareExecutor.shutdownNow();
+        }
     }
 
     @Test
-    public void calculateBatchCountTotalLowerThanBatchSizeIsSingleBatch() {
-        long numberOfRecords = 100;
-        long maxResults = 10;
-
-        int batchCount = BatchResendManagerImpl.calculateBatchCount(maxResults, numberOfRecords);
-
-        assertThat(batchCount).isEqualTo(10);
+    public void createWithMinimalConstructor() {
+        assertThat(
+                        new BatchResendManagerImpl(
+                                enclave, stagingEntityDAO, encryptedTransactionDAO, discovery, resendBatchPublisher, 1))
+                .isNotNull();
     }
 
     @Test
@@ -266,6 +318,23 @@ public class BatchResendManagerTest {
 
         manager.storeResendBatch(request);
 
-        verify(stagingEntityDAO).save(any(StagingTransaction.class));
+        verify(stagingEntityDAO).saveAll(argThat(stagingTransactions -> stagingTransactions.size() == 1));
+    }
+
+    /** Stores the given number of transactions, returning them a page at a time as the database would */
+    private void storedTransactions(int count) {
+        final List<EncryptedTransaction> transactions =
+                IntStream.range(0, count)
+                        .mapToObj(i -> mock(EncryptedTransaction.class))
+                        .collect(Collectors.toUnmodifiableList());
+
+        when(encryptedTransactionDAO.retrieveTransactionsAfter(any(), anyInt()))
+                .thenAnswer(
+                        invocation -> {
+                            final EncryptedTransaction previous = invocation.getArgument(0);
+                            final int maxResult = invocation.getArgument(1);
+                            final int from = previous == null ? 0 : transactions.indexOf(previous) + 1;
+                            return transactions.subList(from, Math.min(from + maxResult, count));
+                        });
     }
 }
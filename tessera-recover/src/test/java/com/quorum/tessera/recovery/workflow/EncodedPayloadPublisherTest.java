@@ -11,9 +11,11 @@ import org.junit.Test;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.*;
 import java.util.stream.IntStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
 import static org.mockito.Mockito.*;
 
 public class EncodedPayloadPublisherTest {
@@ -59,10 +61,9 @@ public class EncodedPayloadPublisherTest {
 
         assertThat(encodedPayloadPublisher.getPublishedCount()).isEqualTo(9);
 
-        List<EncodedPayload> sent = new ArrayList<>(batchSize);
-        Collections.fill(sent, encodedPayload);
-
-        verify(resendBatchPublisher, times(5)).publishBatch(sent, "http://junit.com");
+        verify(resendBatchPublisher, times(4))
+                .publishBatch(List.of(encodedPayload, encodedPayload), "http://junit.com");
+        verify(resendBatchPublisher).publishBatch(List.of(encodedPayload), "http://junit.com");
     }
 
     @Test
@@ -87,10 +88,7 @@ public class EncodedPayloadPublisherTest {
 
         assertThat(encodedPayloadPublisher.getPublishedCount()).isEqualTo(9);
 
-        List<EncodedPayload> sent = new ArrayList<>(batchSize);
-        Collections.fill(sent, encodedPayload);
-
-        verify(resendBatchPublisher).publishBatch(sent, "http://junit.com");
+        verify(resendBatchPublisher).publishBatch(Collections.nCopies(batchSize, encodedPayload), "http://junit.com");
     }
 
     @Test
@@ -139,10 +137,7 @@ public class EncodedPayloadPublisherTest {
 
         assertThat(encodedPayloadPublisher.getPublishedCount()).isEqualTo(2);
 
-        List<EncodedPayload> sent = new ArrayList<>(2);
-        Collections.fill(sent, encodedPayload);
-
-        verify(resendBatchPublisher).publishBatch(sent, "http://junit.com");
+        verify(resendBatchPublisher).publishBatch(Collections.nCopies(2, encodedPayload), "http://junit.com");
     }
 
     @Test
@@ -182,4 +177,126 @@ public class EncodedPayloadPublisherTest {
 
         verify(resendBatchPublisher, times(2)).publishBatch(anyList(), eq("http://junit.com"));
     }
+
+    @Test
+    public void flushPublishesIncompleteBatch() {
+        BatchWorkflowContext batchWorkflowContext = newContext(100, 10L);
+
+        encodedPayloadPublisher.execute(batchWorkflowContext);
+        encodedPayloadPublisher.execute(batchWorkflowContext);
+        assertThat(encodedPayloadPublisher.getPublishedCount()).isEqualTo(0);
+
+        encodedPayloadPublisher.flush();
+        assertThat(encodedPayloadPublisher.getPublishedCount()).isEqualTo(2);
+
+        encodedPayloadPublisher.flush();
+        assertThat(encodedPayloadPublisher.getPublishedCount()).isEqualTo(2);
+
+        verify(resendBatchPublisher)
+                .publishBatch(Collections.nCopies(2, batchWorkflowContext.getEncodedPayload()), "http://junit.com");
+    }
+
+    @Test
+    public void batchesArePublishedInOrderOnPublishExecutor() throws Exception {
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            encodedPayloadPublisher = new EncodedPayloadPublisher(resendBatchPublisher, executorService);
+
+            final List<String> publishingThreads = new CopyOnWriteArrayList<>();
+            final List<EncodedPayload> publishedPayloads = new CopyOnWriteArrayList<>();
+            doAnswer(
+                            invocation -> {
+                                publishingThreads.add(Thread.currentThread().getName());
+                                publishedPayloads.addAll(invocation.getArgument(0));
+                                return null;
+                            })
+                    .when(resendBatchPublisher)
+                    .publishBatch(anyList(), eq("http://junit.com"));
+
+            final BatchWorkflowContext batchWorkflowContext = newContext(2, 10L);
+            final List<EncodedPayload> expected = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                final EncodedPayload encodedPayload = mock(EncodedPayload.class);
+                expected.add(encodedPayload);
+                batchWorkflowContext.setEncodedPayload(encodedPayload);
+                encodedPayloadPublisher.execute(batchWorkflowContext);
+            }
+
+            encodedPayloadPublisher.awaitPublished();
+
+            assertThat(publishedPayloads).containsExactlyElementsOf(expected);
+            assertThat(publishingThreads).hasSize(5).doesNotContain(Thread.currentThread().getName());
+
+            verify(resendBatchPublisher, times(5)).publishBatch(anyList(), eq("http://junit.com"));
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void addingPayloadsBlocksWhileTooManyBatchesArePending() throws Exception {
+        final ExecutorService executorService = Executors.newSingleThreadExecutor();
+        final ExecutorService producer = Executors.newSingleThreadExecutor();
+        try {
+            encodedPayloadPublisher = new EncodedPayloadPublisher(resendBatchPublisher, executorService);
+
+            final CountDownLatch sendAllowed = new CountDownLatch(1);
+            doAnswer(invocation -> sendAllowed.await(10, TimeUnit.SECONDS))
+                    .when(resendBatchPublisher)
+                    .publishBatch(anyList(), eq("http://junit.com"));
+
+            final BatchWorkflowContext batchWorkflowContext = newContext(1, 10L);
+
+            final int batchCount = EncodedPayloadPublisher.MAX_PENDING_BATCHES + 1;
+            final Future<?> adding =
+                    producer.submit(
+                            () -> {
+                                for (int i = 0; i < batchCount; i++) {
+                                    encodedPayloadPublisher.execute(batchWorkflowContext);
+                                }
+                            });
+
+            Thread.sleep(200);
+            assertThat(adding).isNotDone();
+
+            sendAllowed.countDown();
+            adding.get(10, TimeUnit.SECONDS);
+            encodedPayloadPublisher.awaitPublished();
+
+            verify(resendBatchPublisher, times(batchCount)).publishBatch(anyList(), eq("http://junit.com"));
+        } finally {
+            executorService.shutdownNow();
+            producer.shutdownNow();
+        }
+    }
+
+    @Test
+    public void publishFailureIsRaisedAndStopsFurtherPublishing() {
+        final RuntimeException publishFailure = new RuntimeException("Publish failed");
+        doThrow(publishFailure).when(resendBatchPublisher).publishBatch(anyList(), eq("http://junit.com"));
+
+        final BatchWorkflowContext batchWorkflowContext = newContext(1, 10L);
+
+        final Throwable throwable = catchThrowable(() -> encodedPayloadPublisher.execute(batchWorkflowContext));
+        assertThat(throwable).isSameAs(publishFailure);
+
+        final Throwable second = catchThrowable(() -> encodedPayloadPublisher.execute(batchWorkflowContext));
+        assertThat(second).isSameAs(publishFailure);
+
+        assertThat(catchThrowable(encodedPayloadPublisher::awaitPublished)).isSameAs(publishFailure);
+
+        verify(resendBatchPublisher).publishBatch(anyList(), eq("http://junit.com"));
+    }
+
+    private static BatchWorkflowContext newContext(int batchSize, long expectedTotal) {
+        BatchWorkflowContext batchWorkflowContext = new BatchWorkflowContext();
+        batchWorkflowContext.setBatchSize(batchSize);
+        batchWorkflowContext.setExpectedTotal(expectedTotal);
+        batchWorkflowContext.setEncodedPayload(mock(EncodedPayload.class));
+        Recipient recipient = mock(Recipient.class);
+        when(recipient.getUrl()).thenReturn("http://junit.com");
+        batchWorkflowContext.setRecipientKey(mock(PublicKey.class));
+        batchWorkflowContext.setRecipient(recipient);
+        return batchWorkflowContext;
+    }
 }
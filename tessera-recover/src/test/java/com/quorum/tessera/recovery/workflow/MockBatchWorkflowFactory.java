@@ -68,6 +68,12 @@ public class MockBatchWorkflowFactory implements BatchWorkflowFactory {
         public long getPublishedMessageCount() {
             return encodedPayloadPublisher.getPublishedCount();
         }
+
+        @Override
+        public void complete() {
+            encodedPayloadPublisher.flush();
+            encodedPayloadPublisher.awaitPublished();
+        }
     }
 
     static int getExecuteInvocationCounter() {
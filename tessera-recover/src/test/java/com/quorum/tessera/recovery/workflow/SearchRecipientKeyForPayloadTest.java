@@ -6,14 +6,15 @@ import com.quorum.tessera.enclave.Enclave;
 import com.quorum.tessera.enclave.EnclaveNotAvailableException;
 import com.quorum.tessera.enclave.EncodedPayload;
 import com.quorum.tessera.enclave.PrivacyMode;
-import com.quorum.tessera.encryption.EncryptorException;
 import com.quorum.tessera.encryption.PublicKey;
 import com.quorum.tessera.transaction.exception.RecipientKeyNotFoundException;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
 
@@ -52,65 +53,214 @@ public class SearchRecipientKeyForPayloadTest {
         when(encodedPayload.getRecipientKeys()).thenReturn(Collections.EMPTY_LIST);
         when(enclave.getPublicKeys()).thenReturn(Set.of(publicKey));
 
-        when(enclave.unencryptTransaction(encodedPayload, publicKey)).thenReturn("OUTCOME".getBytes());
+        when(enclave.unencryptTransactions(List.of(encodedPayload), List.of(publicKey)))
+                .thenReturn(List.of("OUTCOME".getBytes()));
 
         searchRecipientKeyForPayload.execute(encryptedTransactionEvent);
 
-        assertThat(encryptedTransactionEvent.getEncodedPayload()).isExactlyInstanceOf(EncodedPayload.class);
+        assertThat(encryptedTransactionEvent.getEncodedPayload()).isNotSameAs(encodedPayload);
 
         assertThat(encryptedTransactionEvent.getEncodedPayload().getRecipientKeys()).containsExactly(publicKey);
 
         assertThat(encryptedTransactionEvent.getRecipient()).isNull();
         assertThat(encryptedTransactionEvent.getEncryptedTransaction()).isNull();
 
-        verify(enclave).unencryptTransaction(encodedPayload, publicKey);
+        verify(enclave).unencryptTransactions(List.of(encodedPayload), List.of(publicKey));
         verify(enclave).getPublicKeys();
     }
 
     @Test
-    public void executeHandleEnclaveExceptions() {
+    public void executeTriesRecordedRecipientKeyFirst() {
 
-        List<Class<? extends Exception>> handledExceptionTypes =
-                List.of(EnclaveNotAvailableException.class, IndexOutOfBoundsException.class, EncryptorException.class);
+        BatchWorkflowContext encryptedTransactionEvent = new BatchWorkflowContext();
+
+        PublicKey otherKey = PublicKey.from("OTHER".getBytes());
+        PublicKey recordedKey = PublicKey.from("RECORDED".getBytes());
+
+        EncryptedTransaction encryptedTransaction = new EncryptedTransaction(mock(MessageHash.class), new byte[0]);
+        encryptedTransaction.setRecipientKey(recordedKey.getKeyBytes());
+        encryptedTransactionEvent.setEncryptedTransaction(encryptedTransaction);
+
+        EncodedPayload encodedPayload = mock(EncodedPayload.class);
+        when(encodedPayload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+        when(encodedPayload.getRecipientKeys()).thenReturn(Collections.EMPTY_LIST);
+        encryptedTransactionEvent.setEncodedPayload(encodedPayload);
+
+        when(enclave.getPublicKeys()).thenReturn(new LinkedHashSet<>(List.of(otherKey, recordedKey)));
+        when(enclave.unencryptTransactions(List.of(encodedPayload), List.of(recordedKey)))
+                .thenReturn(List.of("OUTCOME".getBytes()));
+
+        searchRecipientKeyForPayload.execute(encryptedTransactionEvent);
 
-        handledExceptionTypes.forEach(
-                t -> {
-                    BatchWorkflowContext encryptedTransactionEvent = new BatchWorkflowContext();
+        assertThat(encryptedTransactionEvent.getEncodedPayload().getRecipientKeys()).containsExactly(recordedKey);
 
-                    EncryptedTransaction encryptedTransaction = mock(EncryptedTransaction.class);
-                    when(encryptedTransaction.getHash()).thenReturn(mock(MessageHash.class));
+        verify(enclave).unencryptTransactions(List.of(encodedPayload), List.of(recordedKey));
+        verify(enclave).getPublicKeys();
+    }
+
+    @Test
+    public void executeTriesOtherKeysWhenRecordedKeyCannotDecrypt() {
+
+        BatchWorkflowContext encryptedTransactionEvent = new BatchWorkflowContext();
 
-                    encryptedTransactionEvent.setEncryptedTransaction(encryptedTransaction);
+        PublicKey otherKey = PublicKey.from("OTHER".getBytes());
+        PublicKey recordedKey = PublicKey.from("RECORDED".getBytes());
 
-                    EncodedPayload encodedPayload = mock(EncodedPayload.class);
+        EncryptedTransaction encryptedTransaction = new EncryptedTransaction(mock(MessageHash.class), new byte[0]);
+        encryptedTransaction.setRecipientKey(recordedKey.getKeyBytes());
+        encryptedTransactionEvent.setEncryptedTransaction(encryptedTransaction);
 
-                    PublicKey publicKey = mock(PublicKey.class);
+        EncodedPayload encodedPayload = mock(EncodedPayload.class);
+        when(encodedPayload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+        when(encodedPayload.getRecipientKeys()).thenReturn(Collections.EMPTY_LIST);
+        encryptedTransactionEvent.setEncodedPayload(encodedPayload);
 
-                    encryptedTransactionEvent.setEncodedPayload(encodedPayload);
+        when(enclave.getPublicKeys()).thenReturn(new LinkedHashSet<>(List.of(otherKey, recordedKey)));
+        when(enclave.unencryptTransactions(List.of(encodedPayload), List.of(recordedKey)))
+                .thenReturn(Collections.singletonList(null));
+        when(enclave.unencryptTransactions(List.of(encodedPayload), List.of(otherKey)))
+                .thenReturn(List.of("OUTCOME".getBytes()));
 
-                    when(encodedPayload.getRecipientKeys()).thenReturn(Collections.EMPTY_LIST);
-                    when(enclave.getPublicKeys()).thenReturn(Set.of(publicKey));
+        searchRecipientKeyForPayload.execute(encryptedTransactionEvent);
 
-                    when(enclave.unencryptTransaction(encodedPayload, publicKey)).thenThrow(t);
+        assertThat(encryptedTransactionEvent.getEncodedPayload().getRecipientKeys()).containsExactly(otherKey);
+
+        verify(enclave).unencryptTransactions(List.of(encodedPayload), List.of(recordedKey));
+        verify(enclave).unencryptTransactions(List.of(encodedPayload), List.of(otherKey));
+        verify(enclave).getPublicKeys();
+    }
+
+    @Test
+    public void executeSearchesSeveralTransactionsTogether() {
+
+        PublicKey firstKey = PublicKey.from("FIRST".getBytes());
+        PublicKey secondKey = PublicKey.from("SECOND".getBytes());
+
+        EncodedPayload firstPayload = mock(EncodedPayload.class);
+        when(firstPayload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+        when(firstPayload.getRecipientKeys()).thenReturn(Collections.EMPTY_LIST);
+        BatchWorkflowContext first = new BatchWorkflowContext();
+        first.setEncodedPayload(firstPayload);
+
+        EncodedPayload secondPayload = mock(EncodedPayload.class);
+        when(secondPayload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+        when(secondPayload.getRecipientKeys()).thenReturn(Collections.EMPTY_LIST);
+        BatchWorkflowContext second = new BatchWorkflowContext();
+        second.setEncodedPayload(secondPayload);
+
+        when(enclave.getPublicKeys()).thenReturn(new LinkedHashSet<>(List.of(firstKey, secondKey)));
+        when(enclave.unencryptTransactions(
+                        List.of(firstPayload, firstPayload, secondPayload, secondPayload),
+                        List.of(firstKey, secondKey, firstKey, secondKey)))
+                .thenReturn(Arrays.asList("OUTCOME".getBytes(), null, null, "OUTCOME".getBytes()));
+
+        List<BatchWorkflowContext> result = searchRecipientKeyForPayload.execute(List.of(first, second));
+
+        assertThat(result).containsExactly(first, second);
+        assertThat(first.getEncodedPayload().getRecipientKeys()).containsExactly(firstKey);
+        assertThat(second.getEncodedPayload().getRecipientKeys()).containsExactly(secondKey);
+
+        verify(enclave)
+                .unencryptTransactions(
+                        List.of(firstPayload, firstPayload, secondPayload, secondPayload),
+                        List.of(firstKey, secondKey, firstKey, secondKey));
+        verify(enclave).getPublicKeys();
+    }
+
+    @Test
+    public void executeSkipsKeysThatCannotDecrypt() {
+
+        BatchWorkflowContext encryptedTransactionEvent = new BatchWorkflowContext();
+
+        PublicKey wrongKey = PublicKey.from("WRONG".getBytes());
+        PublicKey rightKey = PublicKey.from("RIGHT".getBytes());
+
+        EncodedPayload encodedPayload = mock(EncodedPayload.class);
+        when(encodedPayload.getPrivacyMode()).thenReturn(PrivacyMode.STANDARD_PRIVATE);
+        when(encodedPayload.getRecipientKeys()).thenReturn(Collections.EMPTY_LIST);
+        encryptedTransactionEvent.setEncodedPayload(encodedPayload);
+
+        when(enclave.getPublicKeys()).thenReturn(new LinkedHashSet<>(List.of(wrongKey, rightKey)));
+        when(enclave.unencryptTransactions(List.of(encodedPayload, encodedPayload), List.of(wrongKey, rightKey)))
+                .thenReturn(Arrays.asList(null, "OUTCOME".getBytes()));
+
+        searchRecipientKeyForPayload.execute(encryptedTransactionEvent);
 
-                    try {
-                        searchRecipientKeyForPayload.execute(encryptedTransactionEvent);
-                        failBecauseExceptionWasNotThrown(RecipientKeyNotFoundException.class);
-                    } catch (RecipientKeyNotFoundException ex) {
+        assertThat(encryptedTransactionEvent.getEncodedPayload().getRecipientKeys()).containsExactly(rightKey);
 
-                        assertThat(encryptedTransactionEvent.getEncodedPayload()).isSameAs(encodedPayload);
+        verify(enclave).unencryptTransactions(List.of(encodedPayload, encodedPayload), List.of(wrongKey, rightKey));
+        verify(enclave).getPublicKeys();
+    }
+
+    @Test
+    public void executeNoKeyCanDecrypt() {
+
+        BatchWorkflowContext encryptedTransactionEvent = new BatchWorkflowContext();
+
+        EncryptedTransaction encryptedTransaction = mock(EncryptedTransaction.class);
+        when(encryptedTransaction.getHash()).thenReturn(mock(MessageHash.class));
+
+        encryptedTransactionEvent.setEncryptedTransaction(encryptedTransaction);
+
+        EncodedPayload encodedPayload = mock(EncodedPayload.class);
+
+        PublicKey publicKey = mock(PublicKey.class);
+
+        encryptedTransactionEvent.setEncodedPayload(encodedPayload);
+
+        when(encodedPayload.getRecipientKeys()).thenReturn(Collections.EMPTY_LIST);
+        when(enclave.getPublicKeys()).thenReturn(Set.of(publicKey));
+
+        when(enclave.unencryptTransactions(List.of(encodedPayload), List.of(publicKey)))
+                .thenReturn(Collections.singletonList(null));
+
+        try {
+            searchRecipientKeyForPayload.execute(encryptedTransactionEvent);
+            failBecauseExceptionWasNotThrown(RecipientKeyNotFoundException.class);
+        } catch (RecipientKeyNotFoundException ex) {
+
+            assertThat(encryptedTransactionEvent.getEncodedPayload()).isSameAs(encodedPayload);
+
+            assertThat(encryptedTransactionEvent.getRecipientKey()).isNull();
+            assertThat(encryptedTransactionEvent.getRecipient()).isNull();
+            assertThat(encryptedTransactionEvent.getEncryptedTransaction()).isSameAs(encryptedTransaction);
+
+            verify(enclave).unencryptTransactions(List.of(encodedPayload), List.of(publicKey));
+            verify(enclave).getPublicKeys();
+        }
+    }
+
+    @Test
+    public void executeHandleEnclaveNotAvailable() {
+
+        BatchWorkflowContext encryptedTransactionEvent = new BatchWorkflowContext();
+
+        EncryptedTransaction encryptedTransaction = mock(EncryptedTransaction.class);
+        when(encryptedTransaction.getHash()).thenReturn(mock(MessageHash.class));
+
+        encryptedTransactionEvent.setEncryptedTransaction(encryptedTransaction);
+
+        EncodedPayload encodedPayload = mock(EncodedPayload.class);
+
+        PublicKey publicKey = mock(PublicKey.class);
+
+        encryptedTransactionEvent.setEncodedPayload(encodedPayload);
+
+        when(encodedPayload.getRecipientKeys()).thenReturn(Collections.EMPTY_LIST);
+        when(enclave.getPublicKeys()).thenReturn(Set.of(publicKey));
 
-                        assertThat(encryptedTransactionEvent.getRecipientKey()).isNull();
-                        assertThat(encryptedTransactionEvent.getRecipient()).isNull();
-                        assertThat(encryptedTransactionEvent.getEncryptedTransaction()).isSameAs(encryptedTransaction);
+        when(enclave.unencryptTransactions(List.of(encodedPayload), List.of(publicKey)))
+                .thenThrow(EnclaveNotAvailableException.class);
 
-                        verify(enclave).unencryptTransaction(encodedPayload, publicKey);
-                        verify(enclave).getPublicKeys();
+        try {
+            searchRecipientKeyForPayload.execute(encryptedTransactionEvent);
+            failBecauseExceptionWasNotThrown(RecipientKeyNotFoundException.class);
+        } catch (RecipientKeyNotFoundException ex) {
+            assertThat(encryptedTransactionEvent.getEncodedPayload()).isSameAs(encodedPayload);
 
-                        verifyNoMoreInteractions(enclave);
-                        reset(enclave);
-                    }
-                });
+            verify(enclave).unencryptTransactions(List.of(encodedPayload), List.of(publicKey));
+            verify(enclave).getPublicKeys();
+        }
     }
 
     @Test
@@ -0,0 +1,59 @@
+package com.quorum.tessera.benchmark;
+
+import com.quorum.tessera.ServiceLoaderUtil;
+import com.quorum.tessera.encryption.Encryptor;
+import com.quorum.tessera.encryption.EncryptorFactory;
+import com.quorum.tessera.encryption.KeyPair;
+
+import java.util.*;
+
+/** Shared fixtures for the benchmarks */
+final class BenchmarkData {
+
+    // a fixed seed keeps the generated data identical between runs
+    private static final Random RANDOM = new Random(42);
+
+    private static final Map<String, String> ENCRYPTOR_FACTORIES =
+            Map.of(
+                    "NACL", "com.quorum.tessera.nacl.jnacl.JnaclFactory",
+                    "KALIUM", "com.quorum.tessera.nacl.kalium.KaliumFactory",
+                    "EC", "com.jpmorgan.quorum.encryption.ec.EllipticalCurveEncryptorFactory");
+
+    private BenchmarkData() {}
+
+    static byte[] randomBytes(final int size) {
+        final byte[] data = new byte[size];
+        RANDOM.nextBytes(data);
+        return data;
+    }
+
+    /**
+     * Creates the encryptor with the given name. Factories are matched by class, since the jnacl and Kalium
+     * implementations both identify themselves as NACL.
+     *
+     * <p>The Kalium encryptor is only on the classpath when built with the {@code kalium} profile, and needs libsodium
+     * to be installed.
+     *
+     * @param name one of NACL, KALIUM or EC
+     * @return the encryptor
+     */
+    static Encryptor encryptor(final String name) {
+        final String factoryClassName =
+                Optional.ofNullable(ENCRYPTOR_FACTORIES.get(name))
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown encryptor " + name));
+
+        return ServiceLoaderUtil.loadAll(EncryptorFactory.class)
+                .filter(factory -> factory.getClass().getName().equals(factoryClassName))
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Encryptor " + name + " is not on the classpath"))
+                .create();
+    }
+
+    static List<KeyPair> generateKeys(final Encryptor encryptor, final int count) {
+        final List<KeyPair> keys = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            keys.add(encryptor.generateNewKeys());
+        }
+        return keys;
+    }
+}
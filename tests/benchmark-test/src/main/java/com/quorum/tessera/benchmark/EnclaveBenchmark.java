@@ -0,0 +1,110 @@
+package com.quorum.tessera.benchmark;
+
+import com.quorum.tessera.enclave.*;
+import com.quorum.tessera.encryption.Encryptor;
+import com.quorum.tessera.encryption.KeyManagerImpl;
+import com.quorum.tessera.encryption.KeyPair;
+import com.quorum.tessera.encryption.PublicKey;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures encrypting a payload for a number of recipients, and decrypting it again on a receiving node, for each of
+ * the supported encryptors.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnclaveBenchmark {
+
+    /** KALIUM can also be given, for a build with the {@code kalium} profile */
+    @Param({"NACL", "EC"})
+    public String encryptor;
+
+    @Param({"1024", "65536"})
+    public int payloadSize;
+
+    @Param({"1", "10", "100"})
+    public int recipientCount;
+
+    /** Whether computed shared keys are kept between calls, as they are in a running node */
+    @Param({"true", "false"})
+    public boolean cacheSharedKeys;
+
+    /** The fewest recipients whose boxes are sealed in parallel, or 0 to always seal them in sequence */
+    @Param({"0", "16"})
+    public int parallelSealingThreshold;
+
+    private ForkJoinPool sealingPool;
+
+    private Enclave senderEnclave;
+
+    private Enclave recipientEnclave;
+
+    private PublicKey senderKey;
+
+    private List<PublicKey> recipientKeys;
+
+    private byte[] message;
+
+    private EncodedPayload receivedPayload;
+
+    private PublicKey receivedBy;
+
+    @Setup
+    public void setUp() {
+        final Encryptor encryptorImpl = BenchmarkData.encryptor(encryptor);
+        sealingPool = parallelSealingThreshold > 0 ? new ForkJoinPool() : null;
+
+        final KeyPair senderKeyPair = encryptorImpl.generateNewKeys();
+        final List<KeyPair> recipientKeyPairs = BenchmarkData.generateKeys(encryptorImpl, recipientCount);
+
+        senderKey = senderKeyPair.getPublicKey();
+        recipientKeys = recipientKeyPairs.stream().map(KeyPair::getPublicKey).collect(Collectors.toList());
+        receivedBy = recipientKeys.get(0);
+
+        senderEnclave = newEnclave(encryptorImpl, senderKeyPair);
+        recipientEnclave = newEnclave(encryptorImpl, recipientKeyPairs.get(0));
+
+        message = BenchmarkData.randomBytes(payloadSize);
+
+        final EncodedPayload payload = encryptPayload();
+        receivedPayload = PayloadEncoder.create().forRecipient(payload, receivedBy);
+    }
+
+    private Enclave newEnclave(final Encryptor encryptorImpl, final KeyPair keyPair) {
+        final SharedKeyCache sharedKeyCache = cacheSharedKeys ? new SharedKeyCache() : new SharedKeyCache(0);
+        return new EnclaveImpl(
+                encryptorImpl,
+                new KeyManagerImpl(List.of(keyPair), Collections.emptyList()),
+                sharedKeyCache,
+                sealingPool,
+                parallelSealingThreshold);
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (sealingPool != null) {
+            sealingPool.shutdown();
+        }
+    }
+
+    @Benchmark
+    public EncodedPayload encryptPayload() {
+        return senderEnclave.encryptPayload(
+                message, senderKey, recipientKeys, PrivacyMode.STANDARD_PRIVATE, Collections.emptyList(), new byte[0]);
+    }
+
+    @Benchmark
+    public byte[] unencryptTransaction() {
+        return recipientEnclave.unencryptTransaction(receivedPayload, receivedBy);
+    }
+}
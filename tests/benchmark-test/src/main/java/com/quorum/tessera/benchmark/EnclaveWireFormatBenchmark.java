@@ -0,0 +1,88 @@
+package com.quorum.tessera.benchmark;
+
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.enclave.rest.BinaryEnclaveMessageProvider;
+import com.quorum.tessera.enclave.rest.EnclavePayload;
+import org.openjdk.jmh.annotations.*;
+
+import javax.xml.bind.JAXBContext;
+import javax.xml.bind.JAXBException;
+import javax.xml.bind.Marshaller;
+import javax.xml.bind.Unmarshaller;
+import javax.xml.transform.stream.StreamSource;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the JSON and binary forms of the remote enclave protocol, by writing an encrypt request as the client does
+ * and reading it back as the enclave does. The JSON form is produced by MOXy, as used by Jersey.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EnclaveWireFormatBenchmark {
+
+    public enum Format {
+        JSON,
+        BINARY
+    }
+
+    @Param({"JSON", "BINARY"})
+    public Format format;
+
+    @Param({"1024", "65536", "1048576"})
+    public int payloadSize;
+
+    @Param({"1", "100"})
+    public int recipientCount;
+
+    private EnclavePayload payload;
+
+    private JAXBContext jaxbContext;
+
+    @Setup
+    public void setUp() throws JAXBException {
+        System.setProperty("javax.xml.bind.JAXBContextFactory", "org.eclipse.persistence.jaxb.JAXBContextFactory");
+        jaxbContext = JAXBContext.newInstance(EnclavePayload.class);
+
+        final List<byte[]> recipients = new ArrayList<>();
+        for (int i = 0; i < recipientCount; i++) {
+            recipients.add(BenchmarkData.randomBytes(32));
+        }
+
+        payload = new EnclavePayload();
+        payload.setData(BenchmarkData.randomBytes(payloadSize));
+        payload.setSenderKey(BenchmarkData.randomBytes(32));
+        payload.setRecipientPublicKeys(recipients);
+        payload.setPrivacyMode(PrivacyMode.STANDARD_PRIVATE);
+        payload.setAffectedContractTransactions(List.of());
+        payload.setExecHash(new byte[0]);
+    }
+
+    @Benchmark
+    public EnclavePayload roundTrip() throws JAXBException {
+        if (format == Format.BINARY) {
+            final byte[] encoded = BinaryEnclaveMessageProvider.encode(payload);
+            return BinaryEnclaveMessageProvider.decode(EnclavePayload.class, encoded);
+        }
+
+        final Marshaller marshaller = jaxbContext.createMarshaller();
+        marshaller.setProperty("eclipselink.media-type", "application/json");
+        marshaller.setProperty("eclipselink.json.include-root", false);
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        marshaller.marshal(payload, output);
+
+        final Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+        unmarshaller.setProperty("eclipselink.media-type", "application/json");
+        unmarshaller.setProperty("eclipselink.json.include-root", false);
+        return unmarshaller
+                .unmarshal(new StreamSource(new ByteArrayInputStream(output.toByteArray())), EnclavePayload.class)
+                .getValue();
+    }
+}
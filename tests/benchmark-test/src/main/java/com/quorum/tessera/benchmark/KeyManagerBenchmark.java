@@ -0,0 +1,65 @@
+package com.quorum.tessera.benchmark;
+
+import com.quorum.tessera.encryption.KeyManagerImpl;
+import com.quorum.tessera.encryption.KeyPair;
+import com.quorum.tessera.encryption.PrivateKey;
+import com.quorum.tessera.encryption.PublicKey;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the key lookups made by the enclave on every send and receive, for nodes hosting different numbers of
+ * keys. The looked up key is the last one generated, so a scan of the keys would have to pass most of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class KeyManagerBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int keyCount;
+
+    private KeyManagerImpl keyManager;
+
+    private PublicKey publicKey;
+
+    private PrivateKey privateKey;
+
+    @Setup
+    public void setUp() {
+        final List<KeyPair> keys = new ArrayList<>();
+        for (int i = 0; i < keyCount; i++) {
+            keys.add(
+                    new KeyPair(
+                            PublicKey.from(BenchmarkData.randomBytes(32)),
+                            PrivateKey.from(BenchmarkData.randomBytes(32))));
+        }
+
+        keyManager = new KeyManagerImpl(keys, Collections.emptyList());
+        publicKey = keys.get(keyCount - 1).getPublicKey();
+        privateKey = keys.get(keyCount - 1).getPrivateKey();
+    }
+
+    @Benchmark
+    public PrivateKey privateKeyForPublicKey() {
+        return keyManager.getPrivateKeyForPublicKey(publicKey);
+    }
+
+    @Benchmark
+    public PublicKey publicKeyForPrivateKey() {
+        return keyManager.getPublicKeyForPrivateKey(privateKey);
+    }
+
+    @Benchmark
+    public Set<PublicKey> publicKeys() {
+        return keyManager.getPublicKeys();
+    }
+}
@@ -0,0 +1,122 @@
+package com.quorum.tessera.benchmark;
+
+import com.quorum.tessera.discovery.Discovery;
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.partyinfo.node.NodeInfo;
+import com.quorum.tessera.q2t.AsyncBatchPayloadPublisher;
+import com.quorum.tessera.threading.CancellableCountDownLatchFactory;
+import com.quorum.tessera.threading.ExecutorFactory;
+import com.quorum.tessera.threading.ExecutorSettings;
+import com.quorum.tessera.transaction.publish.PayloadPublisher;
+import org.openjdk.jmh.annotations.*;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures publishing a payload to many recipients, where each push blocks for a fixed network round trip, with the
+ * outbound executor on platform threads and on virtual threads.
+ *
+ * <p>On platform threads the pushes beyond the executor's thread limit wait in its queue, so the time grows in steps
+ * with the recipient count. Virtual threads are only used on a JVM that supports them, and fall back to platform
+ * threads otherwise.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OutboundFanOutBenchmark {
+
+    public enum ThreadMode {
+        PLATFORM,
+        VIRTUAL
+    }
+
+    @Param({"PLATFORM", "VIRTUAL"})
+    public ThreadMode threadMode;
+
+    @Param({"10", "100", "1000"})
+    public int recipientCount;
+
+    /** The simulated round trip of a single push */
+    @Param({"5"})
+    public int latencyMillis;
+
+    private AsyncBatchPayloadPublisher batchPublisher;
+
+    private EncodedPayload payload;
+
+    private List<PublicKey> recipients;
+
+    @Setup
+    public void setUp() {
+        recipients = new ArrayList<>();
+        final List<byte[]> recipientBoxes = new ArrayList<>();
+        for (int i = 0; i < recipientCount; i++) {
+            recipients.add(PublicKey.from(BenchmarkData.randomBytes(32)));
+            recipientBoxes.add(BenchmarkData.randomBytes(48));
+        }
+
+        payload =
+                EncodedPayload.Builder.create()
+                        .withSenderKey(PublicKey.from(BenchmarkData.randomBytes(32)))
+                        .withCipherText(BenchmarkData.randomBytes(1024))
+                        .withCipherTextNonce(BenchmarkData.randomBytes(24))
+                        .withRecipientBoxes(recipientBoxes)
+                        .withRecipientNonce(BenchmarkData.randomBytes(24))
+                        .withRecipientKeys(recipients)
+                        .withPrivacyMode(PrivacyMode.STANDARD_PRIVATE)
+                        .build();
+
+        final PayloadPublisher blockingPublisher =
+                (outgoing, recipient) -> {
+                    try {
+                        Thread.sleep(latencyMillis);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                };
+
+        // the executor reads the opt-in when it is created, so it only needs to be set for the constructor
+        System.setProperty(
+                ExecutorSettings.P2P_VIRTUAL_THREADS_PROPERTY, Boolean.toString(threadMode == ThreadMode.VIRTUAL));
+        try {
+            batchPublisher =
+                    new AsyncBatchPayloadPublisher(
+                            new ExecutorFactory(),
+                            new CancellableCountDownLatchFactory(),
+                            blockingPublisher,
+                            PayloadEncoder.create(),
+                            new SingleNodeDiscovery());
+        } finally {
+            System.clearProperty(ExecutorSettings.P2P_VIRTUAL_THREADS_PROPERTY);
+        }
+    }
+
+    @Benchmark
+    public void publishPayload() {
+        batchPublisher.publishPayload(payload, recipients);
+    }
+
+    /** Only consulted when the publisher can push to several recipients at once, which the blocking one cannot */
+    private static class SingleNodeDiscovery implements Discovery {
+
+        @Override
+        public void onUpdate(NodeInfo nodeInfo) {}
+
+        @Override
+        public void onDisconnect(URI nodeUri) {}
+
+        @Override
+        public NodeInfo getRemoteNodeInfo(PublicKey publicKey) {
+            return NodeInfo.Builder.create().withUrl("http://localhost:9001").build();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.quorum.tessera.benchmark;
+
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.p2p.partyinfo.PartyInfoParser;
+import com.quorum.tessera.partyinfo.model.Party;
+import com.quorum.tessera.partyinfo.model.PartyInfo;
+import com.quorum.tessera.partyinfo.model.Recipient;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/** Measures encoding and decoding of the party info exchanged between nodes, for networks of varying size */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PartyInfoParserBenchmark {
+
+    @Param({"10", "100", "1000"})
+    public int nodeCount;
+
+    private final PartyInfoParser partyInfoParser = PartyInfoParser.create();
+
+    private PartyInfo partyInfo;
+
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() {
+        final Set<Recipient> recipients = new HashSet<>();
+        final Set<Party> parties = new HashSet<>();
+        for (int i = 0; i < nodeCount; i++) {
+            final String url = "http://node" + i + ".example.com:9001/";
+            recipients.add(Recipient.of(PublicKey.from(BenchmarkData.randomBytes(32)), url));
+            parties.add(new Party(url));
+        }
+
+        partyInfo = new PartyInfo("http://node.example.com:9001/", recipients, parties);
+        encoded = partyInfoParser.to(partyInfo);
+    }
+
+    @Benchmark
+    public byte[] to() {
+        return partyInfoParser.to(partyInfo);
+    }
+
+    @Benchmark
+    public PartyInfo from() {
+        return partyInfoParser.from(encoded);
+    }
+}
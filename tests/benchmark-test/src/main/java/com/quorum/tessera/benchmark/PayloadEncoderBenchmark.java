@@ -0,0 +1,80 @@
+package com.quorum.tessera.benchmark;
+
+import com.quorum.tessera.enclave.EncodedPayload;
+import com.quorum.tessera.enclave.PayloadEncoder;
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.encryption.PublicKey;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Measures encoding, decoding and stripping of payloads of varying size and recipient count */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadEncoderBenchmark {
+
+    @Param({"1024", "65536", "1048576"})
+    public int payloadSize;
+
+    @Param({"1", "10", "100"})
+    public int recipientCount;
+
+    private final PayloadEncoder payloadEncoder = PayloadEncoder.create();
+
+    private EncodedPayload payload;
+
+    private byte[] encoded;
+
+    private PublicKey recipient;
+
+    @Setup
+    public void setUp() {
+        final List<PublicKey> recipients = new ArrayList<>();
+        final List<byte[]> recipientBoxes = new ArrayList<>();
+        for (int i = 0; i < recipientCount; i++) {
+            recipients.add(PublicKey.from(BenchmarkData.randomBytes(32)));
+            recipientBoxes.add(BenchmarkData.randomBytes(48));
+        }
+        recipient = recipients.get(recipientCount - 1);
+
+        payload =
+                EncodedPayload.Builder.create()
+                        .withSenderKey(PublicKey.from(BenchmarkData.randomBytes(32)))
+                        .withCipherText(BenchmarkData.randomBytes(payloadSize))
+                        .withCipherTextNonce(BenchmarkData.randomBytes(24))
+                        .withRecipientBoxes(recipientBoxes)
+                        .withRecipientNonce(BenchmarkData.randomBytes(24))
+                        .withRecipientKeys(recipients)
+                        .withPrivacyMode(PrivacyMode.STANDARD_PRIVATE)
+                        .build();
+
+        encoded = payloadEncoder.encode(payload);
+    }
+
+    @Benchmark
+    public byte[] encode() {
+        return payloadEncoder.encode(payload);
+    }
+
+    @Benchmark
+    public EncodedPayload decode() {
+        return payloadEncoder.decode(encoded);
+    }
+
+    /** Decoding as done when filtering by sender or recipient, where the rest of the payload is never read */
+    @Benchmark
+    public List<PublicKey> decodeRecipientKeys() {
+        return payloadEncoder.decode(encoded).getRecipientKeys();
+    }
+
+    @Benchmark
+    public EncodedPayload forRecipient() {
+        return payloadEncoder.forRecipient(payload, recipient);
+    }
+}
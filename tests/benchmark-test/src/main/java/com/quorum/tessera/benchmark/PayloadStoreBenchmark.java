@@ -0,0 +1,132 @@
+package com.quorum.tessera.benchmark;
+
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.config.LogStoreConfig;
+import com.quorum.tessera.data.EncryptedTransaction;
+import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.EntityManagerDAOFactory;
+import com.quorum.tessera.data.MessageHash;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the stores that transactions can be kept in: H2 and SQLite databases on disk, reached through JPA, and the
+ * embedded log store. Each trial starts from an empty store in a new temporary directory, which is filled with
+ * {@value #PRELOADED} transactions before measuring.
+ *
+ * <p>The log store and SQLite wait for every write to reach the disk, while H2 leaves that to its background writer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PayloadStoreBenchmark {
+
+    private static final int PRELOADED = 10_000;
+
+    private static final int SCAN_PAGE_SIZE = 100;
+
+    public enum Store {
+        H2,
+        SQLITE,
+        LOG_STORE
+    }
+
+    @Param({"H2", "SQLITE", "LOG_STORE"})
+    public Store store;
+
+    @Param({"1024", "16384"})
+    public int payloadSize;
+
+    private Path directory;
+
+    private EncryptedTransactionDAO encryptedTransactionDAO;
+
+    private final List<MessageHash> hashes = new ArrayList<>();
+
+    private final Random random = new Random(42);
+
+    private byte[] payload;
+
+    private long nextHash;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("payload-store");
+
+        final JdbcConfig jdbcConfig;
+        switch (store) {
+            case H2:
+                jdbcConfig = new JdbcConfig("sa", "", "jdbc:h2:" + directory.resolve("h2").toAbsolutePath());
+                break;
+            case SQLITE:
+                jdbcConfig = new JdbcConfig("", "", "jdbc:sqlite:" + directory.resolve("sqlite.db").toAbsolutePath());
+                break;
+            default:
+                // the outbox and staging tables are still kept in a database
+                jdbcConfig = new JdbcConfig("sa", "", "jdbc:h2:mem:payload-store;DB_CLOSE_DELAY=-1");
+                jdbcConfig.setLogStore(new LogStoreConfig(directory.resolve("log-store")));
+                break;
+        }
+        jdbcConfig.setAutoCreateTables(true);
+        final Config config = new Config();
+        config.setJdbcConfig(jdbcConfig);
+
+        encryptedTransactionDAO = EntityManagerDAOFactory.newFactory(config).createEncryptedTransactionDAO();
+
+        payload = BenchmarkData.randomBytes(payloadSize);
+        for (int i = 0; i < PRELOADED; i++) {
+            hashes.add(put().getHash());
+        }
+    }
+
+    /** Removes the files of the store. The store itself is left open until the forked JVM exits. */
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public EncryptedTransaction put() {
+        final byte[] hash = ByteBuffer.allocate(Long.BYTES).putLong(nextHash++).array();
+        return encryptedTransactionDAO.save(new EncryptedTransaction(new MessageHash(hash), payload));
+    }
+
+    @Benchmark
+    public EncryptedTransaction get() {
+        final MessageHash hash = hashes.get(random.nextInt(hashes.size()));
+        return encryptedTransactionDAO.retrieveByHash(hash).orElseThrow();
+    }
+
+    /** Reads every stored transaction in the order they are synced to other nodes, returning the bytes read */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public long scan() {
+        long bytesRead = 0;
+        EncryptedTransaction previous = null;
+        List<EncryptedTransaction> page;
+        do {
+            page = encryptedTransactionDAO.retrieveTransactionsAfter(previous, SCAN_PAGE_SIZE);
+            for (EncryptedTransaction transaction : page) {
+                bytesRead += transaction.getEncodedPayload().length;
+                previous = transaction;
+            }
+        } while (page.size() == SCAN_PAGE_SIZE);
+        return bytesRead;
+    }
+}
@@ -0,0 +1,160 @@
+package com.quorum.tessera.benchmark;
+
+import com.quorum.tessera.config.Config;
+import com.quorum.tessera.config.JdbcConfig;
+import com.quorum.tessera.config.JdbcPerformanceConfig;
+import com.quorum.tessera.data.EncryptedTransactionDAO;
+import com.quorum.tessera.data.EntityManagerDAOFactory;
+import com.quorum.tessera.data.MessageHash;
+import com.quorum.tessera.enclave.Enclave;
+import com.quorum.tessera.enclave.EnclaveImpl;
+import com.quorum.tessera.enclave.PrivacyMode;
+import com.quorum.tessera.encryption.Encryptor;
+import com.quorum.tessera.encryption.KeyManagerImpl;
+import com.quorum.tessera.encryption.KeyPair;
+import com.quorum.tessera.encryption.PublicKey;
+import com.quorum.tessera.transaction.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Measures sending and receiving a transaction through the transaction manager, using the NaCl encryptor and an
+ * in-memory H2 database. Publishing to other nodes is replaced by a no-op, so the figures cover encryption, encoding
+ * and persistence only.
+ *
+ * <p>The database is reached with one of three JDBC profiles: {@code LEGACY} logs statements at FINE as earlier
+ * releases did, {@code DEFAULT} uses the defaults with logging off, and {@code TUNED} also caches prepared statements
+ * and batches writes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransactionManagerBenchmark {
+
+    private static final String JDBC_URL = "jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1";
+
+    @Param({"1024", "16384"})
+    public int payloadSize;
+
+    @Param({"1", "10"})
+    public int recipientCount;
+
+    public enum JdbcProfile {
+        LEGACY,
+        DEFAULT,
+        TUNED
+    }
+
+    @Param({"LEGACY", "DEFAULT", "TUNED"})
+    public JdbcProfile jdbcProfile;
+
+    private TransactionManager transactionManager;
+
+    private PublicKey senderKey;
+
+    private List<PublicKey> recipientKeys;
+
+    private byte[] message;
+
+    private MessageHash storedTransactionHash;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        final Encryptor encryptor = BenchmarkData.encryptor("NACL");
+
+        final KeyPair senderKeyPair = encryptor.generateNewKeys();
+        senderKey = senderKeyPair.getPublicKey();
+        recipientKeys =
+                BenchmarkData.generateKeys(encryptor, recipientCount).stream()
+                        .map(KeyPair::getPublicKey)
+                        .collect(Collectors.toList());
+
+        final Enclave enclave =
+                new EnclaveImpl(encryptor, new KeyManagerImpl(List.of(senderKeyPair), Collections.emptyList()));
+
+        final JdbcConfig jdbcConfig = new JdbcConfig("sa", "", JDBC_URL);
+        jdbcConfig.setAutoCreateTables(true);
+        jdbcConfig.setPerformance(performanceConfig(jdbcProfile));
+        final Config config = new Config();
+        config.setJdbcConfig(jdbcConfig);
+
+        final EntityManagerDAOFactory daoFactory = EntityManagerDAOFactory.newFactory(config);
+        final EncryptedTransactionDAO encryptedTransactionDAO = daoFactory.createEncryptedTransactionDAO();
+
+        transactionManager =
+                new TransactionManagerImpl(
+                        encryptedTransactionDAO,
+                        enclave,
+                        daoFactory.createEncryptedRawTransactionDAO(),
+                        payload -> {},
+                        (payload, recipientKey) -> {},
+                        (payload, keys) -> {},
+                        new PrivacyHelperImpl(encryptedTransactionDAO, false),
+                        1000);
+
+        message = BenchmarkData.randomBytes(payloadSize);
+    }
+
+    private static JdbcPerformanceConfig performanceConfig(final JdbcProfile jdbcProfile) {
+        final JdbcPerformanceConfig performance = new JdbcPerformanceConfig();
+        switch (jdbcProfile) {
+            case LEGACY:
+                performance.setLoggingLevel("FINE");
+                break;
+            case TUNED:
+                performance.setStatementCacheSize(256);
+                performance.setBatchWritingSize(50);
+                break;
+            default:
+                break;
+        }
+        return performance;
+    }
+
+    /** Empties the database so that it does not grow for the whole run, then stores a transaction to receive */
+    @Setup(Level.Iteration)
+    public void prepareIteration() throws SQLException {
+        try (Connection connection = DriverManager.getConnection(JDBC_URL, "sa", "");
+                Statement statement = connection.createStatement()) {
+            statement.execute("DELETE FROM ENCRYPTED_TRANSACTION");
+        }
+        storedTransactionHash = send().getTransactionHash();
+    }
+
+    @Benchmark
+    public SendResponse send() {
+        final SendRequest sendRequest =
+                SendRequest.Builder.create()
+                        .withSender(senderKey)
+                        .withRecipients(recipientKeys)
+                        .withPayload(message)
+                        .withPrivacyMode(PrivacyMode.STANDARD_PRIVATE)
+                        .withAffectedContractTransactions(Collections.emptySet())
+                        .withExecHash(new byte[0])
+                        .build();
+
+        return transactionManager.send(sendRequest);
+    }
+
+    @Benchmark
+    public ReceiveResponse receive() {
+        final ReceiveRequest receiveRequest =
+                ReceiveRequest.Builder.create()
+                        .withTransactionHash(storedTransactionHash)
+                        .withRecipient(senderKey)
+                        .build();
+
+        return transactionManager.receive(receiveRequest);
+    }
+}